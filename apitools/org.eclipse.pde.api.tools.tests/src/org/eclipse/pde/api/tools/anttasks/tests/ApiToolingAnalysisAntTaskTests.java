@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.anttasks.tests;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Properties;
 
 import org.eclipse.core.resources.IFolder;
@@ -133,4 +136,42 @@ public class ApiToolingAnalysisAntTaskTests extends AntRunnerTestCase {
 		assertTrue("deltatest folder must exist", folder.exists()); //$NON-NLS-1$
 		assertTrue("report.xml file must be there", folder.getFile("report.xml").exists()); //$NON-NLS-1$ //$NON-NLS-2$
 	}
+
+	/**
+	 * Runs the analysis of test8 with the given number of threads
+	 *
+	 * @return the folder of the reports
+	 */
+	private File runAnalysis(IFolder buildFolder, String threads) throws Exception {
+		String buildXMLPath = buildFolder.getFile("build.xml").getLocation().toOSString(); //$NON-NLS-1$
+		File reports = buildFolder.getLocation().append("reports" + threads).toFile(); //$NON-NLS-1$
+		Properties properties = new Properties();
+		properties.put("reference_location", buildFolder.getFile("before").getLocation().toOSString()); //$NON-NLS-1$ //$NON-NLS-2$
+		properties.put("current_location", buildFolder.getFile("after").getLocation().toOSString()); //$NON-NLS-1$ //$NON-NLS-2$
+		properties.put("report_location", reports.getAbsolutePath()); //$NON-NLS-1$
+		properties.put("threads", threads); //$NON-NLS-1$
+		runAntScript(buildXMLPath, new String[] { "run" }, buildFolder.getLocation().toOSString(), properties); //$NON-NLS-1$
+		assertFalse("allNonApiBundles must not exist", new File(reports, "allNonApiBundles").exists()); //$NON-NLS-1$ //$NON-NLS-2$
+		return reports;
+	}
+
+	/**
+	 * Test for analyzing the components concurrently, which must write the
+	 * same reports as a serial analysis
+	 */
+	public void test8() throws Exception {
+		IFolder buildFolder = newTest("test8"); //$NON-NLS-1$
+		File serial = runAnalysis(buildFolder, "1"); //$NON-NLS-1$
+		File parallel = runAnalysis(buildFolder, "2"); //$NON-NLS-1$
+		String[] names = new String[] { "deltatest", "deltatest1", "deltatest2" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		for (String name : names) {
+			File expected = new File(new File(serial, name), "report.xml"); //$NON-NLS-1$
+			File actual = new File(new File(parallel, name), "report.xml"); //$NON-NLS-1$
+			assertTrue(name + " serial report.xml file must be there", expected.isFile()); //$NON-NLS-1$
+			assertTrue(name + " report.xml file must be there", actual.isFile()); //$NON-NLS-1$
+			String contents = new String(Files.readAllBytes(expected.toPath()), StandardCharsets.UTF_8);
+			assertTrue(name + " report must list problems", contents.contains("<api_problem ")); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals(name + " report differs from the serial one", contents, new String(Files.readAllBytes(actual.toPath()), StandardCharsets.UTF_8)); //$NON-NLS-1$
+		}
+	}
 }
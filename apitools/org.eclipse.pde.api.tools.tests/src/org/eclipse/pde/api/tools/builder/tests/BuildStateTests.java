@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.builder.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.pde.api.tools.internal.builder.BuildState;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.comparator.IDelta;
+
+/**
+ * Tests saving and reading the {@link BuildState}
+ *
+ * @since 1.1.100
+ */
+public class BuildStateTests extends TestCase {
+
+	private static final int LEGACY_VERSION = 33;
+
+	private static final String COMPATIBLE_TYPE = "a.b.Compatible"; //$NON-NLS-1$
+	private static final String BREAKING_TYPE = "a.b.Breaking"; //$NON-NLS-1$
+
+	/**
+	 * Writes the start of a state in the given version
+	 */
+	private static void writeHeader(DataOutputStream out, int version) throws IOException {
+		out.writeUTF(ApiPlugin.PLUGIN_ID);
+		out.writeUTF("STATE"); //$NON-NLS-1$
+		out.writeInt(version);
+		out.writeBoolean(true);
+	}
+
+	/**
+	 * Writes a delta in the legacy format
+	 */
+	private static void writeLegacyDelta(DataOutputStream out, int kind, String typeName, String key, String[] arguments) throws IOException {
+		out.writeBoolean(false);
+		out.writeInt(IDelta.CLASS_ELEMENT_TYPE);
+		out.writeInt(kind);
+		out.writeInt(IDelta.METHOD);
+		out.writeInt(0);
+		out.writeInt(1);
+		out.writeInt(1);
+		out.writeUTF(typeName);
+		out.writeUTF(key);
+		out.writeInt(arguments.length);
+		for (String argument : arguments) {
+			out.writeUTF(argument);
+		}
+	}
+
+	/**
+	 * @return a state saved in the legacy format
+	 */
+	private static byte[] createLegacyState() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		writeHeader(out, LEGACY_VERSION);
+		out.writeLong(42);
+		out.writeInt(1);
+		writeLegacyDelta(out, IDelta.ADDED, COMPATIBLE_TYPE, "m()V", new String[] { "Compatible", "m()" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		out.writeInt(1);
+		writeLegacyDelta(out, IDelta.REMOVED, BREAKING_TYPE, "n(I)V", new String[] { "n(int)" }); //$NON-NLS-1$ //$NON-NLS-2$
+		out.writeInt(1);
+		out.writeUTF("reexported.component"); //$NON-NLS-1$
+		out.writeInt(1);
+		out.writeUTF("dependent.project"); //$NON-NLS-1$
+		out.writeInt(1);
+		out.writeUTF("Bundle-Version"); //$NON-NLS-1$
+		out.writeUTF("1.0.0"); //$NON-NLS-1$
+		out.writeInt(1);
+		out.writeUTF("bin.includes"); //$NON-NLS-1$
+		out.writeUTF("plugin.xml"); //$NON-NLS-1$
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private static BuildState read(byte[] bytes) throws IOException {
+		return BuildState.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+	private static byte[] write(BuildState state) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		BuildState.write(state, out);
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private static void assertDelta(IDelta delta, int kind, String typeName, String key, String[] arguments) {
+		assertEquals("Wrong kind", kind, delta.getKind()); //$NON-NLS-1$
+		assertEquals("Wrong element type", IDelta.CLASS_ELEMENT_TYPE, delta.getElementType()); //$NON-NLS-1$
+		assertEquals("Wrong flags", IDelta.METHOD, delta.getFlags()); //$NON-NLS-1$
+		assertEquals("Wrong type name", typeName, delta.getTypeName()); //$NON-NLS-1$
+		assertEquals("Wrong key", key, delta.getKey()); //$NON-NLS-1$
+		assertTrue("Wrong arguments", Arrays.equals(arguments, delta.getArguments())); //$NON-NLS-1$
+	}
+
+	/**
+	 * Asserts that the given state holds the content of the legacy state
+	 */
+	private static void assertLegacyContent(BuildState state) {
+		assertNotNull("The state should be read", state); //$NON-NLS-1$
+		assertEquals("Wrong build path CRC", 42, state.getBuildPathCRC()); //$NON-NLS-1$
+		assertTrue("Wrong re-exported components", Arrays.equals(new String[] { "reexported.component" }, state.getReexportedComponents())); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("Wrong dependent projects", 1, state.getApiToolingDependentProjects().size()); //$NON-NLS-1$
+		assertTrue("Wrong dependent projects", state.getApiToolingDependentProjects().contains("dependent.project")); //$NON-NLS-1$ //$NON-NLS-2$
+		Map<String, String> manifest = state.getManifestState();
+		assertEquals("Wrong manifest state", "1.0.0", manifest.get("Bundle-Version")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertEquals("Wrong build.properties state", "plugin.xml", state.getBuildPropertiesState().get("bin.includes")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		IDelta[] compatible = state.getCompatibleChanges();
+		assertEquals("Wrong number of compatible changes", 1, compatible.length); //$NON-NLS-1$
+		assertDelta(compatible[0], IDelta.ADDED, COMPATIBLE_TYPE, "m()V", new String[] { "Compatible", "m()" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		IDelta[] breaking = state.getBreakingChanges();
+		assertEquals("Wrong number of breaking changes", 1, breaking.length); //$NON-NLS-1$
+		assertDelta(breaking[0], IDelta.REMOVED, BREAKING_TYPE, "n(I)V", new String[] { "n(int)" }); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Tests that a state of the legacy version is read and migrated to the
+	 * current format when written
+	 */
+	public void testMigrateLegacyState() throws IOException {
+		BuildState state = read(createLegacyState());
+		assertLegacyContent(state);
+		byte[] migrated = write(state);
+		assertLegacyContent(read(migrated));
+	}
+
+	/**
+	 * Tests that a state written and read again, with and without decoding
+	 * its deltas, keeps its content
+	 */
+	public void testRoundTrip() throws IOException {
+		byte[] bytes = write(read(createLegacyState()));
+		// the deltas are copied without being decoded
+		byte[] copied = write(read(bytes));
+		assertLegacyContent(read(copied));
+		// the deltas are decoded and written again
+		BuildState decoded = read(bytes);
+		assertEquals("Wrong number of compatible changes", 1, decoded.getCompatibleChanges().length); //$NON-NLS-1$
+		assertLegacyContent(read(write(decoded)));
+	}
+
+	/**
+	 * Tests that the constant pool only holds the strings of the saved state
+	 * and does not grow when the state is saved repeatedly
+	 */
+	public void testConstantPoolHoldsLiveStrings() throws IOException {
+		byte[] first = write(read(createLegacyState()));
+		byte[] second = write(read(first));
+		byte[] third = write(read(second));
+		assertEquals("The state should not grow", first.length, second.length); //$NON-NLS-1$
+		assertEquals("The state should not grow", second.length, third.length); //$NON-NLS-1$
+
+		BuildState state = read(third);
+		state.cleanup(BREAKING_TYPE);
+		byte[] cleaned = write(read(write(state)));
+		String content = new String(cleaned, StandardCharsets.ISO_8859_1);
+		assertFalse("The removed type should not be in the pool", content.contains(BREAKING_TYPE)); //$NON-NLS-1$
+		assertFalse("The arguments of the removed delta should not be in the pool", content.contains("n(int)")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue("The kept type should be in the pool", content.contains(COMPATIBLE_TYPE)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that a delta referring to a string outside of the constant pool is
+	 * rejected when the state is read, not when the deltas are decoded
+	 */
+	public void testCorruptDeltaIndex() throws IOException {
+		byte[] bytes = write(read(createLegacyState()));
+		// the last int is the index of the last argument of the breaking delta
+		int last = bytes.length - 4;
+		bytes[last] = 0x7F;
+		bytes[last + 1] = 0;
+		bytes[last + 2] = 0;
+		bytes[last + 3] = 0;
+		try {
+			read(bytes);
+			fail("A corrupt state should not be read"); //$NON-NLS-1$
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Tests that a truncated state is rejected when it is read
+	 */
+	public void testTruncatedState() throws IOException {
+		byte[] bytes = write(read(createLegacyState()));
+		try {
+			read(Arrays.copyOf(bytes, bytes.length - 6));
+			fail("A truncated state should not be read"); //$NON-NLS-1$
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Tests that a state of an unsupported version is not read, which
+	 * requires a full build
+	 */
+	public void testUnsupportedVersion() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		writeHeader(out, LEGACY_VERSION - 1);
+		out.flush();
+		assertNull("An old state should not be read", read(bytes.toByteArray())); //$NON-NLS-1$
+	}
+}
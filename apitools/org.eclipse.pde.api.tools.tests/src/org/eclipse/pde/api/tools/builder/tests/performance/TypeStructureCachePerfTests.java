@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.builder.tests.performance;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.pde.api.tools.internal.model.ApiType;
+import org.eclipse.pde.api.tools.internal.model.TypeStructureBuilder;
+import org.eclipse.pde.api.tools.internal.model.TypeStructureCache;
+import org.eclipse.pde.api.tools.internal.util.Util;
+import org.eclipse.pde.api.tools.model.tests.TestSuiteHelper;
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.Performance;
+import org.eclipse.test.performance.PerformanceMeter;
+import org.eclipse.test.performance.PerformanceTestCase;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Performance tests for the {@link TypeStructureCache}
+ *
+ * @since 1.1.100
+ */
+public class TypeStructureCachePerfTests extends PerformanceTestCase {
+
+	private static final long ARCHIVE_CRC = 42;
+
+	private File fRoot;
+	private String fLocation;
+	private List<ZipEntry> fEntries = new ArrayList<>();
+	private List<byte[]> fContents = new ArrayList<>();
+
+	public TypeStructureCachePerfTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(TypeStructureCachePerfTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fRoot = new File(System.getProperty("java.io.tmpdir"), "type-structure-cache-perf"); //$NON-NLS-1$ //$NON-NLS-2$
+		deleteRoot();
+		File jar = TestSuiteHelper.getPluginDirectoryPath().append("test-jars").append("sample.jar").toFile(); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue("Missing jar file: sample.jar", jar.exists()); //$NON-NLS-1$
+		fLocation = jar.getAbsolutePath();
+		try (ZipFile zip = new ZipFile(jar)) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.getName().endsWith(Util.DOT_CLASS_SUFFIX)) {
+					try (InputStream stream = zip.getInputStream(entry)) {
+						fEntries.add(entry);
+						fContents.add(Util.getInputStreamAsByteArray(stream, -1));
+					}
+				}
+			}
+		}
+		assertFalse("There should be class files in the sample jar", fEntries.isEmpty()); //$NON-NLS-1$
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		deleteRoot();
+		super.tearDown();
+	}
+
+	private void deleteRoot() {
+		File[] files = fRoot.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		fRoot.delete();
+	}
+
+	/**
+	 * Builds the type structures of the sample jar with ASM
+	 */
+	private void buildAll() {
+		for (byte[] bytes : fContents) {
+			assertNotNull("The type should have been built", TypeStructureBuilder.buildTypeStructure(bytes, null, null)); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Reads the type structures of the sample jar from a new cache
+	 */
+	private void readAll() {
+		TypeStructureCache warm = new TypeStructureCache(fRoot, Long.MAX_VALUE);
+		for (ZipEntry entry : fEntries) {
+			assertNotNull("The type should be cached", warm.getStructure(fLocation, ARCHIVE_CRC, entry.getName(), entry.getCrc(), null, null)); //$NON-NLS-1$
+		}
+		assertEquals("No type should be missing from the cache", 0, warm.getMissCount()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Compares building the type structures of the sample jar with ASM (cold)
+	 * to decoding them from a saved cache (warm)
+	 *
+	 * @throws Exception
+	 */
+	public void testColdVersusWarm() throws Exception {
+		tagAsSummary("Read type structures from the cache", Dimension.ELAPSED_PROCESS); //$NON-NLS-1$
+
+		TypeStructureCache cache = new TypeStructureCache(fRoot, Long.MAX_VALUE);
+		for (int i = 0; i < fEntries.size(); i++) {
+			ZipEntry entry = fEntries.get(i);
+			cache.putStructure(fLocation, ARCHIVE_CRC, entry.getName(), entry.getCrc(), (ApiType) TypeStructureBuilder.buildTypeStructure(fContents.get(i), null, null));
+		}
+		cache.save(fLocation);
+
+		// WARM-UP
+		for (int j = 0; j < 5; j++) {
+			buildAll();
+			readAll();
+		}
+
+		// TEST
+		Performance performance = Performance.getDefault();
+		PerformanceMeter cold = performance.createPerformanceMeter(performance.getDefaultScenarioId(this, "cold")); //$NON-NLS-1$
+		try {
+			for (int j = 0; j < 20; j++) {
+				cold.start();
+				buildAll();
+				cold.stop();
+			}
+			cold.commit();
+			performance.assertPerformance(cold);
+		} finally {
+			cold.dispose();
+		}
+		for (int j = 0; j < 20; j++) {
+			startMeasuring();
+			readAll();
+			stopMeasuring();
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2014 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -46,6 +46,7 @@ public class AllDeltaTests extends TestSuite {
 		addTest(new TestSuite(BundlesDeltaTests.class));
 		addTest(new TestSuite(RestrictionsDeltaTests.class));
 		addTest(new TestSuite(ApiScopeDeltaTests.class));
+		addTest(new TestSuite(ParallelMemberComparisonTests.class));
 		if (ProjectUtils.isJava8Compatible()) {
 			addTest(new TestSuite(Java8DeltaTests.class));
 		}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.comparator.tests;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.eclipse.pde.api.tools.internal.comparator.ClassFileComparator;
+import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.comparator.ApiComparator;
+import org.eclipse.pde.api.tools.internal.provisional.comparator.IDelta;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.model.tests.TestSuiteHelper;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests that comparing the fields and methods of types in parallel creates
+ * the same delta tree, in the same order, as a sequential comparison for
+ * every fixture of the delta tests.
+ *
+ * @since 1.1.100
+ */
+public class ParallelMemberComparisonTests extends DeltaTestSetup {
+
+	private String fTestRoot;
+
+	public static Test suite() {
+		return new TestSuite(ParallelMemberComparisonTests.class);
+	}
+
+	public ParallelMemberComparisonTests(String name) {
+		super(name);
+	}
+
+	@Override
+	public String getTestRoot() {
+		return fTestRoot;
+	}
+
+	/**
+	 * Compares the bundles of the current fixture
+	 *
+	 * @return the dump of the delta, empty if the fixture does not have the
+	 *         default bundle
+	 */
+	private String compare() {
+		IApiBaseline before = getBeforeState();
+		IApiBaseline after = getAfterState();
+		try {
+			IApiComponent beforeApiComponent = before.getApiComponent(BUNDLE_NAME);
+			IApiComponent afterApiComponent = after.getApiComponent(BUNDLE_NAME);
+			if (beforeApiComponent == null || afterApiComponent == null) {
+				return ""; //$NON-NLS-1$
+			}
+			return dump(ApiComparator.compare(beforeApiComponent, afterApiComponent, before, after, VisibilityModifiers.ALL_VISIBILITIES, null));
+		} finally {
+			before.dispose();
+			after.dispose();
+		}
+	}
+
+	/**
+	 * Appends the given delta and its children in order
+	 */
+	private static void dump(IDelta delta, String indent, StringBuilder buffer) {
+		buffer.append(indent).append(delta.getKind()).append(' ').append(delta.getElementType()).append(' ').append(delta.getFlags()).append(' ').append(delta.getKey()).append(' ').append(delta.getTypeName()).append(' ').append(Arrays.toString(delta.getArguments())).append('\n');
+		for (IDelta child : delta.getChildren()) {
+			dump(child, indent + ' ', buffer);
+		}
+	}
+
+	private static String dump(IDelta delta) {
+		StringBuilder buffer = new StringBuilder();
+		if (delta != null) {
+			dump(delta, "", buffer); //$NON-NLS-1$
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Compares every fixture of the given folder sequentially and in parallel
+	 *
+	 * @param root the folder of the fixtures
+	 */
+	private void assertSameDeltas(String root) throws Exception {
+		fTestRoot = root;
+		File[] tests = TestSuiteHelper.getPluginDirectoryPath().append("tests-deltas").append(root).toFile().listFiles(); //$NON-NLS-1$
+		assertNotNull("missing fixtures of " + root, tests); //$NON-NLS-1$
+		Arrays.sort(tests);
+		String parallel = System.getProperty(ClassFileComparator.PARALLEL_COMPARISON_PROPERTY);
+		String threshold = System.getProperty(ClassFileComparator.PARALLEL_THRESHOLD_PROPERTY);
+		int compared = 0;
+		try {
+			for (File test : tests) {
+				if (!new File(test, BEFORE).isDirectory() || !new File(test, AFTER).isDirectory()) {
+					continue;
+				}
+				deployBundles(test.getName());
+				System.setProperty(ClassFileComparator.PARALLEL_COMPARISON_PROPERTY, Boolean.FALSE.toString());
+				String expected = compare();
+				System.setProperty(ClassFileComparator.PARALLEL_COMPARISON_PROPERTY, Boolean.TRUE.toString());
+				System.setProperty(ClassFileComparator.PARALLEL_THRESHOLD_PROPERTY, "0"); //$NON-NLS-1$
+				assertEquals("wrong delta for " + root + '/' + test.getName(), expected, compare()); //$NON-NLS-1$
+				compared++;
+				// start the next fixture from an empty workspace
+				tearDown();
+				setUp();
+			}
+		} finally {
+			restore(ClassFileComparator.PARALLEL_COMPARISON_PROPERTY, parallel);
+			restore(ClassFileComparator.PARALLEL_THRESHOLD_PROPERTY, threshold);
+		}
+		assertTrue("no fixture compared in " + root, compared > 0); //$NON-NLS-1$
+	}
+
+	private static void restore(String property, String value) {
+		if (value == null) {
+			System.clearProperty(property);
+		} else {
+			System.setProperty(property, value);
+		}
+	}
+
+	/**
+	 * Tests the field fixtures
+	 */
+	public void testFields() throws Exception {
+		assertSameDeltas("field"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests the method fixtures
+	 */
+	public void testMethods() throws Exception {
+		assertSameDeltas("method"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests the class fixtures
+	 */
+	public void testClasses() throws Exception {
+		assertSameDeltas("class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests the interface fixtures
+	 */
+	public void testInterfaces() throws Exception {
+		assertSameDeltas("interface"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests the enum fixtures
+	 */
+	public void testEnums() throws Exception {
+		assertSameDeltas("enum"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests the annotation fixtures
+	 */
+	public void testAnnotations() throws Exception {
+		assertSameDeltas("annotation"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests the mixed types fixtures
+	 */
+	public void testMixedTypes() throws Exception {
+		assertSameDeltas("mixedtypes"); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.model.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.pde.api.tools.internal.ApiDescription;
+import org.eclipse.pde.api.tools.internal.ApiDescriptionIndex;
+import org.eclipse.pde.api.tools.internal.ApiDescriptionProcessor;
+import org.eclipse.pde.api.tools.internal.IndexedApiDescription;
+import org.eclipse.pde.api.tools.internal.provisional.ApiDescriptionVisitor;
+import org.eclipse.pde.api.tools.internal.provisional.Factory;
+import org.eclipse.pde.api.tools.internal.provisional.IApiAnnotations;
+import org.eclipse.pde.api.tools.internal.provisional.IApiDescription;
+import org.eclipse.pde.api.tools.internal.provisional.RestrictionModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IPackageDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IReferenceTypeDescriptor;
+
+/**
+ * Tests that an API description read from an {@link ApiDescriptionIndex}
+ * resolves the same annotations as one read from the
+ * <code>.api_description</code> XML
+ *
+ * @since 1.1.100
+ */
+public class ApiDescriptionIndexTests extends TestCase {
+
+	private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" //$NON-NLS-1$
+			+ "<component name=\"test\" version=\"1.2\">\n" //$NON-NLS-1$
+			+ " <package name=\"a.b\">\n" //$NON-NLS-1$
+			+ "  <type name=\"A\" extend=\"false\" instantiate=\"false\">\n" //$NON-NLS-1$
+			+ "   <method name=\"m\" signature=\"(Ljava.lang.String;)V\" reference=\"false\"/>\n" //$NON-NLS-1$
+			+ "   <field name=\"f\" reference=\"false\"/>\n" //$NON-NLS-1$
+			+ "  </type>\n" //$NON-NLS-1$
+			+ "  <type name=\"A$Inner\" implement=\"false\"/>\n" //$NON-NLS-1$
+			+ "  <type name=\"B$Nested$Deep\" visibility=\"8\" extend=\"false\"/>\n" //$NON-NLS-1$
+			+ " </package>\n" //$NON-NLS-1$
+			+ " <package name=\"a.b.internal\">\n" //$NON-NLS-1$
+			+ "  <type name=\"I\" visibility=\"1\" implement=\"false\"/>\n" //$NON-NLS-1$
+			+ " </package>\n" //$NON-NLS-1$
+			+ " <package name=\"x\">\n" //$NON-NLS-1$
+			+ "  <type name=\"X\" instantiate=\"false\"/>\n" //$NON-NLS-1$
+			+ " </package>\n" //$NON-NLS-1$
+			+ "</component>"; //$NON-NLS-1$
+
+	private File fDir;
+	private File fSource;
+
+	@Override
+	protected void setUp() throws Exception {
+		fDir = File.createTempFile("apiDescriptionIndex", ""); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue("the temporary file should be deleted", fDir.delete()); //$NON-NLS-1$
+		assertTrue("the temporary directory should be created", fDir.mkdirs()); //$NON-NLS-1$
+		fSource = new File(fDir, ".api_description"); //$NON-NLS-1$
+		assertTrue("the source file should be created", fSource.createNewFile()); //$NON-NLS-1$
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = fDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		fDir.delete();
+	}
+
+	/**
+	 * Initializes the packages the way a bundle component does
+	 */
+	private void initialize(IApiDescription description) {
+		description.setVisibility(Factory.packageDescriptor("a.b"), VisibilityModifiers.API); //$NON-NLS-1$
+		description.setVisibility(Factory.packageDescriptor("a.b.internal"), VisibilityModifiers.PRIVATE); //$NON-NLS-1$
+		description.setVisibility(Factory.packageDescriptor("a.c"), VisibilityModifiers.PRIVATE); //$NON-NLS-1$
+	}
+
+	private ApiDescription createXmlDescription() throws CoreException {
+		ApiDescription description = new ApiDescription("test"); //$NON-NLS-1$
+		initialize(description);
+		ApiDescriptionProcessor.annotateApiSettings(null, description, XML);
+		return description;
+	}
+
+	private IndexedApiDescription createIndexedDescription() throws CoreException {
+		ApiDescription parsed = new ApiDescription("test"); //$NON-NLS-1$
+		ApiDescriptionProcessor.annotateApiSettings(null, parsed, XML);
+		ApiDescriptionIndex index = ApiDescriptionIndex.write(new File(fDir, "test.index"), fSource, parsed); //$NON-NLS-1$
+		assertNotNull("the index should be written", index); //$NON-NLS-1$
+		IndexedApiDescription description = new IndexedApiDescription("test"); //$NON-NLS-1$
+		initialize(description);
+		description.setIndex(index);
+		return description;
+	}
+
+	private IElementDescriptor[] getElements() {
+		IPackageDescriptor ab = Factory.packageDescriptor("a.b"); //$NON-NLS-1$
+		IReferenceTypeDescriptor a = ab.getType("A"); //$NON-NLS-1$
+		IReferenceTypeDescriptor deep = ab.getType("B$Nested$Deep"); //$NON-NLS-1$
+		return new IElementDescriptor[] {
+				ab, a, a.getMethod("m", "(Ljava/lang/String;)V"), //$NON-NLS-1$ //$NON-NLS-2$
+				a.getMethod("m", "()V"), //$NON-NLS-1$ //$NON-NLS-2$
+				a.getField("f"), a.getField("g"), //$NON-NLS-1$ //$NON-NLS-2$
+				ab.getType("A$Inner"), ab.getType("A$Inner$More"), //$NON-NLS-1$ //$NON-NLS-2$
+				ab.getType("B"), ab.getType("B$Nested"), deep, deep.getField("f"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				ab.getType("Z"), //$NON-NLS-1$
+				Factory.typeDescriptor("a.b.internal.I"), //$NON-NLS-1$
+				Factory.typeDescriptor("a.b.internal.J"), //$NON-NLS-1$
+				Factory.typeDescriptor("a.c.C"), //$NON-NLS-1$
+				Factory.typeDescriptor("x.X"), //$NON-NLS-1$
+				Factory.typeDescriptor("x.Y"), //$NON-NLS-1$
+				Factory.typeDescriptor("y.Y"), //$NON-NLS-1$
+		};
+	}
+
+	private void assertSameAnnotations(IApiDescription expected, IApiDescription actual) {
+		for (IElementDescriptor element : getElements()) {
+			IApiAnnotations e = expected.resolveAnnotations(element);
+			IApiAnnotations a = actual.resolveAnnotations(element);
+			if (e == null) {
+				assertNull("no annotations expected for " + element, a); //$NON-NLS-1$
+			} else {
+				assertNotNull("annotations expected for " + element, a); //$NON-NLS-1$
+				assertEquals("wrong visibility for " + element, e.getVisibility(), a.getVisibility()); //$NON-NLS-1$
+				assertEquals("wrong restrictions for " + element, e.getRestrictions(), a.getRestrictions()); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private List<String> visit(IApiDescription description) {
+		final List<String> visited = new ArrayList<>();
+		description.accept(new ApiDescriptionVisitor() {
+			@Override
+			public boolean visitElement(IElementDescriptor element, IApiAnnotations annotations) {
+				visited.add(element + " " + annotations); //$NON-NLS-1$
+				return true;
+			}
+		}, null);
+		return visited;
+	}
+
+	/**
+	 * Tests that lookups answered from the index match the XML
+	 */
+	public void testResolveFromIndex() throws CoreException {
+		assertSameAnnotations(createXmlDescription(), createIndexedDescription());
+	}
+
+	/**
+	 * Tests that visiting the description creates the same nodes as the XML
+	 */
+	public void testVisit() throws CoreException {
+		ApiDescription expected = createXmlDescription();
+		IndexedApiDescription actual = createIndexedDescription();
+		assertEquals("wrong visited elements", visit(expected), visit(actual)); //$NON-NLS-1$
+		assertSameAnnotations(expected, actual);
+	}
+
+	/**
+	 * Tests that modifying a package of the index keeps its other annotations
+	 */
+	public void testModify() throws CoreException {
+		ApiDescription expected = createXmlDescription();
+		IndexedApiDescription actual = createIndexedDescription();
+		IReferenceTypeDescriptor type = Factory.typeDescriptor("a.b.A"); //$NON-NLS-1$
+		expected.setRestrictions(type, RestrictionModifiers.NO_EXTEND);
+		actual.setRestrictions(type, RestrictionModifiers.NO_EXTEND);
+		assertSameAnnotations(expected, actual);
+		assertEquals("wrong visited elements", visit(expected), visit(actual)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that an index is only read for an unchanged source file
+	 */
+	public void testStaleIndex() throws CoreException, IOException {
+		File indexFile = new File(fDir, "test.index"); //$NON-NLS-1$
+		ApiDescription parsed = new ApiDescription("test"); //$NON-NLS-1$
+		ApiDescriptionProcessor.annotateApiSettings(null, parsed, XML);
+		assertNotNull("the index should be written", ApiDescriptionIndex.write(indexFile, fSource, parsed)); //$NON-NLS-1$
+		ApiDescriptionIndex index = ApiDescriptionIndex.read(indexFile, fSource);
+		assertNotNull("the index should be read", index); //$NON-NLS-1$
+		assertTrue("the index should have a description", index.hasDescription()); //$NON-NLS-1$
+		assertEquals("wrong package count", 3, index.getPackageCount()); //$NON-NLS-1$
+		assertNull("an index of another file should not be read", ApiDescriptionIndex.read(indexFile, new File(fDir, "missing"))); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNotNull("the index should be written", ApiDescriptionIndex.write(indexFile, fSource, null)); //$NON-NLS-1$
+		index = ApiDescriptionIndex.read(indexFile, fSource);
+		assertNotNull("the index should be read", index); //$NON-NLS-1$
+		assertFalse("the index should not have a description", index.hasDescription()); //$NON-NLS-1$
+		assertEquals("wrong package count", 0, index.getPackageCount()); //$NON-NLS-1$
+	}
+}
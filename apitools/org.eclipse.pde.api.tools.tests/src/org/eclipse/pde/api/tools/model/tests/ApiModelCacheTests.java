@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -161,4 +161,53 @@ public class ApiModelCacheTests extends TestCase {
 		assertTrue("The type 'a.b.c.testee1' should have been removed from the cache", ApiModelCache.getCache().removeElementInfo(element)); //$NON-NLS-1$
 		assertTrue("The cache should be empty", ApiModelCache.getCache().isEmpty()); //$NON-NLS-1$
 	}
+
+	/**
+	 * Tests that the least recently used types are evicted once the budget of
+	 * the cache is exceeded
+	 *
+	 * @throws Exception
+	 */
+	public void testBudgetEviction() throws Exception {
+		IApiType first = TestSuiteHelper.createTestingApiType(TEST_BASELINE_ID, TEST_COMP_ID, "a.b.c.first", "()V", null, 0, null); //$NON-NLS-1$ //$NON-NLS-2$
+		IApiType second = TestSuiteHelper.createTestingApiType(TEST_BASELINE_ID, "testcomp-id2", "a.b.c.second", "()V", null, 0, null); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		IApiType third = TestSuiteHelper.createTestingApiType(TEST_BASELINE_ID, TEST_COMP_ID, "a.b.c.third", "()V", null, 0, null); //$NON-NLS-1$ //$NON-NLS-2$
+		ApiModelCache cache = new ApiModelCache(1);
+		cache.cacheElementInfo(first);
+		assertEquals("The first type should have been evicted", 1, cache.getEvictionCount()); //$NON-NLS-1$
+		assertTrue("The cache should be empty", cache.isEmpty()); //$NON-NLS-1$
+
+		cache = new ApiModelCache(Long.MAX_VALUE);
+		cache.cacheElementInfo(first);
+		long weight = cache.getWeight();
+		assertTrue("The type should have a weight", weight > 0); //$NON-NLS-1$
+		cache = new ApiModelCache(weight * 3);
+		cache.cacheElementInfo(first);
+		cache.cacheElementInfo(second);
+		// use the first type so that the second one is the least recently used
+		assertNotNull("The first type should be cached", cache.getElementInfo(TEST_BASELINE_ID, TEST_COMP_ID, "a.b.c.first", IApiElement.TYPE)); //$NON-NLS-1$ //$NON-NLS-2$
+		cache.cacheElementInfo(third);
+		assertNull("The second type should have been evicted", cache.getElementInfo(TEST_BASELINE_ID, "testcomp-id2", "a.b.c.second", IApiElement.TYPE)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertNotNull("The third type should be cached", cache.getElementInfo(TEST_BASELINE_ID, TEST_COMP_ID, "a.b.c.third", IApiElement.TYPE)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue("The cache should be within its budget", cache.getWeight() <= weight * 3); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests the hit and miss statistics of the cache
+	 *
+	 * @throws Exception
+	 */
+	public void testStatistics() throws Exception {
+		ApiModelCache cache = new ApiModelCache(Long.MAX_VALUE);
+		cache.cacheElementInfo(TestSuiteHelper.createTestingApiType(TEST_BASELINE_ID, TEST_COMP_ID, "a.b.c.stats", "()V", null, 0, null)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNotNull("The type should be cached", cache.getElementInfo(TEST_BASELINE_ID, TEST_COMP_ID, "a.b.c.stats", IApiElement.TYPE)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("The type should not be cached", cache.getElementInfo(TEST_BASELINE_ID, TEST_COMP_ID, "a.b.c.other", IApiElement.TYPE)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("The component should not be cached", cache.getElementInfo(TEST_BASELINE_ID, "testcomp-id2", "a.b.c.stats", IApiElement.TYPE)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertEquals("Wrong hit count", 1, cache.getHitCount()); //$NON-NLS-1$
+		assertEquals("Wrong miss count", 2, cache.getMissCount()); //$NON-NLS-1$
+		assertEquals("Wrong eviction count", 0, cache.getEvictionCount()); //$NON-NLS-1$
+		cache.flushCaches();
+		assertTrue("The cache should be empty", cache.isEmpty()); //$NON-NLS-1$
+		assertEquals("The weight should be reset", 0, cache.getWeight()); //$NON-NLS-1$
+	}
 }
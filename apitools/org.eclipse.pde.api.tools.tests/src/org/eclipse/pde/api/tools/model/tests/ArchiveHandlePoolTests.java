@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.model.tests;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.ZipFile;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.pde.api.tools.internal.model.ArchiveHandlePool;
+
+/**
+ * Tests the {@link ArchiveHandlePool}
+ *
+ * @since 1.1.100
+ */
+public class ArchiveHandlePoolTests extends TestCase {
+
+	/**
+	 * Returns the location of the given jar from the given test folder
+	 *
+	 * @param folder
+	 * @param name
+	 * @return the OS path to the jar
+	 */
+	private String getJarLocation(String folder, String name) {
+		IPath path = TestSuiteHelper.getPluginDirectoryPath().append(folder).append(name);
+		File file = path.toFile();
+		assertTrue("Missing jar file: " + name, file.exists()); //$NON-NLS-1$
+		return path.toOSString();
+	}
+
+	/**
+	 * Tests that acquiring an open archive again shares the handle
+	 *
+	 * @throws Exception
+	 */
+	public void testSharedHandle() throws Exception {
+		ArchiveHandlePool pool = new ArchiveHandlePool(2);
+		String location = getJarLocation("test-jars", "sample.jar"); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			ZipFile first = pool.acquire(location);
+			ZipFile second = pool.acquire(location);
+			assertSame("The handle should be shared", first, second); //$NON-NLS-1$
+			pool.release(location);
+			pool.release(location);
+			ZipFile third = pool.acquire(location);
+			assertSame("The idle handle should be reused", first, third); //$NON-NLS-1$
+			pool.release(location);
+			assertEquals("Wrong open count", 1, pool.getOpenCount()); //$NON-NLS-1$
+			assertEquals("Wrong hit count", 2, pool.getHitCount()); //$NON-NLS-1$
+			assertEquals("Wrong eviction count", 0, pool.getEvictionCount()); //$NON-NLS-1$
+		} finally {
+			pool.closeAll();
+		}
+	}
+
+	/**
+	 * Tests that idle handles are evicted in least recently used order and
+	 * that handles in use are never evicted
+	 *
+	 * @throws Exception
+	 */
+	public void testEviction() throws Exception {
+		ArchiveHandlePool pool = new ArchiveHandlePool(1);
+		String sample = getJarLocation("test-jars", "sample.jar"); //$NON-NLS-1$ //$NON-NLS-2$
+		String component = getJarLocation("test-plugins", "component.a_1.0.0.jar"); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			ZipFile held = pool.acquire(sample);
+			pool.acquire(component);
+			assertEquals("Handles in use must not be evicted", 2, pool.getOpenHandleCount()); //$NON-NLS-1$
+			pool.release(component);
+			assertEquals("The idle handle should have been evicted", 1, pool.getOpenHandleCount()); //$NON-NLS-1$
+			assertEquals("Wrong eviction count", 1, pool.getEvictionCount()); //$NON-NLS-1$
+			assertNotNull("The held handle should still be readable", held.entries()); //$NON-NLS-1$
+			pool.release(sample);
+			pool.evict(sample);
+			assertEquals("The pool should be empty", 0, pool.getOpenHandleCount()); //$NON-NLS-1$
+		} finally {
+			pool.closeAll();
+		}
+	}
+
+	/**
+	 * Tests that an idle archive that changed on disk is opened again, but
+	 * only once the check interval has elapsed
+	 *
+	 * @throws Exception
+	 */
+	public void testCheckInterval() throws Exception {
+		File copy = File.createTempFile("archive-handle-pool", ".jar"); //$NON-NLS-1$ //$NON-NLS-2$
+		Files.copy(new File(getJarLocation("test-jars", "sample.jar")).toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING); //$NON-NLS-1$ //$NON-NLS-2$
+		String location = copy.getAbsolutePath();
+		ArchiveHandlePool checking = new ArchiveHandlePool(2, 0);
+		ArchiveHandlePool notChecking = new ArchiveHandlePool(2, Long.MAX_VALUE);
+		try {
+			ZipFile checked = checking.acquire(location);
+			checking.release(location);
+			ZipFile unchecked = notChecking.acquire(location);
+			notChecking.release(location);
+			assertTrue("The time stamp should be changed", copy.setLastModified(copy.lastModified() - 10000)); //$NON-NLS-1$
+
+			assertNotSame("The changed archive should have been opened again", checked, checking.acquire(location)); //$NON-NLS-1$
+			checking.release(location);
+			assertEquals("Wrong open count", 2, checking.getOpenCount()); //$NON-NLS-1$
+
+			assertSame("The archive should not be checked within the interval", unchecked, notChecking.acquire(location)); //$NON-NLS-1$
+			notChecking.release(location);
+			assertEquals("Wrong open count", 1, notChecking.getOpenCount()); //$NON-NLS-1$
+		} finally {
+			checking.closeAll();
+			notChecking.closeAll();
+			copy.delete();
+		}
+	}
+}
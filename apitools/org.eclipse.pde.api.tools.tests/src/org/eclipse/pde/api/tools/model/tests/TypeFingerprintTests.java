@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.model.tests;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.pde.api.tools.internal.comparator.TypeFingerprintMatcher;
+import org.eclipse.pde.api.tools.internal.model.Component;
+import org.eclipse.pde.api.tools.internal.model.TypeFingerprint;
+import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.comparator.ApiComparator;
+import org.eclipse.pde.api.tools.internal.provisional.comparator.IDelta;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+
+/**
+ * Tests the {@link TypeFingerprint}s and the {@link TypeFingerprintMatcher}
+ * used to skip unchanged types in the {@link ApiComparator}
+ *
+ * @since 1.1.100
+ */
+public class TypeFingerprintTests extends TestCase {
+
+	private static final String COMPONENT_A = "component.a"; //$NON-NLS-1$
+	private static final String COMPONENT_B = "component.b"; //$NON-NLS-1$
+	private static final String PACKAGE = "a.b.c"; //$NON-NLS-1$
+
+	private IApiBaseline fBaseline;
+	private IApiBaseline fBaseline2;
+
+	@Override
+	protected void setUp() throws Exception {
+		fBaseline = TestSuiteHelper.createTestingBaseline("reference", new Path("test-plugins")); //$NON-NLS-1$ //$NON-NLS-2$
+		fBaseline2 = TestSuiteHelper.createTestingBaseline("current", new Path("test-plugins")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNotNull("the reference baseline should exist", fBaseline); //$NON-NLS-1$
+		assertNotNull("the current baseline should exist", fBaseline2); //$NON-NLS-1$
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fBaseline.dispose();
+		fBaseline2.dispose();
+		System.clearProperty(TypeFingerprintMatcher.FINGERPRINTS_PROPERTY);
+	}
+
+	/**
+	 * Tests computing top level type names
+	 */
+	public void testTopLevelTypeName() {
+		assertEquals("wrong top level name", "a.b.C", TypeFingerprint.getTopLevelTypeName("a.b.C")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertEquals("wrong top level name", "a.b.C", TypeFingerprint.getTopLevelTypeName("a.b.C$D$1")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertEquals("wrong top level name", "a.b$c.D", TypeFingerprint.getTopLevelTypeName("a.b$c.D")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertEquals("wrong top level name", "C", TypeFingerprint.getTopLevelTypeName("C$D")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * Tests that the same bundle gets the same fingerprints in two baselines,
+	 * and that nested types are folded into their top level type
+	 *
+	 * @throws Exception
+	 */
+	public void testSameContent() throws Exception {
+		Component component = (Component) fBaseline.getApiComponent(COMPONENT_A);
+		Component component2 = (Component) fBaseline2.getApiComponent(COMPONENT_A);
+		Map<String, TypeFingerprint> fingerprints = component.getTypeFingerprints(PACKAGE);
+		Map<String, TypeFingerprint> fingerprints2 = component2.getTypeFingerprints(PACKAGE);
+		assertFalse("there should be fingerprints", fingerprints.isEmpty()); //$NON-NLS-1$
+		assertEquals("wrong types", fingerprints.keySet(), fingerprints2.keySet()); //$NON-NLS-1$
+		assertTrue("the top level type should be fingerprinted", fingerprints.containsKey("a.b.c.Erasure")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse("nested types should not be fingerprinted", fingerprints.containsKey("a.b.c.Erasure$I1")); //$NON-NLS-1$ //$NON-NLS-2$
+		for (Map.Entry<String, TypeFingerprint> entry : fingerprints.entrySet()) {
+			assertEquals("wrong crc for " + entry.getKey(), entry.getValue().getCrc(), fingerprints2.get(entry.getKey()).getCrc()); //$NON-NLS-1$
+		}
+		assertSame("fingerprints should be remembered", fingerprints, component.getTypeFingerprints(PACKAGE)); //$NON-NLS-1$
+
+		TypeFingerprintMatcher matcher = new TypeFingerprintMatcher(component, component2);
+		for (String typeName : fingerprints.keySet()) {
+			assertTrue("the type should be unchanged: " + typeName, matcher.isUnchanged(typeName)); //$NON-NLS-1$
+		}
+		assertTrue("a nested type should be unchanged", matcher.isUnchanged("a.b.c.Erasure$I1")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse("a missing type cannot be unchanged", matcher.isUnchanged("a.b.c.Missing")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("wrong unchanged count", fingerprints.size() + 1, matcher.getUnchangedCount()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that types of another bundle are not unchanged
+	 *
+	 * @throws Exception
+	 */
+	public void testDifferentContent() throws Exception {
+		IApiComponent component = fBaseline.getApiComponent(COMPONENT_A);
+		IApiComponent component2 = fBaseline2.getApiComponent(COMPONENT_B);
+		TypeFingerprintMatcher matcher = new TypeFingerprintMatcher(component, component2);
+		for (String typeName : ((Component) component).getTypeFingerprints(PACKAGE).keySet()) {
+			assertFalse("the type should not be unchanged: " + typeName, matcher.isUnchanged(typeName)); //$NON-NLS-1$
+		}
+		assertEquals("wrong unchanged count", 0, matcher.getUnchangedCount()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that comparing identical bundles gives no delta, with and without
+	 * skipping unchanged types
+	 *
+	 * @throws Exception
+	 */
+	public void testCompareIdentical() throws Exception {
+		IApiComponent component = fBaseline.getApiComponent(COMPONENT_A);
+		IApiComponent component2 = fBaseline2.getApiComponent(COMPONENT_A);
+		IDelta delta = ApiComparator.compare(component, component2, VisibilityModifiers.ALL_VISIBILITIES, null);
+		assertSame("there should be no delta", ApiComparator.NO_DELTA, delta); //$NON-NLS-1$
+		System.setProperty(TypeFingerprintMatcher.FINGERPRINTS_PROPERTY, Boolean.FALSE.toString());
+		delta = ApiComparator.compare(component, component2, VisibilityModifiers.ALL_VISIBILITIES, null);
+		assertSame("there should be no delta without fingerprints", ApiComparator.NO_DELTA, delta); //$NON-NLS-1$
+	}
+}
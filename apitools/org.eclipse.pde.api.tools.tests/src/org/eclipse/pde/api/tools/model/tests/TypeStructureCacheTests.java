@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.model.tests;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import junit.framework.TestCase;
+
+import org.eclipse.pde.api.tools.internal.model.ApiType;
+import org.eclipse.pde.api.tools.internal.model.TypeStructureBuilder;
+import org.eclipse.pde.api.tools.internal.model.TypeStructureCache;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiField;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiMethod;
+import org.eclipse.pde.api.tools.internal.util.Util;
+
+/**
+ * Tests the {@link TypeStructureCache}
+ *
+ * @since 1.1.100
+ */
+public class TypeStructureCacheTests extends TestCase {
+
+	private static final long ARCHIVE_CRC = 42;
+
+	private File fRoot;
+	private String fLocation;
+	private List<ZipEntry> fEntries = new ArrayList<>();
+	private List<ApiType> fTypes = new ArrayList<>();
+
+	@Override
+	protected void setUp() throws Exception {
+		fRoot = new File(System.getProperty("java.io.tmpdir"), "type-structure-cache-tests"); //$NON-NLS-1$ //$NON-NLS-2$
+		deleteRoot();
+		File jar = TestSuiteHelper.getPluginDirectoryPath().append("test-jars").append("sample.jar").toFile(); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue("Missing jar file: sample.jar", jar.exists()); //$NON-NLS-1$
+		fLocation = jar.getAbsolutePath();
+		try (ZipFile zip = new ZipFile(jar)) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.getName().endsWith(Util.DOT_CLASS_SUFFIX)) {
+					try (InputStream stream = zip.getInputStream(entry)) {
+						ApiType type = (ApiType) TypeStructureBuilder.buildTypeStructure(Util.getInputStreamAsByteArray(stream, -1), null, null);
+						assertNotNull("The type should have been built for: " + entry.getName(), type); //$NON-NLS-1$
+						fEntries.add(entry);
+						fTypes.add(type);
+					}
+				}
+			}
+		}
+		assertFalse("There should be class files in the sample jar", fEntries.isEmpty()); //$NON-NLS-1$
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		deleteRoot();
+	}
+
+	private void deleteRoot() {
+		File[] files = fRoot.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		fRoot.delete();
+	}
+
+	/**
+	 * Fills the given cache with the types of the sample jar
+	 *
+	 * @param cache
+	 */
+	private void fill(TypeStructureCache cache) {
+		for (int i = 0; i < fEntries.size(); i++) {
+			ZipEntry entry = fEntries.get(i);
+			cache.putStructure(fLocation, ARCHIVE_CRC, entry.getName(), entry.getCrc(), fTypes.get(i));
+		}
+	}
+
+	/**
+	 * Tests that type structures saved by one cache are read back by another,
+	 * with the same members
+	 */
+	public void testPersistence() {
+		TypeStructureCache cache = new TypeStructureCache(fRoot, Long.MAX_VALUE);
+		fill(cache);
+		cache.save(fLocation);
+		assertTrue("The cache file should have been written", cache.getSize() > 0); //$NON-NLS-1$
+
+		TypeStructureCache warm = new TypeStructureCache(fRoot, Long.MAX_VALUE);
+		for (int i = 0; i < fEntries.size(); i++) {
+			ZipEntry entry = fEntries.get(i);
+			ApiType expected = fTypes.get(i);
+			ApiType type = warm.getStructure(fLocation, ARCHIVE_CRC, entry.getName(), entry.getCrc(), null, null);
+			assertNotNull("The type should be cached: " + expected.getName(), type); //$NON-NLS-1$
+			assertEquals("Wrong name", expected.getName(), type.getName()); //$NON-NLS-1$
+			assertEquals("Wrong signature", expected.getSignature(), type.getSignature()); //$NON-NLS-1$
+			assertEquals("Wrong generic signature", expected.getGenericSignature(), type.getGenericSignature()); //$NON-NLS-1$
+			assertEquals("Wrong modifiers", expected.getModifiers(), type.getModifiers()); //$NON-NLS-1$
+			assertEquals("Wrong superclass", expected.getSuperclassName(), type.getSuperclassName()); //$NON-NLS-1$
+			assertEquals("Wrong simple name", expected.getSimpleName(), type.getSimpleName()); //$NON-NLS-1$
+			assertEquals("Wrong member type", expected.isMemberType(), type.isMemberType()); //$NON-NLS-1$
+			assertEquals("Wrong anonymous", expected.isAnonymous(), type.isAnonymous()); //$NON-NLS-1$
+			assertEquals("Wrong local", expected.isLocal(), type.isLocal()); //$NON-NLS-1$
+			IApiMethod[] methods = expected.getMethods();
+			assertEquals("Wrong number of methods", methods.length, type.getMethods().length); //$NON-NLS-1$
+			for (IApiMethod method : methods) {
+				IApiMethod other = type.getMethod(method.getName(), method.getSignature());
+				assertNotNull("Missing method: " + method.getName(), other); //$NON-NLS-1$
+				assertEquals("Wrong method modifiers", method.getModifiers(), other.getModifiers()); //$NON-NLS-1$
+				assertEquals("Wrong default value", method.getDefaultValue(), other.getDefaultValue()); //$NON-NLS-1$
+			}
+			IApiField[] fields = expected.getFields();
+			assertEquals("Wrong number of fields", fields.length, type.getFields().length); //$NON-NLS-1$
+			for (IApiField field : fields) {
+				IApiField other = type.getField(field.getName());
+				assertNotNull("Missing field: " + field.getName(), other); //$NON-NLS-1$
+				assertEquals("Wrong field signature", field.getSignature(), other.getSignature()); //$NON-NLS-1$
+				assertEquals("Wrong constant value", field.getConstantValue(), other.getConstantValue()); //$NON-NLS-1$
+			}
+		}
+		assertEquals("Wrong hit count", fEntries.size(), warm.getHitCount()); //$NON-NLS-1$
+		assertEquals("Wrong miss count", 0, warm.getMissCount()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that cached structures are not used once the archive or the entry
+	 * content has changed
+	 */
+	public void testInvalidation() {
+		TypeStructureCache cache = new TypeStructureCache(fRoot, Long.MAX_VALUE);
+		fill(cache);
+		cache.save(fLocation);
+		ZipEntry entry = fEntries.get(0);
+
+		TypeStructureCache warm = new TypeStructureCache(fRoot, Long.MAX_VALUE);
+		assertNull("A changed entry CRC must not hit", warm.getStructure(fLocation, ARCHIVE_CRC, entry.getName(), entry.getCrc() + 1, null, null)); //$NON-NLS-1$
+		assertNull("A changed archive CRC must not hit", warm.getStructure(fLocation, ARCHIVE_CRC + 1, entry.getName(), entry.getCrc(), null, null)); //$NON-NLS-1$
+		assertEquals("Wrong miss count", 2, warm.getMissCount()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that the cache files are trimmed to the maximum cache size
+	 */
+	public void testSizeCap() {
+		TypeStructureCache cache = new TypeStructureCache(fRoot, 1);
+		fill(cache);
+		cache.save(fLocation);
+		assertEquals("The cache file should have been deleted", 0, cache.getSize()); //$NON-NLS-1$
+		assertNull("The type should not be cached", new TypeStructureCache(fRoot, 1).getStructure(fLocation, ARCHIVE_CRC, fEntries.get(0).getName(), fEntries.get(0).getCrc(), null, null)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that a warm cache answers every type of the sample jar from the
+	 * cache file, without building any of them again
+	 */
+	public void testWarmReadsFromCache() {
+		TypeStructureCache cache = new TypeStructureCache(fRoot, Long.MAX_VALUE);
+		fill(cache);
+		cache.save(fLocation);
+		for (int round = 0; round < 3; round++) {
+			TypeStructureCache warm = new TypeStructureCache(fRoot, Long.MAX_VALUE);
+			for (int i = 0; i < fEntries.size(); i++) {
+				ZipEntry entry = fEntries.get(i);
+				ApiType type = warm.getStructure(fLocation, ARCHIVE_CRC, entry.getName(), entry.getCrc(), null, null);
+				assertNotNull("The type should be cached: " + entry.getName(), type); //$NON-NLS-1$
+				assertEquals("Wrong name", fTypes.get(i).getName(), type.getName()); //$NON-NLS-1$
+			}
+			assertEquals("Every type should be read from the cache", fEntries.size(), warm.getHitCount()); //$NON-NLS-1$
+			assertEquals("No type should be missing from the cache", 0, warm.getMissCount()); //$NON-NLS-1$
+			assertEquals("Only the sample jar should be loaded", 1, warm.getLoadedArchiveCount()); //$NON-NLS-1$
+			warm.save(fLocation);
+		}
+	}
+
+	/**
+	 * Tests that the time stamp of an archive is only checked when its cache
+	 * is loaded, not for every type looked up
+	 */
+	public void testArchiveCheckedOncePerLoad() throws Exception {
+		File copy = new File(fRoot.getParentFile(), "type-structure-cache-tests.jar"); //$NON-NLS-1$
+		try {
+			Files.copy(new File(fLocation).toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			String location = copy.getAbsolutePath();
+			TypeStructureCache cache = new TypeStructureCache(fRoot, Long.MAX_VALUE);
+			ZipEntry entry = fEntries.get(0);
+			cache.putStructure(location, ARCHIVE_CRC, entry.getName(), entry.getCrc(), fTypes.get(0));
+			assertTrue("The time stamp should be changed", copy.setLastModified(copy.lastModified() - 10000)); //$NON-NLS-1$
+			assertNotNull("The loaded cache should be used while the archive is open", cache.getStructure(location, ARCHIVE_CRC, entry.getName(), entry.getCrc(), null, null)); //$NON-NLS-1$
+			cache.save(location);
+			assertTrue("The time stamp should be changed", copy.setLastModified(copy.lastModified() - 10000)); //$NON-NLS-1$
+			assertNull("The cache file of a changed archive should not be used", cache.getStructure(location, ARCHIVE_CRC, entry.getName(), entry.getCrc(), null, null)); //$NON-NLS-1$
+		} finally {
+			copy.delete();
+		}
+	}
+
+	/**
+	 * Tests that only a bounded number of archives is kept in memory, and that
+	 * the type structures of released archives are saved
+	 */
+	public void testLoadedArchivesBounded() {
+		TypeStructureCache cache = new TypeStructureCache(fRoot, Long.MAX_VALUE, 2);
+		ZipEntry entry = fEntries.get(0);
+		for (int i = 0; i < 5; i++) {
+			cache.putStructure(fLocation + i, ARCHIVE_CRC, entry.getName(), entry.getCrc(), fTypes.get(0));
+			assertTrue("Too many archives loaded", cache.getLoadedArchiveCount() <= 2); //$NON-NLS-1$
+		}
+		assertEquals("Wrong number of loaded archives", 2, cache.getLoadedArchiveCount()); //$NON-NLS-1$
+		TypeStructureCache warm = new TypeStructureCache(fRoot, Long.MAX_VALUE);
+		assertNotNull("A released archive should have been saved", warm.getStructure(fLocation + 0, ARCHIVE_CRC, entry.getName(), entry.getCrc(), null, null)); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.reference.tests;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.pde.api.tools.internal.builder.Reference;
+import org.eclipse.pde.api.tools.internal.builder.ReferenceAnalyzer;
+import org.eclipse.pde.api.tools.internal.builder.ReferenceResolver;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.model.ApiTypeContainerVisitor;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiMember;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.eclipse.pde.api.tools.internal.provisional.problems.IApiProblem;
+import org.eclipse.pde.api.tools.model.tests.TestSuiteHelper;
+
+/**
+ * Tests that the parallel resolution of references done by the
+ * {@link ReferenceResolver} matches the serial resolution.
+ *
+ * @since 1.1.100
+ */
+public class ReferenceResolverTests extends TestCase {
+
+	private IApiBaseline fBaseline;
+	private String fParallel;
+
+	@Override
+	protected void setUp() throws Exception {
+		fParallel = System.getProperty(ReferenceResolver.PARALLEL_RESOLUTION_PROPERTY);
+		fBaseline = TestSuiteHelper.createTestingBaseline("test-plugins"); //$NON-NLS-1$
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (fParallel == null) {
+			System.clearProperty(ReferenceResolver.PARALLEL_RESOLUTION_PROPERTY);
+		} else {
+			System.setProperty(ReferenceResolver.PARALLEL_RESOLUTION_PROPERTY, fParallel);
+		}
+		fBaseline.dispose();
+	}
+
+	private void setParallel(boolean parallel) {
+		System.setProperty(ReferenceResolver.PARALLEL_RESOLUTION_PROPERTY, Boolean.toString(parallel));
+		assertEquals("Wrong resolution mode", parallel, ReferenceResolver.isParallelResolution()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Extracts all of the references of the given component
+	 *
+	 * @param component
+	 * @return the references
+	 * @throws CoreException
+	 */
+	private List<IReference> extractReferences(IApiComponent component) throws CoreException {
+		final List<IReference> references = new ArrayList<IReference>();
+		final List<CoreException> errors = new ArrayList<CoreException>();
+		component.accept(new ApiTypeContainerVisitor() {
+			@Override
+			public void visit(String packageName, IApiTypeRoot typeroot) {
+				try {
+					IApiType type = typeroot.getStructure();
+					if (type != null) {
+						references.addAll(type.extractReferences(IReference.MASK_REF_ALL, null));
+					}
+				} catch (CoreException e) {
+					errors.add(e);
+				}
+			}
+		});
+		if (!errors.isEmpty()) {
+			throw errors.get(0);
+		}
+		return references;
+	}
+
+	/**
+	 * Resolves all of the references of the given component and describes
+	 * each reference with its resolved target
+	 *
+	 * @param component
+	 * @param parallel
+	 * @return the sorted descriptions of the resolved references
+	 * @throws CoreException
+	 */
+	private List<String> resolve(IApiComponent component, boolean parallel) throws CoreException {
+		List<IReference> references = extractReferences(component);
+		setParallel(parallel);
+		ReferenceResolver.resolveReferences(references, null);
+		List<String> resolutions = new ArrayList<String>(references.size());
+		for (IReference reference : references) {
+			IApiMember resolved = reference.getResolvedReference();
+			StringBuffer buffer = new StringBuffer();
+			buffer.append(reference.getMember().getHandle()).append(" -> ").append(reference.getReferencedTypeName()); //$NON-NLS-1$
+			buffer.append('#').append(reference.getReferencedMemberName()).append('#').append(reference.getReferencedSignature());
+			buffer.append(" = "); //$NON-NLS-1$
+			if (resolved != null) {
+				buffer.append(resolved.getApiComponent().getSymbolicName()).append('/').append(resolved.getHandle());
+			}
+			resolutions.add(buffer.toString());
+		}
+		Collections.sort(resolutions);
+		return resolutions;
+	}
+
+	/**
+	 * Analyzes the given component and describes each problem found
+	 *
+	 * @param component
+	 * @param parallel
+	 * @return the sorted descriptions of the problems
+	 * @throws CoreException
+	 */
+	private List<String> analyze(IApiComponent component, boolean parallel) throws CoreException {
+		setParallel(parallel);
+		IApiProblem[] problems = new ReferenceAnalyzer().analyze(component, component, null);
+		List<String> descriptions = new ArrayList<String>(problems.length);
+		for (IApiProblem problem : problems) {
+			descriptions.add(problem.getId() + " " + problem.getTypeName() + ":" + problem.getLineNumber() + " " + problem.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		Collections.sort(descriptions);
+		return descriptions;
+	}
+
+	/**
+	 * Tests that the references of a component are resolved to the same
+	 * targets with and without the parallel resolution
+	 *
+	 * @throws Exception
+	 */
+	public void testSameResolvedTargets() throws Exception {
+		for (IApiComponent component : fBaseline.getApiComponents()) {
+			List<String> serial = resolve(component, false);
+			List<String> parallel = resolve(component, true);
+			assertEquals("Different resolution of the references of " + component.getSymbolicName(), serial, parallel); //$NON-NLS-1$
+		}
+		assertFalse("component.b should have references", resolve(fBaseline.getApiComponent("component.b"), true).isEmpty()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Tests that the analysis of a component reports the same problems with
+	 * and without the parallel resolution
+	 *
+	 * @throws Exception
+	 */
+	public void testSameProblems() throws Exception {
+		for (IApiComponent component : fBaseline.getApiComponents()) {
+			List<String> serial = analyze(component, false);
+			List<String> parallel = analyze(component, true);
+			assertEquals("Different problems in " + component.getSymbolicName(), serial, parallel); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Tests that a {@link CoreException} thrown while resolving references is
+	 * rethrown by both the serial and the parallel resolution
+	 *
+	 * @throws Exception
+	 */
+	public void testCoreExceptionRethrown() throws Exception {
+		final IStatus status = new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, "no baseline"); //$NON-NLS-1$
+		// a component without a baseline fails to resolve every reference
+		final IApiComponent component = (IApiComponent) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { IApiComponent.class }, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "getBaseline": //$NON-NLS-1$
+					throw new CoreException(status);
+				case "getSymbolicName": //$NON-NLS-1$
+					return "broken"; //$NON-NLS-1$
+				case "hashCode": //$NON-NLS-1$
+					return Integer.valueOf(System.identityHashCode(proxy));
+				case "equals": //$NON-NLS-1$
+					return Boolean.valueOf(proxy == args[0]);
+				default:
+					return null;
+			}
+		});
+		IApiMember member = (IApiMember) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { IApiMember.class }, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "getApiComponent": //$NON-NLS-1$
+					return component;
+				case "hashCode": //$NON-NLS-1$
+					return Integer.valueOf(System.identityHashCode(proxy));
+				case "equals": //$NON-NLS-1$
+					return Boolean.valueOf(proxy == args[0]);
+				default:
+					return null;
+			}
+		});
+		for (boolean parallel : new boolean[] { false, true }) {
+			// enough distinct types for the parallel resolution to split its work
+			List<IReference> references = new ArrayList<IReference>();
+			for (int i = 0; i < 200; i++) {
+				references.add(Reference.typeReference(member, "p.T" + i, IReference.REF_INSTANTIATE)); //$NON-NLS-1$
+			}
+			setParallel(parallel);
+			try {
+				ReferenceResolver.resolveReferences(references, null);
+				fail("The resolution should have failed, parallel: " + parallel); //$NON-NLS-1$
+			} catch (CoreException e) {
+				assertSame("The exception of the failed resolution should be rethrown, parallel: " + parallel, status, e.getStatus()); //$NON-NLS-1$
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2014 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,9 +10,18 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.search.tests;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiElement;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiMember;
 import org.eclipse.pde.api.tools.internal.provisional.search.ApiSearchEngine;
+import org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchReporter;
 import org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchRequestor;
+import org.eclipse.pde.api.tools.internal.provisional.search.IMetadata;
 
 /**
  * Tests the {@link org.eclipse.pde.api.tools.internal.provisional.search.ApiSearchEngine}
@@ -21,6 +30,38 @@ import org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchRequestor
  */
 public class SearchEngineTests extends SearchTest {
 
+	/**
+	 * Reporter recording the reported elements and references in the order
+	 * they are reported
+	 */
+	static class RecordingReporter implements IApiSearchReporter {
+		List<String> results = new ArrayList<String>();
+
+		@Override
+		public void reportResults(IApiElement element, IReference[] references) {
+			String name = (element.getType() == IApiElement.COMPONENT ? ((IApiComponent) element).getSymbolicName() : element.getName());
+			for (int i = 0; i < references.length; i++) {
+				IReference reference = references[i];
+				results.add(name + ' ' + reference.getReferenceKind() + ' ' + reference.getMember().getName() + ' ' + reference.getLineNumber() + ' ' + reference.getReferencedTypeName() + '#' + reference.getReferencedMemberName());
+			}
+		}
+
+		@Override
+		public void reportNotSearched(IApiElement[] elements) {
+			for (int i = 0; i < elements.length; i++) {
+				results.add("not searched " + elements[i].getName()); //$NON-NLS-1$
+			}
+		}
+
+		@Override
+		public void reportMetadata(IMetadata data) {
+		}
+
+		@Override
+		public void reportCounts() {
+		}
+	}
+
 	/**
 	 * Tests the the engine properly aborts with invalid <code>null</code> arguments
 	 */
@@ -79,6 +120,70 @@ public class SearchEngineTests extends SearchTest {
 		}
 	}
 
+	/**
+	 * Tests that the concurrent search reports the same matches as the serial
+	 * search when the scope and baseline are not the same
+	 */
+	public void testSearchSeparateScopeInParallel() {
+		ApiSearchEngine engine = new ApiSearchEngine();
+		try {
+			this.scope = getTestScope(DEFAULT_SCOPE_PROJECTS);
+			TEST_REQUESTOR.setScopeBaseline(this.scope);
+			TEST_REQUESTOR.setSearchMask(IApiSearchRequestor.INCLUDE_API | IApiSearchRequestor.INCLUDE_INTERNAL);
+			RecordingReporter expected = new RecordingReporter();
+			engine.search(getTestBaseline(), TEST_REQUESTOR, expected, null);
+			System.setProperty(ApiSearchEngine.PARALLEL_SEARCH_PROPERTY, Boolean.TRUE.toString());
+			TEST_REPORTER.setExpectedReferences(
+					new String[] {P2_NAME, P3_NAME},
+					new int[][] {{IReference.REF_FIELDDECL, IReference.REF_FIELDDECL}, {IReference.REF_FIELDDECL, IReference.REF_FIELDDECL, IReference.REF_FIELDDECL}});
+			TEST_REPORTER.setExpectedNotSearched(null);
+			RecordingReporter actual = new RecordingReporter();
+			engine.search(getTestBaseline(), TEST_REQUESTOR, new TestCompositeSearchReporter(this, new IApiSearchReporter[] {
+					TEST_REPORTER, actual }), null);
+			assertFalse("The search should report references", expected.results.isEmpty()); //$NON-NLS-1$
+			assertEquals("The parallel search should report in the order of the sequential search", expected.results, actual.results); //$NON-NLS-1$
+		}
+		catch(Exception e) {
+			fail("The search engine should not throw an exception: "+e.getMessage()); //$NON-NLS-1$
+		}
+		finally {
+			System.clearProperty(ApiSearchEngine.PARALLEL_SEARCH_PROPERTY);
+		}
+	}
+
+	/**
+	 * Tests that the concurrent search rethrows an unchecked exception thrown
+	 * while searching, as the serial search does
+	 */
+	public void testUncheckedExceptionInParallel() throws Exception {
+		final IllegalStateException failure = new IllegalStateException("search failed"); //$NON-NLS-1$
+		TestRequestor requestor = new TestRequestor(this) {
+			@Override
+			public boolean acceptMember(IApiMember member) {
+				throw failure;
+			}
+		};
+		ApiSearchEngine engine = new ApiSearchEngine();
+		try {
+			this.scope = getTestScope(DEFAULT_SCOPE_PROJECTS);
+			requestor.setScopeBaseline(this.scope);
+			requestor.setSearchMask(IApiSearchRequestor.INCLUDE_API | IApiSearchRequestor.INCLUDE_INTERNAL);
+			for (boolean parallel : new boolean[] { false, true }) {
+				System.setProperty(ApiSearchEngine.PARALLEL_SEARCH_PROPERTY, Boolean.toString(parallel));
+				try {
+					engine.search(getTestBaseline(), requestor, new RecordingReporter(), null);
+					fail("The search should have failed, parallel: " + parallel); //$NON-NLS-1$
+				} catch (IllegalStateException e) {
+					assertSame("The exception should be rethrown as is, parallel: " + parallel, failure, e); //$NON-NLS-1$
+				} catch (CoreException e) {
+					fail("The exception should not be wrapped, parallel: " + parallel); //$NON-NLS-1$
+				}
+			}
+		} finally {
+			System.clearProperty(ApiSearchEngine.PARALLEL_SEARCH_PROPERTY);
+		}
+	}
+
 	/**
 	 * Tests that an entry in the exclude file is honored
 	 */
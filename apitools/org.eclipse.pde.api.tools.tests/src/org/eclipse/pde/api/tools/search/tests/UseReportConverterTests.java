@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.search.tests;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+import org.eclipse.pde.api.tools.internal.search.UseReportConverter;
+import org.eclipse.pde.api.tools.internal.util.Util;
+import org.eclipse.pde.api.tools.model.tests.TestSuiteHelper;
+
+/**
+ * Tests the {@link UseReportConverter}
+ *
+ * @since 1.1.100
+ */
+public class UseReportConverterTests extends TestCase {
+
+	private static final String REPORT = "PDEApiUseScanReport"; //$NON-NLS-1$
+
+	private File fRoot;
+
+	@Override
+	protected void setUp() throws Exception {
+		fRoot = new File(System.getProperty("java.io.tmpdir"), "use-report-converter-tests"); //$NON-NLS-1$ //$NON-NLS-2$
+		Util.delete(fRoot);
+		String zip = TestSuiteHelper.getPluginDirectoryPath().append("test-apiusescan").append("reports").append(REPORT + ".zip").toOSString(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		Util.unzip(zip, fRoot.getAbsolutePath());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		Util.delete(fRoot);
+	}
+
+	private String getXmlLocation() {
+		return new File(new File(fRoot, REPORT), "xml").getAbsolutePath(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Collects the contents of all files below the given root, keyed by
+	 * relative path
+	 */
+	private void collect(File root, String prefix, Map<String, byte[]> files) throws Exception {
+		File[] children = root.listFiles();
+		assertNotNull("missing directory: " + root, children); //$NON-NLS-1$
+		for (File child : children) {
+			String path = prefix + child.getName();
+			if (child.isDirectory()) {
+				collect(child, path + '/', files);
+			} else {
+				files.put(path, Files.readAllBytes(child.toPath()));
+			}
+		}
+	}
+
+	/**
+	 * Tests that converting the referenced components concurrently writes the
+	 * same HTML as converting them one after the other
+	 *
+	 * @throws Exception
+	 */
+	public void testConcurrentConversion() throws Exception {
+		File serial = new File(fRoot, "serial"); //$NON-NLS-1$
+		UseReportConverter converter = new UseReportConverter(serial.getAbsolutePath(), getXmlLocation(), null, null);
+		converter.setThreads(1);
+		converter.convert(null, null);
+		assertNotNull("the index should have been written", converter.getReportIndex()); //$NON-NLS-1$
+
+		File concurrent = new File(fRoot, "concurrent"); //$NON-NLS-1$
+		converter = new UseReportConverter(concurrent.getAbsolutePath(), getXmlLocation(), null, null);
+		converter.setThreads(4);
+		converter.convert(null, null);
+		assertNotNull("the index should have been written", converter.getReportIndex()); //$NON-NLS-1$
+
+		Map<String, byte[]> expected = new TreeMap<>();
+		collect(serial, "", expected); //$NON-NLS-1$
+		Map<String, byte[]> actual = new TreeMap<>();
+		collect(concurrent, "", actual); //$NON-NLS-1$
+		assertTrue("there should be component pages", expected.size() > 4); //$NON-NLS-1$
+		assertEquals("wrong pages", expected.keySet(), actual.keySet()); //$NON-NLS-1$
+		for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+			assertTrue("different content: " + entry.getKey(), Arrays.equals(entry.getValue(), actual.get(entry.getKey()))); //$NON-NLS-1$
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2015 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -337,6 +337,14 @@ public class ApiDescription implements IApiDescription {
 		return -1;
 	}
 
+	/**
+	 * @return the version of the <code>.api_description</code> file this
+	 *         description was read from
+	 */
+	float getEmbeddedVersion() {
+		return fEmbeddedVersion;
+	}
+
 	/**
 	 * Allows the embedded version of this API description to be set. If the
 	 * given version string cannot be parsed to a valid version, the embedded
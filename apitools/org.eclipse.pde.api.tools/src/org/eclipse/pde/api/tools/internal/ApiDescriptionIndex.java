@@ -0,0 +1,498 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.pde.api.tools.internal.ApiDescription.ManifestNode;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IFieldDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IMethodDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IPackageDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IReferenceTypeDescriptor;
+
+/**
+ * A binary form of the annotations read from an <code>.api_description</code>
+ * file, which is read through a memory mapped buffer.
+ * <p>
+ * Parsing the XML of a large <code>.api_description</code> file builds a DOM
+ * and an {@link ApiDescription} node for every element it describes, although
+ * only a few of them are usually looked up. The index is generated once from
+ * the parsed XML into the plug-in state location and then answers lookups by
+ * binary searches on the buffer without creating any objects.
+ * </p>
+ * <p>
+ * The file consists of a header, a table of the packages sorted by name, a
+ * table of the records of the types and members of each package sorted by
+ * key, and the UTF-8 encoded names and keys. The key of a record is relative to
+ * its package, e.g. <code>Outer$Inner</code> for a type,
+ * <code>Outer#field</code> for a field and <code>Outer#method(I)V</code> for a
+ * method. An index is only used if the time stamp and length of the file it
+ * was generated from are unchanged.
+ * </p>
+ *
+ * @since 1.1.100
+ */
+public final class ApiDescriptionIndex {
+
+	/**
+	 * System property that can be set to <code>false</code> to disable the
+	 * index
+	 */
+	public static final String INDEX_PROPERTY = "org.eclipse.pde.api.tools.apiDescriptionIndex"; //$NON-NLS-1$
+
+	/**
+	 * Name of the directory in the state location holding the index files
+	 */
+	static final String INDEX_DIRECTORY = ".api_descriptions"; //$NON-NLS-1$
+
+	/**
+	 * File extension of index files
+	 */
+	static final String INDEX_FILE_EXTENSION = ".index"; //$NON-NLS-1$
+
+	/**
+	 * Version of the index file format, index files of other versions are
+	 * generated again
+	 */
+	static final int VERSION = 1;
+
+	private static final int MAGIC = 0x41504944; // 'APID'
+
+	private static final int FLAG_HAS_DESCRIPTION = 1;
+
+	private static final int HEADER_SIZE = 40;
+	private static final int PACKAGE_ENTRY_SIZE = 12;
+	private static final int RECORD_ENTRY_SIZE = 12;
+
+	private static final char MEMBER_SEPARATOR = '#';
+
+	private final ByteBuffer fBuffer;
+	private final int fFlags;
+	private final float fEmbeddedVersion;
+	private final int fPackageCount;
+	private final int fRecordTable;
+
+	private ApiDescriptionIndex(ByteBuffer buffer) {
+		fBuffer = buffer;
+		fFlags = buffer.getInt(24);
+		fEmbeddedVersion = buffer.getFloat(28);
+		fPackageCount = buffer.getInt(32);
+		fRecordTable = HEADER_SIZE + fPackageCount * PACKAGE_ENTRY_SIZE;
+	}
+
+	/**
+	 * Returns the index file of a bundle in the state location of the API
+	 * tools plug-in, or <code>null</code> if the index is disabled or the
+	 * plug-in is not running in a framework
+	 *
+	 * @param symbolicName the symbolic name of the bundle
+	 * @param version the version of the bundle
+	 * @param location the location of the bundle
+	 * @return the index file or <code>null</code>
+	 */
+	public static File getIndexFile(String symbolicName, String version, File location) {
+		if (!ApiPlugin.isRunningInFramework() || !Boolean.parseBoolean(System.getProperty(INDEX_PROPERTY, Boolean.TRUE.toString()))) {
+			return null;
+		}
+		File root = ApiPlugin.getDefault().getStateLocation().append(INDEX_DIRECTORY).toFile();
+		StringBuilder name = new StringBuilder(symbolicName);
+		name.append('_').append(version).append('_');
+		name.append(Integer.toHexString(location.getAbsolutePath().hashCode()));
+		name.append(INDEX_FILE_EXTENSION);
+		return new File(root, name.toString());
+	}
+
+	/**
+	 * Maps the given index file, or returns <code>null</code> if it does not
+	 * exist, is invalid or was generated from another version of the source
+	 * file
+	 *
+	 * @param indexFile the index file
+	 * @param source the <code>.api_description</code> file or the archive
+	 *            containing it
+	 * @return the index or <code>null</code>
+	 */
+	public static ApiDescriptionIndex read(File indexFile, File source) {
+		if (!indexFile.isFile()) {
+			return null;
+		}
+		try (RandomAccessFile file = new RandomAccessFile(indexFile, "r"); //$NON-NLS-1$
+				FileChannel channel = file.getChannel()) {
+			long size = channel.size();
+			if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+				return null;
+			}
+			// the mapping stays valid once the channel is closed
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != source.lastModified() || buffer.getLong(16) != source.length()) {
+				return null;
+			}
+			int packages = buffer.getInt(32);
+			int records = buffer.getInt(36);
+			if (packages < 0 || records < 0 || HEADER_SIZE + (long) packages * PACKAGE_ENTRY_SIZE + (long) records * RECORD_ENTRY_SIZE > size) {
+				return null;
+			}
+			return new ApiDescriptionIndex(buffer);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Generates the index file from an API description holding the
+	 * annotations parsed from the <code>.api_description</code> file and maps
+	 * it.
+	 *
+	 * @param indexFile the index file to write
+	 * @param source the <code>.api_description</code> file or the archive
+	 *            containing it
+	 * @param description the parsed annotations or <code>null</code> if the
+	 *            bundle has no <code>.api_description</code> file
+	 * @return the index or <code>null</code> if it could not be written
+	 */
+	public static ApiDescriptionIndex write(File indexFile, File source, ApiDescription description) {
+		// read the stamp first, a concurrent change of the source then fails the next check
+		long lastModified = source.lastModified();
+		long length = source.length();
+		List<byte[]> packageNames = new ArrayList<>();
+		List<List<Record>> packageRecords = new ArrayList<>();
+		if (description != null) {
+			List<ManifestNode> packageNodes = new ArrayList<>(description.fPackageMap.values());
+			Collections.sort(packageNodes, new Comparator<ManifestNode>() {
+				@Override
+				public int compare(ManifestNode n1, ManifestNode n2) {
+					return compareBytes(encode(((IPackageDescriptor) n1.element).getName()), encode(((IPackageDescriptor) n2.element).getName()));
+				}
+			});
+			for (ManifestNode packageNode : packageNodes) {
+				List<Record> records = new ArrayList<>();
+				collectRecords(packageNode.children, null, records);
+				Collections.sort(records);
+				packageNames.add(encode(((IPackageDescriptor) packageNode.element).getName()));
+				packageRecords.add(records);
+			}
+		}
+		int recordCount = 0;
+		for (List<Record> records : packageRecords) {
+			recordCount += records.size();
+		}
+		File dir = indexFile.getParentFile();
+		if (!dir.exists() && !dir.mkdirs()) {
+			return null;
+		}
+		File temp = new File(dir, indexFile.getName() + ".tmp"); //$NON-NLS-1$
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(lastModified);
+			out.writeLong(length);
+			out.writeInt(description != null ? FLAG_HAS_DESCRIPTION : 0);
+			out.writeFloat(description != null ? description.getEmbeddedVersion() : 0.0f);
+			out.writeInt(packageNames.size());
+			out.writeInt(recordCount);
+			int strings = HEADER_SIZE + packageNames.size() * PACKAGE_ENTRY_SIZE + recordCount * RECORD_ENTRY_SIZE;
+			int offset = strings;
+			int first = 0;
+			for (int i = 0; i < packageNames.size(); i++) {
+				out.writeInt(offset);
+				out.writeInt(first);
+				out.writeInt(packageRecords.get(i).size());
+				offset += 4 + packageNames.get(i).length;
+				first += packageRecords.get(i).size();
+			}
+			for (List<Record> records : packageRecords) {
+				for (Record record : records) {
+					out.writeInt(offset);
+					out.writeInt(record.fVisibility);
+					out.writeInt(record.fRestrictions);
+					offset += 4 + record.fKey.length;
+				}
+			}
+			for (byte[] name : packageNames) {
+				out.writeInt(name.length);
+				out.write(name);
+			}
+			for (List<Record> records : packageRecords) {
+				for (Record record : records) {
+					out.writeInt(record.fKey.length);
+					out.write(record.fKey);
+				}
+			}
+		} catch (IOException e) {
+			temp.delete();
+			return null;
+		}
+		if ((indexFile.exists() && !indexFile.delete()) || !temp.renameTo(indexFile)) {
+			temp.delete();
+			return null;
+		}
+		return read(indexFile, source);
+	}
+
+	/**
+	 * A type or member annotated in the <code>.api_description</code> file
+	 */
+	static class Record implements Comparable<Record> {
+		final byte[] fKey;
+		final int fVisibility;
+		final int fRestrictions;
+
+		Record(String key, int visibility, int restrictions) {
+			fKey = encode(key);
+			fVisibility = visibility;
+			fRestrictions = restrictions;
+		}
+
+		@Override
+		public int compareTo(Record other) {
+			return compareBytes(fKey, other.fKey);
+		}
+	}
+
+	/**
+	 * Collects the records of the given nodes and their children, including
+	 * the enclosing types created implicitly for nested types.
+	 */
+	private static void collectRecords(Map<IElementDescriptor, ManifestNode> nodes, String typeKey, List<Record> records) {
+		for (ManifestNode node : nodes.values()) {
+			String key = getKey(node.element, typeKey);
+			if (key == null) {
+				continue;
+			}
+			records.add(new Record(key, node.visibility, node.restrictions));
+			if (node.element.getElementType() == IElementDescriptor.TYPE) {
+				collectRecords(node.children, key, records);
+			}
+		}
+	}
+
+	/**
+	 * Returns the key of the given type or member relative to its package
+	 *
+	 * @param element a type or member
+	 * @param typeKey the key of the enclosing type or <code>null</code> for a
+	 *            top level type
+	 * @return the key or <code>null</code> if the element is neither a type nor
+	 *         a member
+	 */
+	static String getKey(IElementDescriptor element, String typeKey) {
+		switch (element.getElementType()) {
+			case IElementDescriptor.TYPE: {
+				String name = ((IReferenceTypeDescriptor) element).getName();
+				return typeKey == null ? name : typeKey + '$' + name;
+			}
+			case IElementDescriptor.FIELD: {
+				return typeKey + MEMBER_SEPARATOR + ((IFieldDescriptor) element).getName();
+			}
+			case IElementDescriptor.METHOD: {
+				IMethodDescriptor method = (IMethodDescriptor) element;
+				return typeKey + MEMBER_SEPARATOR + method.getName() + method.getSignature();
+			}
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Returns the descriptor of the type or member with the given key
+	 *
+	 * @param pkg the package of the record
+	 * @param key the key of the record
+	 * @return the element descriptor
+	 */
+	static IElementDescriptor getDescriptor(IPackageDescriptor pkg, String key) {
+		int index = key.indexOf(MEMBER_SEPARATOR);
+		if (index < 0) {
+			return pkg.getType(key);
+		}
+		IReferenceTypeDescriptor type = pkg.getType(key.substring(0, index));
+		String member = key.substring(index + 1);
+		int paren = member.indexOf('(');
+		if (paren < 0) {
+			return type.getField(member);
+		}
+		return type.getMethod(member.substring(0, paren), member.substring(paren));
+	}
+
+	/**
+	 * @return whether the bundle has an <code>.api_description</code> file
+	 */
+	public boolean hasDescription() {
+		return (fFlags & FLAG_HAS_DESCRIPTION) != 0;
+	}
+
+	/**
+	 * @return the version of the <code>.api_description</code> file
+	 */
+	public float getEmbeddedVersion() {
+		return fEmbeddedVersion;
+	}
+
+	/**
+	 * @return the number of packages in this index
+	 */
+	public int getPackageCount() {
+		return fPackageCount;
+	}
+
+	/**
+	 * Returns the index of the package with the given name
+	 *
+	 * @param name the package name
+	 * @return the index of the package or -1 if it is not annotated
+	 */
+	public int findPackage(String name) {
+		byte[] key = encode(name);
+		int low = 0;
+		int high = fPackageCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = compareString(fBuffer.getInt(HEADER_SIZE + mid * PACKAGE_ENTRY_SIZE), key);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the record with the given key in a package
+	 *
+	 * @param pkg the index of the package
+	 * @param key the key of the type or member
+	 * @return the index of the record or -1 if the element is not annotated
+	 */
+	public int findRecord(int pkg, String key) {
+		byte[] bytes = encode(key);
+		int low = getFirstRecord(pkg);
+		int high = low + getRecordCount(pkg) - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = compareString(fBuffer.getInt(fRecordTable + mid * RECORD_ENTRY_SIZE), bytes);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param pkg the index of a package
+	 * @return the name of the package
+	 */
+	public String getPackageName(int pkg) {
+		return getString(fBuffer.getInt(HEADER_SIZE + pkg * PACKAGE_ENTRY_SIZE));
+	}
+
+	/**
+	 * @param pkg the index of a package
+	 * @return the index of the first record of the package
+	 */
+	public int getFirstRecord(int pkg) {
+		return fBuffer.getInt(HEADER_SIZE + pkg * PACKAGE_ENTRY_SIZE + 4);
+	}
+
+	/**
+	 * @param pkg the index of a package
+	 * @return the number of records of the package
+	 */
+	public int getRecordCount(int pkg) {
+		return fBuffer.getInt(HEADER_SIZE + pkg * PACKAGE_ENTRY_SIZE + 8);
+	}
+
+	/**
+	 * @param record the index of a record
+	 * @return the key of the record relative to its package
+	 */
+	public String getKey(int record) {
+		return getString(fBuffer.getInt(fRecordTable + record * RECORD_ENTRY_SIZE));
+	}
+
+	/**
+	 * @param record the index of a record
+	 * @return the visibility of the record
+	 */
+	public int getVisibility(int record) {
+		return fBuffer.getInt(fRecordTable + record * RECORD_ENTRY_SIZE + 4);
+	}
+
+	/**
+	 * @param record the index of a record
+	 * @return the restrictions of the record
+	 */
+	public int getRestrictions(int record) {
+		return fBuffer.getInt(fRecordTable + record * RECORD_ENTRY_SIZE + 8);
+	}
+
+	private String getString(int offset) {
+		int length = fBuffer.getInt(offset);
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = fBuffer.get(offset + 4 + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Compares the string at the given offset of the buffer with the given
+	 * bytes, without decoding it
+	 */
+	private int compareString(int offset, byte[] bytes) {
+		int length = fBuffer.getInt(offset);
+		int min = Math.min(length, bytes.length);
+		for (int i = 0; i < min; i++) {
+			int cmp = (fBuffer.get(offset + 4 + i) & 0xFF) - (bytes[i] & 0xFF);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return length - bytes.length;
+	}
+
+	static byte[] encode(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+
+	static int compareBytes(byte[] b1, byte[] b2) {
+		int min = Math.min(b1.length, b2.length);
+		for (int i = 0; i < min; i++) {
+			int cmp = (b1[i] & 0xFF) - (b2[i] & 0xFF);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return b1.length - b2.length;
+	}
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.pde.api.tools.internal.provisional.ApiDescriptionVisitor;
+import org.eclipse.pde.api.tools.internal.provisional.Factory;
+import org.eclipse.pde.api.tools.internal.provisional.IApiAnnotations;
+import org.eclipse.pde.api.tools.internal.provisional.RestrictionModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IPackageDescriptor;
+
+/**
+ * An API description of a bundle whose <code>.api_description</code> file is
+ * read from an {@link ApiDescriptionIndex}.
+ * <p>
+ * Annotations of the types and members of a package are resolved from the
+ * index until the package is modified or visited, which creates the manifest
+ * nodes of the package from the index.
+ * </p>
+ *
+ * @since 1.1.100
+ */
+public class IndexedApiDescription extends ApiDescription {
+
+	private ApiDescriptionIndex fIndex = null;
+
+	/**
+	 * Names of the packages whose manifest nodes were created from the index
+	 */
+	private Set<String> fMaterialized = new HashSet<>();
+
+	/**
+	 * Constructs an API description owned by the specified component.
+	 *
+	 * @param owningComponentId API component identifier
+	 */
+	public IndexedApiDescription(String owningComponentId) {
+		super(owningComponentId);
+	}
+
+	/**
+	 * Sets the index holding the annotations of the
+	 * <code>.api_description</code> file. Called once the packages of the
+	 * bundle have been initialized.
+	 *
+	 * @param index the index
+	 */
+	public synchronized void setIndex(ApiDescriptionIndex index) {
+		fIndex = index;
+		fMaterialized.clear();
+		if (index.hasDescription()) {
+			setEmbeddedVersion(Float.toString(index.getEmbeddedVersion()));
+		}
+		if (index.getPackageCount() > 0) {
+			modified();
+		}
+	}
+
+	@Override
+	public synchronized void accept(ApiDescriptionVisitor visitor, IProgressMonitor monitor) {
+		if (fIndex != null) {
+			for (int i = 0; i < fIndex.getPackageCount(); i++) {
+				materialize(fIndex.getPackageName(i));
+			}
+		}
+		super.accept(visitor, monitor);
+	}
+
+	@Override
+	public synchronized boolean accept(ApiDescriptionVisitor visitor, IElementDescriptor element, IProgressMonitor monitor) {
+		return super.accept(visitor, element, monitor);
+	}
+
+	@Override
+	public synchronized IApiAnnotations resolveAnnotations(IElementDescriptor element) {
+		IElementDescriptor[] path = element.getPath();
+		if (fIndex == null || !(path[0] instanceof IPackageDescriptor)) {
+			return super.resolveAnnotations(element);
+		}
+		String name = ((IPackageDescriptor) path[0]).getName();
+		int pkg = fIndex.findPackage(name);
+		if (pkg < 0 || fMaterialized.contains(name)) {
+			return super.resolveAnnotations(element);
+		}
+		// the package node is created with API visibility when annotated
+		int vis = VisibilityModifiers.API;
+		int res = RestrictionModifiers.NO_RESTRICTIONS;
+		ManifestNode node = fPackageMap.get(path[0]);
+		if (node != null) {
+			vis = node.visibility;
+			res = node.restrictions;
+		}
+		String typeKey = null;
+		int last = 0;
+		for (int i = 1; i < path.length; i++) {
+			String key = ApiDescriptionIndex.getKey(path[i], typeKey);
+			int record = key == null ? -1 : fIndex.findRecord(pkg, key);
+			if (record < 0) {
+				break;
+			}
+			int recordVis = fIndex.getVisibility(record);
+			if (recordVis != VISIBILITY_INHERITED) {
+				vis = recordVis;
+			}
+			res = fIndex.getRestrictions(record);
+			last = i;
+			typeKey = key;
+		}
+		if (last != path.length - 1) {
+			// restrictions only apply to the element itself
+			res = RestrictionModifiers.NO_RESTRICTIONS;
+		}
+		return new ApiAnnotations(vis, res);
+	}
+
+	@Override
+	protected synchronized ManifestNode findNode(IElementDescriptor element, boolean write) {
+		if (fIndex != null) {
+			IElementDescriptor root = element.getPath()[0];
+			if (root instanceof IPackageDescriptor) {
+				materialize(((IPackageDescriptor) root).getName());
+			}
+		}
+		return super.findNode(element, write);
+	}
+
+	@Override
+	protected synchronized void clearPackages() {
+		fIndex = null;
+		fMaterialized.clear();
+		super.clearPackages();
+	}
+
+	/**
+	 * Creates the manifest nodes of the types and members of the given package
+	 * from the index, unless already done.
+	 *
+	 * @param name the package name
+	 */
+	private void materialize(String name) {
+		if (fMaterialized.contains(name)) {
+			return;
+		}
+		int pkg = fIndex.findPackage(name);
+		if (pkg < 0) {
+			return;
+		}
+		fMaterialized.add(name);
+		IPackageDescriptor descriptor = Factory.packageDescriptor(name);
+		int first = fIndex.getFirstRecord(pkg);
+		int end = first + fIndex.getRecordCount(pkg);
+		for (int record = first; record < end; record++) {
+			ManifestNode node = super.findNode(ApiDescriptionIndex.getDescriptor(descriptor, fIndex.getKey(record)), true);
+			if (node != null) {
+				node.visibility = fIndex.getVisibility(record);
+				node.restrictions = fIndex.getRestrictions(record);
+			}
+		}
+		if (fMaterialized.size() == fIndex.getPackageCount()) {
+			// every package of the index is in the tree now
+			fIndex = null;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2016 IBM Corporation and others.
+ * Copyright (c) 2008, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,20 +10,27 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.internal.builder;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -50,14 +57,37 @@ import org.eclipse.pde.core.build.IBuildEntry;
 import org.eclipse.pde.core.build.IBuildModel;
 
 /**
- * The API tools build state
+ * The API tools build state.
+ * <p>
+ * The state is saved in a compact binary form: all strings are written once to
+ * a constant pool and referenced by index, and the compatible and breaking
+ * deltas are written to a length-prefixed section at the end of the file. When
+ * a state is read, the delta section is kept as raw bytes and is only decoded
+ * the first time the changes are asked for or modified. A state whose changes
+ * were never touched is written back without decoding them, only their string
+ * indexes are mapped to the constant pool of the new state.
+ * </p>
+ * <p>
+ * States saved in the previous format (version {@link #LEGACY_VERSION}) are
+ * still read and are migrated to the current format the next time they are
+ * saved.
+ * </p>
  *
  * @since 1.0.1
  */
 public class BuildState {
 	private static final IDelta[] EMPTY_DELTAS = new IDelta[0];
 	private static final String[] NO_REEXPORTED_COMPONENTS = new String[0];
-	private static final int VERSION = 33;
+	private static final int VERSION = 34;
+	/**
+	 * The last version of the state that was written with
+	 * {@link DataOutputStream} strings and eagerly decoded deltas
+	 */
+	private static final int LEGACY_VERSION = 33;
+	/**
+	 * Marker used in the delta section for a missing string
+	 */
+	private static final int NO_STRING = -1;
 
 	private Map<String, Set<IDelta>> compatibleChanges;
 	private Map<String, Set<IDelta>> breakingChanges;
@@ -77,6 +107,19 @@ public class BuildState {
 	private Set<String> apiToolingDependentProjects;
 	private long buildpathCRC = -1L;
 
+	/**
+	 * The constant pool the pending delta section refers to, or
+	 * <code>null</code> if the deltas have been decoded
+	 */
+	private String[] deltaPool;
+	/**
+	 * The undecoded delta section read from disk, or <code>null</code> if the
+	 * deltas have been decoded
+	 */
+	private ByteBuffer deltaSection;
+	private int pendingCompatibleCount;
+	private int pendingBreakingCount;
+
 	/**
 	 * Constructor
 	 */
@@ -87,6 +130,37 @@ public class BuildState {
 		this.buildPropChanges = new HashMap<>();
 	}
 
+	/**
+	 * Collects the strings of a state being written, assigning each distinct
+	 * string an index in the constant pool
+	 */
+	static class ConstantPool {
+		final List<String> strings = new ArrayList<>();
+		final Map<String, Integer> indexes = new HashMap<>();
+
+		int indexOf(String string) {
+			if (string == null) {
+				return NO_STRING;
+			}
+			Integer index = indexes.get(string);
+			if (index == null) {
+				index = Integer.valueOf(strings.size());
+				indexes.put(string, index);
+				strings.add(string);
+			}
+			return index.intValue();
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeInt(strings.size());
+			for (String string : strings) {
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+	}
+
 	/**
 	 * Reads the build state from an input stream
 	 *
@@ -95,18 +169,208 @@ public class BuildState {
 	 * @throws IOException
 	 */
 	public static BuildState read(DataInputStream in) throws IOException {
-		String pluginID = in.readUTF();
-		if (!pluginID.equals(ApiPlugin.PLUGIN_ID)) {
+		return read(ByteBuffer.wrap(Util.getInputStreamAsByteArray(in, -1)));
+	}
+
+	/**
+	 * Reads the build state from the given buffer
+	 *
+	 * @param buffer the complete contents of a saved state
+	 * @return the {@link BuildState} from the given buffer or <code>null</code>
+	 *         if the state is from an unsupported version
+	 * @throws IOException if the state is corrupt or truncated, including a
+	 *             delta section that refers to strings outside of the
+	 *             constant pool
+	 */
+	static BuildState read(ByteBuffer buffer) throws IOException {
+		try {
+			String pluginID = readHeaderString(buffer);
+			if (!pluginID.equals(ApiPlugin.PLUGIN_ID)) {
+				throw new IOException(BuilderMessages.build_wrongFileFormat);
+			}
+			String kind = readHeaderString(buffer);
+			if (!kind.equals("STATE")) {//$NON-NLS-1$
+				throw new IOException(BuilderMessages.build_wrongFileFormat);
+			}
+			int version = buffer.getInt();
+			if (version == LEGACY_VERSION) {
+				return readLegacy(new DataInputStream(new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining())));
+			}
+			if (version != VERSION) {
+				// this is an old build state - a full build is required
+				return null;
+			}
+			if (buffer.get() == 0) {
+				return null;
+			}
+			BuildState state = new BuildState();
+			state.buildpathCRC = buffer.getLong();
+			String[] pool = new String[buffer.getInt()];
+			for (int i = 0; i < pool.length; i++) {
+				int length = buffer.getInt();
+				pool[i] = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+				buffer.position(buffer.position() + length);
+			}
+			int count = buffer.getInt();
+			// read all re-exported component names
+			String[] components = new String[count];
+			for (int i = 0; i < count; i++) {
+				components[i] = getPoolString(pool, buffer.getInt());
+			}
+			state.reexportedComponents = components;
+			count = buffer.getInt();
+			for (int i = 0; i < count; i++) {
+				state.addApiToolingDependentProject(getPoolString(pool, buffer.getInt()));
+			}
+			count = buffer.getInt();
+			if (count > 0) {
+				// read the saved headers
+				HashMap<String, String> map = new HashMap<>(count);
+				for (int i = 0; i < count; i++) {
+					map.put(getPoolString(pool, buffer.getInt()), getPoolString(pool, buffer.getInt()));
+				}
+				state.setManifestState(map);
+			}
+			count = buffer.getInt();
+			if (count > 0) {
+				// read the saved build.properties entries
+				HashMap<String, String> map = new HashMap<>(count);
+				for (int i = 0; i < count; i++) {
+					map.put(getPoolString(pool, buffer.getInt()), getPoolString(pool, buffer.getInt()));
+				}
+				state.setBuildPropertiesState(map);
+			}
+			// keep the delta section for decoding on demand
+			int compatible = buffer.getInt();
+			int breaking = buffer.getInt();
+			int length = buffer.getInt();
+			if (compatible < 0 || breaking < 0 || length < 0 || length > buffer.remaining()) {
+				throw new IOException(BuilderMessages.build_wrongFileFormat);
+			}
+			if (compatible + breaking > 0) {
+				ByteBuffer section = buffer.slice();
+				section.limit(length);
+				// a corrupt section must fail now rather than when the
+				// deltas are decoded, so that a full build is done instead
+				checkDeltaSection(section, pool.length, compatible + breaking);
+				state.deltaPool = pool;
+				state.deltaSection = section;
+				state.pendingCompatibleCount = compatible;
+				state.pendingBreakingCount = breaking;
+			}
+			return state;
+		} catch (BufferUnderflowException e) {
+			throw new EOFException(BuilderMessages.build_wrongFileFormat);
+		} catch (IndexOutOfBoundsException e) {
+			throw new IOException(BuilderMessages.build_wrongFileFormat, e);
+		}
+	}
+
+	/**
+	 * Returns the string at the given index of the constant pool
+	 *
+	 * @param pool the constant pool
+	 * @param index the index read from the state
+	 * @return the string
+	 * @throws IOException if the index is not in the pool
+	 */
+	private static String getPoolString(String[] pool, int index) throws IOException {
+		checkPoolIndex(index, pool.length);
+		return pool[index];
+	}
+
+	/**
+	 * Checks that the given delta section holds the given number of deltas
+	 * and only refers to strings of the constant pool, without decoding the
+	 * deltas
+	 *
+	 * @param section the delta section
+	 * @param poolSize the size of the constant pool
+	 * @param count the number of deltas in the section
+	 * @throws IOException if the section is corrupt
+	 */
+	private static void checkDeltaSection(ByteBuffer section, int poolSize, int count) throws IOException {
+		ByteBuffer buffer = section.duplicate();
+		for (int i = 0; i < count; i++) {
+			// element type, kind, flags, restrictions, modifiers, type name,
+			// key and number of arguments
+			if (buffer.remaining() < 36) {
+				throw new IOException(BuilderMessages.build_wrongFileFormat);
+			}
+			buffer.position(buffer.position() + 24);
+			checkPoolIndex(buffer.getInt(), poolSize);
+			checkPoolIndex(buffer.getInt(), poolSize);
+			int length = buffer.getInt();
+			if (length < 0 || length > buffer.remaining() / 4) {
+				throw new IOException(BuilderMessages.build_wrongFileFormat);
+			}
+			for (int j = 0; j < length; j++) {
+				checkPoolIndex(buffer.getInt(), poolSize);
+			}
+		}
+		if (buffer.hasRemaining()) {
 			throw new IOException(BuilderMessages.build_wrongFileFormat);
 		}
-		String kind = in.readUTF();
-		if (!kind.equals("STATE")) {//$NON-NLS-1$
+	}
+
+	private static void checkPoolIndex(int index, int poolSize) throws IOException {
+		if (index < 0 || index >= poolSize) {
 			throw new IOException(BuilderMessages.build_wrongFileFormat);
 		}
-		if (in.readInt() != VERSION) {
-			// this is an old build state - a full build is required
-			return null;
+	}
+
+	/**
+	 * Copies the undecoded delta section of a state to the given stream,
+	 * mapping its string indexes to the given constant pool
+	 *
+	 * @param section the delta section
+	 * @param oldPool the constant pool the section refers to
+	 * @param pool the constant pool of the state being written
+	 * @param count the number of deltas in the section
+	 * @param out the stream to write to
+	 * @throws IOException
+	 */
+	private static void copyDeltaSection(ByteBuffer section, String[] oldPool, ConstantPool pool, int count, DataOutputStream out) throws IOException {
+		ByteBuffer buffer = section.duplicate();
+		buffer.rewind();
+		for (int i = 0; i < count; i++) {
+			// element type, kind, flags, restrictions and modifiers
+			for (int j = 0; j < 6; j++) {
+				out.writeInt(buffer.getInt());
+			}
+			out.writeInt(pool.indexOf(oldPool[buffer.getInt()]));
+			out.writeInt(pool.indexOf(oldPool[buffer.getInt()]));
+			int length = buffer.getInt();
+			out.writeInt(length);
+			for (int j = 0; j < length; j++) {
+				out.writeInt(pool.indexOf(oldPool[buffer.getInt()]));
+			}
 		}
+	}
+
+	/**
+	 * Reads a string written by {@link DataOutputStream#writeUTF(String)} in
+	 * the state header. Header strings are plain ASCII.
+	 *
+	 * @param buffer
+	 * @return the string
+	 */
+	private static String readHeaderString(ByteBuffer buffer) {
+		int length = buffer.getShort() & 0xFFFF;
+		String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return value;
+	}
+
+	/**
+	 * Reads the remainder of a state saved in the {@link #LEGACY_VERSION}
+	 * format, after the header
+	 *
+	 * @param in
+	 * @return the {@link BuildState} from the given input stream
+	 * @throws IOException
+	 */
+	private static BuildState readLegacy(DataInputStream in) throws IOException {
 		if (in.readBoolean()) {
 			// continue to read
 			BuildState state = new BuildState();
@@ -174,46 +438,67 @@ public class BuildState {
 		out.writeInt(VERSION);
 		out.writeBoolean(true);
 		out.writeLong(state.buildpathCRC);
-		IDelta[] compatibleChangesDeltas = state.getCompatibleChanges();
-		int length = compatibleChangesDeltas.length;
-		out.writeInt(length);
-		for (int i = 0; i < length; i++) {
-			writeDelta(compatibleChangesDeltas[i], out);
-		}
-		IDelta[] breakingChangesDeltas = state.getBreakingChanges();
-		length = breakingChangesDeltas.length;
-		out.writeInt(length);
-		for (int i = 0; i < length; i++) {
-			writeDelta(breakingChangesDeltas[i], out);
+		// the pool only holds the strings of this state, deltas that were
+		// never decoded are copied with their indexes mapped to it
+		ConstantPool pool = new ConstantPool();
+		ByteArrayOutputStream sectionBytes = new ByteArrayOutputStream();
+		DataOutputStream section = new DataOutputStream(sectionBytes);
+		int compatibleCount;
+		int breakingCount;
+		if (state.deltaSection != null) {
+			compatibleCount = state.pendingCompatibleCount;
+			breakingCount = state.pendingBreakingCount;
+			copyDeltaSection(state.deltaSection, state.deltaPool, pool, compatibleCount + breakingCount, section);
+		} else {
+			IDelta[] compatibleChangesDeltas = state.getCompatibleChanges();
+			compatibleCount = compatibleChangesDeltas.length;
+			for (int i = 0; i < compatibleCount; i++) {
+				writeDelta(compatibleChangesDeltas[i], pool, section);
+			}
+			IDelta[] breakingChangesDeltas = state.getBreakingChanges();
+			breakingCount = breakingChangesDeltas.length;
+			for (int i = 0; i < breakingCount; i++) {
+				writeDelta(breakingChangesDeltas[i], pool, section);
+			}
 		}
+		section.flush();
+		ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		DataOutputStream header = new DataOutputStream(headerBytes);
 		String[] reexportedComponents = state.getReexportedComponents();
-		length = reexportedComponents.length;
-		out.writeInt(length);
+		int length = reexportedComponents.length;
+		header.writeInt(length);
 		for (int i = 0; i < length; i++) {
-			out.writeUTF(reexportedComponents[i]);
+			header.writeInt(pool.indexOf(reexportedComponents[i]));
 		}
 		Set<String> apiToolingDependentsProjects = state.getApiToolingDependentProjects();
 		length = apiToolingDependentsProjects.size();
-		out.writeInt(length);
+		header.writeInt(length);
 		for (String string : apiToolingDependentsProjects) {
-			out.writeUTF(string);
+			header.writeInt(pool.indexOf(string));
 		}
 		Map<String, String> map = state.getManifestState();
-		out.writeInt(map.size());
+		header.writeInt(map.size());
 		Entry<String, String> entry = null;
 		for (Iterator<Entry<String, String>> i = map.entrySet().iterator(); i.hasNext();) {
 			entry = i.next();
-			out.writeUTF(entry.getKey());
-			out.writeUTF(entry.getValue());
+			header.writeInt(pool.indexOf(entry.getKey()));
+			header.writeInt(pool.indexOf(entry.getValue()));
 		}
 		map = state.getBuildPropertiesState();
-		out.writeInt(map.size());
+		header.writeInt(map.size());
 		entry = null;
 		for (Iterator<Entry<String, String>> i = map.entrySet().iterator(); i.hasNext();) {
 			entry = i.next();
-			out.writeUTF(entry.getKey());
-			out.writeUTF(entry.getValue());
+			header.writeInt(pool.indexOf(entry.getKey()));
+			header.writeInt(pool.indexOf(entry.getValue()));
 		}
+		header.flush();
+		pool.write(out);
+		headerBytes.writeTo(out);
+		out.writeInt(compatibleCount);
+		out.writeInt(breakingCount);
+		out.writeInt(sectionBytes.size());
+		sectionBytes.writeTo(out);
 	}
 
 	/**
@@ -258,35 +543,83 @@ public class BuildState {
 	}
 
 	/**
-	 * Writes a given {@link IDelta} to the build state (the output stream)
+	 * Decodes an {@link IDelta} from the delta section of the state. As for
+	 * the legacy format, the component id is not restored.
+	 *
+	 * @param section the delta section positioned at the delta
+	 * @param pool the constant pool of the state
+	 * @return a reconstructed {@link IDelta} from the build state
+	 */
+	private static IDelta readDelta(ByteBuffer section, String[] pool) {
+		int elementType = section.getInt();
+		int kind = section.getInt();
+		int flags = section.getInt();
+		int restrictions = section.getInt();
+		int oldModifiers = section.getInt();
+		int newModifiers = section.getInt();
+		String typeName = pool[section.getInt()];
+		String key = pool[section.getInt()];
+		int length = section.getInt();
+		String[] datas = null;
+		if (length != 0) {
+			datas = new String[length];
+			for (int i = 0; i < length; i++) {
+				datas[i] = pool[section.getInt()];
+			}
+		} else {
+			datas = new String[1];
+			datas[0] = typeName.replace('$', '.');
+		}
+		int previousRestrictions = restrictions >>> Delta.PREVIOUS_RESTRICTIONS_OFFSET;
+		int currentRestrictions = restrictions & Delta.RESTRICTIONS_MASK;
+		return new Delta(null, elementType, kind, flags, currentRestrictions, previousRestrictions, oldModifiers, newModifiers, typeName, key, datas);
+	}
+
+	/**
+	 * Writes a given {@link IDelta} to the delta section of the state
 	 *
 	 * @param delta the delta to write
+	 * @param pool the constant pool to add the strings of the delta to
 	 * @param out the stream to write to
 	 * @throws IOException
 	 */
-	private static void writeDelta(IDelta delta, DataOutputStream out) throws IOException {
-		// encode a delta into the build state
-		// int elementType, int kind, int flags, int restrictions, int
-		// modifiers, String typeName, String key, Object data
-		String apiComponentID = delta.getComponentVersionId();
-		boolean hasComponentID = apiComponentID != null;
-		out.writeBoolean(hasComponentID);
-		if (hasComponentID) {
-			out.writeUTF(apiComponentID);
-		}
+	private static void writeDelta(IDelta delta, ConstantPool pool, DataOutputStream out) throws IOException {
 		out.writeInt(delta.getElementType());
 		out.writeInt(delta.getKind());
 		out.writeInt(delta.getFlags());
 		out.writeInt(delta.getCurrentRestrictions());
 		out.writeInt(delta.getOldModifiers());
 		out.writeInt(delta.getNewModifiers());
-		out.writeUTF(delta.getTypeName());
-		out.writeUTF(delta.getKey());
+		out.writeInt(pool.indexOf(delta.getTypeName()));
+		out.writeInt(pool.indexOf(delta.getKey()));
 		String[] arguments = delta.getArguments();
 		int length = arguments.length;
 		out.writeInt(length);
 		for (int i = 0; i < length; i++) {
-			out.writeUTF(arguments[i]);
+			out.writeInt(pool.indexOf(arguments[i]));
+		}
+	}
+
+	/**
+	 * Decodes the delta section read from disk, if it has not been decoded
+	 * yet. Must be called before the change maps are used.
+	 */
+	private void decodeDeltas() {
+		if (this.deltaSection == null) {
+			return;
+		}
+		ByteBuffer section = this.deltaSection;
+		String[] pool = this.deltaPool;
+		int compatible = this.pendingCompatibleCount;
+		int breaking = this.pendingBreakingCount;
+		this.deltaSection = null;
+		this.deltaPool = null;
+		section.rewind();
+		for (int i = 0; i < compatible; i++) {
+			addCompatibleChange(readDelta(section, pool));
+		}
+		for (int i = 0; i < breaking; i++) {
+			addBreakingChange(readDelta(section, pool));
 		}
 	}
 
@@ -297,6 +630,7 @@ public class BuildState {
 	 * @param delta the {@link IDelta} to add to the state
 	 */
 	public void addCompatibleChange(IDelta delta) {
+		decodeDeltas();
 		String typeName = delta.getTypeName();
 		Set<IDelta> object = this.compatibleChanges.get(typeName);
 		if (object == null) {
@@ -315,6 +649,7 @@ public class BuildState {
 	 * @param delta the {@link IDelta} to add to the state
 	 */
 	public void addBreakingChange(IDelta delta) {
+		decodeDeltas();
 		String typeName = delta.getTypeName();
 		Set<IDelta> object = this.breakingChanges.get(typeName);
 		if (object == null) {
@@ -331,6 +666,7 @@ public class BuildState {
 	 *         removed, or an empty array, never <code>null</code>
 	 */
 	public IDelta[] getBreakingChanges() {
+		decodeDeltas();
 		if (this.breakingChanges == null || this.breakingChanges.size() == 0) {
 			return EMPTY_DELTAS;
 		}
@@ -347,6 +683,7 @@ public class BuildState {
 	 *         removed, or an empty array, never <code>null</code>
 	 */
 	public IDelta[] getCompatibleChanges() {
+		decodeDeltas();
 		if (this.compatibleChanges == null || this.compatibleChanges.size() == 0) {
 			return EMPTY_DELTAS;
 		}
@@ -374,6 +711,7 @@ public class BuildState {
 	 * @param typeName the given type name
 	 */
 	public void cleanup(String typeName) {
+		decodeDeltas();
 		this.breakingChanges.remove(typeName);
 		this.compatibleChanges.remove(typeName);
 		this.reexportedComponents = null;
@@ -553,9 +891,25 @@ public class BuildState {
 		File file = getSerializationFile(project);
 		if (file != null && file.exists()) {
 			try {
-				DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+				FileInputStream in = new FileInputStream(file);
 				try {
-					return read(in);
+					FileChannel channel = in.getChannel();
+					// read the whole state in one go, the deltas are decoded
+					// from the buffer on demand
+					ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+					while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+						// keep reading
+					}
+					buffer.flip();
+					try {
+						return read(buffer);
+					} catch (IOException e) {
+						// a corrupt or truncated state, rebuild the project
+						if (ApiPlugin.DEBUG_BUILDER) {
+							System.out.println("ApiAnalysisBuilder: Discarding corrupt build state for " + project.getName()); //$NON-NLS-1$
+						}
+						return null;
+					}
 				} finally {
 					if (ApiPlugin.DEBUG_BUILDER) {
 						System.out.println("ApiAnalysisBuilder: Saved state thinks last build failed for " + project.getName()); //$NON-NLS-1$
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -29,6 +32,77 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiMember;
  */
 public final class ReferenceResolver {
 
+	/**
+	 * System property used to turn on the parallel (fork-join) resolution of
+	 * references. Value is: <code>org.eclipse.pde.api.tools.parallelReferenceResolution</code>
+	 */
+	public static final String PARALLEL_RESOLUTION_PROPERTY = "org.eclipse.pde.api.tools.parallelReferenceResolution"; //$NON-NLS-1$
+
+	/**
+	 * System property used to set the number of worker threads used by the
+	 * parallel resolution. Defaults to the number of available processors.
+	 * Value is: <code>org.eclipse.pde.api.tools.referenceResolverThreads</code>
+	 */
+	public static final String RESOLVER_THREADS_PROPERTY = "org.eclipse.pde.api.tools.referenceResolverThreads"; //$NON-NLS-1$
+
+	/**
+	 * The number of reference sets (or method overrides) a single fork-join
+	 * task resolves before it stops splitting its work
+	 */
+	static final int SPLIT_THRESHOLD = 32;
+
+	/**
+	 * Resolves a single element of the work handed to a {@link ResolveTask}
+	 */
+	interface Resolution<T> {
+		void resolve(T element) throws CoreException;
+	}
+
+	/**
+	 * Fork-join task that resolves a range of independent elements. The first
+	 * {@link CoreException} thrown by any task is recorded and stops the
+	 * remaining tasks.
+	 */
+	static class ResolveTask<T> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		final List<T> fElements;
+		final int fStart;
+		final int fEnd;
+		final Resolution<T> fResolution;
+		final AtomicReference<CoreException> fError;
+
+		ResolveTask(List<T> elements, int start, int end, Resolution<T> resolution, AtomicReference<CoreException> error) {
+			fElements = elements;
+			fStart = start;
+			fEnd = end;
+			fResolution = resolution;
+			fError = error;
+		}
+
+		@Override
+		protected void compute() {
+			if (fEnd - fStart <= SPLIT_THRESHOLD) {
+				for (int i = fStart; i < fEnd && fError.get() == null; i++) {
+					try {
+						fResolution.resolve(fElements.get(i));
+					} catch (CoreException e) {
+						fError.compareAndSet(null, e);
+					}
+				}
+				return;
+			}
+			int middle = (fStart + fEnd) >>> 1;
+			invokeAll(new ResolveTask<>(fElements, fStart, middle, fResolution, fError), new ResolveTask<>(fElements, middle, fEnd, fResolution, fError));
+		}
+	}
+
+	/**
+	 * The pool used for parallel resolution, or <code>null</code> if it has
+	 * not been created yet
+	 */
+	private static ForkJoinPool fgPool = null;
+
 	/**
 	 * Constructor Private constructor, no instantiate
 	 */
@@ -69,21 +143,74 @@ public final class ReferenceResolver {
 		if (ApiPlugin.DEBUG_REFERENCE_RESOLVER) {
 			System.out.println("Reference resolver: split into " + methodDecls.size() + " method overrides and " + sigtoref.size() + " unique references (" + (end - start) + "ms)"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$ //$NON-NLS-4$
 		}
+		boolean parallel = isParallelResolution();
 		// resolve references
 		start = System.currentTimeMillis();
-		resolveReferenceSets(sigtoref, monitor);
+		if (parallel) {
+			resolveReferenceSetsInParallel(sigtoref);
+		} else {
+			resolveReferenceSets(sigtoref, monitor);
+		}
 		end = System.currentTimeMillis();
 		if (ApiPlugin.DEBUG_REFERENCE_RESOLVER) {
-			System.out.println("Reference resolver: resolved unique references in " + (end - start) + "ms"); //$NON-NLS-1$//$NON-NLS-2$
+			System.out.println("Reference resolver: resolved unique references in " + (end - start) + "ms" + (parallel ? " (parallel)" : "")); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 		}
 		// resolve method overrides
 		start = System.currentTimeMillis();
-		for (Reference reference : methodDecls) {
-			reference.resolve();
+		if (parallel) {
+			invoke(methodDecls, reference -> reference.resolve());
+		} else {
+			for (Reference reference : methodDecls) {
+				reference.resolve();
+			}
 		}
 		end = System.currentTimeMillis();
 		if (ApiPlugin.DEBUG_REFERENCE_RESOLVER) {
-			System.out.println("Reference resolver: resolved method overrides in " + (end - start) + "ms"); //$NON-NLS-1$//$NON-NLS-2$
+			System.out.println("Reference resolver: resolved method overrides in " + (end - start) + "ms" + (parallel ? " (parallel)" : "")); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+	}
+
+	/**
+	 * Returns if references should be resolved using the fork-join pool, as
+	 * controlled by the {@link #PARALLEL_RESOLUTION_PROPERTY} system property
+	 *
+	 * @return <code>true</code> if references are resolved in parallel
+	 */
+	public static boolean isParallelResolution() {
+		return Boolean.getBoolean(PARALLEL_RESOLUTION_PROPERTY);
+	}
+
+	/**
+	 * Returns the pool used to resolve references in parallel, creating it if
+	 * needed. The pool threads are daemon threads and are kept for the life
+	 * of the VM.
+	 *
+	 * @return the fork-join pool
+	 */
+	static synchronized ForkJoinPool getPool() {
+		if (fgPool == null) {
+			int threads = Integer.getInteger(RESOLVER_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()).intValue();
+			fgPool = new ForkJoinPool(Math.max(1, threads));
+		}
+		return fgPool;
+	}
+
+	/**
+	 * Resolves all of the given elements on the fork-join pool and waits for
+	 * the resolution to complete.
+	 *
+	 * @param elements the independent elements to resolve
+	 * @param resolution how to resolve a single element
+	 * @throws CoreException the first exception thrown while resolving
+	 */
+	private static <T> void invoke(List<T> elements, Resolution<T> resolution) throws CoreException {
+		if (elements.isEmpty()) {
+			return;
+		}
+		AtomicReference<CoreException> error = new AtomicReference<>();
+		getPool().invoke(new ResolveTask<>(elements, 0, elements.size(), resolution, error));
+		if (error.get() != null) {
+			throw error.get();
 		}
 	}
 
@@ -94,15 +221,37 @@ public final class ReferenceResolver {
 	 * @throws CoreException if something bad happens
 	 */
 	private static void resolveReferenceSets(Map<String, List<IReference>> map, IProgressMonitor monitor) throws CoreException {
-		IReference ref = null;
 		for (List<IReference> refs : map.values()) {
-			ref = refs.get(0);
-			((Reference) ref).resolve();
-			IApiMember resolved = ref.getResolvedReference();
-			if (resolved != null) {
-				for (IReference ref2 : refs) {
-					((Reference) ref2).setResolution(resolved);
-				}
+			resolveReferenceSet(refs);
+		}
+	}
+
+	/**
+	 * Resolves the collected sets of references using the fork-join pool. The
+	 * sets are independent of each other, so each set is resolved by exactly
+	 * one worker and the resolution is the same as {@link #resolveReferenceSets(Map, IProgressMonitor)}.
+	 *
+	 * @param map the mapping of keys to sets of {@link IReference}s
+	 * @throws CoreException if something bad happens
+	 */
+	private static void resolveReferenceSetsInParallel(Map<String, List<IReference>> map) throws CoreException {
+		invoke(new ArrayList<>(map.values()), refs -> resolveReferenceSet(refs));
+	}
+
+	/**
+	 * Resolves the first reference of the given set and shares the resolution
+	 * with the other references in the set.
+	 *
+	 * @param refs references with the same signature key
+	 * @throws CoreException if something bad happens
+	 */
+	private static void resolveReferenceSet(List<IReference> refs) throws CoreException {
+		IReference ref = refs.get(0);
+		((Reference) ref).resolve();
+		IApiMember resolved = ref.getResolvedReference();
+		if (resolved != null) {
+			for (IReference ref2 : refs) {
+				((Reference) ref2).setResolution(resolved);
 			}
 		}
 	}
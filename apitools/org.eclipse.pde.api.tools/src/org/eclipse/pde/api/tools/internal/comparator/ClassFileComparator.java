@@ -11,10 +11,17 @@
 package org.eclipse.pde.api.tools.internal.comparator;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -55,6 +62,75 @@ import com.ibm.icu.text.MessageFormat;
  */
 public class ClassFileComparator {
 
+	/**
+	 * System property used to turn on the parallel comparison of the fields and
+	 * methods of types having many members. Value is:
+	 * <code>org.eclipse.pde.api.tools.parallelMemberComparison</code>
+	 */
+	public static final String PARALLEL_COMPARISON_PROPERTY = "org.eclipse.pde.api.tools.parallelMemberComparison"; //$NON-NLS-1$
+
+	/**
+	 * System property used to set the number of fields or methods above which
+	 * they are compared in parallel. Defaults to
+	 * {@link #DEFAULT_PARALLEL_THRESHOLD}. Value is:
+	 * <code>org.eclipse.pde.api.tools.parallelMemberComparisonThreshold</code>
+	 */
+	public static final String PARALLEL_THRESHOLD_PROPERTY = "org.eclipse.pde.api.tools.parallelMemberComparisonThreshold"; //$NON-NLS-1$
+
+	/**
+	 * System property used to set the number of worker threads used by the
+	 * parallel comparison. Defaults to the number of available processors.
+	 * Value is:
+	 * <code>org.eclipse.pde.api.tools.memberComparisonThreads</code>
+	 */
+	public static final String COMPARISON_THREADS_PROPERTY = "org.eclipse.pde.api.tools.memberComparisonThreads"; //$NON-NLS-1$
+
+	/**
+	 * The default number of fields or methods above which they are compared in
+	 * parallel
+	 */
+	static final int DEFAULT_PARALLEL_THRESHOLD = 1000;
+
+	/**
+	 * The number of ranges of members per worker thread, so that a slow range
+	 * does not leave the other workers idle
+	 */
+	static final int TASKS_PER_THREAD = 4;
+
+	/**
+	 * The maximum number of decoded generic signatures kept by
+	 * {@link #getSignatureDescriptor(String)}
+	 */
+	static final int MAX_SIGNATURE_DESCRIPTORS = 10000;
+
+	/**
+	 * Decoded generic signatures, shared between comparators as the same
+	 * signatures are compared for every version of a member. The least
+	 * recently used signatures are dropped. The descriptors are not modified
+	 * once decoded.
+	 */
+	private static final Map<String, SignatureDescriptor> signatureDescriptors = Collections.synchronizedMap(new LinkedHashMap<String, SignatureDescriptor>(256, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, SignatureDescriptor> eldest) {
+			return size() > MAX_SIGNATURE_DESCRIPTORS;
+		}
+	});
+
+	/**
+	 * The pool used for parallel comparison, or <code>null</code> if it has
+	 * not been created yet
+	 */
+	private static ForkJoinPool fgPool = null;
+
+	/**
+	 * Compares a single member of the compared types
+	 */
+	interface MemberComparison<T> {
+		void compare(ClassFileComparator comparator, T member);
+	}
+
 	private boolean isCheckedException(IApiBaseline baseline, IApiComponent apiComponent, String exceptionName) {
 		if (baseline == null) {
 			return true;
@@ -157,6 +233,122 @@ public class ClassFileComparator {
 		this.visibilityModifiers = visibilityModifiers;
 	}
 
+	/**
+	 * Constructor used to compare a part of the members of the types compared
+	 * by the given comparator, in a separate delta
+	 *
+	 * @param comparator the comparator whose members are compared
+	 */
+	private ClassFileComparator(ClassFileComparator comparator) {
+		this.component = comparator.component;
+		this.component2 = comparator.component2;
+		this.type1 = comparator.type1;
+		this.type2 = comparator.type2;
+		this.apiBaseline1 = comparator.apiBaseline1;
+		this.apiBaseline2 = comparator.apiBaseline2;
+		this.visibilityModifiers = comparator.visibilityModifiers;
+		this.currentDescriptorRestrictions = comparator.currentDescriptorRestrictions;
+		this.initialDescriptorRestrictions = comparator.initialDescriptorRestrictions;
+		this.delta = createDelta();
+	}
+
+	/**
+	 * Returns if the members of large types are compared in parallel, as
+	 * controlled by the {@link #PARALLEL_COMPARISON_PROPERTY} system property
+	 *
+	 * @return <code>true</code> if members are compared in parallel
+	 */
+	public static boolean isParallelComparison() {
+		return Boolean.getBoolean(PARALLEL_COMPARISON_PROPERTY);
+	}
+
+	/**
+	 * Returns the pool used to compare members in parallel, creating it if
+	 * needed. The pool size is set by the {@link #COMPARISON_THREADS_PROPERTY}
+	 * system property. The pool threads are daemon threads and are kept for
+	 * the life of the VM.
+	 *
+	 * @return the fork-join pool
+	 */
+	static synchronized ForkJoinPool getPool() {
+		if (fgPool == null) {
+			int threads = Integer.getInteger(COMPARISON_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()).intValue();
+			fgPool = new ForkJoinPool(Math.max(1, threads));
+		}
+		return fgPool;
+	}
+
+	/**
+	 * Compares the given members. When there are more members than the
+	 * parallel threshold and parallel comparison is turned on, the members are
+	 * split into ranges compared in parallel by separate comparators on the
+	 * pool returned by {@link #getPool()}. Their deltas are added in the order
+	 * of the members, so that the resulting delta is the same as with a
+	 * sequential comparison.
+	 *
+	 * @param members the members of the first type
+	 * @param comparison the comparison of a single member
+	 */
+	private <T> void compareMembers(T[] members, MemberComparison<T> comparison) {
+		if (!isParallelComparison() || members.length == 0 || members.length <= Integer.getInteger(PARALLEL_THRESHOLD_PROPERTY, DEFAULT_PARALLEL_THRESHOLD).intValue()) {
+			compareMembers(this, members, 0, members.length, comparison);
+			return;
+		}
+		ForkJoinPool pool = getPool();
+		int tasks = Math.min(members.length, pool.getParallelism() * TASKS_PER_THREAD);
+		int size = (members.length + tasks - 1) / tasks;
+		List<Callable<ClassFileComparator>> ranges = new ArrayList<>(tasks);
+		for (int start = 0; start < members.length; start += size) {
+			int from = start;
+			int to = Math.min(members.length, start + size);
+			ranges.add(() -> compareMembers(new ClassFileComparator(this), members, from, to, comparison));
+		}
+		List<ClassFileComparator> comparators = new ArrayList<>(ranges.size());
+		try {
+			for (Future<ClassFileComparator> future : pool.invokeAll(ranges)) {
+				comparators.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			// nothing was added yet, compare the members here instead
+			Thread.currentThread().interrupt();
+			compareMembers(this, members, 0, members.length, comparison);
+			return;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+		for (ClassFileComparator comparator : comparators) {
+			IDelta[] children = comparator.delta.getChildren();
+			for (int i = 0; i < children.length; i++) {
+				addDelta(children[i]);
+			}
+			if (comparator.status != null) {
+				IStatus[] statuses = comparator.status.getChildren();
+				for (int i = 0; i < statuses.length; i++) {
+					reportStatus(statuses[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compares the given range of members with the given comparator
+	 *
+	 * @return the comparator
+	 */
+	private static <T> ClassFileComparator compareMembers(ClassFileComparator comparator, T[] members, int from, int to, MemberComparison<T> comparison) {
+		for (int i = from; i < to; i++) {
+			comparison.compare(comparator, members[i]);
+		}
+		return comparator;
+	}
+
 	private void addDelta(IDelta delta) {
 		this.delta.add(delta);
 	}
@@ -1030,8 +1222,8 @@ public class ClassFileComparator {
 			}
 			for (int i = 0; i < fields1.length; i++) {
 				addedFields.remove(fields1[i].getName());
-				getDeltaForField(fields1[i]);
 			}
+			compareMembers(fields1, (comparator, field) -> comparator.getDeltaForField(field));
 			// checks remaining fields (added fields)
 			for (Iterator<String> iterator = addedFields.iterator(); iterator.hasNext();) {
 				IApiField field = this.type2.getField(iterator.next());
@@ -1049,8 +1241,8 @@ public class ClassFileComparator {
 			}
 			for (int i = 0; i < methods1.length; i++) {
 				addedMethods.remove(methods1[i].getHandle());
-				getDeltaForMethod(methods1[i]);
 			}
+			compareMembers(methods1, (comparator, method) -> comparator.getDeltaForMethod(method));
 			// checks remaining methods (added methods)
 			for (Iterator<IMemberDescriptor> iterator = addedMethods.iterator(); iterator.hasNext();) {
 				IMethodDescriptor md = (IMethodDescriptor) iterator.next();
@@ -1911,11 +2103,20 @@ public class ClassFileComparator {
 		return Signature.toString(signature, methodName, null, false, false);
 	}
 
-	private SignatureDescriptor getSignatureDescriptor(String signature) {
-		SignatureDescriptor signatureDescriptor = new SignatureDescriptor();
+	private static SignatureDescriptor getSignatureDescriptor(String signature) {
+		SignatureDescriptor signatureDescriptor = signatureDescriptors.get(signature);
+		if (signatureDescriptor != null) {
+			return signatureDescriptor;
+		}
+		signatureDescriptor = new SignatureDescriptor();
 		SignatureReader signatureReader = new SignatureReader(signature);
 		signatureReader.accept(new SignatureDecoder(signatureDescriptor));
-		return signatureDescriptor;
+		// trim the arrays now, so that the shared descriptor is not modified
+		// when read
+		signatureDescriptor.getTypeParameterDescriptors();
+		signatureDescriptor.getTypeArguments();
+		SignatureDescriptor previous = signatureDescriptors.putIfAbsent(signature, signatureDescriptor);
+		return previous != null ? previous : signatureDescriptor;
 	}
 
 	private List<IApiType> getSuperclassList(IApiType type) {
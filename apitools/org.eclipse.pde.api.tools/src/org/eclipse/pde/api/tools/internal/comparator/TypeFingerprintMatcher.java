@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.comparator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.pde.api.tools.internal.model.Component;
+import org.eclipse.pde.api.tools.internal.model.TypeFingerprint;
+import org.eclipse.pde.api.tools.internal.provisional.ApiDescriptionVisitor;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.Factory;
+import org.eclipse.pde.api.tools.internal.provisional.IApiAnnotations;
+import org.eclipse.pde.api.tools.internal.provisional.IApiDescription;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IReferenceTypeDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.eclipse.pde.api.tools.internal.util.Signatures;
+import org.eclipse.pde.api.tools.internal.util.Util;
+
+/**
+ * Decides whether a type of a reference component is unchanged in another
+ * component, using {@link TypeFingerprint}s so that neither type structure has
+ * to be built.
+ * <p>
+ * A type is unchanged when the class files of the type and its nested types
+ * are identical, when the API descriptions of both components describe the
+ * type and its members the same way, and when all of its super types are
+ * unchanged as well. Comparing an unchanged type with the
+ * {@link ClassFileComparator} cannot report any delta.
+ * </p>
+ * <p>
+ * Instances are not thread safe and are meant to be used for one comparison of
+ * two components.
+ * </p>
+ *
+ * @since 1.1.100
+ */
+public final class TypeFingerprintMatcher {
+
+	/**
+	 * System property to disable skipping unchanged types in the
+	 * {@link org.eclipse.pde.api.tools.internal.provisional.comparator.ApiComparator}.
+	 * Set to <code>false</code> to always compare all types.
+	 */
+	public static final String FINGERPRINTS_PROPERTY = "org.eclipse.pde.api.tools.comparatorFingerprints"; //$NON-NLS-1$
+
+	private static final String JAVA_LANG_OBJECT = "java.lang.Object"; //$NON-NLS-1$
+
+	private final IApiComponent fComponent;
+	private final IApiComponent fComponent2;
+
+	/**
+	 * Results keyed by reference component, then by other component, then by
+	 * top level type name
+	 */
+	private final Map<IApiComponent, Map<IApiComponent, Map<String, Boolean>>> fResults = new IdentityHashMap<>();
+
+	/**
+	 * Fingerprints used by this matcher, also for components that do not
+	 * remember them
+	 */
+	private final Map<IApiComponent, Map<String, Map<String, TypeFingerprint>>> fFingerprints = new IdentityHashMap<>();
+
+	private int fUnchangedCount;
+
+	/**
+	 * Constructor
+	 *
+	 * @param component the reference component
+	 * @param component2 the component to compare to the reference
+	 */
+	public TypeFingerprintMatcher(IApiComponent component, IApiComponent component2) {
+		fComponent = component;
+		fComponent2 = component2;
+	}
+
+	/**
+	 * @return whether unchanged types may be skipped, controlled by the
+	 *         {@link #FINGERPRINTS_PROPERTY} system property
+	 */
+	public static boolean isEnabled() {
+		return Boolean.parseBoolean(System.getProperty(FINGERPRINTS_PROPERTY, Boolean.TRUE.toString()));
+	}
+
+	/**
+	 * Returns whether the given type of the reference component is unchanged
+	 * in the other component
+	 *
+	 * @param typeName fully qualified, '$'-separated type name
+	 * @return <code>true</code> if comparing the type cannot report any delta
+	 */
+	public boolean isUnchanged(String typeName) {
+		boolean unchanged = isUnchanged(fComponent, fComponent2, TypeFingerprint.getTopLevelTypeName(typeName));
+		if (unchanged) {
+			fUnchangedCount++;
+		}
+		return unchanged;
+	}
+
+	/**
+	 * @return the number of times {@link #isUnchanged(String)} answered
+	 *         <code>true</code>
+	 */
+	public int getUnchangedCount() {
+		return fUnchangedCount;
+	}
+
+	private boolean isUnchanged(IApiComponent component, IApiComponent component2, String topLevelName) {
+		Map<String, Boolean> results = fResults.computeIfAbsent(component, k -> new IdentityHashMap<>()).computeIfAbsent(component2, k -> new HashMap<>());
+		Boolean result = results.get(topLevelName);
+		if (result != null) {
+			return result.booleanValue();
+		}
+		// guards against cycles in an inconsistent hierarchy
+		results.put(topLevelName, Boolean.FALSE);
+		boolean unchanged = false;
+		try {
+			unchanged = computeUnchanged(component, component2, topLevelName);
+		} catch (CoreException e) {
+			// compare the type as usual
+		}
+		results.put(topLevelName, Boolean.valueOf(unchanged));
+		return unchanged;
+	}
+
+	private boolean computeUnchanged(IApiComponent component, IApiComponent component2, String topLevelName) throws CoreException {
+		String packageName = Signatures.getPackageName(topLevelName);
+		TypeFingerprint fingerprint = getFingerprints(component, packageName).get(topLevelName);
+		TypeFingerprint fingerprint2 = getFingerprints(component2, packageName).get(topLevelName);
+		if (fingerprint == null || fingerprint2 == null || fingerprint.getCrc() != fingerprint2.getCrc()) {
+			return false;
+		}
+		long annotations = getAnnotationsFingerprint(component.getApiDescription(), topLevelName);
+		if (annotations == -1 || annotations != getAnnotationsFingerprint(component2.getApiDescription(), topLevelName)) {
+			return false;
+		}
+		// identical class files have identical super type names
+		for (String superTypeName : fingerprint.getSuperTypeNames()) {
+			if (JAVA_LANG_OBJECT.equals(superTypeName)) {
+				continue;
+			}
+			IApiTypeRoot superType = resolve(component, superTypeName);
+			IApiTypeRoot superType2 = resolve(component2, superTypeName);
+			if (superType == null || superType2 == null) {
+				if (superType != superType2) {
+					return false;
+				}
+				continue;
+			}
+			IApiComponent provider = superType.getApiComponent();
+			IApiComponent provider2 = superType2.getApiComponent();
+			if (provider == null || provider2 == null || !isUnchanged(provider, provider2, TypeFingerprint.getTopLevelTypeName(superTypeName))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Map<String, TypeFingerprint> getFingerprints(IApiComponent component, String packageName) throws CoreException {
+		Map<String, Map<String, TypeFingerprint>> packages = fFingerprints.computeIfAbsent(component, k -> new HashMap<>());
+		Map<String, TypeFingerprint> fingerprints = packages.get(packageName);
+		if (fingerprints == null) {
+			if (component instanceof Component) {
+				fingerprints = ((Component) component).getTypeFingerprints(packageName);
+			} else {
+				fingerprints = TypeFingerprint.compute(component, packageName);
+			}
+			packages.put(packageName, fingerprints);
+		}
+		return fingerprints;
+	}
+
+	/**
+	 * Resolves the given type the way the type structures of the given
+	 * component resolve their super types
+	 */
+	private static IApiTypeRoot resolve(IApiComponent component, String typeName) throws CoreException {
+		IApiBaseline baseline = component.getBaseline();
+		if (baseline == null) {
+			throw new CoreException(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, "No baseline for component: " + component.getSymbolicName())); //$NON-NLS-1$
+		}
+		IApiComponent[] components = baseline.resolvePackage(component, Signatures.getPackageName(typeName));
+		return Util.getClassFile(components, typeName);
+	}
+
+	/**
+	 * Computes a fingerprint of the annotations of the given type, its members
+	 * and its member types. The elements are combined independently of their
+	 * order, since descriptions do not visit children in a defined order.
+	 *
+	 * @param description
+	 * @param typeName
+	 * @return the fingerprint or <code>-1</code> if the type has no annotations
+	 */
+	static long getAnnotationsFingerprint(IApiDescription description, String typeName) {
+		IReferenceTypeDescriptor type = Factory.typeDescriptor(typeName);
+		IApiAnnotations annotations = description.resolveAnnotations(type);
+		if (annotations == null) {
+			return -1;
+		}
+		final long[] sum = new long[] { annotations.getVisibility() * 31L + annotations.getRestrictions() };
+		final CRC32 crc = new CRC32();
+		description.accept(new ApiDescriptionVisitor() {
+			@Override
+			public boolean visitElement(IElementDescriptor element, IApiAnnotations description) {
+				if (element.getElementType() == IElementDescriptor.PACKAGE) {
+					// the type has no node of its own
+					return false;
+				}
+				crc.reset();
+				crc.update(element.toString().getBytes(StandardCharsets.UTF_8));
+				sum[0] += crc.getValue() * 31 + description.getVisibility() * 7 + description.getRestrictions();
+				return true;
+			}
+		}, type, null);
+		return sum[0] & Long.MAX_VALUE;
+	}
+}
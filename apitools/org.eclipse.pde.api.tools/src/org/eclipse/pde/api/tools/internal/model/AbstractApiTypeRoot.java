@@ -49,7 +49,7 @@ public abstract class AbstractApiTypeRoot extends ApiElement implements IApiType
 			type = (IApiType) cache.getElementInfo(baseline.getName(), comp.getSymbolicName(), this.getTypeName(), IApiElement.TYPE);
 		}
 		if (type == null) {
-			type = TypeStructureBuilder.buildTypeStructure(getContents(), getApiComponent(), this);
+			type = buildStructure();
 			if (type == null) {
 				return null;
 			}
@@ -67,6 +67,19 @@ public abstract class AbstractApiTypeRoot extends ApiElement implements IApiType
 		return type;
 	}
 
+	/**
+	 * Builds the type structure of this type root. Called when the structure
+	 * is not found in the {@link ApiModelCache}.
+	 *
+	 * @return the type structure or <code>null</code> if the contents of this
+	 *         type root could not be parsed
+	 * @throws CoreException if the contents of this type root could not be
+	 *             read
+	 */
+	protected IApiType buildStructure() throws CoreException {
+		return TypeStructureBuilder.buildTypeStructure(getContents(), getApiComponent(), this);
+	}
+
 	/**
 	 * @see org.eclipse.pde.api.tools.internal.provisional.IApiTypeRoot#getApiComponent()
 	 */
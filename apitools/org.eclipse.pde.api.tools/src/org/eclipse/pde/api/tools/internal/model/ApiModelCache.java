@@ -10,66 +10,262 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.internal.model;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.jdt.internal.core.OverflowingLRUCache;
-import org.eclipse.jdt.internal.core.util.LRUCache;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiElement;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiField;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiMethod;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
 
 /**
- * Manages the caches of {@link IApiElement}s
+ * Manages the caches of {@link IApiElement}s.
+ * <p>
+ * The cache may be accessed concurrently, for example by the parallel
+ * reference resolution. Cached types are kept in one segment per component of
+ * each baseline, and each segment has its own lock, so that threads working on
+ * different components do not contend.
+ * </p>
+ * <p>
+ * The cache is bounded by a budget on the estimated retained size of the
+ * cached types rather than by a number of types, see
+ * {@link #CACHE_SIZE_PROPERTY}. Once the budget is exceeded the least recently
+ * used types of all segments are evicted.
+ * </p>
  *
  * @since 1.0.2
  */
 public final class ApiModelCache {
 
 	/**
-	 * Cache used for {@link IApiElement}s
+	 * System property that can be used to override the budget of the cache in
+	 * megabytes
+	 *
+	 * @since 1.1.100
+	 */
+	public static final String CACHE_SIZE_PROPERTY = "org.eclipse.pde.api.tools.modelCacheSize"; //$NON-NLS-1$
+
+	/**
+	 * Default budget of the cache in megabytes
+	 */
+	static final int DEFAULT_CACHE_SIZE = 64;
+
+	/**
+	 * Estimated sizes in bytes used to weigh cached elements
+	 */
+	static final int ENTRY_SIZE = 64;
+	static final int TYPE_SIZE = 160;
+	static final int MEMBER_SIZE = 96;
+	static final int STRING_SIZE = 40;
+
+	/**
+	 * A cached element
 	 */
-	class Cache extends OverflowingLRUCache {
+	static class Entry {
+		final IApiElement fElement;
+		final long fWeight;
+		long fTick;
+
+		Entry(IApiElement element, long weight, long tick) {
+			fElement = element;
+			fWeight = weight;
+			fTick = tick;
+		}
+	}
+
+	/**
+	 * The cached types of one component in one baseline, including its member
+	 * types. All access is synchronized on the segment.
+	 */
+	static class Segment {
+		final String fBaseline;
+		final String fComponent;
 
 		/**
-		 * Constructor
-		 *
-		 * @param size
-		 * @param overflow
+		 * Cached types keyed by qualified type name, in access order
+		 */
+		final LinkedHashMap<String, Entry> fTypes = new LinkedHashMap<>(16, 0.75f, true);
+
+		/**
+		 * Names of the cached member types keyed by the name of their root
+		 * type
+		 */
+		final HashMap<String, Set<String>> fMemberTypes = new HashMap<>();
+
+		/**
+		 * Total weight of the cached types
+		 */
+		long fWeight = 0;
+
+		/**
+		 * Tick of the least recently used type, read without locking by the
+		 * eviction
+		 */
+		volatile long fOldest = Long.MAX_VALUE;
+
+		/**
+		 * Set once the segment has been removed from the cache, any element
+		 * cached in it afterwards would be lost
 		 */
-		public Cache(int size, int overflow) {
-			super(size, overflow);
+		boolean fDisposed = false;
+
+		Segment(String baseline, String component) {
+			fBaseline = baseline;
+			fComponent = component;
 		}
 
-		@Override
-		protected boolean close(LRUCacheEntry entry) {
-			return true;
+		Entry get(String name, long tick) {
+			Entry entry = fTypes.get(name);
+			if (entry != null) {
+				entry.fTick = tick;
+				updateOldest();
+			}
+			return entry;
 		}
 
-		@Override
-		protected LRUCache newInstance(int size, int newOverflow) {
-			return new Cache(size, newOverflow);
+		/**
+		 * @return the change in weight of the segment
+		 */
+		long put(String name, Entry entry) {
+			Entry old = fTypes.put(name, entry);
+			if (old == null) {
+				indexMemberType(name);
+			}
+			long delta = entry.fWeight - (old != null ? old.fWeight : 0);
+			fWeight += delta;
+			updateOldest();
+			return delta;
+		}
+
+		Entry remove(String name) {
+			Entry entry = fTypes.remove(name);
+			if (entry != null) {
+				unindexMemberType(name);
+				fWeight -= entry.fWeight;
+				updateOldest();
+			}
+			return entry;
 		}
 
 		/**
-		 * Returns if the cache has any elements in it or not
+		 * Removes the member types of the given root type
 		 *
-		 * @return true if the cache has no entries, false otherwise
+		 * @return the weight removed
 		 */
-		public boolean isEmpty() {
-			return !keys().hasMoreElements();
+		long removeMemberTypes(String rootName) {
+			Set<String> names = fMemberTypes.remove(rootName);
+			if (names == null) {
+				return 0;
+			}
+			long removed = 0;
+			for (String name : names) {
+				Entry entry = fTypes.remove(name);
+				if (entry != null) {
+					removed += entry.fWeight;
+				}
+			}
+			fWeight -= removed;
+			updateOldest();
+			return removed;
+		}
+
+		/**
+		 * Evicts least recently used types that were last used no later than
+		 * the given tick, until the given weight has been freed
+		 *
+		 * @return the number of evicted types and the weight freed
+		 */
+		long[] evict(long tick, long weight) {
+			long count = 0;
+			long freed = 0;
+			for (Iterator<Map.Entry<String, Entry>> iter = fTypes.entrySet().iterator(); iter.hasNext() && freed < weight;) {
+				Map.Entry<String, Entry> mapEntry = iter.next();
+				Entry entry = mapEntry.getValue();
+				if (entry.fTick > tick && count > 0) {
+					break;
+				}
+				iter.remove();
+				unindexMemberType(mapEntry.getKey());
+				freed += entry.fWeight;
+				count++;
+			}
+			fWeight -= freed;
+			updateOldest();
+			return new long[] { count, freed };
+		}
+
+		private void indexMemberType(String name) {
+			if (isMemberType(name)) {
+				fMemberTypes.computeIfAbsent(getRootName(name), root -> new HashSet<>()).add(name);
+			}
+		}
+
+		private void unindexMemberType(String name) {
+			if (isMemberType(name)) {
+				String root = getRootName(name);
+				Set<String> names = fMemberTypes.get(root);
+				if (names != null && names.remove(name) && names.isEmpty()) {
+					fMemberTypes.remove(root);
+				}
+			}
+		}
+
+		void updateOldest() {
+			fOldest = fTypes.isEmpty() ? Long.MAX_VALUE : fTypes.values().iterator().next().fTick;
 		}
 	}
 
-	static final int DEFAULT_CACHE_SIZE = 1500;
-	static final int DEFAULT_OVERFLOW = (int) (DEFAULT_CACHE_SIZE * 0.1f);
 	static ApiModelCache fInstance = null;
 
-	Cache fRootCache = null;
-	Cache fMemberTypeCache = null;
+	/**
+	 * Segments keyed by baseline name and component id
+	 */
+	private final ConcurrentHashMap<String, ConcurrentHashMap<String, Segment>> fSegments = new ConcurrentHashMap<>();
+
+	/**
+	 * Budget in bytes
+	 */
+	private final long fBudget;
 
 	/**
-	 * Constructor - no instantiation
+	 * Total weight of all segments
 	 */
-	private ApiModelCache() {
+	private final AtomicLong fWeight = new AtomicLong();
+
+	/**
+	 * Logical clock used to order accesses across segments
+	 */
+	private final AtomicLong fClock = new AtomicLong();
+
+	/**
+	 * Only one thread evicts at a time, others carry on
+	 */
+	private final ReentrantLock fEvictionLock = new ReentrantLock();
+
+	private final LongAdder fHits = new LongAdder();
+	private final LongAdder fMisses = new LongAdder();
+	private final LongAdder fEvictions = new LongAdder();
+
+	/**
+	 * Constructor
+	 *
+	 * @param budget the maximum estimated size of the cached elements in bytes
+	 * @since 1.1.100
+	 */
+	public ApiModelCache(long budget) {
+		fBudget = budget;
 	}
 
 	/**
@@ -79,24 +275,60 @@ public final class ApiModelCache {
 	 */
 	public static synchronized ApiModelCache getCache() {
 		if (fInstance == null) {
-			fInstance = new ApiModelCache();
+			fInstance = new ApiModelCache(Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE).longValue() * 1024 * 1024);
 		}
 		return fInstance;
 	}
 
 	/**
-	 * Returns the key to use in a cache. The key is of the form:
-	 * <code>[baselineid].[componentid].[typename]</code><br>
+	 * Returns the segment for the given baseline and component
 	 *
 	 * @param baseline
 	 * @param component
-	 * @param typename
-	 * @return the member type cache key to use
+	 * @param create if the segment should be created if it does not exist
+	 * @return the segment or <code>null</code>
 	 */
-	private String getCacheKey(String baseline, String component, String typename) {
-		StringBuffer buffer = new StringBuffer();
-		buffer.append(baseline).append('.').append(component).append('.').append(typename);
-		return buffer.toString();
+	private Segment getSegment(String baseline, String component, boolean create) {
+		ConcurrentHashMap<String, Segment> segments = fSegments.get(baseline);
+		if (segments == null) {
+			if (!create) {
+				return null;
+			}
+			segments = fSegments.computeIfAbsent(baseline, key -> new ConcurrentHashMap<>());
+		}
+		if (!create) {
+			return segments.get(component);
+		}
+		return segments.computeIfAbsent(component, key -> new Segment(baseline, key));
+	}
+
+	/**
+	 * Removes the given segment from the cache if it is empty. Must be called
+	 * while holding the lock of the segment.
+	 *
+	 * @param segment
+	 */
+	private void disposeIfEmpty(Segment segment) {
+		if (segment.fTypes.isEmpty()) {
+			dispose(segment);
+		}
+	}
+
+	/**
+	 * Removes the given segment from the cache. Must be called while holding
+	 * the lock of the segment.
+	 *
+	 * @param segment
+	 */
+	private void dispose(Segment segment) {
+		segment.fDisposed = true;
+		fWeight.addAndGet(-segment.fWeight);
+		// the map of the baseline is kept, so that a segment can never be
+		// created in a map that is no longer reachable
+		ConcurrentHashMap<String, Segment> segments = fSegments.get(segment.fBaseline);
+		if (segments != null) {
+			segments.remove(segment.fComponent, segment);
+		}
 	}
 
 	/**
@@ -111,9 +343,6 @@ public final class ApiModelCache {
 	public void cacheElementInfo(IApiElement element) throws CoreException {
 		switch (element.getType()) {
 			case IApiElement.TYPE: {
-				if (fRootCache == null) {
-					fRootCache = new Cache(DEFAULT_CACHE_SIZE / 10, DEFAULT_OVERFLOW / 10);
-				}
 				IApiComponent comp = element.getApiComponent();
 				if (comp != null) {
 					IApiBaseline baseline = comp.getBaseline();
@@ -121,45 +350,20 @@ public final class ApiModelCache {
 					if (id == null) {
 						return;
 					}
-					Cache compcache = (Cache) fRootCache.get(baseline.getName());
-					if (compcache == null) {
-						compcache = new Cache(DEFAULT_CACHE_SIZE / 2, DEFAULT_OVERFLOW / 2);
-						fRootCache.put(baseline.getName(), compcache);
-					}
-					Cache typecache = (Cache) compcache.get(id);
-					if (typecache == null) {
-						typecache = new Cache(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
-						compcache.put(comp.getSymbolicName(), typecache);
-					}
-					ApiType type = (ApiType) element;
-					if (type.isMemberType() || isMemberType(type.getName()) /*
-																			 * cache
-																			 * even
-																			 * a
-																			 * root
-																			 * type
-																			 * with
-																			 * a
-																			 * '$'
-																			 * in
-																			 * its
-																			 * name
-																			 * here
-																			 * as
-																			 * well
-																			 */) {
-						if (this.fMemberTypeCache == null) {
-							this.fMemberTypeCache = new Cache(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
-						}
-						String key = getCacheKey(baseline.getName(), id, getRootName(type.getName()));
-						Cache mcache = (Cache) this.fMemberTypeCache.get(key);
-						if (mcache == null) {
-							mcache = new Cache(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
-							this.fMemberTypeCache.put(key, mcache);
+					Entry entry = new Entry(element, estimateWeight((IApiType) element), fClock.incrementAndGet());
+					long delta;
+					while (true) {
+						Segment segment = getSegment(baseline.getName(), id, true);
+						synchronized (segment) {
+							if (segment.fDisposed) {
+								continue;
+							}
+							delta = segment.put(element.getName(), entry);
+							break;
 						}
-						mcache.put(type.getName(), type);
-					} else {
-						typecache.put(element.getName(), element);
+					}
+					if (fWeight.addAndGet(delta) > fBudget) {
+						evict();
 					}
 				}
 				break;
@@ -169,6 +373,99 @@ public final class ApiModelCache {
 		}
 	}
 
+	/**
+	 * Returns the estimated retained size in bytes of the given type
+	 * structure, including its fields and methods
+	 *
+	 * @param type
+	 * @return the estimated size
+	 */
+	static long estimateWeight(IApiType type) {
+		long weight = ENTRY_SIZE + TYPE_SIZE;
+		weight += sizeOf(type.getName()) + sizeOf(type.getSignature()) + sizeOf(type.getGenericSignature()) + sizeOf(type.getSuperclassName());
+		weight += sizeOf(type.getSuperInterfaceNames());
+		for (IApiField field : type.getFields()) {
+			weight += MEMBER_SIZE + sizeOf(field.getName()) + sizeOf(field.getSignature()) + sizeOf(field.getGenericSignature());
+			Object value = field.getConstantValue();
+			if (value instanceof String) {
+				weight += sizeOf((String) value);
+			} else if (value != null) {
+				weight += 16;
+			}
+		}
+		for (IApiMethod method : type.getMethods()) {
+			weight += MEMBER_SIZE + sizeOf(method.getName()) + sizeOf(method.getSignature()) + sizeOf(method.getGenericSignature());
+			weight += sizeOf(method.getExceptionNames()) + sizeOf(method.getDefaultValue());
+		}
+		return weight;
+	}
+
+	private static long sizeOf(String string) {
+		return string == null ? 0 : STRING_SIZE + 2L * string.length();
+	}
+
+	private static long sizeOf(String[] strings) {
+		if (strings == null) {
+			return 0;
+		}
+		long size = 16 + 4L * strings.length;
+		for (String string : strings) {
+			size += sizeOf(string);
+		}
+		return size;
+	}
+
+	/**
+	 * Evicts the least recently used types across all segments until the
+	 * cache is back below nine tenths of its budget
+	 */
+	private void evict() {
+		if (!fEvictionLock.tryLock()) {
+			return;
+		}
+		long count = 0;
+		try {
+			long target = fBudget - fBudget / 10;
+			while (fWeight.get() > target) {
+				Segment oldest = null;
+				long next = Long.MAX_VALUE;
+				for (ConcurrentHashMap<String, Segment> segments : fSegments.values()) {
+					for (Segment segment : segments.values()) {
+						long tick = segment.fOldest;
+						if (oldest == null || tick < oldest.fOldest) {
+							if (oldest != null) {
+								next = Math.min(next, oldest.fOldest);
+							}
+							oldest = segment;
+						} else {
+							next = Math.min(next, tick);
+						}
+					}
+				}
+				if (oldest == null || oldest.fOldest == Long.MAX_VALUE) {
+					break;
+				}
+				synchronized (oldest) {
+					if (oldest.fDisposed) {
+						continue;
+					}
+					// evict from this segment while its types are older than
+					// those of every other segment
+					long[] evicted = oldest.evict(next, fWeight.get() - target);
+					fWeight.addAndGet(-evicted[1]);
+					count += evicted[0];
+					disposeIfEmpty(oldest);
+				}
+			}
+		} finally {
+			fEvictionLock.unlock();
+		}
+		fEvictions.add(count);
+		if (ApiPlugin.DEBUG_MODEL_CACHE) {
+			System.out.println("API model cache: evicted " + count + " types " + this); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
 	/**
 	 * Returns the root type name assuming that the '$' char is a member type
 	 * boundary
@@ -176,7 +473,7 @@ public final class ApiModelCache {
 	 * @param typename
 	 * @return the pruned name or the original name
 	 */
-	private String getRootName(String typename) {
+	static String getRootName(String typename) {
 		int idx = typename.indexOf('$');
 		if (idx > -1) {
 			return typename.substring(0, idx);
@@ -190,7 +487,7 @@ public final class ApiModelCache {
 	 * @param typename
 	 * @return true if the type name contains '$' false otherwise
 	 */
-	private boolean isMemberType(String typename) {
+	static boolean isMemberType(String typename) {
 		return typename.indexOf('$') > -1;
 	}
 
@@ -215,24 +512,20 @@ public final class ApiModelCache {
 		}
 		switch (type) {
 			case IApiElement.TYPE: {
-				if (isMemberType(identifier)) {
-					if (this.fMemberTypeCache != null) {
-						Cache mcache = (Cache) this.fMemberTypeCache.get(getCacheKey(baselineid, componentid, getRootName(identifier)));
-						if (mcache != null) {
-							return (IApiElement) mcache.get(identifier);
-						}
-					}
-				} else {
-					if (this.fRootCache != null) {
-						Cache compcache = (Cache) fRootCache.get(baselineid);
-						if (compcache != null) {
-							Cache typecache = (Cache) compcache.get(componentid);
-							if (typecache != null && identifier != null) {
-								return (IApiElement) typecache.get(identifier);
-							}
+				if (identifier == null) {
+					return null;
+				}
+				Segment segment = getSegment(baselineid, componentid, false);
+				if (segment != null) {
+					synchronized (segment) {
+						Entry entry = segment.get(identifier, fClock.incrementAndGet());
+						if (entry != null) {
+							fHits.increment();
+							return entry.fElement;
 						}
 					}
 				}
+				fMisses.increment();
 				break;
 			}
 			default:
@@ -258,60 +551,40 @@ public final class ApiModelCache {
 		switch (type) {
 			case IApiElement.TYPE: {
 				if (componentid != null && identifier != null) {
-					boolean removed = true;
-					// clean member type cache
-					if (this.fMemberTypeCache != null) {
-						if (isMemberType(identifier)) {
-							Cache mcache = (Cache) this.fMemberTypeCache.get(getCacheKey(baselineid, componentid, getRootName(identifier)));
-							if (mcache != null) {
-								return mcache.remove(identifier) != null;
-							}
-						} else {
-							this.fMemberTypeCache.remove(getCacheKey(baselineid, componentid, getRootName(identifier)));
-						}
+					Segment segment = getSegment(baselineid, componentid, false);
+					if (segment == null) {
+						return false;
 					}
-					if (fRootCache != null) {
-						Cache compcache = (Cache) fRootCache.get(baselineid);
-						if (compcache != null) {
-							Cache typecache = (Cache) compcache.get(componentid);
-							if (typecache != null) {
-								removed &= typecache.remove(identifier) != null;
-								if (typecache.isEmpty()) {
-									removed &= compcache.remove(componentid) != null;
-								}
-								if (compcache.isEmpty()) {
-									removed &= fRootCache.remove(baselineid) != null;
-								}
-								return removed;
-							}
-
+					synchronized (segment) {
+						Entry removed = segment.remove(identifier);
+						long weight = removed != null ? removed.fWeight : 0;
+						if (!isMemberType(identifier)) {
+							// the member types go along with their root type
+							weight += segment.removeMemberTypes(getRootName(identifier));
 						}
-					} else {
-						return false;
+						fWeight.addAndGet(-weight);
+						disposeIfEmpty(segment);
+						return removed != null;
 					}
 				}
 				break;
 			}
 			case IApiElement.COMPONENT: {
-				flushMemberCache();
-				if (fRootCache != null && componentid != null) {
-					Cache compcache = (Cache) fRootCache.get(baselineid);
-					if (compcache != null) {
-						boolean removed = compcache.remove(componentid) != null;
-						if (compcache.isEmpty()) {
-							removed &= fRootCache.remove(baselineid) != null;
+				if (componentid != null) {
+					Segment segment = getSegment(baselineid, componentid, false);
+					if (segment != null) {
+						synchronized (segment) {
+							if (!segment.fDisposed) {
+								dispose(segment);
+								return true;
+							}
 						}
-						return removed;
 					}
 				}
 				break;
 			}
 			case IApiElement.BASELINE: {
-				flushMemberCache();
-				if (fRootCache != null) {
-					return fRootCache.remove(baselineid) != null;
-				}
-				break;
+				return removeBaseline(baselineid);
 			}
 			default:
 				break;
@@ -319,6 +592,27 @@ public final class ApiModelCache {
 		return false;
 	}
 
+	/**
+	 * Removes all segments of the given baseline
+	 *
+	 * @param baselineid
+	 * @return true if anything was cached for the baseline
+	 */
+	private boolean removeBaseline(String baselineid) {
+		ConcurrentHashMap<String, Segment> segments = fSegments.get(baselineid);
+		if (segments == null || segments.isEmpty()) {
+			return false;
+		}
+		for (Segment segment : segments.values()) {
+			synchronized (segment) {
+				if (!segment.fDisposed) {
+					dispose(segment);
+				}
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Removes the given {@link IApiElement} info from the cache and returns it
 	 * if present
@@ -336,25 +630,19 @@ public final class ApiModelCache {
 		switch (element.getType()) {
 			case IApiElement.COMPONENT:
 			case IApiElement.TYPE: {
-				if (fRootCache != null) {
-					IApiComponent comp = element.getApiComponent();
-					if (comp != null) {
-						try {
-							IApiBaseline baseline = comp.getBaseline();
-							return removeElementInfo(baseline.getName(), comp.getSymbolicName(), element.getName(), element.getType());
-						} catch (CoreException ce) {
-						}
+				IApiComponent comp = element.getApiComponent();
+				if (comp != null) {
+					try {
+						IApiBaseline baseline = comp.getBaseline();
+						return removeElementInfo(baseline.getName(), comp.getSymbolicName(), element.getName(), element.getType());
+					} catch (CoreException ce) {
 					}
 				}
 				break;
 			}
 			case IApiElement.BASELINE: {
-				flushMemberCache();
-				if (fRootCache != null) {
-					IApiBaseline baseline = (IApiBaseline) element;
-					return fRootCache.remove(baseline.getName()) != null;
-				}
-				break;
+				IApiBaseline baseline = (IApiBaseline) element;
+				return removeBaseline(baseline.getName());
 			}
 			default:
 				break;
@@ -366,18 +654,11 @@ public final class ApiModelCache {
 	 * Clears out all cached information.
 	 */
 	public void flushCaches() {
-		if (fRootCache != null) {
-			fRootCache.flush();
+		if (ApiPlugin.DEBUG_MODEL_CACHE) {
+			System.out.println("API model cache: flushing " + this); //$NON-NLS-1$
 		}
-		flushMemberCache();
-	}
-
-	/**
-	 * Flushes the cache of member types
-	 */
-	private void flushMemberCache() {
-		if (this.fMemberTypeCache != null) {
-			this.fMemberTypeCache.flush();
+		for (String baselineid : fSegments.keySet()) {
+			removeBaseline(baselineid);
 		}
 	}
 
@@ -387,13 +668,53 @@ public final class ApiModelCache {
 	 * @return true if the cache has no entries, false otherwise
 	 */
 	public boolean isEmpty() {
-		boolean empty = true;
-		if (fRootCache != null) {
-			empty &= fRootCache.isEmpty();
-		}
-		if (this.fMemberTypeCache != null) {
-			empty &= this.fMemberTypeCache.isEmpty();
+		for (ConcurrentHashMap<String, Segment> segments : fSegments.values()) {
+			if (!segments.isEmpty()) {
+				return false;
+			}
 		}
-		return empty;
+		return true;
+	}
+
+	/**
+	 * @return the number of lookups that found a cached element
+	 * @since 1.1.100
+	 */
+	public long getHitCount() {
+		return fHits.sum();
+	}
+
+	/**
+	 * @return the number of lookups that did not find a cached element
+	 * @since 1.1.100
+	 */
+	public long getMissCount() {
+		return fMisses.sum();
+	}
+
+	/**
+	 * @return the number of elements evicted to stay within the budget
+	 * @since 1.1.100
+	 */
+	public long getEvictionCount() {
+		return fEvictions.sum();
+	}
+
+	/**
+	 * @return the estimated size in bytes of the cached elements
+	 * @since 1.1.100
+	 */
+	public long getWeight() {
+		return fWeight.get();
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("[weight: ").append(fWeight.get()).append('/').append(fBudget); //$NON-NLS-1$
+		buffer.append(", hits: ").append(fHits.sum()); //$NON-NLS-1$
+		buffer.append(", misses: ").append(fMisses.sum()); //$NON-NLS-1$
+		buffer.append(", evictions: ").append(fEvictions.sum()).append(']'); //$NON-NLS-1$
+		return buffer.toString();
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2015 IBM Corporation and others.
+ * Copyright (c) 2008, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.internal.model;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -17,6 +18,7 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -384,6 +386,33 @@ public class ApiType extends ApiMember implements IApiType {
 		}
 	}
 
+	/**
+	 * @return <code>true</code> if the enclosing method information has been
+	 *         set for this type
+	 * @see #setEnclosingMethodInfo(String, String)
+	 */
+	boolean hasEnclosingMethodInfo() {
+		return fEnclosingMethodName != null;
+	}
+
+	/**
+	 * @return the name of the enclosing method as set by
+	 *         {@link #setEnclosingMethodInfo(String, String)} or
+	 *         <code>null</code> if none
+	 */
+	String getEnclosingMethodName() {
+		return fEnclosingMethodName == NO_ENCLOSING_METHOD ? null : fEnclosingMethodName;
+	}
+
+	/**
+	 * @return the signature of the enclosing method as set by
+	 *         {@link #setEnclosingMethodInfo(String, String)} or
+	 *         <code>null</code> if none
+	 */
+	String getEnclosingMethodSignature() {
+		return fEnclosingMethodSignature == NO_ENCLOSING_METHOD ? null : fEnclosingMethodSignature;
+	}
+
 	@Override
 	public IApiMethod getEnclosingMethod() {
 		if (fEnclosingMethod == null) {
@@ -473,6 +502,17 @@ public class ApiType extends ApiMember implements IApiType {
 		fMemberTypes.put(simpleName, null);
 	}
 
+	/**
+	 * @return the simple names of the member types of this type, never
+	 *         <code>null</code>
+	 */
+	Set<String> getMemberTypeNames() {
+		if (fMemberTypes == null) {
+			return Collections.emptySet();
+		}
+		return fMemberTypes.keySet();
+	}
+
 	@Override
 	public IApiType getMemberType(String simpleName) throws CoreException {
 		if (fMemberTypes == null) {
@@ -590,6 +630,23 @@ public class ApiType extends ApiMember implements IApiType {
 		return fEnclosingType;
 	}
 
+	/**
+	 * @return the name of the enclosing type this type was created with or
+	 *         <code>null</code> if none
+	 */
+	String getEnclosingTypeName() {
+		return fEnclosingTypeName;
+	}
+
+	/**
+	 * @return the simple name set while building the type structure, or
+	 *         <code>null</code> if none was set
+	 * @see #setSimpleName(String)
+	 */
+	String getDeclaredSimpleName() {
+		return fSimpleName;
+	}
+
 	private String processEnclosingTypeName() {
 		if (isLocal() || isAnonymous()) {
 			int idx = fEnclosingTypeName.lastIndexOf('$');
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2016 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,6 +21,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -28,6 +29,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.model.ApiTypeContainerVisitor;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiElement;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeContainer;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
 import org.eclipse.pde.api.tools.internal.util.Util;
@@ -96,9 +98,10 @@ public class ArchiveApiTypeContainer extends ApiElement implements IApiTypeConta
 				return fContents;
 			}
 			ArchiveApiTypeContainer archive = (ArchiveApiTypeContainer) getParent();
+			ArchiveHandlePool pool = ArchiveHandlePool.getDefault();
 			ZipFile zipFile;
 			try {
-				zipFile = new ZipFile(archive.fLocation);
+				zipFile = pool.acquire(archive.fLocation);
 			} catch (IOException e) {
 				abort("Failed to open archive: " + archive.fLocation, e); //$NON-NLS-1$
 				return null;
@@ -128,16 +131,34 @@ public class ArchiveApiTypeContainer extends ApiElement implements IApiTypeConta
 					}
 				}
 			} finally {
-				try {
-					zipFile.close();
-				} catch (IOException e) {
-					abort("Failed to close class file archive", e); //$NON-NLS-1$
-				}
+				pool.release(archive.fLocation);
 			}
 			abort("Class file not found: " + getTypeName() + " in archive: " + archive.fLocation, null); //$NON-NLS-1$ //$NON-NLS-2$
 			return null;
 		}
 
+		@Override
+		protected IApiType buildStructure() throws CoreException {
+			ArchiveApiTypeContainer archive = (ArchiveApiTypeContainer) getParent();
+			TypeStructureCache cache = archive.getStructureCache();
+			if (cache == null) {
+				return super.buildStructure();
+			}
+			long archiveCrc = archive.getArchiveCrc();
+			long crc = archive.getEntryCrc(getName());
+			if (crc == -1) {
+				return super.buildStructure();
+			}
+			IApiType type = cache.getStructure(archive.fLocation, archiveCrc, getName(), crc, getApiComponent(), this);
+			if (type == null) {
+				type = super.buildStructure();
+				if (type instanceof ApiType) {
+					cache.putStructure(archive.fLocation, archiveCrc, getName(), crc, (ApiType) type);
+				}
+			}
+			return type;
+		}
+
 		@Override
 		public String toString() {
 			return getTypeName();
@@ -160,6 +181,14 @@ public class ArchiveApiTypeContainer extends ApiElement implements IApiTypeConta
 	 */
 	private String[] fPackageNames;
 
+	/**
+	 * Content CRC of the class files in this archive, computed when the
+	 * archive is initialized
+	 *
+	 * @see TypeStructureCache#updateArchiveCrc(CRC32, String, long)
+	 */
+	private long fArchiveCrc = -1;
+
 	/**
 	 * Constructs an {@link IApiTypeContainer} container for the given jar or
 	 * zip file at the specified location.
@@ -215,6 +244,59 @@ public class ArchiveApiTypeContainer extends ApiElement implements IApiTypeConta
 	 */
 	@Override
 	public synchronized void close() throws CoreException {
+		ArchiveHandlePool.getDefault().evict(fLocation);
+		TypeStructureCache cache = getStructureCache();
+		if (cache != null) {
+			cache.save(fLocation);
+		}
+	}
+
+	/**
+	 * Returns the persistent cache for the type structures of this archive, or
+	 * <code>null</code> if they are not cached. Archives of workspace projects
+	 * change too often to be worth caching.
+	 *
+	 * @return the type structure cache or <code>null</code>
+	 */
+	TypeStructureCache getStructureCache() {
+		if (getApiComponent() instanceof ProjectComponent) {
+			return null;
+		}
+		return TypeStructureCache.getDefault();
+	}
+
+	/**
+	 * @return the content CRC of the class files in this archive
+	 * @throws CoreException if the archive could not be read
+	 */
+	long getArchiveCrc() throws CoreException {
+		init();
+		return fArchiveCrc;
+	}
+
+	/**
+	 * Returns the CRC recorded in the central directory of this archive for
+	 * the given entry
+	 *
+	 * @param entryName
+	 * @return the CRC or <code>-1</code> if unknown
+	 * @throws CoreException if the archive could not be opened
+	 */
+	long getEntryCrc(String entryName) throws CoreException {
+		ArchiveHandlePool pool = ArchiveHandlePool.getDefault();
+		ZipFile zipFile;
+		try {
+			zipFile = pool.acquire(fLocation);
+		} catch (IOException e) {
+			abort("Failed to open archive: " + fLocation, e); //$NON-NLS-1$
+			return -1;
+		}
+		try {
+			ZipEntry entry = zipFile.getEntry(entryName);
+			return entry == null ? -1 : entry.getCrc();
+		} finally {
+			pool.release(fLocation);
+		}
 	}
 
 	/**
@@ -264,19 +346,22 @@ public class ArchiveApiTypeContainer extends ApiElement implements IApiTypeConta
 	private synchronized void init() throws CoreException {
 		if (fPackages == null) {
 			fPackages = new HashMap<>();
+			ArchiveHandlePool pool = ArchiveHandlePool.getDefault();
 			ZipFile zipFile;
 			try {
-				zipFile = new ZipFile(fLocation);
+				zipFile = pool.acquire(fLocation);
 			} catch (IOException e) {
 				abort("Failed to open archive: " + fLocation, e); //$NON-NLS-1$
 				return;
 			}
 			try {
+				CRC32 crc = new CRC32();
 				Enumeration<? extends ZipEntry> entries = zipFile.entries();
 				while (entries.hasMoreElements()) {
 					ZipEntry entry = entries.nextElement();
 					String name = entry.getName();
 					if (name.endsWith(Util.DOT_CLASS_SUFFIX)) {
+						TypeStructureCache.updateArchiveCrc(crc, name, entry.getCrc());
 						String pkg = Util.DEFAULT_PACKAGE_NAME;
 						int index = name.lastIndexOf('/');
 						if (index >= 0) {
@@ -290,12 +375,9 @@ public class ArchiveApiTypeContainer extends ApiElement implements IApiTypeConta
 						fileNames.add(name);
 					}
 				}
+				fArchiveCrc = crc.getValue();
 			} finally {
-				try {
-					zipFile.close();
-				} catch (IOException e) {
-					abort("Failed to close class file archive", e); //$NON-NLS-1$
-				}
+				pool.release(fLocation);
 			}
 		}
 	}
@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipFile;
+
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+
+/**
+ * A bounded pool of shared, reference counted {@link ZipFile} handles.
+ * <p>
+ * Archive type containers used to open a new {@link ZipFile} for every class
+ * file they read, which re-parses the central directory of the archive each
+ * time. The pool keeps archives open between reads: a handle is shared by all
+ * clients of the same archive location while it is acquired, and once it is
+ * released it stays open as an idle handle until it is evicted in least
+ * recently used order.
+ * </p>
+ * <p>
+ * Clients must pair every {@link #acquire(String)} with a call to
+ * {@link #release(String)}.
+ * </p>
+ *
+ * @since 1.1.100
+ */
+public final class ArchiveHandlePool {
+
+	/**
+	 * System property that can be used to override the number of archives kept
+	 * open by the pool
+	 */
+	public static final String POOL_SIZE_PROPERTY = "org.eclipse.pde.api.tools.archivePoolSize"; //$NON-NLS-1$
+
+	/**
+	 * System property that can be used to override the minimum time in
+	 * milliseconds between two checks of an idle archive for changes on disk
+	 */
+	public static final String CHECK_INTERVAL_PROPERTY = "org.eclipse.pde.api.tools.archiveCheckInterval"; //$NON-NLS-1$
+
+	/**
+	 * Default number of archives kept open
+	 */
+	static final int DEFAULT_POOL_SIZE = 64;
+
+	/**
+	 * Default minimum time in milliseconds between two checks of an archive
+	 */
+	static final long DEFAULT_CHECK_INTERVAL = 1000;
+
+	/**
+	 * A pooled archive
+	 */
+	static class Handle {
+		ZipFile fZipFile;
+		int fRefCount = 0;
+		long fTimestamp;
+		long fLength;
+		/**
+		 * The {@link System#nanoTime()} of the last check for changes on disk
+		 */
+		long fChecked;
+
+		Handle(ZipFile zipFile, long timestamp, long length) {
+			fZipFile = zipFile;
+			fTimestamp = timestamp;
+			fLength = length;
+			fChecked = System.nanoTime();
+		}
+	}
+
+	private static ArchiveHandlePool fgDefault = null;
+
+	/**
+	 * Open handles keyed by archive location, in access order
+	 */
+	private final LinkedHashMap<String, Handle> fHandles = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Maximum number of handles kept open
+	 */
+	private final int fCapacity;
+
+	/**
+	 * Minimum time in nanoseconds between two checks of an archive for
+	 * changes on disk
+	 */
+	private final long fCheckInterval;
+
+	private long fHits = 0;
+	private long fOpens = 0;
+	private long fEvictions = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity the maximum number of archives to keep open, must be
+	 *            greater than zero
+	 */
+	public ArchiveHandlePool(int capacity) {
+		this(capacity, DEFAULT_CHECK_INTERVAL);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity the maximum number of archives to keep open, must be
+	 *            greater than zero
+	 * @param checkInterval the minimum time in milliseconds between two checks
+	 *            of an idle archive for changes on disk, 0 to check it every
+	 *            time it is acquired
+	 */
+	public ArchiveHandlePool(int capacity, long checkInterval) {
+		fCapacity = Math.max(1, capacity);
+		fCheckInterval = TimeUnit.MILLISECONDS.toNanos(Math.max(0, checkInterval));
+	}
+
+	/**
+	 * Returns the pool shared by all archive containers
+	 *
+	 * @return the shared pool
+	 */
+	public static synchronized ArchiveHandlePool getDefault() {
+		if (fgDefault == null) {
+			fgDefault = new ArchiveHandlePool(Integer.getInteger(POOL_SIZE_PROPERTY, DEFAULT_POOL_SIZE).intValue(), Long.getLong(CHECK_INTERVAL_PROPERTY, DEFAULT_CHECK_INTERVAL).longValue());
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Returns an open {@link ZipFile} for the archive at the given location,
+	 * opening it if it is not already pooled. An idle archive is opened again
+	 * if it changed on disk, which is checked at most once per check interval.
+	 * The handle must not be closed by the caller, instead it must be given
+	 * back using {@link #release(String)}.
+	 *
+	 * @param location the location of the archive in the local file system
+	 * @return an open zip file
+	 * @throws IOException if the archive could not be opened
+	 */
+	public synchronized ZipFile acquire(String location) throws IOException {
+		Handle handle = fHandles.get(location);
+		if (handle != null && handle.fRefCount == 0 && isStale(location, handle)) {
+			fHandles.remove(location);
+			closeHandle(handle);
+			handle = null;
+		}
+		if (handle == null) {
+			File file = new File(location);
+			handle = new Handle(new ZipFile(file), file.lastModified(), file.length());
+			fHandles.put(location, handle);
+			fOpens++;
+			evictIdle();
+		} else {
+			fHits++;
+		}
+		handle.fRefCount++;
+		return handle.fZipFile;
+	}
+
+	/**
+	 * Gives back a handle previously obtained from {@link #acquire(String)}.
+	 * The archive remains open until it is evicted from the pool.
+	 *
+	 * @param location the location of the archive in the local file system
+	 */
+	public synchronized void release(String location) {
+		Handle handle = fHandles.get(location);
+		if (handle != null && handle.fRefCount > 0) {
+			handle.fRefCount--;
+			if (handle.fRefCount == 0) {
+				evictIdle();
+			}
+		}
+	}
+
+	/**
+	 * Closes the pooled handle for the given location if it is not currently
+	 * in use. Handles that are in use are left alone and are closed once they
+	 * are evicted.
+	 *
+	 * @param location the location of the archive in the local file system
+	 */
+	public synchronized void evict(String location) {
+		Handle handle = fHandles.get(location);
+		if (handle != null && handle.fRefCount == 0) {
+			fHandles.remove(location);
+			closeHandle(handle);
+			fEvictions++;
+		}
+	}
+
+	/**
+	 * Closes all pooled archives regardless of their reference counts. Called
+	 * when the plug-in is shutting down.
+	 */
+	public synchronized void closeAll() {
+		for (Handle handle : fHandles.values()) {
+			closeHandle(handle);
+		}
+		fHandles.clear();
+	}
+
+	/**
+	 * @return the number of times an already open archive was handed out
+	 */
+	public synchronized long getHitCount() {
+		return fHits;
+	}
+
+	/**
+	 * @return the number of times an archive had to be opened
+	 */
+	public synchronized long getOpenCount() {
+		return fOpens;
+	}
+
+	/**
+	 * @return the number of idle archives closed by the pool
+	 */
+	public synchronized long getEvictionCount() {
+		return fEvictions;
+	}
+
+	/**
+	 * @return the number of archives currently held open by the pool
+	 */
+	public synchronized int getOpenHandleCount() {
+		return fHandles.size();
+	}
+
+	/**
+	 * Closes least recently used idle handles until the pool is within its
+	 * capacity. Handles in use are never closed.
+	 */
+	private void evictIdle() {
+		int overflow = fHandles.size() - fCapacity;
+		if (overflow <= 0) {
+			return;
+		}
+		List<Handle> evicted = new ArrayList<>(overflow);
+		for (Iterator<Entry<String, Handle>> iter = fHandles.entrySet().iterator(); iter.hasNext() && overflow > 0;) {
+			Handle handle = iter.next().getValue();
+			if (handle.fRefCount == 0) {
+				iter.remove();
+				evicted.add(handle);
+				overflow--;
+			}
+		}
+		for (Handle handle : evicted) {
+			closeHandle(handle);
+			fEvictions++;
+		}
+	}
+
+	/**
+	 * Returns if the archive has changed on disk since the given handle was
+	 * opened. The archive is not checked again before the check interval has
+	 * elapsed since its last check.
+	 *
+	 * @param location
+	 * @param handle
+	 * @return <code>true</code> if the handle must be re-opened
+	 */
+	private boolean isStale(String location, Handle handle) {
+		long now = System.nanoTime();
+		if (now - handle.fChecked < fCheckInterval) {
+			return false;
+		}
+		handle.fChecked = now;
+		File file = new File(location);
+		return file.lastModified() != handle.fTimestamp || file.length() != handle.fLength;
+	}
+
+	private void closeHandle(Handle handle) {
+		try {
+			handle.fZipFile.close();
+		} catch (IOException e) {
+			ApiPlugin.log(e);
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("Archive handle pool [open: ").append(fHandles.size()); //$NON-NLS-1$
+		buffer.append(", capacity: ").append(fCapacity); //$NON-NLS-1$
+		buffer.append(", hits: ").append(fHits); //$NON-NLS-1$
+		buffer.append(", opens: ").append(fOpens); //$NON-NLS-1$
+		buffer.append(", evictions: ").append(fEvictions).append(']'); //$NON-NLS-1$
+		return buffer.toString();
+	}
+}
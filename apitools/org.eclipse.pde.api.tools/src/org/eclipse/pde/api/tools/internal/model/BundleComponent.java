@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -50,11 +50,13 @@ import org.eclipse.osgi.util.ManifestElement;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.pde.api.tools.internal.ApiBaselineManager;
 import org.eclipse.pde.api.tools.internal.ApiDescription;
+import org.eclipse.pde.api.tools.internal.ApiDescriptionIndex;
 import org.eclipse.pde.api.tools.internal.ApiDescriptionProcessor;
 import org.eclipse.pde.api.tools.internal.BundleVersionRange;
 import org.eclipse.pde.api.tools.internal.CompositeApiDescription;
 import org.eclipse.pde.api.tools.internal.FilterStore;
 import org.eclipse.pde.api.tools.internal.IApiCoreConstants;
+import org.eclipse.pde.api.tools.internal.IndexedApiDescription;
 import org.eclipse.pde.api.tools.internal.RequiredComponentDescription;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.Factory;
@@ -399,15 +401,36 @@ public class BundleComponent extends Component {
 	 * @throws CoreException if unable to initialize
 	 */
 	protected IApiDescription createLocalApiDescription() throws CoreException {
-		IApiDescription apiDesc = new ApiDescription(getSymbolicName());
+		IndexedApiDescription apiDesc = new IndexedApiDescription(getSymbolicName());
 		// first mark all packages as internal
 		initializeApiDescription(apiDesc, getBundleDescription(), getLocalPackageNames());
 		try {
-			String xml = loadApiDescription(new File(fLocation));
-			setHasApiDescription(xml != null);
-			if (xml != null) {
-				ApiDescriptionProcessor.annotateApiSettings(null, apiDesc, xml);
+			File bundleLocation = new File(fLocation);
+			// the index is generated from the .api_description file once and
+			// then used until the file changes
+			File indexFile = ApiDescriptionIndex.getIndexFile(getSymbolicName(), getVersion(), bundleLocation);
+			File source = bundleLocation.isFile() ? bundleLocation : new File(bundleLocation, IApiCoreConstants.API_DESCRIPTION_XML_NAME);
+			ApiDescriptionIndex index = indexFile == null ? null : ApiDescriptionIndex.read(indexFile, source);
+			if (index == null) {
+				String xml = loadApiDescription(bundleLocation);
+				if (indexFile != null) {
+					ApiDescription parsed = null;
+					if (xml != null) {
+						parsed = new ApiDescription(getSymbolicName());
+						ApiDescriptionProcessor.annotateApiSettings(null, parsed, xml);
+					}
+					index = ApiDescriptionIndex.write(indexFile, source, parsed);
+				}
+				if (index == null) {
+					setHasApiDescription(xml != null);
+					if (xml != null) {
+						ApiDescriptionProcessor.annotateApiSettings(null, apiDesc, xml);
+					}
+					return apiDesc;
+				}
 			}
+			setHasApiDescription(index.hasDescription());
+			apiDesc.setIndex(index);
 		} catch (IOException e) {
 			abort("Unable to load .api_description file ", e); //$NON-NLS-1$
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.internal.model;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.Factory;
@@ -46,6 +49,11 @@ public abstract class Component extends AbstractApiTypeContainer implements IApi
 	 */
 	private IReferenceCollection fReferences;
 
+	/**
+	 * Type fingerprints keyed by package name, computed on demand
+	 */
+	private final Map<String, Map<String, TypeFingerprint>> fFingerprints = new ConcurrentHashMap<>();
+
 	/**
 	 * Constructs an API component in the given {@link IApiBaseline}.
 	 *
@@ -83,6 +91,7 @@ public abstract class Component extends AbstractApiTypeContainer implements IApi
 			synchronized (this) {
 				fApiDescription = null;
 			}
+			fFingerprints.clear();
 		}
 	}
 
@@ -164,6 +173,39 @@ public abstract class Component extends AbstractApiTypeContainer implements IApi
 	 */
 	protected abstract IApiFilterStore createApiFilterStore() throws CoreException;
 
+	/**
+	 * Returns the fingerprints of the top level types of the given package,
+	 * keyed by type name. The fingerprints are remembered until this component
+	 * is disposed, unless {@link #isContentStable()} is <code>false</code>.
+	 *
+	 * @param packageName
+	 * @return the type fingerprints of the package, never <code>null</code>
+	 * @throws CoreException if the type containers cannot be visited
+	 * @since 1.1.100
+	 */
+	public Map<String, TypeFingerprint> getTypeFingerprints(String packageName) throws CoreException {
+		if (!isContentStable()) {
+			return TypeFingerprint.compute(this, packageName);
+		}
+		Map<String, TypeFingerprint> fingerprints = fFingerprints.get(packageName);
+		if (fingerprints == null) {
+			fingerprints = TypeFingerprint.compute(this, packageName);
+			fFingerprints.put(packageName, fingerprints);
+		}
+		return fingerprints;
+	}
+
+	/**
+	 * Returns whether the class files of this component cannot change while it
+	 * is alive, so that information derived from them can be remembered.
+	 *
+	 * @return <code>true</code> by default
+	 * @since 1.1.100
+	 */
+	protected boolean isContentStable() {
+		return true;
+	}
+
 	@Override
 	public IReferenceCollection getExternalDependencies() {
 		if (fReferences == null) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -155,6 +155,12 @@ public class ProjectComponent extends BundleComponent {
 		return Util.isApiProject(fProject);
 	}
 
+	@Override
+	protected boolean isContentStable() {
+		// the output folders are rewritten by each build
+		return false;
+	}
+
 	@Override
 	public void dispose() {
 		try {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -98,28 +98,33 @@ public class StubArchiveApiTypeContainer extends ApiElement implements IApiTypeC
 		@Override
 		public byte[] getContents() throws CoreException {
 			StubArchiveApiTypeContainer archive = (StubArchiveApiTypeContainer) getParent();
+			ArchiveHandlePool pool = ArchiveHandlePool.getDefault();
 			ZipFile zipFile = archive.open();
-			ZipEntry entry = zipFile.getEntry(getName());
-			InputStream stream = null;
-			if (entry != null) {
-				try {
-					stream = zipFile.getInputStream(entry);
-				} catch (IOException e) {
-					abort("Failed to open class file: " + getTypeName() + " in archive: " + archive.fLocation, e); //$NON-NLS-1$ //$NON-NLS-2$
-					return null;
-				}
-				try {
-					return Util.getInputStreamAsByteArray(stream, -1);
-				} catch (IOException ioe) {
-					abort("Unable to read class file: " + getTypeName(), ioe); //$NON-NLS-1$
-					return null; // never gets here
-				} finally {
+			try {
+				ZipEntry entry = zipFile.getEntry(getName());
+				InputStream stream = null;
+				if (entry != null) {
 					try {
-						stream.close();
+						stream = zipFile.getInputStream(entry);
 					} catch (IOException e) {
-						ApiPlugin.log(e);
+						abort("Failed to open class file: " + getTypeName() + " in archive: " + archive.fLocation, e); //$NON-NLS-1$ //$NON-NLS-2$
+						return null;
+					}
+					try {
+						return Util.getInputStreamAsByteArray(stream, -1);
+					} catch (IOException ioe) {
+						abort("Unable to read class file: " + getTypeName(), ioe); //$NON-NLS-1$
+						return null; // never gets here
+					} finally {
+						try {
+							stream.close();
+						} catch (IOException e) {
+							ApiPlugin.log(e);
+						}
 					}
 				}
+			} finally {
+				pool.release(archive.fLocation);
 			}
 			abort("Class file not found: " + getTypeName() + " in archive: " + archive.fLocation, null); //$NON-NLS-1$ //$NON-NLS-2$
 			return null;
@@ -142,11 +147,6 @@ public class StubArchiveApiTypeContainer extends ApiElement implements IApiTypeC
 	 */
 	private String[] fPackageNames;
 
-	/**
-	 * Open zip file, or <code>null</code> if file is currently closed.
-	 */
-	private ZipFile fZipFile = null;
-
 	/**
 	 * Constructs an {@link IApiTypeContainer} container for the given jar or
 	 * zip file at the specified location.
@@ -202,14 +202,7 @@ public class StubArchiveApiTypeContainer extends ApiElement implements IApiTypeC
 	 */
 	@Override
 	public synchronized void close() throws CoreException {
-		if (fZipFile != null) {
-			try {
-				fZipFile.close();
-				fZipFile = null;
-			} catch (IOException e) {
-				abort("Failed to close class file archive", e); //$NON-NLS-1$
-			}
-		}
+		ArchiveHandlePool.getDefault().evict(fLocation);
 	}
 
 	/**
@@ -257,43 +250,47 @@ public class StubArchiveApiTypeContainer extends ApiElement implements IApiTypeC
 	 * @throws CoreException
 	 */
 	private synchronized void init() throws CoreException {
-		ZipFile zipFile = open();
 		if (fPackages == null) {
 			fPackages = new HashMap<>();
-			Enumeration<? extends ZipEntry> entries = zipFile.entries();
-			while (entries.hasMoreElements()) {
-				ZipEntry entry = entries.nextElement();
-				String name = entry.getName();
-				String pkg = Util.DEFAULT_PACKAGE_NAME;
-				int index = name.lastIndexOf('/');
-				if (index >= 0) {
-					pkg = name.substring(0, index).replace('/', '.');
-				}
-				Set<String> fileNames = fPackages.get(pkg);
-				if (fileNames == null) {
-					fileNames = new HashSet<>();
-					fPackages.put(pkg, fileNames);
+			ZipFile zipFile = open();
+			try {
+				Enumeration<? extends ZipEntry> entries = zipFile.entries();
+				while (entries.hasMoreElements()) {
+					ZipEntry entry = entries.nextElement();
+					String name = entry.getName();
+					String pkg = Util.DEFAULT_PACKAGE_NAME;
+					int index = name.lastIndexOf('/');
+					if (index >= 0) {
+						pkg = name.substring(0, index).replace('/', '.');
+					}
+					Set<String> fileNames = fPackages.get(pkg);
+					if (fileNames == null) {
+						fileNames = new HashSet<>();
+						fPackages.put(pkg, fileNames);
+					}
+					fileNames.add(name);
 				}
-				fileNames.add(name);
+			} finally {
+				ArchiveHandlePool.getDefault().release(fLocation);
 			}
 		}
 	}
 
 	/**
-	 * Returns an open zip file for this archive.
+	 * Returns an open zip file for this archive from the shared
+	 * {@link ArchiveHandlePool}. Callers must release the handle back to the
+	 * pool when done.
 	 *
 	 * @return zip file
-	 * @throws IOException if unable to open the archive
+	 * @throws CoreException if unable to open the archive
 	 */
-	synchronized ZipFile open() throws CoreException {
-		if (fZipFile == null) {
-			try {
-				fZipFile = new ZipFile(fLocation);
-			} catch (IOException e) {
-				abort("Failed to open archive: " + fLocation, e); //$NON-NLS-1$
-			}
+	ZipFile open() throws CoreException {
+		try {
+			return ArchiveHandlePool.getDefault().acquire(fLocation);
+		} catch (IOException e) {
+			abort("Failed to open archive: " + fLocation, e); //$NON-NLS-1$
+			return null; // never gets here
 		}
-		return fZipFile;
 	}
 
 	@Override
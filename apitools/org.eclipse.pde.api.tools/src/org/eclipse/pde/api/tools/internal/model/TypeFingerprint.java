@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.pde.api.tools.internal.provisional.model.ApiTypeContainerVisitor;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeContainer;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * A fingerprint of a top level type and all of its nested types, computed from
+ * the class file contents without building the type structures.
+ * <p>
+ * Two types with equal fingerprints have identical class files, so comparing
+ * their structures can only report differences coming from their super types
+ * or their API descriptions. To allow those to be checked, the fingerprint
+ * also records the names of the super types of the top level type and of its
+ * nested types.
+ * </p>
+ *
+ * @since 1.1.100
+ */
+public final class TypeFingerprint {
+
+	private static final String[] NO_NAMES = new String[0];
+
+	private final long fCrc;
+	private final String[] fSuperTypeNames;
+
+	TypeFingerprint(long crc, String[] superTypeNames) {
+		fCrc = crc;
+		fSuperTypeNames = superTypeNames;
+	}
+
+	/**
+	 * @return the CRC of the class files of the top level type and its nested
+	 *         types
+	 */
+	public long getCrc() {
+		return fCrc;
+	}
+
+	/**
+	 * @return the fully qualified names of the super types of the top level
+	 *         type and its nested types, excluding the types of the group
+	 *         itself
+	 */
+	public String[] getSuperTypeNames() {
+		return fSuperTypeNames;
+	}
+
+	/**
+	 * Returns the name of the top level type of the given fully qualified,
+	 * '$'-separated type name.
+	 *
+	 * @param typeName
+	 * @return the top level type name
+	 */
+	public static String getTopLevelTypeName(String typeName) {
+		int index = typeName.indexOf('$', typeName.lastIndexOf('.') + 1);
+		return index == -1 ? typeName : typeName.substring(0, index);
+	}
+
+	/**
+	 * Computes the fingerprints of all top level types of the given package in
+	 * the given component. Types whose class file cannot be read have no
+	 * fingerprint.
+	 *
+	 * @param component
+	 * @param packageName
+	 * @return the fingerprints keyed by top level type name, never
+	 *         <code>null</code>
+	 * @throws CoreException if the type containers cannot be visited
+	 */
+	public static Map<String, TypeFingerprint> compute(IApiComponent component, final String packageName) throws CoreException {
+		IApiTypeContainer[] containers = component.getApiTypeContainers();
+		if (containers == null || containers.length == 0) {
+			return Collections.emptyMap();
+		}
+		// type name -> class file contents, keeping the first type root found
+		// like IApiComponent#findTypeRoot does
+		final Map<String, byte[]> contents = new HashMap<>();
+		final Set<String> unreadable = new HashSet<>();
+		for (IApiTypeContainer container : containers) {
+			container.accept(new ApiTypeContainerVisitor() {
+				@Override
+				public boolean visitPackage(String name) {
+					return packageName.equals(name);
+				}
+
+				@Override
+				public void visit(String name, IApiTypeRoot typeRoot) {
+					String typeName = typeRoot.getTypeName();
+					if (contents.containsKey(typeName) || unreadable.contains(typeName)) {
+						return;
+					}
+					byte[] bytes = null;
+					if (typeRoot instanceof AbstractApiTypeRoot) {
+						try {
+							bytes = ((AbstractApiTypeRoot) typeRoot).getContents();
+						} catch (CoreException e) {
+							// no fingerprint, the type is compared as usual
+						}
+					}
+					if (bytes == null) {
+						unreadable.add(typeName);
+					} else {
+						contents.put(typeName, bytes);
+					}
+				}
+			});
+		}
+		// group the class files by top level type, in name order
+		Map<String, TreeMap<String, byte[]>> groups = new HashMap<>();
+		for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+			groups.computeIfAbsent(getTopLevelTypeName(entry.getKey()), k -> new TreeMap<>()).put(entry.getKey(), entry.getValue());
+		}
+		for (String typeName : unreadable) {
+			groups.remove(getTopLevelTypeName(typeName));
+		}
+		Map<String, TypeFingerprint> fingerprints = new HashMap<>(groups.size());
+		for (Map.Entry<String, TreeMap<String, byte[]>> group : groups.entrySet()) {
+			TypeFingerprint fingerprint = compute(group.getKey(), group.getValue());
+			if (fingerprint != null) {
+				fingerprints.put(group.getKey(), fingerprint);
+			}
+		}
+		return fingerprints;
+	}
+
+	/**
+	 * Computes the fingerprint of one top level type from the class files of
+	 * its group, sorted by type name
+	 *
+	 * @param topLevelName
+	 * @param classFiles
+	 * @return the fingerprint or <code>null</code> if a class file is invalid
+	 */
+	static TypeFingerprint compute(String topLevelName, TreeMap<String, byte[]> classFiles) {
+		CRC32 crc = new CRC32();
+		Set<String> superTypes = new HashSet<>();
+		for (Map.Entry<String, byte[]> classFile : classFiles.entrySet()) {
+			byte[] bytes = classFile.getValue();
+			crc.update(classFile.getKey().getBytes(StandardCharsets.UTF_8));
+			crc.update(bytes);
+			try {
+				ClassReader reader = new ClassReader(bytes);
+				String superName = reader.getSuperName();
+				if (superName != null) {
+					superTypes.add(superName.replace('/', '.'));
+				}
+				for (String name : reader.getInterfaces()) {
+					superTypes.add(name.replace('/', '.'));
+				}
+			} catch (RuntimeException e) {
+				// not a valid class file
+				return null;
+			}
+		}
+		superTypes.removeAll(classFiles.keySet());
+		String[] names = superTypes.isEmpty() ? NO_NAMES : superTypes.toArray(new String[superTypes.size()]);
+		Arrays.sort(names);
+		return new TypeFingerprint(crc.getValue(), names);
+	}
+}
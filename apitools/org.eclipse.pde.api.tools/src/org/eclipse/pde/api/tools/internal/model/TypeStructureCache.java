@@ -0,0 +1,746 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiField;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiMethod;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+
+/**
+ * A persistent cache of the type structures built from the class files of
+ * archives.
+ * <p>
+ * Building an {@link ApiType} requires parsing the class file with ASM, which
+ * is repeated for every type of a reference baseline each time the IDE is
+ * restarted or a headless analysis is run. This cache keeps a compact encoding
+ * of the type structures of each archive in a file of its own in the plug-in
+ * state location, so that they can be decoded again without reading the class
+ * files.
+ * </p>
+ * <p>
+ * The file of an archive is only used if the location, time stamp, length and
+ * content CRC of the archive are unchanged. The content CRC is computed from
+ * the CRCs of the class file entries in the archive's central directory, which
+ * also key the individual type structures. The total size of the cache files
+ * is capped, the least recently used files are deleted first.
+ * </p>
+ *
+ * @since 1.1.100
+ */
+public final class TypeStructureCache {
+
+	/**
+	 * System property that can be set to <code>false</code> to disable the
+	 * cache
+	 */
+	public static final String CACHE_PROPERTY = "org.eclipse.pde.api.tools.typeStructureCache"; //$NON-NLS-1$
+
+	/**
+	 * System property that can be used to override the maximum size of the
+	 * cache in megabytes
+	 */
+	public static final String CACHE_SIZE_PROPERTY = "org.eclipse.pde.api.tools.typeStructureCacheSize"; //$NON-NLS-1$
+
+	/**
+	 * Default maximum size of the cache in megabytes
+	 */
+	static final int DEFAULT_CACHE_SIZE = 128;
+
+	/**
+	 * Default maximum number of archives whose type structures are kept in
+	 * memory
+	 */
+	static final int DEFAULT_MAX_LOADED_ARCHIVES = 64;
+
+	/**
+	 * Name of the directory in the state location holding the cache files
+	 */
+	static final String CACHE_DIRECTORY = ".type_structures"; //$NON-NLS-1$
+
+	/**
+	 * File extension of cache files
+	 */
+	static final String CACHE_FILE_EXTENSION = ".types"; //$NON-NLS-1$
+
+	/**
+	 * File extension of cache files being written
+	 */
+	static final String TEMP_FILE_EXTENSION = ".tmp"; //$NON-NLS-1$
+
+	/**
+	 * Version of the cache file format, cache files of other versions are
+	 * discarded
+	 */
+	static final int VERSION = 1;
+
+	private static final int MAGIC = 0x41504954; // 'APIT'
+
+	private static final byte NO_VALUE = 0;
+	private static final byte INT_VALUE = 1;
+	private static final byte LONG_VALUE = 2;
+	private static final byte FLOAT_VALUE = 3;
+	private static final byte DOUBLE_VALUE = 4;
+	private static final byte STRING_VALUE = 5;
+
+	/**
+	 * The encoded type structure of a class file entry
+	 */
+	static class Entry {
+		final long fCrc;
+		final byte[] fData;
+
+		Entry(long crc, byte[] data) {
+			fCrc = crc;
+			fData = data;
+		}
+	}
+
+	/**
+	 * The cached type structures of a single archive
+	 */
+	static class ArchiveCache {
+		final String fLocation;
+		final long fTimestamp;
+		final long fLength;
+		final long fCrc;
+		final Map<String, Entry> fEntries = new HashMap<>();
+		boolean fDirty = false;
+
+		ArchiveCache(String location, long timestamp, long length, long crc) {
+			fLocation = location;
+			fTimestamp = timestamp;
+			fLength = length;
+			fCrc = crc;
+		}
+
+		boolean isValid(File archive, long crc) {
+			return archive.lastModified() == fTimestamp && archive.length() == fLength && crc == fCrc;
+		}
+	}
+
+	private static TypeStructureCache fgDefault = null;
+	private static boolean fgInitialized = false;
+
+	/**
+	 * Directory holding the cache files
+	 */
+	private final File fRoot;
+
+	/**
+	 * Maximum total size of the cache files in bytes
+	 */
+	private final long fMaxSize;
+
+	/**
+	 * Maximum number of archives whose type structures are kept in memory
+	 */
+	private final int fMaxLoadedArchives;
+
+	/**
+	 * Loaded archive caches keyed by archive location, in access order
+	 */
+	private final LinkedHashMap<String, ArchiveCache> fArchives = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long fHits = 0;
+	private long fMisses = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param root the directory to keep the cache files in
+	 * @param maxSize the maximum total size of the cache files in bytes
+	 */
+	public TypeStructureCache(File root, long maxSize) {
+		this(root, maxSize, DEFAULT_MAX_LOADED_ARCHIVES);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param root the directory to keep the cache files in
+	 * @param maxSize the maximum total size of the cache files in bytes
+	 * @param maxLoadedArchives the maximum number of archives whose type
+	 *            structures are kept in memory, the least recently used ones
+	 *            are saved and released first
+	 */
+	public TypeStructureCache(File root, long maxSize, int maxLoadedArchives) {
+		fRoot = root;
+		fMaxSize = maxSize;
+		fMaxLoadedArchives = Math.max(1, maxLoadedArchives);
+	}
+
+	/**
+	 * Returns the cache kept in the state location of the API tools plug-in,
+	 * or <code>null</code> if the cache is disabled or the plug-in is not
+	 * running in a framework
+	 *
+	 * @return the shared cache or <code>null</code>
+	 */
+	public static synchronized TypeStructureCache getDefault() {
+		if (!fgInitialized) {
+			fgInitialized = true;
+			if (ApiPlugin.isRunningInFramework() && Boolean.parseBoolean(System.getProperty(CACHE_PROPERTY, Boolean.TRUE.toString()))) {
+				File root = ApiPlugin.getDefault().getStateLocation().append(CACHE_DIRECTORY).toFile();
+				long size = Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE).longValue() * 1024 * 1024;
+				fgDefault = new TypeStructureCache(root, size);
+			}
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Saves and discards the shared cache, if any. Called when the plug-in is
+	 * shutting down.
+	 */
+	public static synchronized void shutdown() {
+		if (fgDefault != null) {
+			fgDefault.saveAll();
+		}
+		fgDefault = null;
+		fgInitialized = false;
+	}
+
+	/**
+	 * Returns the cached type structure of the given class file entry, or
+	 * <code>null</code> if there is no valid cached structure.
+	 *
+	 * @param location the location of the archive in the local file system
+	 * @param archiveCrc the content CRC of the archive
+	 * @param entryName the name of the class file entry
+	 * @param entryCrc the CRC of the class file entry
+	 * @param component the component the type belongs to
+	 * @param root the type root the type is created for
+	 * @return the decoded type structure or <code>null</code>
+	 */
+	public ApiType getStructure(String location, long archiveCrc, String entryName, long entryCrc, IApiComponent component, IApiTypeRoot root) {
+		ArchiveCache cache = getArchiveCache(location, archiveCrc);
+		Entry entry = null;
+		synchronized (this) {
+			entry = cache.fEntries.get(entryName);
+			if (entry == null || entry.fCrc != entryCrc) {
+				fMisses++;
+				return null;
+			}
+			fHits++;
+		}
+		try {
+			return decode(entry.fData, component, root);
+		} catch (IOException e) {
+			ApiPlugin.log(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Adds the type structure built for the given class file entry to the
+	 * cache. The structure is persisted when the archive is saved.
+	 *
+	 * @param location the location of the archive in the local file system
+	 * @param archiveCrc the content CRC of the archive
+	 * @param entryName the name of the class file entry
+	 * @param entryCrc the CRC of the class file entry
+	 * @param type the type structure built from the entry
+	 */
+	public void putStructure(String location, long archiveCrc, String entryName, long entryCrc, ApiType type) {
+		byte[] data;
+		try {
+			data = encode(type);
+		} catch (IOException e) {
+			ApiPlugin.log(e);
+			return;
+		}
+		ArchiveCache cache = getArchiveCache(location, archiveCrc);
+		synchronized (this) {
+			cache.fEntries.put(entryName, new Entry(entryCrc, data));
+			cache.fDirty = true;
+		}
+	}
+
+	/**
+	 * Writes the type structures of the given archive to disk if new ones have
+	 * been added, and releases them from memory.
+	 *
+	 * @param location the location of the archive in the local file system
+	 */
+	public synchronized void save(String location) {
+		ArchiveCache cache = fArchives.remove(location);
+		if (cache != null && cache.fDirty) {
+			write(cache);
+			trim();
+		}
+	}
+
+	/**
+	 * Writes all archives with new type structures to disk and releases all
+	 * cached structures from memory
+	 */
+	public synchronized void saveAll() {
+		boolean written = false;
+		for (ArchiveCache cache : fArchives.values()) {
+			if (cache.fDirty) {
+				write(cache);
+				written = true;
+			}
+		}
+		fArchives.clear();
+		if (written) {
+			trim();
+		}
+	}
+
+	/**
+	 * Deletes all cache files
+	 */
+	public synchronized void clear() {
+		fArchives.clear();
+		File[] files = listCacheFiles();
+		for (File file : files) {
+			file.delete();
+		}
+	}
+
+	/**
+	 * @return the number of archives whose type structures are in memory
+	 */
+	public synchronized int getLoadedArchiveCount() {
+		return fArchives.size();
+	}
+
+	/**
+	 * @return the number of type structures found in the cache
+	 */
+	public synchronized long getHitCount() {
+		return fHits;
+	}
+
+	/**
+	 * @return the number of type structures not found in the cache
+	 */
+	public synchronized long getMissCount() {
+		return fMisses;
+	}
+
+	/**
+	 * @return the total size of the cache files in bytes
+	 */
+	public synchronized long getSize() {
+		long size = 0;
+		for (File file : listCacheFiles()) {
+			size += file.length();
+		}
+		return size;
+	}
+
+	/**
+	 * Adds a class file entry to the content CRC of an archive, which is
+	 * computed from the names and CRCs of its class file entries in central
+	 * directory order.
+	 *
+	 * @param crc the checksum to update
+	 * @param entryName the name of the entry
+	 * @param entryCrc the CRC of the entry
+	 */
+	static void updateArchiveCrc(CRC32 crc, String entryName, long entryCrc) {
+		crc.update(entryName.getBytes(StandardCharsets.UTF_8));
+		for (int i = 0; i < 4; i++) {
+			crc.update((int) (entryCrc >>> (i * 8)));
+		}
+	}
+
+	/**
+	 * Returns the loaded cache of the given archive, reading it from disk if
+	 * required. A new empty cache is returned if there is no valid cache file.
+	 * <p>
+	 * The time stamp and length of the archive are only checked when its
+	 * cache is loaded, which happens once per opening of the archive as
+	 * closing it saves and releases the cache. While loaded, the content CRC
+	 * computed when the archive was opened identifies the cache.
+	 * </p>
+	 *
+	 * @param location
+	 * @param archiveCrc
+	 * @return the cache for the archive
+	 */
+	private ArchiveCache getArchiveCache(String location, long archiveCrc) {
+		synchronized (this) {
+			ArchiveCache cache = fArchives.get(location);
+			if (cache != null && cache.fCrc == archiveCrc) {
+				return cache;
+			}
+		}
+		// read without holding the lock, other archives stay available
+		File archive = new File(location);
+		ArchiveCache loaded = read(location);
+		if (loaded == null || !loaded.isValid(archive, archiveCrc)) {
+			loaded = new ArchiveCache(location, archive.lastModified(), archive.length(), archiveCrc);
+		}
+		synchronized (this) {
+			ArchiveCache cache = fArchives.get(location);
+			if (cache != null && cache.fCrc == archiveCrc) {
+				// loaded by another thread meanwhile
+				return cache;
+			}
+			fArchives.put(location, loaded);
+			if (fArchives.size() > fMaxLoadedArchives) {
+				// save and release the least recently used archives
+				boolean written = false;
+				Iterator<ArchiveCache> iter = fArchives.values().iterator();
+				while (fArchives.size() > fMaxLoadedArchives && iter.hasNext()) {
+					ArchiveCache eldest = iter.next();
+					if (eldest == loaded) {
+						continue;
+					}
+					iter.remove();
+					if (eldest.fDirty) {
+						write(eldest);
+						written = true;
+					}
+				}
+				if (written) {
+					trim();
+				}
+			}
+			return loaded;
+		}
+	}
+
+	/**
+	 * Returns the cache file for the given archive location
+	 *
+	 * @param location
+	 * @return the cache file
+	 */
+	private File getCacheFile(String location) {
+		CRC32 crc = new CRC32();
+		crc.update(location.getBytes(StandardCharsets.UTF_8));
+		return new File(fRoot, Long.toHexString(crc.getValue()) + Integer.toHexString(location.length()) + CACHE_FILE_EXTENSION);
+	}
+
+	private File[] listCacheFiles() {
+		File[] files = fRoot.listFiles((dir, name) -> name.endsWith(CACHE_FILE_EXTENSION));
+		return files == null ? new File[0] : files;
+	}
+
+	/**
+	 * Reads the cache file of the given archive
+	 *
+	 * @param location
+	 * @return the cache read or <code>null</code> if there is no cache file or
+	 *         it is not for the given archive
+	 */
+	private ArchiveCache read(String location) {
+		File file = getCacheFile(location);
+		if (!file.exists()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || !location.equals(in.readUTF())) {
+				return null;
+			}
+			ArchiveCache cache = new ArchiveCache(location, in.readLong(), in.readLong(), in.readLong());
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				long crc = in.readLong();
+				byte[] data = new byte[in.readInt()];
+				in.readFully(data);
+				cache.fEntries.put(name, new Entry(crc, data));
+			}
+			// remember the use of the file for the size cap
+			file.setLastModified(System.currentTimeMillis());
+			return cache;
+		} catch (IOException e) {
+			// corrupt or truncated, it will be rewritten
+			file.delete();
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the given archive cache to its cache file
+	 *
+	 * @param cache
+	 */
+	private void write(ArchiveCache cache) {
+		if (!fRoot.exists() && !fRoot.mkdirs()) {
+			return;
+		}
+		File file = getCacheFile(cache.fLocation);
+		// written aside and moved in place, the file may be read concurrently
+		File temp = new File(fRoot, file.getName() + TEMP_FILE_EXTENSION);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(cache.fLocation);
+			out.writeLong(cache.fTimestamp);
+			out.writeLong(cache.fLength);
+			out.writeLong(cache.fCrc);
+			out.writeInt(cache.fEntries.size());
+			for (Map.Entry<String, Entry> entry : cache.fEntries.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeLong(entry.getValue().fCrc);
+				out.writeInt(entry.getValue().fData.length);
+				out.write(entry.getValue().fData);
+			}
+		} catch (IOException e) {
+			ApiPlugin.log(e);
+			temp.delete();
+			return;
+		}
+		try {
+			try {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			cache.fDirty = false;
+		} catch (IOException e) {
+			ApiPlugin.log(e);
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Deletes least recently used cache files until the cache is within its
+	 * maximum size
+	 */
+	private void trim() {
+		File[] files = listCacheFiles();
+		long size = 0;
+		for (File file : files) {
+			size += file.length();
+		}
+		if (size <= fMaxSize) {
+			return;
+		}
+		List<File> sorted = new ArrayList<>(Arrays.asList(files));
+		sorted.sort((f1, f2) -> Long.compare(f1.lastModified(), f2.lastModified()));
+		for (Iterator<File> iter = sorted.iterator(); iter.hasNext() && size > fMaxSize;) {
+			File file = iter.next();
+			long length = file.length();
+			if (file.delete()) {
+				size -= length;
+			}
+		}
+	}
+
+	/**
+	 * Encodes the given type structure
+	 *
+	 * @param type
+	 * @return the encoded structure
+	 * @throws IOException
+	 */
+	static byte[] encode(ApiType type) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		DataOutputStream out = new DataOutputStream(bytes);
+		writeString(out, type.getName());
+		writeString(out, type.getSignature());
+		writeString(out, type.getGenericSignature());
+		out.writeInt(type.getModifiers());
+		writeString(out, type.getEnclosingTypeName());
+		writeString(out, type.getSuperclassName());
+		writeStrings(out, type.getSuperInterfaceNames());
+		writeString(out, type.getDeclaredSimpleName());
+		out.writeBoolean(type.isAnonymous());
+		out.writeBoolean(type.isLocal());
+		out.writeBoolean(type.isMemberType());
+		out.writeBoolean(type.hasEnclosingMethodInfo());
+		if (type.hasEnclosingMethodInfo()) {
+			writeString(out, type.getEnclosingMethodName());
+			writeString(out, type.getEnclosingMethodSignature());
+		}
+		Set<String> members = type.getMemberTypeNames();
+		out.writeInt(members.size());
+		for (String member : members) {
+			out.writeUTF(member);
+		}
+		IApiField[] fields = type.getFields();
+		out.writeInt(fields.length);
+		for (IApiField field : fields) {
+			writeString(out, field.getName());
+			writeString(out, field.getSignature());
+			writeString(out, field.getGenericSignature());
+			out.writeInt(field.getModifiers());
+			writeValue(out, field.getConstantValue());
+		}
+		IApiMethod[] methods = type.getMethods();
+		out.writeInt(methods.length);
+		for (IApiMethod method : methods) {
+			writeString(out, method.getName());
+			writeString(out, method.getSignature());
+			writeString(out, method.getGenericSignature());
+			out.writeInt(method.getModifiers());
+			writeStrings(out, method.getExceptionNames());
+			writeString(out, method.getDefaultValue());
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Decodes a type structure encoded with {@link #encode(ApiType)}
+	 *
+	 * @param data
+	 * @param component
+	 * @param root
+	 * @return the decoded type structure
+	 * @throws IOException
+	 */
+	static ApiType decode(byte[] data, IApiComponent component, IApiTypeRoot root) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		String name = readString(in);
+		String signature = readString(in);
+		String genericSig = readString(in);
+		int flags = in.readInt();
+		String enclosingName = readString(in);
+		ApiType type = new ApiType(component, name, signature, genericSig, flags, enclosingName, root);
+		type.setSuperclassName(readString(in));
+		type.setSuperInterfaceNames(readStrings(in));
+		type.setSimpleName(readString(in));
+		if (in.readBoolean()) {
+			type.setAnonymous();
+		}
+		if (in.readBoolean()) {
+			type.setLocal();
+		}
+		if (in.readBoolean()) {
+			type.setMemberType();
+		}
+		if (in.readBoolean()) {
+			type.setEnclosingMethodInfo(readString(in), readString(in));
+		}
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			type.addMemberType(in.readUTF(), 0);
+		}
+		count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			type.addField(readString(in), readString(in), readString(in), in.readInt(), readValue(in));
+		}
+		count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			ApiMethod method = type.addMethod(readString(in), readString(in), readString(in), in.readInt(), readStrings(in));
+			String value = readString(in);
+			if (value != null) {
+				method.setDefaultValue(value);
+			}
+		}
+		return type;
+	}
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		out.writeBoolean(string != null);
+		if (string != null) {
+			out.writeUTF(string);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+		if (strings == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(strings.length);
+		for (String string : strings) {
+			out.writeUTF(string);
+		}
+	}
+
+	private static String[] readStrings(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		String[] strings = new String[length];
+		for (int i = 0; i < length; i++) {
+			strings[i] = in.readUTF();
+		}
+		return strings;
+	}
+
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value instanceof Integer) {
+			out.writeByte(INT_VALUE);
+			out.writeInt(((Integer) value).intValue());
+		} else if (value instanceof Long) {
+			out.writeByte(LONG_VALUE);
+			out.writeLong(((Long) value).longValue());
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT_VALUE);
+			out.writeFloat(((Float) value).floatValue());
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE_VALUE);
+			out.writeDouble(((Double) value).doubleValue());
+		} else if (value instanceof String) {
+			out.writeByte(STRING_VALUE);
+			out.writeUTF((String) value);
+		} else {
+			out.writeByte(NO_VALUE);
+		}
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		switch (in.readByte()) {
+			case INT_VALUE:
+				return Integer.valueOf(in.readInt());
+			case LONG_VALUE:
+				return Long.valueOf(in.readLong());
+			case FLOAT_VALUE:
+				return Float.valueOf(in.readFloat());
+			case DOUBLE_VALUE:
+				return Double.valueOf(in.readDouble());
+			case STRING_VALUE:
+				return in.readUTF();
+			default:
+				return null;
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("Type structure cache [archives: ").append(fArchives.size()); //$NON-NLS-1$
+		buffer.append(", hits: ").append(fHits); //$NON-NLS-1$
+		buffer.append(", misses: ").append(fMisses).append(']'); //$NON-NLS-1$
+		return buffer.toString();
+	}
+}
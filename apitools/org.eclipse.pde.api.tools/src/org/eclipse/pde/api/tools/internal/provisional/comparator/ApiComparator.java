@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,7 @@ import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.pde.api.tools.internal.comparator.ClassFileComparator;
 import org.eclipse.pde.api.tools.internal.comparator.Delta;
+import org.eclipse.pde.api.tools.internal.comparator.TypeFingerprintMatcher;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.IApiAnnotations;
 import org.eclipse.pde.api.tools.internal.provisional.IApiDescription;
@@ -648,6 +649,7 @@ public class ApiComparator {
 		}
 		final IApiDescription apiDescription = component.getApiDescription();
 		final IApiDescription apiDescription2 = component2.getApiDescription();
+		final TypeFingerprintMatcher matcher = TypeFingerprintMatcher.isEnabled() ? new TypeFingerprintMatcher(component, component2) : null;
 		if (typeRootContainers != null) {
 			SubMonitor loopMonitor = localmonitor.split(1).setWorkRemaining(typeRootContainers.length);
 			for (IApiTypeContainer container : typeRootContainers) {
@@ -658,6 +660,12 @@ public class ApiComparator {
 						public void visit(String packageName, IApiTypeRoot typeRoot) {
 							SubMonitor visitMonitor = iterationMonitor.setWorkRemaining(50).split(1).setWorkRemaining(2);
 							String typeName = typeRoot.getTypeName();
+							if (matcher != null && matcher.isUnchanged(typeName)) {
+								// identical class files, API description and
+								// hierarchy: there is nothing to compare
+								typeRootBaseLineNames.add(typeName);
+								return;
+							}
 							try {
 								IApiType typeDescriptor = typeRoot.getStructure();
 								IApiAnnotations elementDescription = apiDescription.resolveAnnotations(typeDescriptor.getHandle());
@@ -789,6 +797,9 @@ public class ApiComparator {
 				}
 			}
 		}
+		if (matcher != null && ApiPlugin.DEBUG_API_COMPARATOR) {
+			System.out.println("Skipped " + matcher.getUnchangedCount() + " unchanged types comparing " + id); //$NON-NLS-1$ //$NON-NLS-2$
+		}
 		localmonitor.setWorkRemaining(3);
 		IRequiredComponentDescription[] requiredComponents = component.getRequiredComponents();
 		int length = requiredComponents.length;
@@ -925,6 +936,10 @@ public class ApiComparator {
 						public void visit(String packageName, IApiTypeRoot typeRoot) {
 							iterationMonitor.setWorkRemaining(50).split(1);
 							String typeName = typeRoot.getTypeName();
+							if (typeRootBaseLineNames.contains(typeName)) {
+								// already processed
+								return;
+							}
 							try {
 								IApiType type = typeRoot.getStructure();
 								IApiAnnotations elementDescription = apiDescription2.resolveAnnotations(type.getHandle());
@@ -936,10 +951,6 @@ public class ApiComparator {
 								if (filterType(visibilityModifiers, elementDescription, type)) {
 									return;
 								}
-								if (typeRootBaseLineNames.contains(typeName)) {
-									// already processed
-									return;
-								}
 								typeRootBaseLineNames.add(typeName);
 								String deltaComponentID = Util.getDeltaComponentVersionsId(component2);
 								globalDelta.add(new Delta(deltaComponentID, IDelta.API_COMPONENT_ELEMENT_TYPE, IDelta.ADDED, IDelta.TYPE, elementDescription != null ? elementDescription.getRestrictions() : RestrictionModifiers.NO_RESTRICTIONS, RestrictionModifiers.NO_RESTRICTIONS, 0, type.getModifiers(), typeName, typeName, new String[] {
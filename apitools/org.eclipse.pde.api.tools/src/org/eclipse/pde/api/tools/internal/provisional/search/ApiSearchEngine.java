@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,11 +14,19 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.pde.api.tools.internal.AntFilterStore;
@@ -34,12 +42,20 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiScope;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeContainer;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.eclipse.pde.api.tools.internal.search.OrderedSearchReporter;
 import org.eclipse.pde.api.tools.internal.search.SearchMessages;
 
 import com.ibm.icu.text.MessageFormat;
 
 /**
- * Engine used to search for API use
+ * Engine used to search for API use.
+ * <p>
+ * When the {@link #PARALLEL_SEARCH_PROPERTY} system property is set, the
+ * elements of the search scope are searched concurrently. In that mode the
+ * {@link IApiSearchRequestor} is called from several threads at once, each
+ * thread visiting a single component at a time, and the results are passed to
+ * the {@link IApiSearchReporter} in the same order as a serial search.
+ * </p>
  *
  * @since 1.0.0
  */
@@ -50,6 +66,20 @@ public final class ApiSearchEngine {
 	 */
 	public static final IReference[] NO_REFERENCES = new IReference[0];
 
+	/**
+	 * System property used to turn on the concurrent search of the elements
+	 * in the search scope. Value is:
+	 * <code>org.eclipse.pde.api.tools.parallelSearch</code>
+	 */
+	public static final String PARALLEL_SEARCH_PROPERTY = "org.eclipse.pde.api.tools.parallelSearch"; //$NON-NLS-1$
+
+	/**
+	 * System property used to set the number of threads used by the parallel
+	 * search. Defaults to the number of available processors. Value is:
+	 * <code>org.eclipse.pde.api.tools.searchThreads</code>
+	 */
+	public static final String SEARCH_THREADS_PROPERTY = "org.eclipse.pde.api.tools.searchThreads"; //$NON-NLS-1$
+
 	/**
 	 * Visitor used to extract references from the component is is passed to
 	 */
@@ -259,6 +289,10 @@ public final class ApiSearchEngine {
 		IApiElement[] scopeelements = scope.getApiElements();
 		SubMonitor localmonitor = SubMonitor.convert(monitor, MessageFormat.format(SearchMessages.ApiSearchEngine_searching_projects, fRequestorContext), scopeelements.length * 2 + 1);
 		try {
+			if (Boolean.getBoolean(PARALLEL_SEARCH_PROPERTY) && scopeelements.length > 1) {
+				searchInParallel(scopeelements, requestor, reporter, localmonitor);
+				return;
+			}
 			long start = System.currentTimeMillis();
 			long loopstart = 0;
 			String taskname = null;
@@ -299,6 +333,107 @@ public final class ApiSearchEngine {
 		}
 	}
 
+	/**
+	 * Searches the given scope elements concurrently on a fixed size thread
+	 * pool. Results are reported through an {@link OrderedSearchReporter} so
+	 * the given reporter sees them in scope order, and failures are collected
+	 * into a {@link MultiStatus} in scope order as well. As in the serial
+	 * search, an unchecked exception thrown while searching an element is
+	 * rethrown and stops the search.
+	 *
+	 * @param scopeelements the elements to search
+	 * @param requestor the requestor to use for the search
+	 * @param reporter the reporter to use when reporting any search results
+	 * @param localmonitor the monitor to report progress to, with two units of
+	 *            work remaining per element
+	 * @throws CoreException if the search of any element fails
+	 */
+	private void searchInParallel(final IApiElement[] scopeelements, final IApiSearchRequestor requestor, IApiSearchReporter reporter, SubMonitor localmonitor) throws CoreException {
+		long start = System.currentTimeMillis();
+		int threads = Math.max(1, Integer.getInteger(SEARCH_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()).intValue());
+		final OrderedSearchReporter ordered = new OrderedSearchReporter(reporter, scopeelements.length);
+		// SubMonitor is not thread safe, workers only share the cancellation
+		// state
+		final IProgressMonitor workermonitor = new NullProgressMonitor();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, scopeelements.length));
+		List<Future<?>> futures = new ArrayList<>(scopeelements.length);
+		MultiStatus mstatus = null;
+		try {
+			for (int i = 0; i < scopeelements.length; i++) {
+				final int slot = i;
+				futures.add(executor.submit(() -> {
+					try {
+						if (workermonitor.isCanceled()) {
+							ordered.getReporter(slot).reportResults(scopeelements[slot], NO_REFERENCES);
+							return null;
+						}
+						long loopstart = System.currentTimeMillis();
+						if (ApiPlugin.DEBUG_SEARCH_ENGINE) {
+							System.out.println("Searching " + scopeelements[slot].getApiComponent().getSymbolicName() + "..."); //$NON-NLS-1$ //$NON-NLS-2$
+						}
+						searchReferences(requestor, scopeelements[slot], ordered.getReporter(slot), workermonitor);
+						if (ApiPlugin.DEBUG_SEARCH_ENGINE) {
+							System.out.println("Searched " + scopeelements[slot].getApiComponent().getSymbolicName() + " in " + (System.currentTimeMillis() - loopstart) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						}
+						return null;
+					} catch (OperationCanceledException oce) {
+						ordered.getReporter(slot).reportResults(scopeelements[slot], NO_REFERENCES);
+						return null;
+					} finally {
+						ordered.done(slot);
+					}
+				}));
+			}
+			for (int i = 0; i < scopeelements.length; i++) {
+				localmonitor.setTaskName(MessageFormat.format(SearchMessages.ApiSearchEngine_searching_project, scopeelements[i].getApiComponent().getSymbolicName(), fRequestorContext));
+				Future<?> future = futures.get(i);
+				while (true) {
+					try {
+						future.get(100, TimeUnit.MILLISECONDS);
+						break;
+					} catch (TimeoutException te) {
+						if (localmonitor.isCanceled()) {
+							workermonitor.setCanceled(true);
+						}
+					} catch (InterruptedException ie) {
+						workermonitor.setCanceled(true);
+						Thread.currentThread().interrupt();
+						throw new OperationCanceledException();
+					} catch (ExecutionException ee) {
+						Throwable cause = ee.getCause();
+						// fail like the serial search, which does not catch
+						// unchecked exceptions
+						if (cause instanceof RuntimeException) {
+							workermonitor.setCanceled(true);
+							throw (RuntimeException) cause;
+						}
+						if (cause instanceof Error) {
+							workermonitor.setCanceled(true);
+							throw (Error) cause;
+						}
+						if (mstatus == null) {
+							mstatus = new MultiStatus(ApiPlugin.PLUGIN_ID, IStatus.ERROR, null, null);
+						}
+						mstatus.add(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, cause.getMessage(), cause));
+						break;
+					}
+				}
+				localmonitor.worked(2);
+			}
+		} finally {
+			executor.shutdown();
+		}
+		if (ApiPlugin.DEBUG_SEARCH_ENGINE) {
+			System.out.println("Total Search Time: " + ((System.currentTimeMillis() - start) / 1000) + " seconds (" + threads + " threads)"); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$
+		}
+		if (workermonitor.isCanceled()) {
+			return;
+		}
+		if (mstatus != null) {
+			throw new CoreException(mstatus);
+		}
+	}
+
 	/**
 	 * Computes the process context (label)
 	 *
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiElement;
+import org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchReporter;
+import org.eclipse.pde.api.tools.internal.provisional.search.IMetadata;
+
+/**
+ * Serializes the results of a search that is run over several elements
+ * concurrently onto a single delegate {@link IApiSearchReporter}, such as the
+ * {@link XmlSearchReporter}, which is not safe for concurrent use.
+ * <p>
+ * Each searched element is given a slot, in the order the elements would be
+ * searched serially. Results reported for the oldest unfinished slot are passed
+ * straight to the delegate; results for later slots are buffered until every
+ * earlier slot is {@link #done(int) done}. The delegate therefore sees exactly
+ * the same sequence of calls as it would for a serial search, which keeps the
+ * report output deterministic.
+ * </p>
+ *
+ * @since 1.1.100
+ */
+public class OrderedSearchReporter {
+
+	/**
+	 * Reporter handed to the search of a single slot
+	 */
+	class SlotReporter implements IApiSearchReporter {
+
+		final int fSlot;
+
+		SlotReporter(int slot) {
+			fSlot = slot;
+		}
+
+		@Override
+		public void reportResults(IApiElement element, IReference[] references) {
+			report(fSlot, element, references);
+		}
+
+		@Override
+		public void reportNotSearched(IApiElement[] elements) {
+			synchronized (OrderedSearchReporter.this) {
+				fDelegate.reportNotSearched(elements);
+			}
+		}
+
+		@Override
+		public void reportMetadata(IMetadata data) {
+			synchronized (OrderedSearchReporter.this) {
+				fDelegate.reportMetadata(data);
+			}
+		}
+
+		@Override
+		public void reportCounts() {
+			synchronized (OrderedSearchReporter.this) {
+				fDelegate.reportCounts();
+			}
+		}
+	}
+
+	/**
+	 * Buffered call to {@link IApiSearchReporter#reportResults(IApiElement, IReference[])}
+	 */
+	static class Result {
+		final IApiElement fElement;
+		final IReference[] fReferences;
+
+		Result(IApiElement element, IReference[] references) {
+			fElement = element;
+			fReferences = references;
+		}
+	}
+
+	final IApiSearchReporter fDelegate;
+	private final List<List<Result>> fPending;
+	private final boolean[] fDone;
+	private int fHead = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param delegate the reporter to pass the ordered results to
+	 * @param slots the number of elements being searched
+	 */
+	public OrderedSearchReporter(IApiSearchReporter delegate, int slots) {
+		fDelegate = delegate;
+		fDone = new boolean[slots];
+		fPending = new ArrayList<>(slots);
+		for (int i = 0; i < slots; i++) {
+			fPending.add(null);
+		}
+	}
+
+	/**
+	 * Returns the reporter to use for the search of the element in the given
+	 * slot
+	 *
+	 * @param slot the index of the element in the serial search order
+	 * @return the reporter for the slot
+	 */
+	public IApiSearchReporter getReporter(int slot) {
+		return new SlotReporter(slot);
+	}
+
+	/**
+	 * Reports the given results, or buffers them if an earlier slot is still
+	 * being searched
+	 *
+	 * @param slot
+	 * @param element
+	 * @param references
+	 */
+	synchronized void report(int slot, IApiElement element, IReference[] references) {
+		if (slot == fHead) {
+			fDelegate.reportResults(element, references);
+			return;
+		}
+		List<Result> pending = fPending.get(slot);
+		if (pending == null) {
+			pending = new ArrayList<>();
+			fPending.set(slot, pending);
+		}
+		pending.add(new Result(element, references));
+	}
+
+	/**
+	 * Marks the search of the given slot as complete, flushing the buffered
+	 * results of any later slots that can now be reported.
+	 *
+	 * @param slot the slot that has been searched
+	 */
+	public synchronized void done(int slot) {
+		fDone[slot] = true;
+		while (fHead < fDone.length && fDone[fHead]) {
+			fHead++;
+			if (fHead < fDone.length) {
+				flush(fHead);
+			}
+		}
+	}
+
+	/**
+	 * Passes the buffered results of the given slot to the delegate
+	 *
+	 * @param slot
+	 */
+	private void flush(int slot) {
+		List<Result> pending = fPending.get(slot);
+		if (pending != null) {
+			for (Result result : pending) {
+				fDelegate.reportResults(result.fElement, result.fReferences);
+			}
+			fPending.set(slot, null);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -29,6 +29,11 @@ import java.util.Map.Entry;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -37,6 +42,7 @@ import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
@@ -92,6 +98,11 @@ public class UseReportConverter extends HTMLConvertor {
 		Member currentmember = null;
 		HashMap<IReferenceTypeDescriptor, Type> keys = new HashMap<>();
 		ArrayList<Type> referees = new ArrayList<>();
+		/**
+		 * The referencing members of the current component, so that each is
+		 * held once no matter how many references it makes
+		 */
+		HashMap<IMemberDescriptor, IMemberDescriptor> fromMembers = new HashMap<>();
 
 		/**
 		 * Returns if the reference should be reported or not
@@ -165,6 +176,7 @@ public class UseReportConverter extends HTMLConvertor {
 				this.currentreport.children.clear();
 				this.keys.clear();
 				this.referees.clear();
+				this.fromMembers.clear();
 			}
 		}
 
@@ -246,6 +258,10 @@ public class UseReportConverter extends HTMLConvertor {
 			if (!acceptReference(reference.getReferencedMember(), topatterns) || !acceptReference(fromMember, frompatterns)) {
 				return;
 			}
+			IMemberDescriptor known = this.fromMembers.putIfAbsent(fromMember, fromMember);
+			if (known != null) {
+				fromMember = known;
+			}
 			int lineNumber = reference.getLineNumber();
 			int refKind = reference.getReferenceKind();
 			int visibility = reference.getVisibility();
@@ -601,6 +617,15 @@ public class UseReportConverter extends HTMLConvertor {
 		REF_SCRIPT = buffer.toString();
 	}
 
+	/**
+	 * System property setting the number of referenced components converted
+	 * concurrently, <code>1</code> by default and <code>0</code> for one per
+	 * available processor.
+	 *
+	 * @since 1.1.100
+	 */
+	public static final String THREADS_PROPERTY = "org.eclipse.pde.api.tools.useReportThreads"; //$NON-NLS-1$
+
 	private String xmlLocation = null;
 	private String htmlLocation = null;
 	private File reportsRoot = null;
@@ -612,6 +637,12 @@ public class UseReportConverter extends HTMLConvertor {
 	private int filteredCount = -1;
 	Pattern[] topatterns = null;
 	Pattern[] frompatterns = null;
+	private int threads = Util.getThreadCount(System.getProperty(THREADS_PROPERTY));
+	/**
+	 * Compiled style sheets keyed by XSLT file path, the empty string standing
+	 * for the default XSLT
+	 */
+	private final Map<String, Templates> templates = new HashMap<>();
 
 	/**
 	 * Constructor
@@ -680,6 +711,69 @@ public class UseReportConverter extends HTMLConvertor {
 		return this.hasmissing;
 	}
 
+	/**
+	 * Sets the number of referenced components converted concurrently.
+	 * <code>0</code> uses one thread per available processor.
+	 *
+	 * @param threads
+	 * @since 1.1.100
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads == 0 ? Runtime.getRuntime().availableProcessors() : Math.max(1, threads);
+	}
+
+	/**
+	 * @return the number of referenced components converted concurrently
+	 * @since 1.1.100
+	 */
+	protected int getThreads() {
+		return this.threads;
+	}
+
+	/**
+	 * Runs the given tasks on {@link #getThreads()} threads and returns their
+	 * results in task order. Tasks run in the calling thread when only one
+	 * thread is used.
+	 *
+	 * @param tasks
+	 * @return the results of the tasks
+	 * @throws Exception the first failure of a task, in task order
+	 */
+	<T> List<T> runAll(List<Callable<T>> tasks) throws Exception {
+		List<T> results = new ArrayList<>(tasks.size());
+		int count = Math.min(this.threads, tasks.size());
+		if (count <= 1) {
+			for (Callable<T> task : tasks) {
+				results.add(task.call());
+			}
+			return results;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(count);
+		try {
+			List<Future<T>> futures = new ArrayList<>(tasks.size());
+			for (Callable<T> task : tasks) {
+				futures.add(executor.submit(task));
+			}
+			for (Future<T> future : futures) {
+				try {
+					results.add(future.get());
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof Exception) {
+						throw (Exception) cause;
+					}
+					if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw e;
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return results;
+	}
+
 	/**
 	 * Runs the converter on the given locations
 	 */
@@ -757,9 +851,30 @@ public class UseReportConverter extends HTMLConvertor {
 
 	protected List<?> parse(IProgressMonitor monitor) throws Exception {
 		UseScanParser lparser = new UseScanParser();
-		Visitor convertor = new Visitor();
-		lparser.parse(getXmlLocation(), monitor, convertor);
-		return convertor.reports;
+		if (this.threads <= 1) {
+			Visitor convertor = new Visitor();
+			lparser.parse(getXmlLocation(), monitor, convertor);
+			return convertor.reports;
+		}
+		// each referenced component is parsed and written on its own, so only
+		// the components in progress are held in memory
+		SubMonitor localmonitor = SubMonitor.convert(monitor, SearchMessages.UseScanParser_parsing, 2);
+		File[] referees = lparser.getComponentDirectories(getXmlLocation());
+		localmonitor.split(1);
+		List<Callable<List<Report>>> tasks = new ArrayList<>(referees.length);
+		for (File referee : referees) {
+			tasks.add(() -> {
+				Visitor convertor = new Visitor();
+				new UseScanParser().parse(new File[] { referee }, null, convertor);
+				return convertor.reports;
+			});
+		}
+		List<Report> reports = new ArrayList<>();
+		for (List<Report> result : runAll(tasks)) {
+			reports.addAll(result);
+		}
+		localmonitor.split(1);
+		return reports;
 	}
 
 	/**
@@ -825,19 +940,65 @@ public class UseReportConverter extends HTMLConvertor {
 	 * @throws TransformerException
 	 */
 	protected void applyXSLT(File xsltFile, File xmlfile, File htmloutput) throws TransformerException, Exception {
-		Source xslt = null;
-		if (xsltFile != null) {
-			xslt = new StreamSource(xsltFile);
-		} else {
-			InputStream defaultXsltInputStream = UseReportConverter.class.getResourceAsStream(DEFAULT_XSLT);
-			if (defaultXsltInputStream != null) {
-				xslt = new StreamSource(new BufferedInputStream(defaultXsltInputStream));
+		applyXSLT(getTemplates(xsltFile), xmlfile, htmloutput);
+	}
+
+	/**
+	 * Returns the compiled form of the given XSLT, compiling it on first use
+	 *
+	 * @param xsltFile the XSLT file or <code>null</code> for the default XSLT
+	 * @return the compiled XSLT
+	 * @throws Exception if there is no XSLT
+	 * @throws TransformerException if the XSLT cannot be compiled
+	 * @since 1.1.100
+	 */
+	protected Templates getTemplates(File xsltFile) throws TransformerException, Exception {
+		String key = xsltFile == null ? "" : xsltFile.getAbsolutePath(); //$NON-NLS-1$
+		synchronized (this.templates) {
+			Templates compiled = this.templates.get(key);
+			if (compiled != null) {
+				return compiled;
+			}
+			InputStream defaultXsltInputStream = null;
+			try {
+				Source xslt = null;
+				if (xsltFile != null) {
+					xslt = new StreamSource(xsltFile);
+				} else {
+					defaultXsltInputStream = UseReportConverter.class.getResourceAsStream(DEFAULT_XSLT);
+					if (defaultXsltInputStream != null) {
+						xslt = new StreamSource(new BufferedInputStream(defaultXsltInputStream));
+					}
+				}
+				if (xslt == null) {
+					throw new Exception(SearchMessages.UseReportConverter_no_xstl_specified);
+				}
+				compiled = TransformerFactory.newInstance().newTemplates(xslt);
+			} finally {
+				if (defaultXsltInputStream != null) {
+					defaultXsltInputStream.close();
+				}
 			}
+			this.templates.put(key, compiled);
+			return compiled;
 		}
-		if (xslt == null) {
-			throw new Exception(SearchMessages.UseReportConverter_no_xstl_specified);
-		}
-		applyXSLT(xslt, xmlfile, htmloutput);
+	}
+
+	/**
+	 * Applies the given compiled XSLT to the given XML file outputting to the
+	 * given HTML file. Compiled XSLTs can be applied concurrently.
+	 *
+	 * @param xslt
+	 * @param xmlfile
+	 * @param htmlfile
+	 * @throws TransformerException
+	 * @since 1.1.100
+	 */
+	protected void applyXSLT(Templates xslt, File xmlfile, File htmlfile) throws TransformerException {
+		Source xml = new StreamSource(xmlfile);
+		Result html = new StreamResult(htmlfile);
+		Transformer former = xslt.newTransformer();
+		former.transform(xml, html);
 	}
 
 	/**
@@ -866,19 +1027,27 @@ public class UseReportConverter extends HTMLConvertor {
 	 * @param html
 	 */
 	protected void tranformXml(File[] xmlfiles, File xsltFile) {
-		File html = null;
+		List<Callable<Object>> tasks = new ArrayList<>(xmlfiles.length);
 		for (File xmlfile : xmlfiles) {
-			try {
-				File htmlroot = new File(getHtmlLocation(), getHTMLFileLocation(xmlfile));
-				if (!htmlroot.exists()) {
-					htmlroot.mkdirs();
+			tasks.add(() -> {
+				try {
+					File htmlroot = new File(getHtmlLocation(), getHTMLFileLocation(xmlfile));
+					if (!htmlroot.exists()) {
+						htmlroot.mkdirs();
+					}
+					File html = new File(getNameFromXMLFilename(xmlfile));
+					applyXSLT(xsltFile, xmlfile, html);
+				} catch (TransformerException te) {
+				} catch (Exception e) {
+					ApiPlugin.log(e);
 				}
-				html = new File(getNameFromXMLFilename(xmlfile));
-				applyXSLT(xsltFile, xmlfile, html);
-			} catch (TransformerException te) {
-			} catch (Exception e) {
-				ApiPlugin.log(e);
-			}
+				return null;
+			});
+		}
+		try {
+			runAll(tasks);
+		} catch (Exception e) {
+			ApiPlugin.log(e);
 		}
 	}
 
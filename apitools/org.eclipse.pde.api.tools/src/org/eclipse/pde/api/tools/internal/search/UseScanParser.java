@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -227,21 +227,51 @@ public class UseScanParser {
 	 * @param baseline API baseline to resolve references in
 	 */
 	public void parse(String xmlLocation, IProgressMonitor monitor, UseScanVisitor usv) throws Exception {
+		SubMonitor localmonitor = SubMonitor.convert(monitor, SearchMessages.UseScanParser_parsing, 8);
+		localmonitor.subTask(SearchMessages.UseReportConverter_collecting_dir_info);
+		File[] referees = getComponentDirectories(xmlLocation);
+		localmonitor.split(1);
+		parse(referees, localmonitor.split(7), usv);
+	}
+
+	/**
+	 * Returns the directories of the referenced components of the API use scan
+	 * rooted at the specified location in the file system. Each directory can
+	 * be parsed on its own with {@link #parse(File[], IProgressMonitor, UseScanVisitor)}.
+	 *
+	 * @param xmlLocation root of API use scan (XML directory)
+	 * @return the component directories, never <code>null</code>
+	 * @throws Exception if the location is not a directory
+	 * @since 1.1.100
+	 */
+	public File[] getComponentDirectories(String xmlLocation) throws Exception {
 		if (xmlLocation == null) {
 			throw new Exception(SearchMessages.missing_xml_files_location);
 		}
-		visitor = usv;
 		File reportsRoot = new File(xmlLocation);
 		if (!reportsRoot.exists() || !reportsRoot.isDirectory()) {
 			throw new Exception(NLS.bind(SearchMessages.invalid_directory_name, xmlLocation));
 		}
-		SubMonitor localmonitor = SubMonitor.convert(monitor, SearchMessages.UseScanParser_parsing, 8);
-		localmonitor.subTask(SearchMessages.UseReportConverter_collecting_dir_info);
 		File[] referees = getDirectories(reportsRoot);
-		localmonitor.split(1);
+		return referees == null ? new File[0] : referees;
+	}
+
+	/**
+	 * Visits the given referenced component directories of an API use scan.
+	 * Separate parsers can visit separate directories concurrently.
+	 *
+	 * @param referees directories returned by
+	 *            {@link #getComponentDirectories(String)}
+	 * @param monitor progress monitor
+	 * @param usv the visitor
+	 * @throws Exception if a parser cannot be created
+	 * @since 1.1.100
+	 */
+	public void parse(File[] referees, IProgressMonitor monitor, UseScanVisitor usv) throws Exception {
+		visitor = usv;
+		SubMonitor localmonitor = SubMonitor.convert(monitor, SearchMessages.UseScanParser_parsing, referees.length);
 		File[] origins = null;
 		File[] xmlfiles = null;
-		localmonitor.setWorkRemaining(referees.length);
 		visitor.visitScan();
 		try {
 			SAXParser parser = getParser();
@@ -2667,6 +2667,31 @@ public final class Util {
 		return buffer.toString();
 	}
 
+	/**
+	 * Returns the number of threads described by the given value of a
+	 * <code>threads</code> task attribute or system property.
+	 * <code>0</code> means one thread per available processor. A missing or
+	 * invalid value means a single thread.
+	 *
+	 * @param value the number of threads or <code>null</code>
+	 * @return the number of threads, at least <code>1</code>
+	 * @since 1.1.100
+	 */
+	public static int getThreadCount(String value) {
+		if (value == null) {
+			return 1;
+		}
+		try {
+			int threads = Integer.parseInt(value.trim());
+			if (threads == 0) {
+				return Runtime.getRuntime().availableProcessors();
+			}
+			return Math.max(1, threads);
+		} catch (NumberFormatException e) {
+			return 1;
+		}
+	}
+
 	public static String getSinceVersionTagPrefererenceKey(int id) {
 		int problemCategory = ApiProblemFactory.getProblemCategory(id);
 		int problemKind = ApiProblemFactory.getProblemKind(id);
@@ -26,6 +26,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.tools.ant.BuildException;
 import org.eclipse.core.runtime.CoreException;
@@ -166,6 +170,18 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 	 */
 	private boolean processUnresolvedBundles = true;
 
+	/**
+	 * System property that can be used to set the default number of
+	 * components analyzed concurrently, see {@link #setThreads(String)}
+	 */
+	public static final String ANALYSIS_THREADS_PROPERTY = "org.eclipse.pde.api.tools.analysisThreads"; //$NON-NLS-1$
+
+	/**
+	 * The number of components analyzed concurrently, <code>1</code> by
+	 * default
+	 */
+	private int threads = Util.getThreadCount(System.getProperty(ANALYSIS_THREADS_PROPERTY));
+
 	private Summary[] createAllSummaries(Map<String, IApiProblem[]> allProblems) {
 		Set<Map.Entry<String, IApiProblem[]>> entrySet = allProblems.entrySet();
 		int size = entrySet.size();
@@ -390,6 +406,7 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 			IApiComponent[] apiComponents = currentBaseline.getApiComponents();
 			int length = apiComponents.length;
 			Set<String> visitedApiComponentNames = new HashSet<>();
+			List<IApiComponent> componentsToAnalyze = new ArrayList<>(length);
 			for (int i = 0; i < length; i++) {
 				IApiComponent apiComponent = apiComponents[i];
 				String name = apiComponent.getSymbolicName();
@@ -426,25 +443,9 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 				}
 
 				allApiBundles.add(name);
-				BaseApiAnalyzer analyzer = new BaseApiAnalyzer();
-				try {
-					analyzer.setContinueOnResolverError(true);
-					analyzer.analyzeComponent(null, getFilterStore(name), this.properties, referenceBaseline, apiComponent, new BuildContext(), new NullProgressMonitor());
-					IApiProblem[] problems = analyzer.getProblems();
-					// remove duplicates
-					problems = removeDuplicates(problems);
-					if (problems.length != 0) {
-						allProblems.put(name, problems);
-					} else if (this.debug) {
-						System.out.println(name + " has no problems"); //$NON-NLS-1$
-					}
-				} catch (RuntimeException e) {
-					ApiPlugin.log(e);
-					throw e;
-				} finally {
-					analyzer.dispose();
-				}
+				componentsToAnalyze.add(apiComponent);
 			}
+			analyzeComponents(componentsToAnalyze, referenceBaseline, allProblems);
 			if (debug) {
 				System.out.println("=========================="); //$NON-NLS-1$
 				System.out.println("Total number of components in current baseline :" + length); //$NON-NLS-1$
@@ -520,6 +521,87 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 		}
 	}
 
+	/**
+	 * Analyzes the given components against the reference baseline and adds
+	 * their problems to the given map. Components are analyzed one at a time,
+	 * or concurrently with one {@link BaseApiAnalyzer} each if more than one
+	 * thread is to be used, see {@link #setThreads(String)}. The problems are
+	 * merged in the order of the given components either way.
+	 *
+	 * @param components the components to analyze
+	 * @param referenceBaseline the baseline to compare against
+	 * @param allProblems the map of component id to problems to fill
+	 */
+	private void analyzeComponents(List<IApiComponent> components, IApiBaseline referenceBaseline, Map<String, IApiProblem[]> allProblems) {
+		int count = Math.min(this.threads, components.size());
+		if (count <= 1) {
+			for (IApiComponent component : components) {
+				addProblems(component.getSymbolicName(), analyzeComponent(component, referenceBaseline), allProblems);
+			}
+			return;
+		}
+		if (this.debug) {
+			System.out.println("Analyzing " + components.size() + " components using " + count + " threads"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(count);
+		try {
+			List<Future<IApiProblem[]>> results = new ArrayList<>(components.size());
+			for (IApiComponent component : components) {
+				results.add(executor.submit(() -> analyzeComponent(component, referenceBaseline)));
+			}
+			for (int i = 0; i < components.size(); i++) {
+				try {
+					addProblems(components.get(i).getSymbolicName(), results.get(i).get(), allProblems);
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw new BuildException(cause);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new BuildException(e);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Runs a new {@link BaseApiAnalyzer} on the given component
+	 *
+	 * @param apiComponent the component to analyze
+	 * @param referenceBaseline the baseline to compare against
+	 * @return the problems found, without duplicates
+	 */
+	private IApiProblem[] analyzeComponent(IApiComponent apiComponent, IApiBaseline referenceBaseline) {
+		BaseApiAnalyzer analyzer = new BaseApiAnalyzer();
+		try {
+			analyzer.setContinueOnResolverError(true);
+			analyzer.analyzeComponent(null, getFilterStore(apiComponent.getSymbolicName()), this.properties, referenceBaseline, apiComponent, new BuildContext(), new NullProgressMonitor());
+			IApiProblem[] problems = analyzer.getProblems();
+			// remove duplicates
+			return removeDuplicates(problems);
+		} catch (RuntimeException e) {
+			ApiPlugin.log(e);
+			throw e;
+		} finally {
+			analyzer.dispose();
+		}
+	}
+
+	private void addProblems(String name, IApiProblem[] problems, Map<String, IApiProblem[]> allProblems) {
+		if (problems.length != 0) {
+			allProblems.put(name, problems);
+		} else if (this.debug) {
+			System.out.println(name + " has no problems"); //$NON-NLS-1$
+		}
+	}
+
 	/**
 	 * Returns <code>true</code if the given component should be filtered from
 	 * results of this task. This may be because the name is a match or partial
@@ -921,4 +1003,20 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 		this.processUnresolvedBundles = processUnresolvedBundles;
 	}
 
+	/**
+	 * Set the number of components to analyze concurrently. Each component is
+	 * analyzed by its own analyzer, and the problems of all components are
+	 * merged into the same report as a serial analysis.
+	 * <p>
+	 * The value is a number of threads, or <code>0</code> to use one thread
+	 * per available processor. Default is <code>1</code>, which analyzes one
+	 * component at a time. The default can be changed with the
+	 * <code>org.eclipse.pde.api.tools.analysisThreads</code> system property.
+	 * </p>
+	 *
+	 * @param threads the number of threads to use
+	 */
+	public void setThreads(String threads) {
+		this.threads = Util.getThreadCount(threads);
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2012 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -32,6 +32,7 @@ public final class ApiUseReportConversionTask extends CommonUtilsTask {
 	private String xsltFileLocation = null;
 	private String[] filterPatterns = null;
 	private String[] toPatterns = null;
+	private String threads = null;
 
 	/**
 	 * Set the debug value.
@@ -119,6 +120,21 @@ public final class ApiUseReportConversionTask extends CommonUtilsTask {
 		this.xsltFileLocation = xsltFileLocation;
 	}
 
+	/**
+	 * Set the number of referenced components converted concurrently.
+	 * <p>
+	 * This is optional. The default is taken from the
+	 * <code>org.eclipse.pde.api.tools.useReportThreads</code> system property
+	 * and is <code>1</code> if it is not set. <code>0</code> uses one thread
+	 * per available processor.
+	 * </p>
+	 *
+	 * @param threads the number of threads
+	 */
+	public void setThreads(String threads) {
+		this.threads = threads;
+	}
+
 	@Override
 	public void execute() throws BuildException {
 		if (this.debug) {
@@ -130,9 +146,20 @@ public final class ApiUseReportConversionTask extends CommonUtilsTask {
 				System.out.println("XSLT file location: " + this.xsltFileLocation); //$NON-NLS-1$}
 			}
 		}
+		int threadCount = -1;
+		if (this.threads != null) {
+			try {
+				threadCount = Integer.parseInt(this.threads.trim());
+			} catch (NumberFormatException e) {
+				throw new BuildException(NLS.bind(Messages.ApiUseReportConversionTask_invalid_threads, this.threads));
+			}
+		}
 		try {
 			Util.delete(new File(this.htmlReportsLocation));
 			UseReportConverter converter = new UseReportConverter(this.htmlReportsLocation, this.xmlReportsLocation, this.toPatterns, this.filterPatterns);
+			if (threadCount != -1) {
+				converter.setThreads(threadCount);
+			}
 			ApiPlugin.DEBUG_USE_REPORT_CONVERTER = this.debug;
 			converter.convert(this.xsltFileLocation, null);
 			File index = converter.getReportIndex();
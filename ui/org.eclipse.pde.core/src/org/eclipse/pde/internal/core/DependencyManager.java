@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2005, 2013 IBM Corporation and others.
+ *  Copyright (c) 2005, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -22,12 +22,44 @@ import org.osgi.framework.Constants;
 /**
  * Utility class to return bundle id collections for a variety of dependency
  * scenarios
+ * <p>
+ * The dependencies of a bundle are all the bundles it is wired to, directly or
+ * indirectly. When several versions of a bundle are wired, the dependencies of
+ * each of them are followed, even though the returned set holds the id only
+ * once.
+ * </p>
  *
  * @noextend This class is not intended to be subclassed by clients.
  * @noinstantiate This class is not intended to be instantiated by clients.
  */
 public class DependencyManager {
 
+	/**
+	 * The maximum number of dependency graphs kept for the last state, one per
+	 * set of options
+	 */
+	private static final int MAX_GRAPHS = 4;
+
+	/**
+	 * The maximum number of closures kept per dependency graph
+	 */
+	private static final int MAX_CLOSURES = 256;
+
+	/**
+	 * The closures computed for the last state, keyed by the options used. The
+	 * least recently used graphs are dropped.
+	 */
+	private static State fgState;
+	private static long fgTimeStamp;
+	private static final Map<ClosureKey, Closures> fgClosures = new LinkedHashMap<ClosureKey, Closures>(MAX_GRAPHS, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ClosureKey, Closures> eldest) {
+			return size() > MAX_GRAPHS;
+		}
+	};
+
 	/**
 	 * Returns a {@link Set} of bundle ids for the dependents of the given
 	 * {@link IPluginModelBase}. The set includes the id of the given model base
@@ -126,7 +158,7 @@ public class DependencyManager {
 			if (!(selected[i] instanceof IPluginModelBase))
 				continue;
 			IPluginModelBase model = (IPluginModelBase) selected[i];
-			addBundleAndDependencies(model.getBundleDescription(), set, includeOptional, excludeFragments);
+			addBundleAndDependencies(state, model.getBundleDescription(), set, includeOptional, excludeFragments);
 			IPluginExtension[] extensions = model.getPluginBase().getExtensions();
 			for (IPluginExtension extension : extensions) {
 				String point = extension.getPoint();
@@ -134,14 +166,14 @@ public class DependencyManager {
 					int dot = point.lastIndexOf('.');
 					if (dot != -1) {
 						String id = point.substring(0, dot);
-						addBundleAndDependencies(state.getBundle(id, null), set, includeOptional, excludeFragments);
+						addBundleAndDependencies(state, state.getBundle(id, null), set, includeOptional, excludeFragments);
 					}
 				}
 			}
 		}
 
 		for (String element : implicit) {
-			addBundleAndDependencies(state.getBundle(element, null), set, includeOptional, excludeFragments);
+			addBundleAndDependencies(state, state.getBundle(element, null), set, includeOptional, excludeFragments);
 		}
 
 		if (removeSelf) {
@@ -180,44 +212,232 @@ public class DependencyManager {
 	}
 
 	/**
-	 * Recursively adds the given {@link BundleDescription} and its dependents to the given
-	 * {@link Set}
+	 * Adds the given {@link BundleDescription} and its dependents to the given
+	 * {@link Set}, using the memoized closures of the bundles of the given state
+	 * @param state the {@link State} to compute the dependencies in
 	 * @param desc the {@link BundleDescription} to compute dependencies for
 	 * @param set the {@link Set} to collect results in
 	 * @param includeOptional if optional dependencies should be included
 	 * @param excludeFragments a collection of <b>fragment</b> bundle symbolic names to exclude from the dependency resolution
 	 */
-	private static void addBundleAndDependencies(BundleDescription desc, Set<String> set, boolean includeOptional, Set<String> excludeFragments) {
-		if (desc != null && set.add(desc.getSymbolicName())) {
-			BundleSpecification[] required = desc.getRequiredBundles();
-			for (int i = 0; i < required.length; i++) {
-				if (includeOptional || !required[i].isOptional()) {
-					addBundleAndDependencies((BundleDescription) required[i].getSupplier(), set, includeOptional, excludeFragments);
-				}
+	private static void addBundleAndDependencies(State state, BundleDescription desc, Set<String> set, boolean includeOptional, Set<String> excludeFragments) {
+		if (desc == null) {
+			return;
+		}
+		Closures closures = getClosures(state, includeOptional, excludeFragments);
+		// bundles that are not in the state, like models of another state, are visited directly
+		Deque<BundleDescription> queue = new ArrayDeque<>();
+		Set<BundleDescription> visited = Collections.newSetFromMap(new IdentityHashMap<BundleDescription, Boolean>());
+		queue.add(desc);
+		while (!queue.isEmpty()) {
+			BundleDescription bundle = queue.poll();
+			if (!visited.add(bundle)) {
+				continue;
 			}
-			ImportPackageSpecification[] importedPkgs = desc.getImportPackages();
-			for (ImportPackageSpecification importedPkg : importedPkgs) {
-				ExportPackageDescription exporter = (ExportPackageDescription) importedPkg.getSupplier();
-				// Continue if the Imported Package is unresolved of the package is optional and don't want optional packages
-				if (exporter == null || (!includeOptional && Constants.RESOLUTION_OPTIONAL.equals(importedPkg.getDirective(Constants.RESOLUTION_DIRECTIVE)))) {
-					continue;
-				}
-				addBundleAndDependencies(exporter.getExporter(), set, includeOptional, excludeFragments);
+			int index = closures.indexOf(bundle);
+			if (index != -1) {
+				closures.addClosure(index, set);
+			} else {
+				set.add(bundle.getSymbolicName());
+				queue.addAll(getDirectDependencies(bundle, includeOptional, excludeFragments));
 			}
-			BundleDescription[] fragments = desc.getFragments();
-			for (int i = 0; i < fragments.length; i++) {
-				if (!fragments[i].isResolved()) {
-					continue;
+		}
+	}
+
+	/**
+	 * Returns the bundles the given bundle directly depends on: the suppliers
+	 * of its required bundles and imported packages, its resolved fragments and
+	 * its host
+	 * @param desc the {@link BundleDescription} to compute dependencies for
+	 * @param includeOptional if optional dependencies should be included
+	 * @param excludeFragments a collection of <b>fragment</b> bundle symbolic names to exclude from the dependency resolution
+	 * @return the list of dependencies, possibly containing duplicates
+	 */
+	private static List<BundleDescription> getDirectDependencies(BundleDescription desc, boolean includeOptional, Set<String> excludeFragments) {
+		List<BundleDescription> result = new ArrayList<>();
+		BundleSpecification[] required = desc.getRequiredBundles();
+		for (int i = 0; i < required.length; i++) {
+			if (includeOptional || !required[i].isOptional()) {
+				BundleDescription supplier = (BundleDescription) required[i].getSupplier();
+				if (supplier != null) {
+					result.add(supplier);
 				}
-				String id = fragments[i].getSymbolicName();
-				if (!excludeFragments.contains(id)) {
-					addBundleAndDependencies(fragments[i], set, includeOptional, excludeFragments);
+			}
+		}
+		ImportPackageSpecification[] importedPkgs = desc.getImportPackages();
+		for (ImportPackageSpecification importedPkg : importedPkgs) {
+			ExportPackageDescription exporter = (ExportPackageDescription) importedPkg.getSupplier();
+			// Continue if the Imported Package is unresolved of the package is optional and don't want optional packages
+			if (exporter == null || (!includeOptional && Constants.RESOLUTION_OPTIONAL.equals(importedPkg.getDirective(Constants.RESOLUTION_DIRECTIVE)))) {
+				continue;
+			}
+			if (exporter.getExporter() != null) {
+				result.add(exporter.getExporter());
+			}
+		}
+		BundleDescription[] fragments = desc.getFragments();
+		for (int i = 0; i < fragments.length; i++) {
+			if (!fragments[i].isResolved()) {
+				continue;
+			}
+			String id = fragments[i].getSymbolicName();
+			if (!excludeFragments.contains(id)) {
+				result.add(fragments[i]);
+			}
+		}
+		HostSpecification host = desc.getHost();
+		if (host != null && host.getSupplier() != null) {
+			result.add((BundleDescription) host.getSupplier());
+		}
+		return result;
+	}
+
+	/**
+	 * Forgets the closures computed for the given state, called when the state
+	 * was resolved again
+	 * @param state the state that changed or <code>null</code> to forget the
+	 * closures of any state
+	 */
+	static void invalidate(State state) {
+		synchronized (fgClosures) {
+			if (state == null || fgState == state) {
+				fgState = null;
+				fgClosures.clear();
+			}
+		}
+	}
+
+	private static Closures getClosures(State state, boolean includeOptional, Set<String> excludeFragments) {
+		synchronized (fgClosures) {
+			if (fgState != state || fgTimeStamp != state.getTimeStamp()) {
+				fgState = state;
+				fgTimeStamp = state.getTimeStamp();
+				fgClosures.clear();
+			}
+			ClosureKey key = new ClosureKey(includeOptional, excludeFragments);
+			Closures closures = fgClosures.get(key);
+			if (closures == null) {
+				closures = new Closures(state.getBundles(), includeOptional, key.fExcludeFragments);
+				fgClosures.put(key, closures);
+			}
+			return closures;
+		}
+	}
+
+	/**
+	 * The options a closure was computed with
+	 */
+	private static class ClosureKey {
+		final boolean fIncludeOptional;
+		final Set<String> fExcludeFragments;
+
+		ClosureKey(boolean includeOptional, Set<String> excludeFragments) {
+			fIncludeOptional = includeOptional;
+			fExcludeFragments = new HashSet<>(excludeFragments);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ClosureKey)) {
+				return false;
+			}
+			ClosureKey other = (ClosureKey) obj;
+			return fIncludeOptional == other.fIncludeOptional && fExcludeFragments.equals(other.fExcludeFragments);
+		}
+
+		@Override
+		public int hashCode() {
+			return fExcludeFragments.hashCode() * 31 + (fIncludeOptional ? 1 : 0);
+		}
+	}
+
+	/**
+	 * The dependency graph of the bundles of a state, with the bundles numbered
+	 * by their position in the state. The transitive closure of a bundle is
+	 * computed by an iterative search when it is requested, reusing the
+	 * closures kept for the bundles it reaches. Only the closures of the most
+	 * recently requested bundles are kept.
+	 */
+	private static class Closures {
+		private final BundleDescription[] fBundles;
+		private final Map<BundleDescription, Integer> fIndexes;
+		private final int[][] fDependencies;
+		private final Map<Integer, BitSet> fClosures = new LinkedHashMap<Integer, BitSet>(MAX_CLOSURES, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, BitSet> eldest) {
+				return size() > MAX_CLOSURES;
+			}
+		};
+
+		Closures(BundleDescription[] bundles, boolean includeOptional, Set<String> excludeFragments) {
+			fBundles = bundles;
+			fIndexes = new IdentityHashMap<>(bundles.length);
+			for (int i = 0; i < bundles.length; i++) {
+				fIndexes.put(bundles[i], i);
+			}
+			fDependencies = new int[bundles.length][];
+			for (int i = 0; i < bundles.length; i++) {
+				List<BundleDescription> dependencies = getDirectDependencies(bundles[i], includeOptional, excludeFragments);
+				int[] indexes = new int[dependencies.size()];
+				int count = 0;
+				for (BundleDescription dependency : dependencies) {
+					Integer index = fIndexes.get(dependency);
+					if (index != null) {
+						indexes[count++] = index.intValue();
+					}
 				}
+				fDependencies[i] = count == indexes.length ? indexes : Arrays.copyOf(indexes, count);
 			}
-			HostSpecification host = desc.getHost();
-			if (host != null) {
-				addBundleAndDependencies((BundleDescription) host.getSupplier(), set, includeOptional, excludeFragments);
+		}
+
+		int indexOf(BundleDescription bundle) {
+			Integer index = fIndexes.get(bundle);
+			return index == null ? -1 : index.intValue();
+		}
+
+		/**
+		 * Adds the symbolic names of the bundle at the given index and of all
+		 * bundles it depends on to the given set
+		 */
+		synchronized void addClosure(int index, Set<String> set) {
+			BitSet closure = getClosure(index);
+			for (int i = closure.nextSetBit(0); i >= 0; i = closure.nextSetBit(i + 1)) {
+				set.add(fBundles[i].getSymbolicName());
+			}
+		}
+
+		private BitSet getClosure(int index) {
+			BitSet closure = fClosures.get(index);
+			if (closure != null) {
+				return closure;
+			}
+			closure = new BitSet(fBundles.length);
+			int[] stack = new int[16];
+			int size = 0;
+			closure.set(index);
+			stack[size++] = index;
+			while (size > 0) {
+				int current = stack[--size];
+				for (int dependency : fDependencies[current]) {
+					if (closure.get(dependency)) {
+						continue;
+					}
+					BitSet known = fClosures.get(dependency);
+					if (known != null) {
+						closure.or(known);
+					} else {
+						closure.set(dependency);
+						if (size == stack.length) {
+							stack = Arrays.copyOf(stack, size * 2);
+						}
+						stack[size++] = dependency;
+					}
+				}
 			}
+			fClosures.put(index, closure);
+			return closure;
 		}
 	}
 
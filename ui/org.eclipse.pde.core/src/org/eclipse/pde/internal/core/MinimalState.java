@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -102,10 +102,36 @@ public class MinimalState {
 	}
 
 	public BundleDescription addBundle(File bundleLocation, long bundleId) throws CoreException {
+		return addLoadedBundle(loadManifest(bundleLocation), bundleLocation, bundleId);
+	}
+
+	/**
+	 * Reads the manifest of the bundle at the given location and updates it for
+	 * development mode. Does not access the state, so manifests of different
+	 * bundles can be loaded concurrently.
+	 *
+	 * @param bundleLocation root location of the bundle, archive file or directory
+	 * @return map of bundle manifest properties
+	 * @throws CoreException if the manifest is missing or invalid
+	 */
+	protected static Map<String, String> loadManifest(File bundleLocation) throws CoreException {
 		Map<String, String> manifest = ManifestUtils.loadManifest(bundleLocation);
 		// update for development mode
 		TargetWeaver.weaveManifest(manifest);
+		return manifest;
+	}
 
+	/**
+	 * Adds a bundle to the state from a manifest returned by {@link #loadManifest(File)}.
+	 * Must be called from one thread at a time.
+	 *
+	 * @param manifest the loaded manifest
+	 * @param bundleLocation root location of the bundle
+	 * @param bundleId the id of the bundle to update or <code>-1</code> for a new bundle
+	 * @return the added bundle description or <code>null</code>
+	 * @throws CoreException if the manifest is invalid
+	 */
+	protected BundleDescription addLoadedBundle(Map<String, String> manifest, File bundleLocation, long bundleId) throws CoreException {
 		BundleDescription desc = addBundle(manifest, bundleLocation, bundleId);
 		if (desc != null && manifest != null && "true".equals(manifest.get(ICoreConstants.ECLIPSE_SYSTEM_BUNDLE))) { //$NON-NLS-1$
 			// if this is the system bundle then
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2005, 2012 IBM Corporation and others.
+ *  Copyright (c) 2005, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -17,6 +17,7 @@ import org.eclipse.jdt.core.IClasspathEntry;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.*;
 import org.eclipse.jdt.core.*;
@@ -67,18 +68,49 @@ public class PDEClasspathContainer {
 		return entries.toArray(new IClasspathEntry[entries.size()]);
 	}
 
+	/**
+	 * A library of an external plug-in, with its source attachment and the
+	 * model providing it
+	 */
+	static class ExternalLibrary {
+		final IPath path;
+		final IPath sourcePath;
+		final IPluginModelBase model;
+
+		ExternalLibrary(IPath path, IPath sourcePath, IPluginModelBase model) {
+			this.path = path;
+			this.sourcePath = sourcePath;
+			this.model = model;
+		}
+	}
+
 	protected static void addExternalPlugin(IPluginModelBase model, Rule[] rules, ArrayList<IClasspathEntry> entries) {
+		addExternalLibraries(getExternalLibraries(model), rules, entries);
+	}
+
+	static void addExternalLibraries(List<ExternalLibrary> libraries, Rule[] rules, ArrayList<IClasspathEntry> entries) {
+		for (ExternalLibrary library : libraries) {
+			addLibraryEntry(library.path, library.sourcePath, rules, getClasspathAttributes(library.model), entries);
+		}
+	}
+
+	/**
+	 * Returns the libraries of the given external plug-in, extracting the
+	 * libraries nested in a jarred plug-in
+	 */
+	static List<ExternalLibrary> getExternalLibraries(IPluginModelBase model) {
+		List<ExternalLibrary> result = new ArrayList<>();
 		if (new File(model.getInstallLocation()).isFile()) {
 			IPath srcPath = ClasspathUtilCore.getSourceAnnotation(model, "."); //$NON-NLS-1$
 			if (srcPath == null)
 				srcPath = new Path(model.getInstallLocation());
-			addLibraryEntry(new Path(model.getInstallLocation()), srcPath, rules, getClasspathAttributes(model), entries);
+			result.add(new ExternalLibrary(new Path(model.getInstallLocation()), srcPath, model));
 
 			// If the jarred plugin contains any jarred libraries they must be extracted as the compiler can't handle nested jar files
 			File[] extractedLibraries = PDECore.getDefault().getModelManager().getExternalModelManager().getExtractedLibraries(model);
 			for (File libraryFile : extractedLibraries) {
 				Path path = new Path(libraryFile.getAbsolutePath());
-				addLibraryEntry(path, path, rules, getClasspathAttributes(model), entries);
+				result.add(new ExternalLibrary(path, path, model));
 			}
 		} else {
 			IPluginLibrary[] libraries = model.getPluginBase().getLibraries();
@@ -87,7 +119,7 @@ public class PDEClasspathContainer {
 				IPath srcPath = ClasspathUtilCore.getSourceAnnotation(model, "."); //$NON-NLS-1$
 				if (srcPath == null)
 					srcPath = new Path(model.getInstallLocation());
-				addLibraryEntry(new Path(model.getInstallLocation()), srcPath, rules, getClasspathAttributes(model), entries);
+				result.add(new ExternalLibrary(new Path(model.getInstallLocation()), srcPath, model));
 			} else {
 				for (IPluginLibrary library : libraries) {
 					if (IPluginLibrary.RESOURCE.equals(library.getType()))
@@ -102,10 +134,11 @@ public class PDEClasspathContainer {
 							path = ClasspathUtilCore.getPath(model, expandedName);
 					}
 					if (path != null)
-						addLibraryEntry(path, ClasspathUtilCore.getSourceAnnotation(model, expandedName), rules, getClasspathAttributes(model), entries);
+						result.add(new ExternalLibrary(path, ClasspathUtilCore.getSourceAnnotation(model, expandedName), model));
 				}
 			}
 		}
+		return result;
 	}
 
 	protected static void addLibraryEntry(IPath path, IPath srcPath, Rule[] rules, IClasspathAttribute[] attributes, ArrayList<IClasspathEntry> entries) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@ package org.eclipse.pde.internal.core;
 import java.io.File;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.core.filesystem.URIUtil;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -29,6 +30,142 @@ public class PDEState extends MinimalState {
 
 	private PDEAuxiliaryState fAuxiliaryState;
 	private ArrayList<IPluginModelBase> fTargetModels = new ArrayList<>();
+	private SelectionPolicy fSelectionPolicy;
+
+	/**
+	 * Pool reading the manifests of target bundles, shared by all states, see
+	 * {@link #getManifestPool()}
+	 */
+	private static ExecutorService fgManifestPool;
+
+	/**
+	 * Orders the suppliers offered to the resolver, preferring higher versions,
+	 * ".qualifier" versions and, among identical bundles, bundles located in
+	 * the workspace. Which locations are in the workspace is computed by
+	 * {@link #reset(State)} before each resolve, so that comparing does no I/O.
+	 */
+	private static class SelectionPolicy implements Comparator<BaseDescription> {
+
+		/**
+		 * Bundle location to whether it is in the workspace, only containing
+		 * the locations of bundles that have an identical duplicate
+		 */
+		private volatile Map<String, Boolean> fWorkspaceLocations = new ConcurrentHashMap<>();
+
+		/**
+		 * Recomputes which locations of duplicated bundles are in the
+		 * workspace.
+		 *
+		 * @param state the state about to be resolved
+		 */
+		void reset(State state) {
+			Map<String, Boolean> workspaceLocations = new ConcurrentHashMap<>();
+			IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+			if (root != null) {
+				Map<String, BundleDescription> seen = new HashMap<>();
+				for (BundleDescription bundle : state.getBundles()) {
+					if (bundle.getName() == null || bundle.getLocation() == null) {
+						continue;
+					}
+					BundleDescription duplicate = seen.putIfAbsent(bundle.getName() + '_' + bundle.getVersion(), bundle);
+					if (duplicate != null) {
+						index(root, duplicate.getLocation(), workspaceLocations);
+						index(root, bundle.getLocation(), workspaceLocations);
+					}
+				}
+			}
+			fWorkspaceLocations = workspaceLocations;
+		}
+
+		private static void index(IWorkspaceRoot root, String location, Map<String, Boolean> workspaceLocations) {
+			if (!workspaceLocations.containsKey(location)) {
+				workspaceLocations.put(location, Boolean.valueOf(isInWorkspace(root, location)));
+			}
+		}
+
+		private static boolean isInWorkspace(IWorkspaceRoot root, String location) {
+			return root.findContainersForLocationURI(URIUtil.toURI(new Path(location))).length != 0;
+		}
+
+		/**
+		 * @param location a bundle location
+		 * @return whether the location is in the workspace, looked up when the
+		 *         bundle was added after the last {@link #reset(State)}
+		 */
+		private boolean isInWorkspace(String location) {
+			Boolean inWorkspace = fWorkspaceLocations.get(location);
+			if (inWorkspace == null) {
+				IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+				if (root == null) {
+					return false;
+				}
+				inWorkspace = Boolean.valueOf(isInWorkspace(root, location));
+				fWorkspaceLocations.put(location, inWorkspace);
+			}
+			return inWorkspace.booleanValue();
+		}
+
+		@Override
+		public int compare(BaseDescription bd1, BaseDescription bd2) {
+			Version v1 = bd1.getVersion();
+			Version v2 = bd2.getVersion();
+			int versionCompare = versionCompare(v1, v2);
+			if (versionCompare != 0)
+				return versionCompare;
+			BundleDescription s1 = bd1.getSupplier();
+			BundleDescription s2 = bd2.getSupplier();
+			String n1 = s1.getName();
+			String n2 = s2.getName();
+			if (n1 != null && n1.equals(n2)) {
+				int retValue = versionCompare(s1.getVersion(), s2.getVersion());
+				if (retValue == 0) {
+					boolean isQualifier = "qualifier".equals(v1.getQualifier()); //$NON-NLS-1$
+					if (!isQualifier) {
+						String loc1 = s1.getLocation();
+						String loc2 = s2.getLocation();
+						if (loc1 != null && loc2 != null && !loc1.equals(loc2)) {
+							boolean w1 = isInWorkspace(loc1);
+							boolean w2 = isInWorkspace(loc2);
+							if (w1 != w2)
+								return w1 ? -1 : 1;
+						}
+					}
+				}
+				if (retValue != 0)
+					return retValue;
+			}
+			long id1 = s1.getBundleId();
+			long id2 = s2.getBundleId();
+			return (id1 < id2) ? -1 : ((id1 == id2) ? 0 : 1);
+		}
+
+		/**
+		 * Compares the given versions and prefers ".qualifier" versions over versions
+		 * with any concrete qualifier.
+		 *
+		 * @param v1 first version
+		 * @param v2 second version
+		 * @return a negative number, zero, or a positive number depending on
+		 * if the first version is more desired, equal amount of desire, or less desired
+		 * than the second version respectively
+		 */
+		private static int versionCompare(Version v1, Version v2) {
+			if (v1.getMajor() == v2.getMajor() && v1.getMinor() == v2.getMinor() && v1.getMicro() == v2.getMicro()) {
+				if (v1.getQualifier().equals(v2.getQualifier())) {
+					return 0;
+				}
+				boolean q1 = "qualifier".equals(v1.getQualifier()); //$NON-NLS-1$
+				boolean q2 = "qualifier".equals(v2.getQualifier()); //$NON-NLS-1$
+				if (q1 && !q2) {
+					return -1;
+				} else if (q2 && !q1) {
+					return 1;
+				}
+			}
+			int versionCompare = -(v1.compareTo(v2));
+			return versionCompare;
+		}
+	}
 
 	/**
 	 * Creates a new PDE State containing bundles from the given URLs.
@@ -60,84 +197,134 @@ public class PDEState extends MinimalState {
 	private void createNewTargetState(boolean resolve, URL[] urls, IProgressMonitor monitor) {
 		fState = stateObjectFactory.createState(resolve);
 		if (resolve) {
-			fState.getResolver().setSelectionPolicy(new Comparator<BaseDescription>() {
-				@Override
-				public int compare(BaseDescription bd1, BaseDescription bd2) {
-					Version v1 = bd1.getVersion();
-					Version v2 = bd2.getVersion();
-					int versionCompare = versionCompare(v1, v2);
-					if (versionCompare != 0)
-						return versionCompare;
-					BundleDescription s1 = bd1.getSupplier();
-					BundleDescription s2 = bd2.getSupplier();
-					String n1 = s1.getName();
-					String n2 = s2.getName();
-					if (n1 != null && n1.equals(n2)) {
-						int retValue = versionCompare(s1.getVersion(), s2.getVersion());
-						if(retValue == 0){
-							boolean isQualifier = "qualifier".equals(v1.getQualifier()); //$NON-NLS-1$
-							if (!isQualifier) {
-								String loc1 = s1.getLocation();
-								String loc2 = s2.getLocation();
-								if (loc1 != null && loc2 != null  && !loc1.equals(loc2)) {
-									IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-									if (root != null) {
-										IPath p1 = new Path(loc1);
-										if (root.findContainersForLocationURI(URIUtil.toURI(p1)).length != 0)
-											return -1;
-										IPath p2 = new Path(loc2);
-										if (root.findContainersForLocationURI(URIUtil.toURI(p2)).length != 0)
-											return 1;
-									}
-								}
-							}
-						}
-						return retValue;
-					}
-					long id1 = s1.getBundleId();
-					long id2 = s2.getBundleId();
-					return (id1 < id2) ? -1 : ((id1 == id2) ? 0 : 1);
+			fSelectionPolicy = new SelectionPolicy();
+			fState.getResolver().setSelectionPolicy(fSelectionPolicy);
+		}
+		SubMonitor subMonitor = SubMonitor.convert(monitor, PDECoreMessages.PDEState_CreatingTargetModelState,
+				urls.length);
+		int threads = Math.min(urls.length, Runtime.getRuntime().availableProcessors());
+		if (threads <= 1) {
+			for (URL url : urls) {
+				File file = new File(url.getFile());
+				try {
+					subMonitor.subTask(file.getName());
+					addBundle(file, -1);
+				} catch (CoreException e) {
+					PDECore.log(e);
 				}
-
-				/**
-				 * Compares the given versions and prefers ".qualifier" versions over versions
-				 * with any concrete qualifier.
-				 *
-				 * @param v1 first version
-				 * @param v2 second version
-				 * @return a negative number, zero, or a positive number depending on
-				 * if the first version is more desired, equal amount of desire, or less desired
-				 * than the second version respectively
-				 */
-				private int versionCompare(Version v1, Version v2) {
-					if (v1.getMajor() == v2.getMajor() && v1.getMinor() == v2.getMinor() && v1.getMicro() == v2.getMicro()) {
-						if (v1.getQualifier().equals(v2.getQualifier())) {
-							return 0;
-						}
-						boolean q1 = "qualifier".equals(v1.getQualifier()); //$NON-NLS-1$
-						boolean q2 = "qualifier".equals(v2.getQualifier()); //$NON-NLS-1$
-						if (q1 && !q2) {
-							return -1;
-						} else if (q2 && !q1) {
-							return 1;
-						}
+				subMonitor.split(1);
+			}
+			return;
+		}
+		// Manifests are read and parsed concurrently, but bundles are added to
+		// the state in URL order from this thread so that bundle ids do not
+		// depend on scheduling
+		ExecutorService executor = getManifestPool();
+		List<Future<Map<String, String>>> manifests = new ArrayList<>(urls.length);
+		try {
+			for (URL url : urls) {
+				File file = new File(url.getFile());
+				manifests.add(executor.submit(() -> {
+					if (subMonitor.isCanceled()) {
+						throw new OperationCanceledException();
 					}
-					int versionCompare = -(v1.compareTo(v2));
-					return versionCompare;
+					return loadManifest(file);
+				}));
+			}
+			for (int i = 0; i < urls.length; i++) {
+				File file = new File(urls[i].getFile());
+				subMonitor.subTask(file.getName());
+				try {
+					Future<Map<String, String>> manifest = manifests.set(i, null);
+					addLoadedBundle(getManifest(manifest), file, -1);
+				} catch (CoreException e) {
+					PDECore.log(e);
 				}
+				subMonitor.split(1);
+			}
+		} finally {
+			// the pool is shared, only drop the manifests that are not needed anymore
+			for (Future<Map<String, String>> manifest : manifests) {
+				if (manifest != null) {
+					manifest.cancel(false);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the pool reading manifests for {@link #createNewTargetState}, creating
+	 * it if needed. The pool has one daemon thread per available processor, which
+	 * ends once it has been idle for a while.
+	 *
+	 * @return the pool
+	 */
+	private static synchronized ExecutorService getManifestPool() {
+		if (fgManifestPool == null) {
+			int threads = Runtime.getRuntime().availableProcessors();
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+				Thread thread = new Thread(runnable, "PDE State Manifest Reader"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
 			});
+			pool.allowCoreThreadTimeOut(true);
+			fgManifestPool = pool;
 		}
-		SubMonitor subMonitor = SubMonitor.convert(monitor, PDECoreMessages.PDEState_CreatingTargetModelState,
-				urls.length);
-		for (URL url : urls) {
-			File file = new File(url.getFile());
-			try {
-				subMonitor.subTask(file.getName());
-				addBundle(file, -1);
-			} catch (CoreException e) {
-				PDECore.log(e);
+		return fgManifestPool;
+	}
+
+	/**
+	 * Waits for a manifest loaded by {@link #loadManifest(File)} in a worker
+	 * thread.
+	 *
+	 * @param manifest the pending manifest
+	 * @return the manifest
+	 * @throws CoreException the failure to load the manifest
+	 */
+	private static Map<String, String> getManifest(Future<Map<String, String>> manifest) throws CoreException {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return manifest.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof CoreException) {
+				throw (CoreException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new CoreException(new Status(IStatus.ERROR, PDECore.PLUGIN_ID, cause.getMessage(), cause));
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
 			}
-			subMonitor.split(1);
+		}
+	}
+
+	@Override
+	public StateDelta resolveState(boolean incremental) {
+		resetSelectionPolicy();
+		return super.resolveState(incremental);
+	}
+
+	@Override
+	public StateDelta resolveState(String[] symbolicNames) {
+		resetSelectionPolicy();
+		return super.resolveState(symbolicNames);
+	}
+
+	private void resetSelectionPolicy() {
+		if (fSelectionPolicy != null) {
+			fSelectionPolicy.reset(fState);
 		}
 	}
 
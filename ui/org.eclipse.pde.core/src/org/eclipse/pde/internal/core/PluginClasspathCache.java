@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core;
+
+import java.util.*;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.osgi.service.resolver.*;
+import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.internal.core.PDEClasspathContainer.ExternalLibrary;
+import org.eclipse.pde.internal.core.PDEClasspathContainer.Rule;
+
+/**
+ * Shares the parts of the required plug-ins classpath computation that only
+ * depend on the wiring of the bundles: the access rules of the packages visible
+ * to a bundle, the access rule paths of the packages exported by a bundle and
+ * the libraries of external plug-ins. When the target changes, every project's
+ * container is computed again and most projects have the same dependencies.
+ * <p>
+ * The cache belongs to a {@link State}. When the {@link PluginModelManager}
+ * resolves the state again, only the entries of the changed bundles and of the
+ * bundles depending on them are forgotten. A new cache is created for a new
+ * state, or when the time stamp of the state changes without a delta.
+ * </p>
+ */
+public class PluginClasspathCache {
+
+	private static PluginClasspathCache fgCache;
+
+	private final State fState;
+	private long fTimeStamp;
+
+	/**
+	 * Access rules of the packages visible to a bundle, by requiring bundle and
+	 * then by exporting bundle
+	 */
+	private final Map<BundleDescription, Map<BundleDescription, Rule[]>> fVisibleRules = new IdentityHashMap<>();
+
+	/**
+	 * Access rule path by package name
+	 */
+	private final Map<String, IPath> fPackagePaths = new HashMap<>();
+
+	/**
+	 * Access rule paths of the exported packages by exporting bundle, in the
+	 * order of {@link BundleDescription#getExportPackages()}
+	 */
+	private final Map<BundleDescription, IPath[]> fExportedPaths = new IdentityHashMap<>();
+
+	/**
+	 * Libraries by external plug-in model
+	 */
+	private final Map<IPluginModelBase, List<ExternalLibrary>> fExternalLibraries = new IdentityHashMap<>();
+
+	private PluginClasspathCache(State state) {
+		fState = state;
+		fTimeStamp = state == null ? 0 : state.getTimeStamp();
+	}
+
+	/**
+	 * Returns the cache for the current version of the given state.
+	 *
+	 * @param state the state containing the bundles of the computed classpath or
+	 *            <code>null</code> for a cache that is not shared
+	 * @return the cache
+	 */
+	public static synchronized PluginClasspathCache getCache(State state) {
+		if (state == null) {
+			return new PluginClasspathCache(null);
+		}
+		if (fgCache == null || fgCache.fState != state || fgCache.fTimeStamp != state.getTimeStamp()) {
+			fgCache = new PluginClasspathCache(state);
+		}
+		return fgCache;
+	}
+
+	/**
+	 * Forgets the entries of the bundles changed in the given state, called
+	 * when the state was resolved again
+	 *
+	 * @param state the state that changed or <code>null</code> to forget the
+	 *            cache of any state
+	 * @param delta the changes of the state or <code>null</code> to forget the
+	 *            whole cache of the state
+	 */
+	public static synchronized void invalidate(State state, StateDelta delta) {
+		if (fgCache == null || (state != null && fgCache.fState != state)) {
+			return;
+		}
+		if (state == null || delta == null) {
+			fgCache = null;
+			return;
+		}
+		fgCache.forget(delta);
+		fgCache.fTimeStamp = state.getTimeStamp();
+	}
+
+	/**
+	 * Forgets the entries of the bundles of the given delta, of the bundles
+	 * depending on them and of the bundles that are no longer in the state
+	 *
+	 * @param delta the changes of the state
+	 */
+	private synchronized void forget(StateDelta delta) {
+		Set<BundleDescription> changed = Collections.newSetFromMap(new IdentityHashMap<BundleDescription, Boolean>());
+		Deque<BundleDescription> queue = new ArrayDeque<>();
+		for (BundleDelta bundleDelta : delta.getChanges()) {
+			queue.add(bundleDelta.getBundle());
+		}
+		while (!queue.isEmpty()) {
+			BundleDescription bundle = queue.poll();
+			if (!changed.add(bundle)) {
+				continue;
+			}
+			// the visible packages of a bundle depend on the bundles it is
+			// wired to, a fragment also changes the packages of its host
+			queue.addAll(Arrays.asList(bundle.getDependents()));
+			HostSpecification host = bundle.getHost();
+			if (host != null && host.getSupplier() instanceof BundleDescription) {
+				queue.add((BundleDescription) host.getSupplier());
+			}
+		}
+		for (Iterator<BundleDescription> i = fVisibleRules.keySet().iterator(); i.hasNext();) {
+			BundleDescription bundle = i.next();
+			if (changed.contains(bundle) || !isInState(bundle)) {
+				i.remove();
+			}
+		}
+		for (Iterator<BundleDescription> i = fExportedPaths.keySet().iterator(); i.hasNext();) {
+			BundleDescription bundle = i.next();
+			if (changed.contains(bundle) || !isInState(bundle)) {
+				i.remove();
+			}
+		}
+		for (Iterator<IPluginModelBase> i = fExternalLibraries.keySet().iterator(); i.hasNext();) {
+			BundleDescription bundle = i.next().getBundleDescription();
+			if (bundle == null || changed.contains(bundle) || !isInState(bundle)) {
+				i.remove();
+			}
+		}
+	}
+
+	private boolean isInState(BundleDescription bundle) {
+		return fState.getBundle(bundle.getBundleId()) == bundle;
+	}
+
+	/**
+	 * Returns the access rules of the packages visible to the given bundle, as
+	 * remembered by {@link #putVisiblePackageRules(BundleDescription, Map)}.
+	 *
+	 * @param bundle the requiring bundle
+	 * @return the rules by exporting bundle or <code>null</code> if they are
+	 *         not known
+	 */
+	public synchronized Map<BundleDescription, Rule[]> getVisiblePackageRules(BundleDescription bundle) {
+		return fVisibleRules.get(bundle);
+	}
+
+	/**
+	 * Remembers the access rules of the packages visible to the given bundle.
+	 *
+	 * @param bundle the requiring bundle
+	 * @param rules the rules by exporting bundle, not modified afterwards
+	 */
+	public synchronized void putVisiblePackageRules(BundleDescription bundle, Map<BundleDescription, Rule[]> rules) {
+		fVisibleRules.put(bundle, rules);
+	}
+
+	/**
+	 * Returns the access rule path matching the types of the given package.
+	 *
+	 * @param packageName a package name
+	 * @return the path of the rule
+	 */
+	synchronized IPath getPackagePath(String packageName) {
+		IPath path = fPackagePaths.get(packageName);
+		if (path == null) {
+			path = (packageName.equals(".")) ? new Path("*") : new Path(packageName.replace('.', '/') + "/*"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			fPackagePaths.put(packageName, path);
+		}
+		return path;
+	}
+
+	/**
+	 * Returns the access rule paths of the packages exported by the given
+	 * bundle.
+	 *
+	 * @param bundle the exporting bundle
+	 * @return the paths in the order of {@link BundleDescription#getExportPackages()}
+	 */
+	public synchronized IPath[] getExportedPackagePaths(BundleDescription bundle) {
+		IPath[] paths = fExportedPaths.get(bundle);
+		if (paths == null) {
+			ExportPackageDescription[] exports = bundle.getExportPackages();
+			paths = new IPath[exports.length];
+			for (int i = 0; i < exports.length; i++) {
+				// unlike getPackagePath, the default package is not special
+				paths[i] = new Path(exports[i].getName().replace('.', '/') + "/*"); //$NON-NLS-1$
+			}
+			fExportedPaths.put(bundle, paths);
+		}
+		return paths;
+	}
+
+	/**
+	 * Returns the libraries of the given external plug-in.
+	 *
+	 * @param model a plug-in model that is not in the workspace
+	 * @return the libraries
+	 */
+	List<ExternalLibrary> getExternalLibraries(IPluginModelBase model) {
+		synchronized (this) {
+			List<ExternalLibrary> libraries = fExternalLibraries.get(model);
+			if (libraries != null) {
+				return libraries;
+			}
+		}
+		// computed outside the lock as it may extract nested jars
+		List<ExternalLibrary> libraries = Collections.unmodifiableList(PDEClasspathContainer.getExternalLibraries(model));
+		synchronized (this) {
+			fExternalLibraries.put(model, libraries);
+		}
+		return libraries;
+	}
+}
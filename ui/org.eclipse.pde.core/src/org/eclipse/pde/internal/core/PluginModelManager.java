@@ -156,6 +156,7 @@ public class PluginModelManager implements IModelProviderListener {
 	private ArrayList<IPluginModelListener> fListeners; // a list of listeners interested in changes to the plug-in models
 	private ArrayList<IStateDeltaListener> fStateListeners; // a list of listeners interested in changes to the PDE/resolver State
 	private boolean fCancelled = false;
+	private volatile ReverseDependencyIndex fDependencyIndex; // maps requirements to the bundles of the state declaring them, read without the lock when the state changes
 
 	/**
 	 * Initialize the workspace and external (target) model manager
@@ -265,6 +266,13 @@ public class PluginModelManager implements IModelProviderListener {
 	 * @param runAsynch whether classpath updates should be done in an asynchronous job
 	 */
 	private void updateAffectedEntries(StateDelta delta, boolean runAsynch) {
+		ReverseDependencyIndex index = fDependencyIndex;
+		if (delta != null && index != null && fState != null && index.getState() == fState.getState()) {
+			index.update(delta);
+		}
+		State changed = delta == null || fState == null ? null : fState.getState();
+		DependencyManager.invalidate(changed);
+		PluginClasspathCache.invalidate(changed, delta);
 		Map<IJavaProject, RequiredPluginsClasspathContainer> map = new HashMap<>();
 		if (delta == null) {
 			// if the delta is null, then the entire target changed.
@@ -1167,6 +1175,21 @@ public class PluginModelManager implements IModelProviderListener {
 		return fState;
 	}
 
+	/**
+	 * Returns an index of the bundles of the current state by the bundles,
+	 * packages and hosts they require, to find the dependents of a bundle
+	 * without visiting the whole state.
+	 *
+	 * @return the dependency index of the current state
+	 */
+	public synchronized ReverseDependencyIndex getDependencyIndex() {
+		State state = getState().getState();
+		if (fDependencyIndex == null || fDependencyIndex.getState() != state) {
+			fDependencyIndex = new ReverseDependencyIndex(state);
+		}
+		return fDependencyIndex;
+	}
+
 	/**
 	 * Returns the id of the system bundle currently in the resolver state
 	 *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2013 IBM Corporation and others.
+ *  Copyright (c) 2000, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -31,6 +31,12 @@ public class RequiredPluginsClasspathContainer extends PDEClasspathContainer imp
 
 	private IClasspathEntry[] fEntries = null;
 
+	/**
+	 * The cache shared with the containers of other projects while the entries
+	 * are computed
+	 */
+	private PluginClasspathCache fCache;
+
 	/**
 	 * Cached list of {@link IClasspathContributor} from plug-in extensions
 	 * @see #getClasspathContributors()
@@ -91,6 +97,7 @@ public class RequiredPluginsClasspathContainer extends PDEClasspathContainer imp
 			if (desc == null)
 				return new IClasspathEntry[0];
 
+			fCache = PluginClasspathCache.getCache(desc.getContainingState());
 			Map<BundleDescription, ArrayList<Rule>> map = retrieveVisiblePackagesFromState(desc);
 
 			// Add any library entries contributed via classpath contributor extension (Bug 363733)
@@ -151,10 +158,20 @@ public class RequiredPluginsClasspathContainer extends PDEClasspathContainer imp
 				addExtraClasspathEntries(added, entries);
 
 		} catch (CoreException e) {
+		} finally {
+			fCache = null;
 		}
 		return entries.toArray(new IClasspathEntry[entries.size()]);
 	}
 
+	private PluginClasspathCache getCache() {
+		if (fCache == null) {
+			BundleDescription desc = fModel.getBundleDescription();
+			fCache = PluginClasspathCache.getCache(desc == null ? null : desc.getContainingState());
+		}
+		return fCache;
+	}
+
 	/**
 	 * Return the list of {@link IClasspathContributor}s provided by the
 	 * <code>org.eclipse.pde.core.pluginClasspathContributors</code> extension point.
@@ -188,6 +205,30 @@ public class RequiredPluginsClasspathContainer extends PDEClasspathContainer imp
 	private void addVisiblePackagesFromState(StateHelper helper, BundleDescription desc, Map<BundleDescription, ArrayList<Rule>> visiblePackages) {
 		if (desc == null)
 			return;
+		Map<BundleDescription, Rule[]> rules = getCache().getVisiblePackageRules(desc);
+		if (rules == null) {
+			rules = getVisiblePackageRules(helper, desc);
+			getCache().putVisiblePackageRules(desc, rules);
+		}
+		for (Map.Entry<BundleDescription, Rule[]> entry : rules.entrySet()) {
+			ArrayList<Rule> list = visiblePackages.get(entry.getKey());
+			if (list == null) {
+				list = new ArrayList<>();
+				visiblePackages.put(entry.getKey(), list);
+			}
+			for (Rule rule : entry.getValue()) {
+				if (!list.contains(rule))
+					list.add(rule);
+			}
+		}
+	}
+
+	/**
+	 * Computes the access rules of the packages visible to the given bundle,
+	 * which only depend on the wiring of the bundle
+	 */
+	private Map<BundleDescription, Rule[]> getVisiblePackageRules(StateHelper helper, BundleDescription desc) {
+		Map<BundleDescription, ArrayList<Rule>> visiblePackages = new LinkedHashMap<>();
 		ExportPackageDescription[] exports = helper.getVisiblePackages(desc);
 		for (ExportPackageDescription export : exports) {
 			BundleDescription exporter = export.getExporter();
@@ -202,13 +243,17 @@ public class RequiredPluginsClasspathContainer extends PDEClasspathContainer imp
 			if (!list.contains(rule))
 				list.add(rule);
 		}
+		Map<BundleDescription, Rule[]> rules = new LinkedHashMap<>(visiblePackages.size() * 4 / 3 + 1);
+		for (Map.Entry<BundleDescription, ArrayList<Rule>> entry : visiblePackages.entrySet()) {
+			rules.put(entry.getKey(), entry.getValue().toArray(new Rule[entry.getValue().size()]));
+		}
+		return Collections.unmodifiableMap(rules);
 	}
 
 	private Rule getRule(StateHelper helper, BundleDescription desc, ExportPackageDescription export) {
 		Rule rule = new Rule();
 		rule.discouraged = helper.getAccessCode(desc, export) == StateHelper.ACCESS_DISCOURAGED;
-		String name = export.getName();
-		rule.path = (name.equals(".")) ? new Path("*") : new Path(name.replaceAll("\\.", "/") + "/*"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		rule.path = getCache().getPackagePath(export.getName());
 		return rule;
 	}
 
@@ -285,7 +330,7 @@ public class RequiredPluginsClasspathContainer extends PDEClasspathContainer imp
 		if (resource != null) {
 			addProjectEntry(resource.getProject(), rules, entries);
 		} else {
-			addExternalPlugin(model, rules, entries);
+			addExternalLibraries(getCache().getExternalLibraries(model), rules, entries);
 		}
 		return true;
 	}
@@ -429,11 +474,12 @@ public class RequiredPluginsClasspathContainer extends PDEClasspathContainer imp
 			while (!stack.isEmpty()) {
 				BundleDescription bdesc = (BundleDescription) stack.pop();
 				ExportPackageDescription[] expkgs = bdesc.getExportPackages();
-				ArrayList<Rule> rules = new ArrayList<>();
-				for (ExportPackageDescription expkg : expkgs) {
+				IPath[] paths = getCache().getExportedPackagePaths(bdesc);
+				ArrayList<Rule> rules = new ArrayList<>(expkgs.length);
+				for (int i = 0; i < expkgs.length; i++) {
 					Rule rule = new Rule();
-					rule.discouraged = restrictPackage(projectDesc, expkg);
-					rule.path = new Path(expkg.getName().replaceAll("\\.", "/") + "/*"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					rule.discouraged = restrictPackage(projectDesc, expkgs[i]);
+					rule.path = paths[i];
 					rules.add(rule);
 				}
 				map.put(bdesc, rules);
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core;
+
+import java.util.*;
+import org.eclipse.osgi.service.resolver.*;
+
+/**
+ * Maps the names of required bundles, imported packages and fragment hosts to
+ * the bundles of a {@link State} that declare these requirements, so that the
+ * bundles depending on a bundle can be found without visiting the whole state.
+ * <p>
+ * The index is kept up to date with the {@link StateDelta}s of the state, see
+ * {@link #update(StateDelta)}. It is safe to use from several threads.
+ * </p>
+ */
+public class ReverseDependencyIndex {
+
+	private static final BundleDescription[] NO_BUNDLES = new BundleDescription[0];
+
+	private final State fState;
+
+	/**
+	 * The indexed bundles by bundle id
+	 */
+	private final Map<Long, BundleDescription> fBundles = new HashMap<>();
+
+	/**
+	 * Required bundle name to the bundles requiring it
+	 */
+	private final Map<String, Set<BundleDescription>> fRequiringBundles = new HashMap<>();
+
+	/**
+	 * Imported package name to the bundles importing it
+	 */
+	private final Map<String, Set<BundleDescription>> fImportingBundles = new HashMap<>();
+
+	/**
+	 * Host name to the fragments of that host
+	 */
+	private final Map<String, Set<BundleDescription>> fFragments = new HashMap<>();
+
+	/**
+	 * Creates an index of all bundles currently in the given state.
+	 *
+	 * @param state the state to index
+	 */
+	public ReverseDependencyIndex(State state) {
+		fState = state;
+		for (BundleDescription bundle : state.getBundles()) {
+			add(bundle);
+		}
+	}
+
+	/**
+	 * @return the state this index was created for
+	 */
+	public State getState() {
+		return fState;
+	}
+
+	/**
+	 * Updates the index with the bundles added, updated or removed by a
+	 * resolution of the state.
+	 *
+	 * @param delta the delta of a resolution of the indexed state
+	 */
+	public synchronized void update(StateDelta delta) {
+		for (BundleDelta bundleDelta : delta.getChanges()) {
+			BundleDescription bundle = bundleDelta.getBundle();
+			int type = bundleDelta.getType();
+			if ((type & BundleDelta.REMOVED) != 0) {
+				if (fBundles.get(bundle.getBundleId()) == bundle) {
+					remove(bundle);
+				}
+			} else if ((type & (BundleDelta.ADDED | BundleDelta.UPDATED)) != 0) {
+				// an update replaces the description with the same id
+				BundleDescription old = fBundles.get(bundle.getBundleId());
+				if (old != bundle) {
+					if (old != null) {
+						remove(old);
+					}
+					add(bundle);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the bundles requiring a bundle with the given symbolic name,
+	 * whether or not the requirement is resolved.
+	 *
+	 * @param symbolicName a bundle symbolic name
+	 * @return the requiring bundles, possibly empty
+	 */
+	public synchronized BundleDescription[] getRequiringBundles(String symbolicName) {
+		return toArray(fRequiringBundles.get(symbolicName));
+	}
+
+	/**
+	 * Returns the bundles importing the given package, whether or not the
+	 * import is resolved.
+	 *
+	 * @param packageName a package name
+	 * @return the importing bundles, possibly empty
+	 */
+	public synchronized BundleDescription[] getImportingBundles(String packageName) {
+		return toArray(fImportingBundles.get(packageName));
+	}
+
+	/**
+	 * Returns the fragments declaring a host with the given symbolic name,
+	 * whether or not they are attached to it.
+	 *
+	 * @param hostName a bundle symbolic name
+	 * @return the fragments, possibly empty
+	 */
+	public synchronized BundleDescription[] getFragments(String hostName) {
+		return toArray(fFragments.get(hostName));
+	}
+
+	/**
+	 * Returns the bundles depending on the given bundle. For a resolved bundle
+	 * these are the bundles wired to it by the resolver, see
+	 * {@link BundleDescription#getDependents()}, including the bundles wired
+	 * through generic requirements or to packages exported by its fragments.
+	 * For an unresolved bundle these are the bundles having a required bundle,
+	 * an imported package or a fragment host the bundle would satisfy.
+	 *
+	 * @param bundle a bundle of the indexed state
+	 * @return the dependent bundles, possibly empty
+	 */
+	public synchronized BundleDescription[] getDependents(BundleDescription bundle) {
+		if (bundle.isResolved()) {
+			return bundle.getDependents();
+		}
+		Set<BundleDescription> dependents = new LinkedHashSet<>();
+		String name = bundle.getSymbolicName();
+		if (name != null) {
+			for (BundleDescription candidate : get(fRequiringBundles, name)) {
+				for (BundleSpecification required : candidate.getRequiredBundles()) {
+					if (name.equals(required.getName()) && required.isSatisfiedBy(bundle)) {
+						dependents.add(candidate);
+						break;
+					}
+				}
+			}
+			for (BundleDescription candidate : get(fFragments, name)) {
+				if (candidate.getHost().isSatisfiedBy(bundle)) {
+					dependents.add(candidate);
+				}
+			}
+		}
+		for (ExportPackageDescription export : bundle.getExportPackages()) {
+			for (BundleDescription candidate : get(fImportingBundles, export.getName())) {
+				for (ImportPackageSpecification imported : candidate.getImportPackages()) {
+					if (export.getName().equals(imported.getName()) && imported.isSatisfiedBy(export)) {
+						dependents.add(candidate);
+						break;
+					}
+				}
+			}
+		}
+		dependents.remove(bundle);
+		return dependents.toArray(new BundleDescription[dependents.size()]);
+	}
+
+	private void add(BundleDescription bundle) {
+		fBundles.put(bundle.getBundleId(), bundle);
+		for (BundleSpecification required : bundle.getRequiredBundles()) {
+			put(fRequiringBundles, required.getName(), bundle);
+		}
+		for (ImportPackageSpecification imported : bundle.getImportPackages()) {
+			put(fImportingBundles, imported.getName(), bundle);
+		}
+		HostSpecification host = bundle.getHost();
+		if (host != null) {
+			put(fFragments, host.getName(), bundle);
+		}
+	}
+
+	private void remove(BundleDescription bundle) {
+		fBundles.remove(bundle.getBundleId());
+		for (BundleSpecification required : bundle.getRequiredBundles()) {
+			remove(fRequiringBundles, required.getName(), bundle);
+		}
+		for (ImportPackageSpecification imported : bundle.getImportPackages()) {
+			remove(fImportingBundles, imported.getName(), bundle);
+		}
+		HostSpecification host = bundle.getHost();
+		if (host != null) {
+			remove(fFragments, host.getName(), bundle);
+		}
+	}
+
+	private static void put(Map<String, Set<BundleDescription>> map, String name, BundleDescription bundle) {
+		if (name == null) {
+			return;
+		}
+		Set<BundleDescription> bundles = map.get(name);
+		if (bundles == null) {
+			bundles = new LinkedHashSet<>(2);
+			map.put(name, bundles);
+		}
+		bundles.add(bundle);
+	}
+
+	private static void remove(Map<String, Set<BundleDescription>> map, String name, BundleDescription bundle) {
+		Set<BundleDescription> bundles = map.get(name);
+		if (bundles != null) {
+			bundles.remove(bundle);
+			if (bundles.isEmpty()) {
+				map.remove(name);
+			}
+		}
+	}
+
+	private static Set<BundleDescription> get(Map<String, Set<BundleDescription>> map, String name) {
+		Set<BundleDescription> bundles = map.get(name);
+		return bundles == null ? Collections.<BundleDescription> emptySet() : bundles;
+	}
+
+	private static BundleDescription[] toArray(Set<BundleDescription> bundles) {
+		if (bundles == null) {
+			return NO_BUNDLES;
+		}
+		return bundles.toArray(new BundleDescription[bundles.size()]);
+	}
+}
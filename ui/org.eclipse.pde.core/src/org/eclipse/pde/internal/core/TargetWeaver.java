@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2012 IBM Corporation and others.
+ * Copyright (c) 2008, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -58,7 +58,7 @@ public class TargetWeaver {
 	 *
 	 * @return properties
 	 */
-	protected static Properties getDevProperties() {
+	protected static synchronized Properties getDevProperties() {
 		if (fgIsDev) {
 			if (fgDevProperties == null) {
 				fgDevProperties = new Properties();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2013 IBM Corporation and others.
+ * Copyright (c) 2008, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -68,18 +68,26 @@ public class DirectoryBundleContainer extends AbstractBundleContainer {
 			File[] files = site.listFiles();
 			SubMonitor localMonitor = SubMonitor.convert(monitor, Messages.DirectoryBundleContainer_0, files.length);
 			List<TargetBundle> bundles = new ArrayList<>(files.length);
-			for (File file : files) {
-				try {
-					TargetBundle rb = new TargetBundle(file);
-					bundles.add(rb);
-				} catch (CoreException e) {
-					// If an old style conversion fails because the service is not available, log the error.
-					// Otherwise, ignore non-bundle files
-					if (e.getStatus().getCode() == ManifestUtils.STATUS_CODE_PLUGIN_CONVERTER_UNAVAILABLE) {
-						PDECore.log(e);
+			TargetBundleCache cache = TargetBundleCache.getCache(TYPE + ':' + site.getAbsolutePath());
+			boolean completed = false;
+			cache.begin();
+			try {
+				for (File file : files) {
+					try {
+						TargetBundle rb = cache.getBundle(file);
+						bundles.add(rb);
+					} catch (CoreException e) {
+						// If an old style conversion fails because the service is not available, log the error.
+						// Otherwise, ignore non-bundle files
+						if (e.getStatus().getCode() == ManifestUtils.STATUS_CODE_PLUGIN_CONVERTER_UNAVAILABLE) {
+							PDECore.log(e);
+						}
 					}
+					localMonitor.split(1);
 				}
-				localMonitor.split(1);
+				completed = true;
+			} finally {
+				cache.end(completed);
 			}
 			return bundles.toArray(new TargetBundle[bundles.size()]);
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -157,7 +157,7 @@ public class FeatureBundleContainer extends AbstractBundleContainer {
 				}
 			}
 
-			List<?> result = TargetDefinition.getMatchingBundles(bundles, matchInfos.toArray(new NameVersionDescriptor[matchInfos.size()]), true);
+			List<TargetBundle> result = new TargetBundleIndex(bundles).getMatchingBundles(matchInfos.toArray(new NameVersionDescriptor[matchInfos.size()]), true);
 			return result.toArray(new TargetBundle[result.size()]);
 		} finally {
 			if (model != null) {
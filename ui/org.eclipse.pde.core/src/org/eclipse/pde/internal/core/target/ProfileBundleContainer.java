@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2014 IBM Corporation and others.
+ * Copyright (c) 2008, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -121,32 +121,40 @@ public class ProfileBundleContainer extends AbstractBundleContainer {
 			source = new BundleInfo[0];
 		}
 		List<TargetBundle> all = new ArrayList<>();
+		TargetBundleCache cache = TargetBundleCache.getCache(TYPE + ':' + home + ':' + configUrl);
 		SubMonitor localMonitor = SubMonitor.convert(monitor, Messages.DirectoryBundleContainer_0, infos.length + source.length);
-		// Add executable bundles
-		for (BundleInfo info : infos) {
-			if (monitor.isCanceled()) {
-				return new TargetBundle[0];
-			}
-			URI location = info.getLocation();
-			try {
-				all.add(new TargetBundle(URIUtil.toFile(location)));
-			} catch (CoreException e) {
-				all.add(new InvalidTargetBundle(new BundleInfo(location), e.getStatus()));
-			}
-			localMonitor.split(1);
-		}
-		// Add source bundles
-		for (BundleInfo element : source) {
-			if (monitor.isCanceled()) {
-				return new TargetBundle[0];
+		boolean completed = false;
+		cache.begin();
+		try {
+			// Add executable bundles
+			for (BundleInfo info : infos) {
+				if (monitor.isCanceled()) {
+					return new TargetBundle[0];
+				}
+				URI location = info.getLocation();
+				try {
+					all.add(cache.getBundle(URIUtil.toFile(location)));
+				} catch (CoreException e) {
+					all.add(new InvalidTargetBundle(new BundleInfo(location), e.getStatus()));
+				}
+				localMonitor.split(1);
 			}
-			URI location = element.getLocation();
-			try {
-				all.add(new TargetBundle(URIUtil.toFile(location)));
-			} catch (CoreException e) {
-				all.add(new InvalidTargetBundle(new BundleInfo(location), e.getStatus()));
+			// Add source bundles
+			for (BundleInfo element : source) {
+				if (monitor.isCanceled()) {
+					return new TargetBundle[0];
+				}
+				URI location = element.getLocation();
+				try {
+					all.add(cache.getBundle(URIUtil.toFile(location)));
+				} catch (CoreException e) {
+					all.add(new InvalidTargetBundle(new BundleInfo(location), e.getStatus()));
+				}
+				localMonitor.split(1);
 			}
-			localMonitor.split(1);
+			completed = true;
+		} finally {
+			cache.end(completed);
 		}
 		return all.toArray(new TargetBundle[all.size()]);
 	}
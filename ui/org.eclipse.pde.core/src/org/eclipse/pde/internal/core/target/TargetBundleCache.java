@@ -0,0 +1,408 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core.target;
+
+import java.io.*;
+import java.net.URI;
+import java.util.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.frameworkadmin.BundleInfo;
+import org.eclipse.pde.core.target.TargetBundle;
+import org.eclipse.pde.internal.core.ICoreConstants;
+import org.eclipse.pde.internal.core.PDECore;
+import org.eclipse.pde.internal.core.util.ManifestUtils;
+
+/**
+ * Remembers the target bundles read from the files of one target location, so
+ * that resolving the location again only reads the manifests of files that
+ * were added or modified since. A file is considered unmodified while its path,
+ * size and modification time are the same; for directory bundles the size and
+ * modification time of the bundle descriptors are used.
+ * <p>
+ * Each resolution of the location is enclosed in {@link #begin()} and
+ * {@link #end(boolean)}. The cache is persisted in the PDE state location once
+ * no resolution of the location is running anymore. It then only keeps the
+ * files used since it was loaded or last saved, provided one of the
+ * resolutions completed, as concurrent resolutions of the same location share
+ * the cache.
+ * </p>
+ */
+public class TargetBundleCache {
+
+	/**
+	 * Directory in the PDE state location containing the cache files
+	 */
+	private static final String CACHE_DIR = ".target_bundles"; //$NON-NLS-1$
+
+	/**
+	 * Version of the cache file format, increment when the format changes
+	 */
+	private static final int VERSION = 1;
+
+	private static final byte KIND_BUNDLE = 0;
+	private static final byte KIND_ERROR = 1;
+
+	/**
+	 * The maximum number of caches kept in memory
+	 */
+	private static final int MAX_CACHES = 16;
+
+	/**
+	 * Caches that have been loaded in this session, keyed by cache file, the
+	 * least recently used caches are dropped
+	 */
+	private static final Map<String, TargetBundleCache> fgCaches = new LinkedHashMap<String, TargetBundleCache>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, TargetBundleCache> eldest) {
+			return size() > MAX_CACHES;
+		}
+	};
+
+	/**
+	 * Directory of the cache files or <code>null</code> to use the PDE state
+	 * location
+	 */
+	private static File fgDirectory = null;
+
+	/**
+	 * The bundle or the problem read from one file
+	 */
+	private static class Entry {
+		long length;
+		long lastModified;
+		byte kind;
+		String symbolicName;
+		String version;
+		boolean fragment;
+		String sourceName;
+		String sourceVersion;
+		String sourceLocation;
+		String sourcePath;
+		int severity;
+		String pluginId;
+		int code;
+		String message;
+	}
+
+	/**
+	 * A target bundle created from a cache entry
+	 */
+	private static class CachedTargetBundle extends TargetBundle {
+		CachedTargetBundle(File file, Entry entry) {
+			fInfo = new BundleInfo(file.toURI());
+			if (entry.symbolicName != null) {
+				fInfo.setSymbolicName(entry.symbolicName);
+			}
+			if (entry.version != null) {
+				fInfo.setVersion(entry.version);
+			}
+			fIsFragment = entry.fragment;
+			if (entry.sourceName != null || entry.sourceLocation != null) {
+				URI location = entry.sourceLocation == null ? null : URI.create(entry.sourceLocation);
+				fSourceTarget = new BundleInfo(entry.sourceName, entry.sourceVersion, location, BundleInfo.NO_LEVEL, false);
+			}
+			fSourcePath = entry.sourcePath;
+		}
+	}
+
+	private final String fLocation;
+	private final File fFile;
+	private final Map<String, Entry> fEntries;
+	private final Map<String, Entry> fUsed = new HashMap<>();
+	private boolean fDirty;
+
+	/**
+	 * Number of running resolutions of the location
+	 */
+	private int fResolutions;
+
+	/**
+	 * Whether a resolution completed since the cache was loaded or last saved
+	 */
+	private boolean fCompleted;
+
+	private TargetBundleCache(String location, File file, Map<String, Entry> entries) {
+		fLocation = location;
+		fFile = file;
+		fEntries = entries;
+	}
+
+	/**
+	 * Sets the directory of the cache files, used by tests.
+	 *
+	 * @param directory the directory or <code>null</code> to use the PDE state
+	 *            location
+	 */
+	public static void setDirectory(File directory) {
+		synchronized (fgCaches) {
+			fgDirectory = directory;
+		}
+	}
+
+	/**
+	 * Returns the cache for the given location, loading it from the state
+	 * location the first time it is requested.
+	 *
+	 * @param location a string identifying the target location, for example
+	 *            its type and its resolved path
+	 * @return the cache of the location
+	 */
+	public static TargetBundleCache getCache(String location) {
+		synchronized (fgCaches) {
+			File file = getCacheFile(location);
+			String key = file.getAbsolutePath();
+			TargetBundleCache cache = fgCaches.get(key);
+			if (cache == null) {
+				cache = new TargetBundleCache(location, file, load(file, location));
+				fgCaches.put(key, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Starts a resolution of the location, which must be ended by
+	 * {@link #end(boolean)}.
+	 */
+	public synchronized void begin() {
+		fResolutions++;
+	}
+
+	/**
+	 * Returns the target bundle of the given file, reading its manifest if the
+	 * file is not cached or was modified.
+	 *
+	 * @param file the bundle archive or directory
+	 * @return the target bundle
+	 * @throws CoreException if the file is not a valid bundle, see
+	 *             {@link TargetBundle#TargetBundle(File)}
+	 */
+	public TargetBundle getBundle(File file) throws CoreException {
+		if (file == null) {
+			// let the target bundle report the problem
+			return new TargetBundle(file);
+		}
+		String path = file.getAbsolutePath();
+		long[] stamp = getStamp(file);
+		synchronized (this) {
+			Entry entry = fEntries.get(path);
+			if (entry != null && stamp != null && entry.length == stamp[0] && entry.lastModified == stamp[1]) {
+				fUsed.put(path, entry);
+				if (entry.kind == KIND_ERROR) {
+					throw new CoreException(new Status(entry.severity, entry.pluginId, entry.code, entry.message, null));
+				}
+				return new CachedTargetBundle(file, entry);
+			}
+		}
+		TargetBundle bundle;
+		try {
+			bundle = new TargetBundle(file);
+		} catch (CoreException e) {
+			IStatus status = e.getStatus();
+			// the converter may become available later
+			if (stamp != null && status.getCode() != ManifestUtils.STATUS_CODE_PLUGIN_CONVERTER_UNAVAILABLE) {
+				Entry entry = new Entry();
+				entry.kind = KIND_ERROR;
+				entry.severity = status.getSeverity();
+				entry.pluginId = status.getPlugin();
+				entry.code = status.getCode();
+				entry.message = status.getMessage();
+				put(path, stamp, entry);
+			}
+			throw e;
+		}
+		if (stamp != null) {
+			Entry entry = new Entry();
+			entry.kind = KIND_BUNDLE;
+			BundleInfo info = bundle.getBundleInfo();
+			entry.symbolicName = info.getSymbolicName();
+			entry.version = info.getVersion();
+			entry.fragment = bundle.isFragment();
+			BundleInfo source = bundle.getSourceTarget();
+			if (source != null) {
+				entry.sourceName = source.getSymbolicName();
+				entry.sourceVersion = source.getVersion();
+				entry.sourceLocation = source.getLocation() == null ? null : source.getLocation().toString();
+			}
+			entry.sourcePath = bundle.getSourcePath();
+			put(path, stamp, entry);
+		}
+		return bundle;
+	}
+
+	private synchronized void put(String path, long[] stamp, Entry entry) {
+		entry.length = stamp[0];
+		entry.lastModified = stamp[1];
+		fEntries.put(path, entry);
+		fUsed.put(path, entry);
+		fDirty = true;
+	}
+
+	/**
+	 * Ends a resolution started by {@link #begin()}. Once no resolution of the
+	 * location is running, writes the cache to the state location. If one of
+	 * the resolutions completed, only the entries of the files used since the
+	 * cache was loaded or last saved are written and all others are forgotten.
+	 * Does nothing if no file was added, modified or removed.
+	 *
+	 * @param completed whether the resolution visited every file of the
+	 *            location, <code>false</code> if it was canceled or failed
+	 */
+	public synchronized void end(boolean completed) {
+		fResolutions = Math.max(0, fResolutions - 1);
+		fCompleted |= completed;
+		if (fResolutions > 0) {
+			// another resolution still uses the entries
+			return;
+		}
+		boolean prune = fCompleted && fUsed.size() != fEntries.size();
+		fCompleted = false;
+		if (prune) {
+			fEntries.clear();
+			fEntries.putAll(fUsed);
+		}
+		fUsed.clear();
+		if (!fDirty && !prune) {
+			return;
+		}
+		fDirty = false;
+		save();
+	}
+
+	/**
+	 * Writes the entries to the cache file
+	 */
+	private void save() {
+		File file = fFile;
+		file.getParentFile().mkdirs();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(VERSION);
+			out.writeUTF(fLocation);
+			out.writeInt(fEntries.size());
+			for (Map.Entry<String, Entry> mapEntry : fEntries.entrySet()) {
+				Entry entry = mapEntry.getValue();
+				out.writeUTF(mapEntry.getKey());
+				out.writeLong(entry.length);
+				out.writeLong(entry.lastModified);
+				out.writeByte(entry.kind);
+				if (entry.kind == KIND_ERROR) {
+					out.writeInt(entry.severity);
+					writeString(out, entry.pluginId);
+					out.writeInt(entry.code);
+					writeString(out, entry.message);
+				} else {
+					writeString(out, entry.symbolicName);
+					writeString(out, entry.version);
+					out.writeBoolean(entry.fragment);
+					writeString(out, entry.sourceName);
+					writeString(out, entry.sourceVersion);
+					writeString(out, entry.sourceLocation);
+					writeString(out, entry.sourcePath);
+				}
+			}
+		} catch (IOException e) {
+			PDECore.log(new Status(IStatus.WARNING, PDECore.PLUGIN_ID, e.getMessage(), e));
+			file.delete();
+		}
+	}
+
+	/**
+	 * Reads the cache of the given location, returning an empty cache if there
+	 * is none or it cannot be read
+	 */
+	private static Map<String, Entry> load(File file, String location) {
+		Map<String, Entry> entries = new HashMap<>();
+		if (!file.isFile()) {
+			return entries;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != VERSION || !location.equals(in.readUTF())) {
+				return entries;
+			}
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				String path = in.readUTF();
+				Entry entry = new Entry();
+				entry.length = in.readLong();
+				entry.lastModified = in.readLong();
+				entry.kind = in.readByte();
+				if (entry.kind == KIND_ERROR) {
+					entry.severity = in.readInt();
+					entry.pluginId = readString(in);
+					entry.code = in.readInt();
+					entry.message = readString(in);
+				} else {
+					entry.symbolicName = readString(in);
+					entry.version = readString(in);
+					entry.fragment = in.readBoolean();
+					entry.sourceName = readString(in);
+					entry.sourceVersion = readString(in);
+					entry.sourceLocation = readString(in);
+					entry.sourcePath = readString(in);
+				}
+				entries.put(path, entry);
+			}
+		} catch (IOException e) {
+			// start over with an empty cache
+			entries.clear();
+		}
+		return entries;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static File getCacheFile(String location) {
+		File directory = fgDirectory;
+		if (directory == null) {
+			IPath path = PDECore.getDefault().getStateLocation().append(CACHE_DIR);
+			directory = path.toFile();
+		}
+		return new File(directory, Integer.toHexString(location.hashCode()) + ".bundles"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the size and modification time identifying the contents of the
+	 * given bundle, using the bundle descriptors for directories
+	 *
+	 * @param file the bundle archive or directory
+	 * @return the size and the modification time or <code>null</code> if the
+	 *         file does not exist
+	 */
+	private static long[] getStamp(File file) {
+		if (file.isFile()) {
+			return new long[] {file.length(), file.lastModified()};
+		}
+		if (!file.isDirectory()) {
+			return null;
+		}
+		long length = 0;
+		long lastModified = file.lastModified();
+		String[] descriptors = new String[] {ICoreConstants.BUNDLE_FILENAME_DESCRIPTOR, ICoreConstants.PLUGIN_FILENAME_DESCRIPTOR, ICoreConstants.FRAGMENT_FILENAME_DESCRIPTOR};
+		for (String descriptor : descriptors) {
+			File child = new File(file, descriptor);
+			// distinguish a missing descriptor from an empty one
+			length = length * 31 + (child.isFile() ? child.length() + 1 : 0);
+			lastModified = Math.max(lastModified, child.lastModified());
+		}
+		return new long[] {length, lastModified};
+	}
+}
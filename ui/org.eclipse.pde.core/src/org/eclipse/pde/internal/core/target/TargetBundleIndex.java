@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core.target;
+
+import java.util.*;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.equinox.frameworkadmin.BundleInfo;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.pde.core.target.NameVersionDescriptor;
+import org.eclipse.pde.core.target.TargetBundle;
+import org.eclipse.pde.internal.core.PDECore;
+
+/**
+ * An immutable index of the bundles of a resolved target, mapping symbolic
+ * names to the bundles with that name sorted by ascending version. Bundles
+ * with equal versions keep the order of their locations.
+ */
+class TargetBundleIndex {
+
+	private static final TargetBundle[] NO_BUNDLES = new TargetBundle[0];
+
+	/**
+	 * Orders bundles by ascending version, falling back to comparing the
+	 * version strings when a version is invalid
+	 */
+	private static final Comparator<TargetBundle> VERSION_ORDER = new Comparator<TargetBundle>() {
+		@Override
+		public int compare(TargetBundle o1, TargetBundle o2) {
+			BundleInfo b1 = o1.getBundleInfo();
+			BundleInfo b2 = o2.getBundleInfo();
+			try {
+				Version v1 = Version.create(b1.getVersion());
+				Version v2 = Version.create(b2.getVersion());
+				return v1.compareTo(v2);
+			} catch (IllegalArgumentException e) {
+				// If one of the bundles has a bad version
+				PDECore.log(e);
+				return b1.getVersion().compareTo(b2.getVersion());
+			}
+		}
+	};
+
+	private final TargetBundle[] fAllBundles;
+	private final Map<String, TargetBundle[]> fBundlesByName;
+
+	/**
+	 * Creates an index of the given bundles.
+	 *
+	 * @param bundles the bundles of all locations of a target, in location
+	 *            order
+	 */
+	TargetBundleIndex(TargetBundle[] bundles) {
+		fAllBundles = bundles;
+		Map<String, List<TargetBundle>> lists = new HashMap<>(bundles.length);
+		for (TargetBundle bundle : bundles) {
+			List<TargetBundle> list = lists.get(bundle.getBundleInfo().getSymbolicName());
+			if (list == null) {
+				list = new ArrayList<>(3);
+				lists.put(bundle.getBundleInfo().getSymbolicName(), list);
+			}
+			list.add(bundle);
+		}
+		fBundlesByName = new HashMap<>(lists.size());
+		for (Map.Entry<String, List<TargetBundle>> entry : lists.entrySet()) {
+			List<TargetBundle> list = entry.getValue();
+			if (list.size() > 1) {
+				// stable, so equal versions keep the location order
+				Collections.sort(list, VERSION_ORDER);
+			}
+			fBundlesByName.put(entry.getKey(), list.toArray(new TargetBundle[list.size()]));
+		}
+	}
+
+	/**
+	 * @return all bundles of the target, in location order
+	 */
+	TargetBundle[] getAllBundles() {
+		return fAllBundles;
+	}
+
+	/**
+	 * Returns the bundles with the given symbolic name.
+	 *
+	 * @param symbolicName symbolic name
+	 * @return the bundles sorted by ascending version, possibly empty
+	 */
+	TargetBundle[] getBundles(String symbolicName) {
+		TargetBundle[] bundles = fBundlesByName.get(symbolicName);
+		return bundles == null ? NO_BUNDLES : bundles;
+	}
+
+	/**
+	 * Returns the indexed bundles that match the symbolic names and/or version
+	 * in the specified criteria. When no version is specified the newest
+	 * version (if any) is selected.
+	 * <p>
+	 * If handleMissingBundles is <code>true</code>, the returned list will contain {@link InvalidTargetBundle}s
+	 * for any included filters that do not have a matching bundle in the collection. The invalid bundles
+	 * will contain statuses describing what couldn't be matched.
+	 * </p>
+	 * @param included bundles to include or <code>null</code> if no restrictions
+	 * @param handleMissingBundles whether to create {@link InvalidTargetBundle}s for missing includes
+	 *
+	 * @return list of bundles that match the restrictions
+	 */
+	List<TargetBundle> getMatchingBundles(NameVersionDescriptor[] included, boolean handleMissingBundles) {
+		if (included == null) {
+			return new ArrayList<>(Arrays.asList(fAllBundles));
+		}
+		List<TargetBundle> resolved = new ArrayList<>(included.length);
+		for (NameVersionDescriptor element : included) {
+			BundleInfo info = new BundleInfo(element.getId(), element.getVersion(), null, BundleInfo.NO_LEVEL, false);
+			TargetBundle bundle = resolveBundle(info, handleMissingBundles);
+			if (bundle != null) {
+				resolved.add(bundle);
+			}
+		}
+		return resolved;
+	}
+
+	/**
+	 * Resolves a bundle for the given info.
+	 * <p>
+	 * If handleMissingBundles is <code>true</code>, a {@link InvalidTargetBundle} will be created and
+	 * returned if the give info does not match an indexed bundle. The returned bundle will have
+	 * a status giving more details on what is missing. If handleMissingBundles is <code>false</code>,
+	 * <code>null</code> will be returned.
+	 * </p>
+	 *
+	 * @param info name and version to match against
+	 * @param handleMissingBundles whether to return an {@link InvalidTargetBundle} for a info that does not match an indexed bundle or <code>null</code>
+	 * @return resolved bundle or <code>null</code>
+	 */
+	TargetBundle resolveBundle(BundleInfo info, boolean handleMissingBundles) {
+		TargetBundle[] bundles = fBundlesByName.get(info.getSymbolicName());
+		if (bundles != null) {
+			String version = info.getVersion();
+			if (version == null || version.equals(BundleInfo.EMPTY_VERSION)) {
+				// select newest
+				return bundles[bundles.length - 1];
+			}
+			for (TargetBundle bundle : bundles) {
+				if (bundle.getBundleInfo().getVersion().equals(version)) {
+					return bundle;
+				}
+			}
+			// If major, minor and micro components of the version match, return
+			// that bundle
+			org.osgi.framework.Version infoVersion = null;
+			try {
+				infoVersion = new org.osgi.framework.Version(version);
+			} catch (IllegalArgumentException e) {
+				// invalid version, nothing can match
+			}
+			if (infoVersion != null) {
+				for (TargetBundle bundle : bundles) {
+					try {
+						org.osgi.framework.Version bundleVersion = new org.osgi.framework.Version(bundle.getBundleInfo().getVersion());
+						if (bundleVersion.getMajor() == infoVersion.getMajor() && bundleVersion.getMinor() == infoVersion.getMinor() && bundleVersion.getMicro() == infoVersion.getMicro()) {
+							return bundle;
+						}
+					} catch (IllegalArgumentException e) {
+						// invalid version, do nothing, check the next bundle.
+					}
+				}
+			}
+			// VERSION DOES NOT EXIST
+			if (!handleMissingBundles) {
+				return null;
+			}
+			String message = NLS.bind(Messages.AbstractBundleContainer_1, new Object[] {info.getVersion(), info.getSymbolicName()});
+			IStatus status = new Status(IStatus.ERROR, PDECore.PLUGIN_ID, TargetBundle.STATUS_VERSION_DOES_NOT_EXIST, message, null);
+			return new InvalidTargetBundle(info, status);
+		}
+		// DOES NOT EXIST
+		if (!handleMissingBundles) {
+			return null;
+		}
+		String message = NLS.bind(Messages.AbstractBundleContainer_3, info.getSymbolicName());
+		IStatus status = new Status(IStatus.ERROR, PDECore.PLUGIN_ID, TargetBundle.STATUS_PLUGIN_DOES_NOT_EXIST, message, null);
+		return new InvalidTargetBundle(info, status);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2016 IBM Corporation and others.
+ * Copyright (c) 2008, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.pde.internal.core.target;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
 import org.eclipse.core.runtime.*;
@@ -71,12 +72,58 @@ public class TargetDefinition implements ITargetDefinition {
 	public static final int MODE_FEATURE = 1;
 
 	// cache of features found for a given location, maps a string path location to a array of IFeatureModels (IFeatureModel[])
-	private static Map<String, TargetFeature[]> fFeaturesInLocation = new HashMap<>();
+	private static Map<String, TargetFeature[]> fFeaturesInLocation = Collections.synchronizedMap(new HashMap<>());
+
+	/**
+	 * Thread pool resolving independent locations, created on first use
+	 */
+	private static ExecutorService fResolutionExecutor;
 
 	// internal cache for features.  A target managed by features will contain a set of features as well as a set of plug-ins that don't belong to a feature
 	private TargetFeature[] fFeatures;
 	private TargetBundle[] fOtherBundles;
 
+	/**
+	 * Index of the bundles of the resolved locations, see
+	 * {@link #getBundleIndex(ITargetLocation[])}
+	 */
+	private BundleIndexEntry fBundleIndex;
+
+	/**
+	 * The included bundles computed from {@link #fBundleIndex}
+	 */
+	private IncludedBundles fIncludedBundles;
+
+	/**
+	 * A bundle index together with the state of the target it was built for
+	 */
+	private static class BundleIndexEntry {
+		final TargetBundleIndex index;
+		final int sequenceNumber;
+		final TargetBundle[][] sources;
+
+		BundleIndexEntry(TargetBundleIndex index, int sequenceNumber, TargetBundle[][] sources) {
+			this.index = index;
+			this.sequenceNumber = sequenceNumber;
+			this.sources = sources;
+		}
+	}
+
+	/**
+	 * The bundles matching an include filter, computed from a bundle index
+	 */
+	private static class IncludedBundles {
+		final TargetBundleIndex index;
+		final NameVersionDescriptor[] included;
+		final TargetBundle[] bundles;
+
+		IncludedBundles(TargetBundleIndex index, NameVersionDescriptor[] included, TargetBundle[] bundles) {
+			this.index = index;
+			this.included = included;
+			this.bundles = bundles;
+		}
+	}
+
 	private int fSequenceNumber = -1;
 
 	/**
@@ -270,18 +317,40 @@ public class TargetDefinition implements ITargetDefinition {
 				if (subMonitor.isCanceled()) {
 					return Status.CANCEL_STATUS;
 				}
-				for (ITargetLocation container : containers) {
-					if (subMonitor.isCanceled()) {
-						return Status.CANCEL_STATUS;
+				// Locations without a synchronizer do not share any state and are
+				// resolved concurrently, their statuses are still collected in order
+				Map<ITargetLocation, Future<IStatus>> resolutions = new IdentityHashMap<>();
+				IProgressMonitor workerMonitor = new NullProgressMonitor();
+				startResolutions(containers, resolutions, workerMonitor);
+				try {
+					for (ITargetLocation container : containers) {
+						if (subMonitor.isCanceled()) {
+							return Status.CANCEL_STATUS;
+						}
+						subMonitor.subTask(Messages.TargetDefinition_4);
+						P2TargetUtils synchronizer = container.getAdapter(P2TargetUtils.class);
+						int totalWork = 5;
+						if (synchronizer == null)
+							totalWork = 100;
+						IStatus s;
+						Future<IStatus> resolution = resolutions.get(container);
+						if (resolution != null) {
+							s = joinResolution(resolution, subMonitor, workerMonitor);
+							if (s.getSeverity() == IStatus.CANCEL) {
+								return Status.CANCEL_STATUS;
+							}
+							subMonitor.worked(totalWork);
+						} else {
+							s = container.resolve(this, subMonitor.split(totalWork));
+						}
+						if (!s.isOK()) {
+							status.add(s);
+						}
 					}
-					subMonitor.subTask(Messages.TargetDefinition_4);
-					P2TargetUtils synchronizer = container.getAdapter(P2TargetUtils.class);
-					int totalWork = 5;
-					if (synchronizer == null)
-						totalWork = 100;
-					IStatus s = container.resolve(this, subMonitor.split(totalWork));
-					if (!s.isOK()) {
-						status.add(s);
+				} finally {
+					if (!resolutions.isEmpty()) {
+						// stops resolutions still running after a cancellation or a failure
+						cancelResolutions(resolutions.values(), workerMonitor);
 					}
 				}
 			}
@@ -303,6 +372,122 @@ public class TargetDefinition implements ITargetDefinition {
 		}
 	}
 
+	/**
+	 * Returns the thread pool resolving independent locations, shared by all
+	 * target definitions. Its threads stop when idle.
+	 *
+	 * @return the shared executor
+	 */
+	private static synchronized ExecutorService getResolutionExecutor() {
+		if (fResolutionExecutor == null) {
+			int threads = Runtime.getRuntime().availableProcessors();
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+				Thread thread = new Thread(runnable, "Target Location Resolver"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.allowCoreThreadTimeOut(true);
+			fResolutionExecutor = executor;
+		}
+		return fResolutionExecutor;
+	}
+
+	/**
+	 * Starts resolving the given locations that have no synchronizer in the
+	 * shared thread pool, if there is more than one of them.
+	 *
+	 * @param containers the locations of this target
+	 * @param resolutions map to collect the pending resolutions in, left
+	 *            empty if the locations are to be resolved in sequence
+	 * @param monitor progress monitor shared by the resolutions, only used to
+	 *            cancel them
+	 */
+	private void startResolutions(ITargetLocation[] containers, Map<ITargetLocation, Future<IStatus>> resolutions, IProgressMonitor monitor) {
+		List<ITargetLocation> independent = new ArrayList<>(containers.length);
+		for (ITargetLocation container : containers) {
+			if (container instanceof AbstractBundleContainer && container.getAdapter(P2TargetUtils.class) == null) {
+				independent.add(container);
+			}
+		}
+		if (independent.size() <= 1 || Runtime.getRuntime().availableProcessors() <= 1) {
+			return;
+		}
+		ExecutorService executor = getResolutionExecutor();
+		for (ITargetLocation container : independent) {
+			// a location listed twice is only resolved once
+			if (!resolutions.containsKey(container)) {
+				// resolutions starting after a cancellation return at once
+				resolutions.put(container, executor.submit(() -> monitor.isCanceled() ? Status.CANCEL_STATUS : container.resolve(this, monitor)));
+			}
+		}
+	}
+
+	/**
+	 * Cancels the given resolutions and waits until all of them returned, so
+	 * that no location is still being written once the target resolution
+	 * returns or the next one starts.
+	 *
+	 * @param resolutions the resolutions started by
+	 *            {@link #startResolutions(ITargetLocation[], Map, IProgressMonitor)}
+	 * @param workerMonitor the progress monitor shared by the resolutions
+	 */
+	private static void cancelResolutions(Collection<Future<IStatus>> resolutions, IProgressMonitor workerMonitor) {
+		workerMonitor.setCanceled(true);
+		boolean interrupted = false;
+		for (Future<IStatus> resolution : resolutions) {
+			// not cancelling the future, which would not wait for a running resolution
+			while (!resolution.isDone()) {
+				try {
+					resolution.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					// only waiting for the resolution to return
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Waits for a location started by
+	 * {@link #startResolutions(ITargetLocation[], Map, IProgressMonitor)} to be
+	 * resolved, cancelling all resolutions if the given monitor is cancelled.
+	 *
+	 * @param resolution the pending resolution
+	 * @param monitor the progress monitor of the target resolution
+	 * @param workerMonitor the progress monitor shared by the resolutions
+	 * @return the status of the resolution or a cancel status
+	 */
+	private static IStatus joinResolution(Future<IStatus> resolution, IProgressMonitor monitor, IProgressMonitor workerMonitor) {
+		while (true) {
+			if (monitor.isCanceled()) {
+				workerMonitor.setCanceled(true);
+				return Status.CANCEL_STATUS;
+			}
+			try {
+				return resolution.get(100, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check for cancellation again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				workerMonitor.setCanceled(true);
+				return Status.CANCEL_STATUS;
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				return new Status(IStatus.ERROR, PDECore.PLUGIN_ID, cause.getMessage(), cause);
+			}
+		}
+	}
+
 	@Override
 	public boolean isResolved() {
 		ITargetLocation[] containers = getTargetLocations();
@@ -335,7 +520,7 @@ public class TargetDefinition implements ITargetDefinition {
 
 				// Check if any of the included bundles have problems
 				// build status from bundle list
-				TargetBundle[] bundles = getBundles();
+				TargetBundle[] bundles = getBundles(false);
 				for (int i = 0; i < bundles.length; i++) {
 					if (!bundles[i].getStatus().isOK()) {
 						result.add(bundles[i].getStatus());
@@ -365,12 +550,15 @@ public class TargetDefinition implements ITargetDefinition {
 
 	@Override
 	public TargetBundle[] getBundles() {
-		return getBundles(false);
+		TargetBundle[] bundles = getBundles(false);
+		// the array is cached, callers must not modify it
+		return bundles == null ? null : bundles.clone();
 	}
 
 	@Override
 	public TargetBundle[] getAllBundles() {
-		return getBundles(true);
+		TargetBundle[] bundles = getBundles(true);
+		return bundles == null ? null : bundles.clone();
 	}
 
 	/**
@@ -384,32 +572,63 @@ public class TargetDefinition implements ITargetDefinition {
 		if (isResolved()) {
 			ITargetLocation[] containers = getTargetLocations();
 			if (containers != null) {
-				List<TargetBundle> all = new ArrayList<>();
-				for (ITargetLocation container : containers) {
-					TargetBundle[] bundles = container.getBundles();
-					if (bundles != null) {
-						for (TargetBundle rb : bundles) {
-							all.add(rb);
-						}
-					}
-				}
-
-				TargetBundle[] allResolvedBundles = all.toArray(new TargetBundle[all.size()]);
+				TargetBundleIndex index = getBundleIndex(containers);
 				if (allBundles) {
-					return allResolvedBundles;
+					return index.getAllBundles();
+				}
+				NameVersionDescriptor[] included = getIncluded();
+				if (included == null) {
+					// No filtering to do
+					return index.getAllBundles();
+				}
+				IncludedBundles includedBundles = fIncludedBundles;
+				if (includedBundles == null || includedBundles.index != index || includedBundles.included != included) {
+					includedBundles = new IncludedBundles(index, included, filterBundles(index, included));
+					fIncludedBundles = includedBundles;
 				}
-				return filterBundles(allResolvedBundles, getIncluded());
+				return includedBundles.bundles;
 			}
 			return new TargetBundle[0];
 		}
 		return null;
 	}
 
-	private TargetBundle[] filterBundles(TargetBundle[] bundles, NameVersionDescriptor[] filter) {
-		if (filter == null) {
-			// No filtering to do
-			return bundles;
+	/**
+	 * Returns the index of the bundles of the given resolved locations, only
+	 * building it again when the target or the bundles of a location changed.
+	 *
+	 * @param containers the resolved locations of this target
+	 * @return the bundle index
+	 */
+	private TargetBundleIndex getBundleIndex(ITargetLocation[] containers) {
+		TargetBundle[][] sources = new TargetBundle[containers.length][];
+		for (int i = 0; i < containers.length; i++) {
+			sources[i] = containers[i].getBundles();
+		}
+		BundleIndexEntry entry = fBundleIndex;
+		if (entry != null && entry.sequenceNumber == fSequenceNumber && entry.sources.length == sources.length) {
+			boolean same = true;
+			for (int i = 0; i < sources.length && same; i++) {
+				same = entry.sources[i] == sources[i];
+			}
+			if (same) {
+				return entry.index;
+			}
+		}
+		List<TargetBundle> all = new ArrayList<>();
+		for (TargetBundle[] bundles : sources) {
+			if (bundles != null) {
+				for (TargetBundle rb : bundles) {
+					all.add(rb);
+				}
+			}
 		}
+		TargetBundleIndex index = new TargetBundleIndex(all.toArray(new TargetBundle[all.size()]));
+		fBundleIndex = new BundleIndexEntry(index, fSequenceNumber, sources);
+		return index;
+	}
+
+	private TargetBundle[] filterBundles(TargetBundleIndex index, NameVersionDescriptor[] filter) {
 		if (filter.length == 0) {
 			return new TargetBundle[0];
 		}
@@ -420,6 +639,9 @@ public class TargetDefinition implements ITargetDefinition {
 		// If there are any included features that are missing, add errors as resolved bundles (the same thing we would do for missing bundles)
 		List<NameVersionDescriptor> missingFeatures = new ArrayList<>();
 
+		// features by id, built for the first feature filter
+		Map<String, List<TargetFeature>> featuresById = null;
+
 		List<NameVersionDescriptor> included = new ArrayList<>();
 		// For feature filters, get the list of included bundles, for bundle filters just add them to the list
 		for (NameVersionDescriptor element : filter) {
@@ -427,10 +649,21 @@ public class TargetDefinition implements ITargetDefinition {
 				included.add(element);
 			} else if (element.getType() == NameVersionDescriptor.TYPE_FEATURE) {
 				containsFeatures = true;
-				TargetFeature[] features = getAllFeatures();
+				if (featuresById == null) {
+					featuresById = new HashMap<>();
+					for (TargetFeature feature : getAllFeatures()) {
+						List<TargetFeature> features = featuresById.get(feature.getId());
+						if (features == null) {
+							features = new ArrayList<>(1);
+							featuresById.put(feature.getId(), features);
+						}
+						features.add(feature);
+					}
+				}
+				List<TargetFeature> features = featuresById.get(element.getId());
 				TargetFeature bestMatch = null;
-				for (TargetFeature feature : features) {
-					if (feature.getId().equals(element.getId())) {
+				if (features != null) {
+					for (TargetFeature feature : features) {
 						if (element.getVersion() != null) {
 							// Try to find an exact feature match
 							if (element.getVersion().equals(feature.getVersion())) {
@@ -467,7 +700,7 @@ public class TargetDefinition implements ITargetDefinition {
 		}
 
 		// Return matching bundles, if we are organizing by feature, do not create invalid target bundles for missing bundle includes
-		List<TargetBundle> result = getMatchingBundles(bundles, included.toArray(new NameVersionDescriptor[included.size()]), !containsFeatures);
+		List<TargetBundle> result = index.getMatchingBundles(included.toArray(new NameVersionDescriptor[included.size()]), !containsFeatures);
 
 		// Add in missing features as resolved bundles with error statuses
 		if (containsFeatures && !missingFeatures.isEmpty()) {
@@ -482,139 +715,6 @@ public class TargetDefinition implements ITargetDefinition {
 		return result.toArray(new TargetBundle[result.size()]);
 	}
 
-	/**
-	 * Returns bundles from the specified collection that match the symbolic names
-	 * and/or version in the specified criteria. When no version is specified
-	 * the newest version (if any) is selected.
-	 * <p>
-	 * If handleMissingBundles is <code>true</code>, the returned list will contain {@link InvalidTargetBundle}s
-	 * for any included filters that do not have a matching bundle in the collection. The invalid bundles
-	 * will contain statuses describing what couldn't be matched.
-	 * </p>
-	 * @param collection bundles to resolve against match criteria
-	 * @param included bundles to include or <code>null</code> if no restrictions
-	 * @param handleMissingBundles whether to create {@link InvalidTargetBundle}s for missing includes
-	 *
-	 * @return list of IResolvedBundle bundles that match this container's restrictions
-	 */
-	static List<TargetBundle> getMatchingBundles(TargetBundle[] collection, NameVersionDescriptor[] included, boolean handleMissingBundles) {
-		if (included == null) {
-			ArrayList<TargetBundle> result = new ArrayList<>();
-			result.addAll(Arrays.asList(collection));
-			return result;
-		}
-		// map bundles names to available versions
-		Map<String, List<TargetBundle>> bundleMap = new HashMap<>(collection.length);
-		for (TargetBundle resolved : collection) {
-			List<TargetBundle> list = bundleMap.get(resolved.getBundleInfo().getSymbolicName());
-			if (list == null) {
-				list = new ArrayList<>(3);
-				bundleMap.put(resolved.getBundleInfo().getSymbolicName(), list);
-			}
-			list.add(resolved);
-		}
-		List<TargetBundle> resolved = new ArrayList<>();
-
-		for (NameVersionDescriptor element : included) {
-			BundleInfo info = new BundleInfo(element.getId(), element.getVersion(), null, BundleInfo.NO_LEVEL, false);
-			TargetBundle bundle = resolveBundle(bundleMap, info, handleMissingBundles);
-			if (bundle != null) {
-				resolved.add(bundle);
-			}
-		}
-
-		return resolved;
-	}
-
-	/**
-	 * Resolves a bundle for the given info from the given map. The map contains
-	 * keys of symbolic names and values are lists of {@link TargetBundle}'s available
-	 * that match the names.
-	 * <p>
-	 * If handleMissingBundles is <code>true</code>, a {@link InvalidTargetBundle} will be created and
-	 * returned if the give info does not match up with a map entry. The returned bundle will have
-	 * a status giving more details on what is missing. If handleMissingBundles is <code>false</code>,
-	 * <code>null</code> will be returned.
-	 * </p>
-	 *
-	 * @param bundleMap available bundles to resolve against
-	 * @param info name and version to match against
-	 * @param handleMissingBundles whether to return an {@link InvalidTargetBundle} for a info that does not match with a map entry or <code>null</code>
-	 * @return resolved bundle or <code>null</code>
-	 */
-	private static TargetBundle resolveBundle(Map<String, List<TargetBundle>> bundleMap, BundleInfo info, boolean handleMissingBundles) {
-		List<TargetBundle> list = bundleMap.get(info.getSymbolicName());
-		if (list != null) {
-			String version = info.getVersion();
-			if (version == null || version.equals(BundleInfo.EMPTY_VERSION)) {
-				// select newest
-				if (list.size() > 1) {
-					// sort the list
-					Collections.sort(list, new Comparator<Object>() {
-						@Override
-						public int compare(Object o1, Object o2) {
-							BundleInfo b1 = ((TargetBundle) o1).getBundleInfo();
-							BundleInfo b2 = ((TargetBundle) o2).getBundleInfo();
-							try {
-								Version v1 = Version.create(b1.getVersion());
-								Version v2 = Version.create(b2.getVersion());
-								return v1.compareTo(v2);
-							} catch (IllegalArgumentException e) {
-								// If one of the bundles has a bad version
-								PDECore.log(e);
-								return b1.getVersion().compareTo(b2.getVersion());
-							}
-						}
-					});
-				}
-				// select the last one
-				TargetBundle rb = list.get(list.size() - 1);
-				return rb;
-			}
-			Iterator<?> iterator = list.iterator();
-			while (iterator.hasNext()) {
-				TargetBundle bundle = (TargetBundle) iterator.next();
-				if (bundle.getBundleInfo().getVersion().equals(version)) {
-					return bundle;
-				}
-			}
-			// If major, minor and micro components of the version match, return
-			// that bundle
-			iterator = list.iterator();
-			while (iterator.hasNext()) {
-				TargetBundle bundle = (TargetBundle) iterator.next();
-				try{
-					org.osgi.framework.Version bundleVersion = new org.osgi.framework.Version(bundle.getBundleInfo().getVersion());
-					org.osgi.framework.Version infoVersion = new org.osgi.framework.Version(version);
-					if (bundleVersion.getMajor() == infoVersion.getMajor()
-							&& bundleVersion.getMinor() == infoVersion.getMinor()
-							&& bundleVersion.getMicro() == infoVersion.getMicro()) {
-						return bundle;
-					}
-				}
-				catch (IllegalArgumentException e) {
-					// invalid version, do nothing, check the next bundle.
-				}
-			}
-			// VERSION DOES NOT EXIST
-			if (!handleMissingBundles) {
-				return null;
-			}
-			int sev = IStatus.ERROR;
-			String message = NLS.bind(Messages.AbstractBundleContainer_1, new Object[] {info.getVersion(), info.getSymbolicName()});
-			IStatus status = new Status(sev, PDECore.PLUGIN_ID, TargetBundle.STATUS_VERSION_DOES_NOT_EXIST, message, null);
-			return new InvalidTargetBundle(info, status);
-		}
-		// DOES NOT EXIST
-		if (!handleMissingBundles) {
-			return null;
-		}
-		int sev = IStatus.ERROR;
-		String message = NLS.bind(Messages.AbstractBundleContainer_3, info.getSymbolicName());
-		IStatus status = new Status(sev, PDECore.PLUGIN_ID, TargetBundle.STATUS_PLUGIN_DOES_NOT_EXIST, message, null);
-		return new InvalidTargetBundle(info, status);
-	}
-
 	@Override
 	public ITargetHandle getHandle() {
 		return fHandle;
@@ -930,7 +1030,7 @@ public class TargetDefinition implements ITargetDefinition {
 			return fOtherBundles;
 		}
 
-		TargetBundle[] allBundles = getAllBundles();
+		TargetBundle[] allBundles = getBundles(true);
 		Map<String, TargetBundle> remaining = new HashMap<>();
 		for (TargetBundle allBundle : allBundles) {
 			remaining.put(allBundle.getBundleInfo().getSymbolicName(), allBundle);
@@ -976,19 +1076,32 @@ public class TargetDefinition implements ITargetDefinition {
 			return result;
 		}
 
+		// other bundles have unique names, features are grouped by id
+		Map<String, TargetBundle> bundlesByName = new HashMap<>(allExtraBundles.length);
+		for (TargetBundle allExtraBundle : allExtraBundles) {
+			bundlesByName.put(allExtraBundle.getBundleInfo().getSymbolicName(), allExtraBundle);
+		}
+		Map<String, List<TargetFeature>> featuresById = new HashMap<>(allFeatures.length);
+		for (TargetFeature allFeature : allFeatures) {
+			List<TargetFeature> features = featuresById.get(allFeature.getId());
+			if (features == null) {
+				features = new ArrayList<>(1);
+				featuresById.put(allFeature.getId(), features);
+			}
+			features.add(allFeature);
+		}
+
 		Set<Object> result = new HashSet<>();
 		for (NameVersionDescriptor element : included) {
 			if (element.getType() == NameVersionDescriptor.TYPE_PLUGIN) {
-				for (TargetBundle allExtraBundle : allExtraBundles) {
-					if (allExtraBundle.getBundleInfo().getSymbolicName().equals(element.getId())) {
-						result.add(allExtraBundle);
-					}
+				TargetBundle bundle = bundlesByName.get(element.getId());
+				if (bundle != null) {
+					result.add(bundle);
 				}
 			} else if (element.getType() == NameVersionDescriptor.TYPE_FEATURE) {
-				for (TargetFeature allFeature : allFeatures) {
-					if (allFeature.getId().equals(element.getId())) {
-						result.add(allFeature);
-					}
+				List<TargetFeature> features = featuresById.get(element.getId());
+				if (features != null) {
+					result.addAll(features);
 				}
 			}
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2014 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -306,7 +306,10 @@ public class ManifestUtils {
 
 		Dictionary<String, String> convert;
 		try {
-			convert = converter.convertManifest(pluginLocation, false, null, false, null);
+			// manifests may be loaded concurrently, do not assume the converter is thread safe
+			synchronized (converter) {
+				convert = converter.convertManifest(pluginLocation, false, null, false, null);
+			}
 		} catch (PluginConversionException e) {
 			throw new CoreException(new Status(IStatus.ERROR, PDECore.PLUGIN_ID, NLS.bind(UtilMessages.ErrorReadingOldStyleManifest, pluginLocation.getAbsolutePath()), e));
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Red Hat Inc. and others
+ * Copyright (c) 2016, 2017 Red Hat Inc. and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -65,8 +65,9 @@ public class TargetDefinitionContentAssist implements IContentAssistProcessor {
 	public ICompletionProposal[] computeCompletionProposals(ITextViewer viewer, int offset) {
 		IDocument document = viewer.getDocument();
 		String text = document.get();
+		Parser parser = Parser.getParser(document);
 		try {
-			Parser.getDefault().parse(document);
+			parser.parse(document);
 		} catch (XMLStreamException e) {
 			// TODO handle parsing errors
 		}
@@ -87,7 +88,8 @@ public class TargetDefinitionContentAssist implements IContentAssistProcessor {
 		}
 
 		if (completionType == COMPLETION_TYPE_ATTRIBUTE_VALUE) {
-			AttributeValueCompletionProcessor processor = new AttributeValueCompletionProcessor(prefix, acKey, offset);
+			AttributeValueCompletionProcessor processor = new AttributeValueCompletionProcessor(prefix, acKey, offset,
+					parser.getRootNode());
 			return processor.getCompletionProposals();
 		}
 
@@ -13,6 +13,7 @@ package org.eclipse.pde.internal.genericeditor.target.extension.autocomplete.pro
 import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.text.contentassist.CompletionProposal;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.pde.internal.genericeditor.target.extension.autocomplete.InstallableUnitProposal;
@@ -21,7 +22,6 @@ import org.eclipse.pde.internal.genericeditor.target.extension.model.LocationNod
 import org.eclipse.pde.internal.genericeditor.target.extension.model.RepositoryCache;
 import org.eclipse.pde.internal.genericeditor.target.extension.model.TargetNode;
 import org.eclipse.pde.internal.genericeditor.target.extension.model.UnitNode;
-import org.eclipse.pde.internal.genericeditor.target.extension.model.xml.Parser;
 import org.eclipse.pde.internal.genericeditor.target.extension.p2.UpdateJob;
 
 /**
@@ -34,17 +34,17 @@ public class AttributeValueCompletionProcessor extends DelegateProcessor {
 	private String prefix;
 	private String acKey;
 	private int offset;
+	private TargetNode rootNode;
 
-	public AttributeValueCompletionProcessor(String prefix, String acKey, int offset) {
+	public AttributeValueCompletionProcessor(String prefix, String acKey, int offset, TargetNode rootNode) {
 		this.prefix = prefix;
 		this.acKey = acKey;
 		this.offset = offset;
+		this.rootNode = rootNode;
 	}
 
 	@Override
 	public ICompletionProposal[] getCompletionProposals() {
-		Parser parser = Parser.getDefault();
-		TargetNode rootNode = parser.getRootNode();
 		if (rootNode == null)
 			return new ICompletionProposal[] {};
 
@@ -60,9 +60,13 @@ public class AttributeValueCompletionProcessor extends DelegateProcessor {
 				}
 				RepositoryCache cache = RepositoryCache.getDefault();
 				if (!cache.isUpToDate(repoLocation)) {
-					scheduleUpdateJob(location);
+					scheduleUpdateJob(location, true);
 					return getInformativeProposal();
 				}
+				if (cache.isStale(repoLocation)) {
+					// offer the stored units while they are revalidated
+					scheduleUpdateJob(location, false);
+				}
 				List<UnitNode> units = cache.getUnitsByPrefix(repoLocation, prefix);
 				replaceId = !("".equals(node.getId()));//$NON-NLS-1$
 				return convertToProposals(units, replaceId);
@@ -80,11 +84,18 @@ public class AttributeValueCompletionProcessor extends DelegateProcessor {
 				}
 				RepositoryCache cache = RepositoryCache.getDefault();
 				if (!cache.isUpToDate(repoLocation)) {
-					scheduleUpdateJob(location);
+					scheduleUpdateJob(location, true);
 					return getInformativeProposal();
 				}
-				List<UnitNode> byPrefix = cache.getUnitsByPrefix(repoLocation, node.getId());
-				List<String> versions = byPrefix.get(0).getAvailableVersions();
+				if (cache.isStale(repoLocation)) {
+					// offer the stored units while they are revalidated
+					scheduleUpdateJob(location, false);
+				}
+				UnitNode unit = cache.getUnit(repoLocation, node.getId());
+				if (unit == null) {
+					return new ICompletionProposal[] {};
+				}
+				List<String> versions = unit.getAvailableVersions();
 				replaceVersion = !("".equals(node.getVersion()));//$NON-NLS-1$
 				return convertToVersionProposals(versions, replaceVersion);
 			}
@@ -94,9 +105,14 @@ public class AttributeValueCompletionProcessor extends DelegateProcessor {
 		return new ICompletionProposal[] {};
 	}
 
-	private void scheduleUpdateJob(LocationNode location) {
+	private void scheduleUpdateJob(LocationNode location, boolean user) {
+		if (Job.getJobManager().find(location.getRepositoryLocation()).length > 0) {
+			// the repository is already being fetched
+			return;
+		}
 		UpdateJob job = new UpdateJob(location);
-		job.setUser(true);
+		job.setUser(user);
+		job.setSystem(!user);
 		job.schedule();
 	}
 
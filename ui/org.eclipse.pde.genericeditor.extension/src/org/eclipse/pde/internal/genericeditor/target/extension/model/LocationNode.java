@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Red Hat Inc. and others
+ * Copyright (c) 2016, 2017 Red Hat Inc. and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -44,4 +44,12 @@ public class LocationNode extends Node {
 		return units;
 	}
 
+	@Override
+	public void shift(int delta) {
+		super.shift(delta);
+		for (UnitNode unit : units) {
+			unit.shift(delta);
+		}
+	}
+
 }
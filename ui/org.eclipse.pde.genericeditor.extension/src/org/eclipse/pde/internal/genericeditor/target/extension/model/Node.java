@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Red Hat Inc. and others
+ * Copyright (c) 2016, 2017 Red Hat Inc. and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -43,4 +43,15 @@ public class Node {
 		this.nodeText = nodeText;
 	}
 
+	/**
+	 * Moves this node after text was inserted or removed before it.
+	 *
+	 * @param delta
+	 *            the number of characters inserted, negative if removed
+	 */
+	public void shift(int delta) {
+		offsetStart += delta;
+		offsetEnd += delta;
+	}
+
 }
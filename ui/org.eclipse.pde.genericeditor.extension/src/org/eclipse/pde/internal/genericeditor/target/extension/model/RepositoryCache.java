@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Red Hat Inc. and others
+ * Copyright (c) 2016, 2017 Red Hat Inc. and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,12 +10,20 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.genericeditor.target.extension.model;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.eclipse.pde.internal.genericeditor.target.extension.model.RepositoryCacheFile.Listing;
 import org.eclipse.pde.internal.genericeditor.target.extension.p2.P2Fetcher;
+import org.eclipse.pde.internal.genericeditor.target.extension.p2.P2Fetcher.RepositoryContent;
 
 /**
  * This class is used to cache the p2 repositories completion information order
@@ -24,15 +32,96 @@ import org.eclipse.pde.internal.genericeditor.target.extension.p2.P2Fetcher;
  *
  * There will be only one cache shared between editors. In the future a function
  * will be added for the user to be able to flush this cache.
+ *
+ * The units of each repository are kept sorted by id so that prefix lookups
+ * done on every completion request do not scan the whole repository. The cache
+ * may be read by the editors while a background job refreshes it; a
+ * refreshed repository replaces the previous one at once.
+ *
+ * The listings are stored in the state location of the plug-in. After a
+ * restart they are offered right away, even when offline, and are revalidated
+ * against the time stamp of the repository in the background. A repository
+ * that cannot be reached keeps its stored units and is not revalidated again
+ * until the next start or an explicit update.
  */
 public class RepositoryCache {
 
-	private static RepositoryCache instance;
+	private static final RepositoryCache instance = new RepositoryCache();
+
+	private final Map<String, UnitIndex> cache = new ConcurrentHashMap<>();
+
+	private final RepositoryCacheFile file;
+	private volatile boolean loaded;
 
-	Map<String, List<UnitNode>> cache = new HashMap<>();
+	/**
+	 * The units of a repository sorted by id, with a lookup by exact id.
+	 */
+	private static class UnitIndex {
+
+		private final Listing listing;
+		private final List<UnitNode> units;
+		private final UnitNode[] sorted;
+		private final String[] ids;
+		private final Map<String, UnitNode> byId;
+		/**
+		 * Whether the units were fetched or revalidated since the start, or the
+		 * repository could not be reached to revalidate them
+		 */
+		private final boolean revalidated;
+
+		private UnitIndex(UnitIndex stale) {
+			listing = stale.listing;
+			units = stale.units;
+			sorted = stale.sorted;
+			ids = stale.ids;
+			byId = stale.byId;
+			revalidated = true;
+		}
+
+		UnitIndex(Listing listing, boolean revalidated) {
+			this.listing = listing;
+			this.revalidated = revalidated;
+			List<UnitNode> units = listing.units;
+			this.units = Collections.unmodifiableList(units);
+			sorted = units.toArray(new UnitNode[units.size()]);
+			Arrays.sort(sorted, Comparator.comparing(UnitNode::getId));
+			ids = new String[sorted.length];
+			byId = new HashMap<>(sorted.length * 4 / 3 + 1);
+			for (int i = 0; i < sorted.length; i++) {
+				ids[i] = sorted[i].getId();
+				byId.putIfAbsent(ids[i], sorted[i]);
+			}
+		}
+
+		List<UnitNode> getUnitsByPrefix(String prefix) {
+			// ids starting with the prefix are contiguous and follow the prefix
+			int from = Arrays.binarySearch(ids, prefix);
+			if (from < 0) {
+				from = -from - 1;
+			}
+			int to = from;
+			while (to < ids.length && ids[to].startsWith(prefix)) {
+				to++;
+			}
+			return Collections.unmodifiableList(Arrays.asList(sorted).subList(from, to));
+		}
+	}
 
 	private RepositoryCache() {
 		//avoid instantiation
+		file = RepositoryCacheFile.getDefault();
+	}
+
+	/**
+	 * Creates a cache that stores the listings in the given file instead of the
+	 * state location of the plug-in. Used by the tests, editors share the
+	 * {@link #getDefault() default} cache.
+	 *
+	 * @param storage
+	 *            the file to store the listings in
+	 */
+	public RepositoryCache(File storage) {
+		file = new RepositoryCacheFile(storage);
 	}
 
 	/**
@@ -40,9 +129,6 @@ public class RepositoryCache {
 	 */
 
 	public static RepositoryCache getDefault() {
-		if (instance == null) {
-			instance = new RepositoryCache();
-		}
 		return instance;
 	}
 
@@ -53,14 +139,35 @@ public class RepositoryCache {
 	 *            repository URL
 	 * @param flush
 	 *            whether a flush is needed
-	 * @return list of IUs available in the 'repo' repository
+	 * @return list of IUs available in the 'repo' repository or <code>null</code>
+	 *         if the repository cannot be loaded
 	 */
 	public List<UnitNode> fetchP2UnitsFromRepo(String repo, boolean flush) {
-		if ((flush) || (cache.get(repo) == null)) {
-			List<UnitNode> units = P2Fetcher.fetchAvailableUnits(repo);
-			cache.put(repo, units);
+		load();
+		UnitIndex index = cache.get(repo);
+		if (index == null || flush) {
+			// fetched without blocking the readers of the cache
+			RepositoryContent content = P2Fetcher.fetchAvailableUnits(repo,
+					index == null ? null : index.listing.timestamp);
+			if (content == null) {
+				if (index != null && !index.revalidated) {
+					// keep offering the stored units without trying again on
+					// every completion
+					cache.put(repo, new UnitIndex(index));
+				}
+				return null;
+			}
+			if (content.getUnits() == null) {
+				// the repository did not change
+				index = new UnitIndex(index);
+				cache.put(repo, index);
+			} else {
+				index = new UnitIndex(new Listing(content.getTimestamp(), content.getUnits()), true);
+				cache.put(repo, index);
+				save();
+			}
 		}
-		return cache.get(repo);
+		return index.units;
 	}
 
 	/**
@@ -78,17 +185,39 @@ public class RepositoryCache {
 	 *            repository URL
 	 * @param prefix
 	 *            A prefix used to narrow down the match list
-	 * @return A list of IUs whose id starts with 'prefix'
+	 * @return A list of IUs whose id starts with 'prefix', sorted by id
 	 */
 	public List<UnitNode> getUnitsByPrefix(String repo, String prefix) {
-		List<UnitNode> allUnits = fetchP2UnitsFromRepo(repo, false);
-		List<UnitNode> result = new ArrayList<>();
-		for (UnitNode unit : allUnits) {
-			if (unit.getId().startsWith(prefix)) {
-				result.add(unit);
-			}
+		UnitIndex index = getIndex(repo);
+		if (index == null) {
+			return new ArrayList<>();
+		}
+		return index.getUnitsByPrefix(prefix);
+	}
+
+	/**
+	 * Returns the unit with the given id, which holds the available versions of
+	 * the unit.
+	 *
+	 * @param repo
+	 *            repository URL
+	 * @param id
+	 *            the id of the unit
+	 * @return the unit or <code>null</code> if the repository has no unit with
+	 *         this id
+	 */
+	public UnitNode getUnit(String repo, String id) {
+		UnitIndex index = getIndex(repo);
+		return index == null ? null : index.byId.get(id);
+	}
+
+	private UnitIndex getIndex(String repo) {
+		load();
+		UnitIndex index = cache.get(repo);
+		if (index == null && fetchP2UnitsFromRepo(repo, false) != null) {
+			index = cache.get(repo);
 		}
-		return result;
+		return index;
 	}
 
 	/**
@@ -99,13 +228,67 @@ public class RepositoryCache {
 	 * @return whether the cache is up to date for this repo
 	 */
 	public boolean isUpToDate(String repo) {
+		load();
 		return cache.get(repo) != null;
 	}
 
+	/**
+	 * Checks whether the units of a repository were read from the stored
+	 * cache and not yet revalidated against the repository.
+	 *
+	 * @param repo
+	 *            repository URL
+	 * @return whether the units of the repository should be fetched again
+	 */
+	public boolean isStale(String repo) {
+		load();
+		UnitIndex index = cache.get(repo);
+		return index != null && !index.revalidated;
+	}
+
 	/**
 	 * Used to flush cache in case P2 repo information is considered stale.
 	 */
 	public void flush() {
-		cache.clear();
+		synchronized (this) {
+			loaded = true;
+			cache.clear();
+			if (file != null) {
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Reads the stored listings once.
+	 */
+	private void load() {
+		if (loaded) {
+			return;
+		}
+		synchronized (this) {
+			if (!loaded) {
+				if (file != null) {
+					for (Entry<String, Listing> entry : file.read().entrySet()) {
+						cache.putIfAbsent(entry.getKey(), new UnitIndex(entry.getValue(), false));
+					}
+				}
+				loaded = true;
+			}
+		}
+	}
+
+	/**
+	 * Stores the listings of all repositories.
+	 */
+	private synchronized void save() {
+		if (file == null) {
+			return;
+		}
+		Map<String, Listing> listings = new HashMap<>();
+		for (Entry<String, UnitIndex> entry : cache.entrySet()) {
+			listings.put(entry.getKey(), entry.getValue().listing);
+		}
+		file.write(listings);
 	}
 }
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sopot Cela (Red Hat Inc.)
+ *******************************************************************************/
+package org.eclipse.pde.internal.genericeditor.target.extension.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Stores the unit listings of the repositories in the state location of the
+ * plug-in, so that content assist can offer units before the repositories are
+ * loaded again after a restart.
+ */
+class RepositoryCacheFile {
+
+	/**
+	 * The units of a repository and the time stamp of the repository they were
+	 * read from.
+	 */
+	static class Listing {
+		final String timestamp;
+		final List<UnitNode> units;
+
+		Listing(String timestamp, List<UnitNode> units) {
+			this.timestamp = timestamp;
+			this.units = units;
+		}
+	}
+
+	private static final String FILE_NAME = "repositories.cache"; //$NON-NLS-1$
+	private static final int MAGIC = 0x50324355; // "P2CU"
+	private static final int FORMAT_VERSION = 1;
+
+	private final File file;
+
+	RepositoryCacheFile(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * @return the file in the state location of the plug-in or
+	 *         <code>null</code> if there is no state location
+	 */
+	static RepositoryCacheFile getDefault() {
+		try {
+			File location = Platform.getStateLocation(FrameworkUtil.getBundle(RepositoryCacheFile.class)).toFile();
+			return new RepositoryCacheFile(new File(location, FILE_NAME));
+		} catch (IllegalStateException e) {
+			// no instance location
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the stored listings.
+	 *
+	 * @return the listings by repository location, empty if the file does not
+	 *         exist or cannot be read
+	 */
+	Map<String, Listing> read() {
+		Map<String, Listing> listings = new HashMap<>();
+		if (!file.isFile()) {
+			return listings;
+		}
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				return listings;
+			}
+			int repositoryCount = in.readInt();
+			for (int i = 0; i < repositoryCount; i++) {
+				String location = in.readUTF();
+				String timestamp = readString(in);
+				int unitCount = in.readInt();
+				List<UnitNode> units = new ArrayList<>(unitCount);
+				for (int j = 0; j < unitCount; j++) {
+					UnitNode unit = new UnitNode();
+					unit.setId(in.readUTF());
+					unit.setVersion(readString(in));
+					int versionCount = in.readInt();
+					List<String> versions = new ArrayList<>(versionCount);
+					for (int k = 0; k < versionCount; k++) {
+						versions.add(in.readUTF());
+					}
+					unit.setAvailableVersions(versions);
+					units.add(unit);
+				}
+				listings.put(location, new Listing(timestamp, units));
+			}
+		} catch (IOException e) {
+			// a corrupt cache is fetched again
+			listings.clear();
+		}
+		return listings;
+	}
+
+	/**
+	 * Replaces the stored listings.
+	 *
+	 * @param listings
+	 *            the listings by repository location
+	 */
+	void write(Map<String, Listing> listings) {
+		File temp = new File(file.getParentFile(), file.getName() + ".tmp"); //$NON-NLS-1$
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(temp))))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(listings.size());
+				for (Entry<String, Listing> entry : listings.entrySet()) {
+					out.writeUTF(entry.getKey());
+					writeString(out, entry.getValue().timestamp);
+					List<UnitNode> units = entry.getValue().units;
+					out.writeInt(units.size());
+					for (UnitNode unit : units) {
+						out.writeUTF(unit.getId());
+						writeString(out, unit.getVersion());
+						List<String> versions = new ArrayList<>();
+						for (String version : unit.getAvailableVersions()) {
+							if (version != null) {
+								versions.add(version);
+							}
+						}
+						out.writeInt(versions.size());
+						for (String version : versions) {
+							out.writeUTF(version);
+						}
+					}
+				}
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Bundle bundle = FrameworkUtil.getBundle(RepositoryCacheFile.class);
+			Platform.getLog(bundle).log(new Status(IStatus.ERROR, bundle.getSymbolicName(),
+					"Failed to write the repository listings to " + file, e)); //$NON-NLS-1$
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Deletes the stored listings.
+	 */
+	void delete() {
+		file.delete();
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Red Hat Inc. and others
+ * Copyright (c) 2016, 2017 Red Hat Inc. and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,11 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.genericeditor.target.extension.model.xml;
 
-import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.Location;
@@ -23,7 +27,9 @@ import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
 
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.pde.internal.genericeditor.target.extension.model.ITargetConstants;
 import org.eclipse.pde.internal.genericeditor.target.extension.model.LocationNode;
 import org.eclipse.pde.internal.genericeditor.target.extension.model.TargetNode;
@@ -31,15 +37,52 @@ import org.eclipse.pde.internal.genericeditor.target.extension.model.UnitNode;
 
 /**
  * Class used to parse the XML code into the model.
+ *
+ * There is one parser per document. The parser listens to the changes of its
+ * document and, when the changes are contained in a single &ltlocation&gt, only
+ * parses that location again and keeps the other nodes.
  */
-public class Parser {
+public class Parser implements IDocumentListener {
 
-	private static Parser instance;
+	/**
+	 * Parsers by document. A parser does not reference its document, so that
+	 * closed documents can be collected.
+	 */
+	private static final Map<IDocument, Parser> parsers = new WeakHashMap<>();
 
 	private LocationNode locationNode;
 	private TargetNode target;
 	private UnitNode unit;
 
+	/**
+	 * The locations parsed from a part of the document or <code>null</code>
+	 * when parsing the whole document
+	 */
+	private List<LocationNode> parsedLocations;
+
+	/**
+	 * Whether the model does not match the document and cannot be updated
+	 * incrementally
+	 */
+	private boolean fullParseNeeded = true;
+
+	/**
+	 * The start of the changed region, before which the model matches the
+	 * document, or -1 if the document did not change since the last parse
+	 */
+	private int dirtyStart = -1;
+
+	/**
+	 * The end of the changed region in the current document
+	 */
+	private int dirtyEnd;
+
+	/**
+	 * The number of characters added to the document since the last parse,
+	 * negative if characters were removed
+	 */
+	private int dirtyDelta;
+
 	private XMLInputFactory inputFactory;
 
 	public Parser() {
@@ -50,18 +93,148 @@ public class Parser {
 		inputFactory = XMLInputFactory.newInstance();
 	}
 
-	public void parse(IDocument document) throws XMLStreamException {
-		ByteArrayInputStream inputStream = new ByteArrayInputStream(document.get().getBytes());
-		XMLEventReader eventReader = inputFactory.createXMLEventReader(inputStream);
+	/**
+	 * Returns the parser of the given document, creating it on first use.
+	 *
+	 * @param document
+	 *            the document of a target definition
+	 * @return the parser whose model follows the document
+	 */
+	public static Parser getParser(IDocument document) {
+		synchronized (parsers) {
+			Parser parser = parsers.get(document);
+			if (parser == null) {
+				parser = new Parser();
+				document.addDocumentListener(parser);
+				parsers.put(document, parser);
+			}
+			return parser;
+		}
+	}
+
+	@Override
+	public void documentAboutToBeChanged(DocumentEvent event) {
+		// changes are recorded once applied
+	}
+
+	@Override
+	public synchronized void documentChanged(DocumentEvent event) {
+		int offset = event.getOffset();
+		int removed = event.getLength();
+		int added = event.getText() == null ? 0 : event.getText().length();
+		if (dirtyStart < 0) {
+			dirtyStart = offset;
+			dirtyEnd = offset + added;
+		} else {
+			dirtyEnd = Math.max(dirtyEnd, offset + removed) + added - removed;
+			dirtyStart = Math.min(dirtyStart, offset);
+		}
+		dirtyDelta += added - removed;
+	}
+
+	/**
+	 * Updates the model to match the document. Only the location containing
+	 * the changes since the last parse is parsed again when possible.
+	 *
+	 * @param document
+	 *            the document of this parser
+	 * @throws XMLStreamException
+	 *             if the document cannot be parsed
+	 */
+	public synchronized void parse(IDocument document) throws XMLStreamException {
+		if (!fullParseNeeded && dirtyStart < 0) {
+			return;
+		}
+		if (fullParseNeeded || !parseChangedLocation(document)) {
+			fullParseNeeded = true;
+			parse(document, document.get(), 0);
+			fullParseNeeded = false;
+		}
+		dirtyStart = -1;
+		dirtyEnd = 0;
+		dirtyDelta = 0;
+	}
+
+	/**
+	 * Parses the location containing the changes since the last parse.
+	 *
+	 * @return <code>true</code> if the model was updated, <code>false</code>
+	 *         if the changes are not contained in a single location
+	 */
+	private boolean parseChangedLocation(IDocument document) {
+		if (target == null) {
+			return false;
+		}
+		// in the coordinates of the model
+		int changeStart = dirtyStart;
+		int changeEnd = dirtyEnd - dirtyDelta;
+		List<LocationNode> locations = target.getNodes();
+		int index = -1;
+		for (int i = 0; i < locations.size(); i++) {
+			LocationNode location = locations.get(i);
+			if (location.getOffsetStart() <= changeStart && changeEnd < location.getOffsetEnd()) {
+				index = i;
+				break;
+			}
+		}
+		if (index < 0) {
+			return false;
+		}
+		LocationNode old = locations.get(index);
+		int start = old.getOffsetStart();
+		int end = old.getOffsetEnd() + dirtyDelta;
+		List<LocationNode> parsed = new ArrayList<>(1);
+		TargetNode oldTarget = target;
+		try {
+			parsedLocations = parsed;
+			parse(document, document.get(start, end - start), document.getLineOfOffset(start));
+		} catch (XMLStreamException | BadLocationException e) {
+			return false;
+		} finally {
+			parsedLocations = null;
+			target = oldTarget;
+		}
+		if (parsed.size() != 1 || parsed.get(0).getOffsetStart() != start || parsed.get(0).getOffsetEnd() != end) {
+			return false;
+		}
+		locations.set(index, parsed.get(0));
+		for (int i = index + 1; i < locations.size(); i++) {
+			locations.get(i).shift(dirtyDelta);
+		}
+		target.setOffsetEnd(target.getOffsetEnd() + dirtyDelta);
+		try {
+			target.setNodeText(document.get(target.getOffsetStart(), target.getOffsetEnd() - target.getOffsetStart()));
+		} catch (BadLocationException e) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Parses the given text of the document.
+	 *
+	 * @param text
+	 *            the whole document, or a location of the document when
+	 *            {@link #parsedLocations} is set
+	 * @param firstLine
+	 *            the line of the document where the text starts
+	 */
+	private void parse(IDocument document, String text, int firstLine) throws XMLStreamException {
+		locationNode = null;
+		unit = null;
+		if (parsedLocations == null) {
+			target = null;
+		}
+		XMLEventReader eventReader = inputFactory.createXMLEventReader(new StringReader(text));
 		while (eventReader.hasNext()) {
 			XMLEvent event = eventReader.nextEvent();
 			Location locator = event.getLocation();
+			int lineNr = firstLine + locator.getLineNumber();
 			if (event.isStartElement()) {
 				StartElement startElement = event.asStartElement();
 				String name = startElement.getName().getLocalPart();
 				if (ITargetConstants.TARGET_TAG.equalsIgnoreCase(name)) {
 					target = new TargetNode();
-					int lineNr = locator.getLineNumber();
 					try {
 						int offset = document.getLineOffset(lineNr - 1);
 						target.setOffsetStart(offset);
@@ -71,7 +244,6 @@ public class Parser {
 				}
 
 				if (ITargetConstants.LOCATION_TAG.equalsIgnoreCase(name)) {
-					int lineNr = locator.getLineNumber();
 					try {
 						int offset = document.getLineOffset(lineNr - 1);
 						locationNode = new LocationNode();
@@ -95,7 +267,6 @@ public class Parser {
 					if (locationNode == null) {
 						return;
 					}
-					int lineNr = locator.getLineNumber();
 					try {
 						int offset = document.getLineOffset(lineNr - 1);
 						unit = new UnitNode();
@@ -120,7 +291,6 @@ public class Parser {
 				EndElement endElement = event.asEndElement();
 				String name = endElement.getName().getLocalPart();
 				if (ITargetConstants.TARGET_TAG.equalsIgnoreCase(name)) {
-					int lineNr = locator.getLineNumber();
 					try {
 						int offset = document.getLineOffset(lineNr - 1);
 						target.setOffsetEnd(offset);
@@ -132,13 +302,15 @@ public class Parser {
 				}
 
 				if (ITargetConstants.LOCATION_TAG.equalsIgnoreCase(name)) {
-					int lineNr = locator.getLineNumber();
-					try {
-						int offset = document.getLineOffset(lineNr - 1);
-						locationNode.setOffsetEnd(offset);
+					if (locationNode == null) {
+						return;
+					}
+					// the location ends with the line of its end tag
+					locationNode.setOffsetEnd(getNextLineOffset(document, lineNr));
+					if (parsedLocations != null) {
+						parsedLocations.add(locationNode);
+					} else if (target != null) {
 						target.getNodes().add(locationNode);
-					} catch (BadLocationException e) {
-						e.printStackTrace();
 					}
 				}
 
@@ -149,24 +321,26 @@ public class Parser {
 					if (locationNode == null) {
 						return;
 					}
-					int lineNr = locator.getLineNumber();
-					try {
-						int offset = document.getLineOffset(lineNr);
-						unit.setOffsetEnd(offset);
-						locationNode.addUnitNode(unit);
-					} catch (BadLocationException e) {
-						e.printStackTrace();
-					}
+					unit.setOffsetEnd(getNextLineOffset(document, lineNr));
+					locationNode.addUnitNode(unit);
 				}
 			}
 		}
 	}
 
-	public static Parser getDefault() {
-		if (instance == null) {
-			instance = new Parser();
+	/**
+	 * @return the offset of the line following the given line, or the length
+	 *         of the document for the last line
+	 */
+	private static int getNextLineOffset(IDocument document, int lineNr) {
+		if (lineNr >= document.getNumberOfLines()) {
+			return document.getLength();
+		}
+		try {
+			return document.getLineOffset(lineNr);
+		} catch (BadLocationException e) {
+			return document.getLength();
 		}
-		return instance;
 	}
 
 	public TargetNode getRootNode() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Red Hat Inc. and others
+ * Copyright (c) 2016, 2017 Red Hat Inc. and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,8 +12,9 @@ package org.eclipse.pde.internal.genericeditor.target.extension.p2;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.IProvisioningAgentProvider;
@@ -21,6 +22,7 @@ import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.query.IQueryResult;
 import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.repository.IRepository;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
 import org.eclipse.pde.internal.genericeditor.target.extension.model.UnitNode;
@@ -34,6 +36,36 @@ import org.osgi.framework.ServiceReference;
  */
 public class P2Fetcher {
 
+	/**
+	 * The units of a repository and the time stamp of the repository they
+	 * were read from.
+	 */
+	public static class RepositoryContent {
+		private final String timestamp;
+		private final List<UnitNode> units;
+
+		RepositoryContent(String timestamp, List<UnitNode> units) {
+			this.timestamp = timestamp;
+			this.units = units;
+		}
+
+		/**
+		 * @return the time stamp of the repository or <code>null</code> if
+		 *         the repository has none
+		 */
+		public String getTimestamp() {
+			return timestamp;
+		}
+
+		/**
+		 * @return the units of the repository or <code>null</code> if the
+		 *         repository did not change since the known time stamp
+		 */
+		public List<UnitNode> getUnits() {
+			return units;
+		}
+	}
+
 	/**
 	 * This methods goes 'online' to make contact with a p2 repo and query it.
 	 *
@@ -42,6 +74,23 @@ public class P2Fetcher {
 	 * @return List of available installable unit models. See {@link UnitNode}
 	 */
 	public static List<UnitNode> fetchAvailableUnits(String repositoryLocation) {
+		RepositoryContent content = fetchAvailableUnits(repositoryLocation, null);
+		return content == null ? null : content.getUnits();
+	}
+
+	/**
+	 * Loads a p2 repo and queries it unless its time stamp is the known one.
+	 *
+	 * @param repositoryLocation
+	 *            URL string of a p2 repository
+	 * @param knownTimestamp
+	 *            the time stamp of the repository when its units were last
+	 *            fetched or <code>null</code>
+	 * @return the content of the repository, without units if the repository
+	 *         has the known time stamp, or <code>null</code> if the repository
+	 *         cannot be loaded
+	 */
+	public static RepositoryContent fetchAvailableUnits(String repositoryLocation, String knownTimestamp) {
 		List<UnitNode> units = new ArrayList<UnitNode>();
 		IQueryResult<IInstallableUnit> result = null;
 		try {
@@ -60,22 +109,33 @@ public class P2Fetcher {
 			IMetadataRepositoryManager manager = (IMetadataRepositoryManager) agent
 					.getService(IMetadataRepositoryManager.SERVICE_NAME);
 			IMetadataRepository repository = manager.loadRepository(new URI(uri), null);
-			result = repository.query(QueryUtil.createLatestIUQuery(), null);
+			String timestamp = repository.getProperty(IRepository.PROP_TIMESTAMP);
+			if (knownTimestamp != null && knownTimestamp.equals(timestamp)) {
+				return new RepositoryContent(timestamp, null);
+			}
+			// a single query for all versions, large repositories hold tens of
+			// thousands of units
+			result = repository.query(QueryUtil.createIUAnyQuery(), null);
 
-			Iterator<IInstallableUnit> iterator = result.iterator();
-			while (iterator.hasNext()) {
-				IInstallableUnit unit = iterator.next();
-				UnitNode modelUnit = new UnitNode();
-				modelUnit.setId(unit.getId());
-				modelUnit.setVersion(unit.getVersion().getOriginal());
-				IQueryResult<IInstallableUnit> versions = repository.query(QueryUtil.createIUQuery(unit.getId()), null);
-				for (IInstallableUnit version : versions) {
-					modelUnit.getAvailableVersions().add(version.getVersion().getOriginal());
+			Map<String, IInstallableUnit> latest = new LinkedHashMap<>();
+			Map<String, UnitNode> modelUnits = new LinkedHashMap<>();
+			for (IInstallableUnit unit : result) {
+				UnitNode modelUnit = modelUnits.get(unit.getId());
+				if (modelUnit == null) {
+					modelUnit = new UnitNode();
+					modelUnit.setId(unit.getId());
+					modelUnits.put(unit.getId(), modelUnit);
+				}
+				modelUnit.getAvailableVersions().add(unit.getVersion().getOriginal());
+				IInstallableUnit previous = latest.get(unit.getId());
+				if (previous == null || previous.getVersion().compareTo(unit.getVersion()) < 0) {
+					latest.put(unit.getId(), unit);
+					modelUnit.setVersion(unit.getVersion().getOriginal());
 				}
-				units.add(modelUnit);
 			}
+			units.addAll(modelUnits.values());
 
-			return units;
+			return new RepositoryContent(timestamp, units);
 
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Red Hat Inc. and others
+ * Copyright (c) 2016, 2017 Red Hat Inc. and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -34,10 +34,21 @@ public class UpdateJob extends Job {
 		this.node = node;
 	}
 
+	/**
+	 * Jobs belong to the family of the repository location they fetch, so that
+	 * a repository is not fetched by several jobs at once.
+	 */
+	@Override
+	public boolean belongsTo(Object family) {
+		return node.getRepositoryLocation().equals(family);
+	}
+
 	@Override
 	protected IStatus run(IProgressMonitor monitor) {
-		List<UnitNode> list = RepositoryCache.getDefault().fetchP2UnitsFromRepo(node.getRepositoryLocation(), true);
-		if (list == null) {
+		RepositoryCache cache = RepositoryCache.getDefault();
+		List<UnitNode> list = cache.fetchP2UnitsFromRepo(node.getRepositoryLocation(), true);
+		// stored units are still offered when the repository cannot be reached
+		if (list == null && !cache.isUpToDate(node.getRepositoryLocation())) {
 			return new Status(IStatus.ERROR, FrameworkUtil.getBundle(UpdateJob.class).getSymbolicName(), Messages.UpdateJob_ErrorMessage);
 		}
 		return Status.OK_STATUS;
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.performance.parts;
+
+import java.util.*;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.osgi.service.resolver.*;
+import org.eclipse.pde.internal.core.DependencyManager;
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.PerformanceTestCase;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+
+/**
+ * Tests the time it takes to compute the dependencies of every bundle of a
+ * state of 5000 bundles, where every bundle imports the packages of the
+ * previous bundles and requires some of them.
+ */
+public class DependencyClosurePerfTest extends PerformanceTestCase {
+
+	private static final String BUNDLE_NAME = "ClosureBundle_";
+	private static final int BUNDLE_COUNT = 5000;
+	private static final int IMPORT_COUNT = 20;
+	private static final int REQUIRE_STEP = 50;
+
+	public static Test suite() {
+		return new TestSuite(DependencyClosurePerfTest.class);
+	}
+
+	/**
+	 * Computes the dependencies of every bundle, alternating between two
+	 * states so that no iteration reuses the results of the previous one
+	 */
+	public void testAllClosures() throws Exception {
+		tagAsSummary("Dependency closures of all bundles", Dimension.ELAPSED_PROCESS); //$NON-NLS-1$
+		State[] states = new State[] {createState(), createState()};
+
+		// Warm-up Iterations
+		for (int i = 0; i < 2; i++) {
+			computeClosures(states[i % 2]);
+		}
+		// Test Iterations
+		for (int i = 0; i < 10; i++) {
+			startMeasuring();
+			computeClosures(states[i % 2]);
+			stopMeasuring();
+		}
+		commitMeasurements();
+
+		Set<String> last = DependencyManager.getDependencies(new Object[0], new String[] {BUNDLE_NAME + (BUNDLE_COUNT - 1)}, states[0], null);
+		assertEquals(BUNDLE_COUNT, last.size());
+		assertPerformance();
+	}
+
+	private void computeClosures(State state) {
+		for (BundleDescription bundle : state.getBundles()) {
+			Set<String> closure = DependencyManager.getDependencies(new Object[0], new String[] {bundle.getSymbolicName()}, state, null);
+			assertTrue(closure.contains(bundle.getSymbolicName()));
+		}
+	}
+
+	private State createState() throws BundleException {
+		StateObjectFactory factory = StateObjectFactory.defaultFactory;
+		State state = factory.createState(true);
+		for (int i = 0; i < BUNDLE_COUNT; i++) {
+			state.addBundle(factory.createBundleDescription(state, getManifest(i), BUNDLE_NAME + i, i));
+		}
+		state.resolve(false);
+		for (BundleDescription bundle : state.getBundles()) {
+			assertTrue("Bundle should be resolved: " + bundle.getSymbolicName(), bundle.isResolved());
+		}
+		return state;
+	}
+
+	private Dictionary<String, String> getManifest(int index) {
+		Dictionary<String, String> manifest = new Hashtable<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, BUNDLE_NAME + index);
+		manifest.put(Constants.BUNDLE_VERSION, "1.0.0.v20170101");
+		manifest.put(Constants.EXPORT_PACKAGE, "closure.bundle" + index);
+		int first = Math.max(0, index - IMPORT_COUNT);
+		if (first < index) {
+			StringBuilder imports = new StringBuilder();
+			for (int i = first; i < index; i++) {
+				if (i > first) {
+					imports.append(',');
+				}
+				imports.append("closure.bundle").append(i);
+			}
+			manifest.put(Constants.IMPORT_PACKAGE, imports.toString());
+		}
+		if (index >= REQUIRE_STEP) {
+			manifest.put(Constants.REQUIRE_BUNDLE, BUNDLE_NAME + (index - REQUIRE_STEP));
+		}
+		return manifest;
+	}
+}
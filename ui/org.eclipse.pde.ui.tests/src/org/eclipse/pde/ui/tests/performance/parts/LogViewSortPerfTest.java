@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.performance.parts;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.PerformanceTestCase;
+import org.eclipse.ui.internal.views.log.LogEntry;
+import org.eclipse.ui.internal.views.log.LogView;
+
+/**
+ * Tests the time it takes to sort the entries of the Error Log view by date,
+ * where many entries are logged within the same millisecond.
+ */
+public class LogViewSortPerfTest extends PerformanceTestCase {
+
+	public static Test suite() {
+		return new TestSuite(LogViewSortPerfTest.class);
+	}
+
+	public void testSort1000() {
+		sort(1000, false);
+	}
+
+	public void testSort10000() {
+		sort(10000, false);
+	}
+
+	public void testSort100000() {
+		sort(100000, true);
+	}
+
+	private void sort(int count, boolean summary) {
+		if (summary) {
+			tagAsSummary("Sort " + count + " log entries by date", Dimension.ELAPSED_PROCESS); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		LogEntry[] entries = new LogEntry[count];
+		for (int i = 0; i < count; i++) {
+			entries[i] = new LogEntry(new Status(IStatus.ERROR, "org.eclipse.pde.ui.tests", "Entry " + i));
+		}
+		Comparator<LogEntry> comparator = (e1, e2) -> LogView.compareByDate(e1, e2, LogView.DESCENDING);
+
+		// Warm-up Iterations
+		for (int i = 0; i < 2; i++) {
+			Arrays.sort(entries.clone(), comparator);
+		}
+		// Test Iterations
+		for (int i = 0; i < 10; i++) {
+			LogEntry[] sorted = entries.clone();
+			startMeasuring();
+			Arrays.sort(sorted, comparator);
+			stopMeasuring();
+			for (int j = 1; j < sorted.length; j++) {
+				assertTrue("Entries should be sorted newest first", comparator.compare(sorted[j - 1], sorted[j]) < 0);
+			}
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+}
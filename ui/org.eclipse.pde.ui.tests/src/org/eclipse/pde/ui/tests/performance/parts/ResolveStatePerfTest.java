@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.performance.parts;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.osgi.service.resolver.BundleDescription;
+import org.eclipse.pde.internal.core.PDEState;
+import org.eclipse.pde.ui.tests.PDETestsPlugin;
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.PerformanceTestCase;
+
+/**
+ * Tests the time it takes to resolve a state of 5000 bundles where every
+ * bundle exists twice with the same symbolic name and version, so that the
+ * resolver has to choose between identical suppliers for every package.
+ *
+ * The bundles only contain a manifest, exporting one package and importing
+ * the packages of the previous bundles.
+ */
+public class ResolveStatePerfTest extends PerformanceTestCase {
+
+	private static final String BUNDLE_NAME = "ResolveBundle_";
+	private static final int BUNDLE_COUNT = 2500;
+	private static final int IMPORT_COUNT = 20;
+
+	public static Test suite() {
+		return new TestSuite(ResolveStatePerfTest.class);
+	}
+
+	/**
+	 * Resolves a state containing duplicated bundles
+	 */
+	public void testResolveDuplicatedBundles() throws Exception {
+		tagAsSummary("Resolve state with duplicates", Dimension.ELAPSED_PROCESS); //$NON-NLS-1$
+		URL[] urls = createBundles();
+		assertEquals(BUNDLE_COUNT * 2, urls.length);
+
+		PDEState state = new PDEState(urls, true, false, new NullProgressMonitor());
+		assertEquals(BUNDLE_COUNT * 2, state.getState().getBundles().length);
+
+		// Warm-up Iterations
+		for (int i = 0; i < 2; i++) {
+			state.resolveState(false);
+		}
+		// Test Iterations
+		for (int i = 0; i < 10; i++) {
+			startMeasuring();
+			state.resolveState(false);
+			stopMeasuring();
+		}
+		commitMeasurements();
+
+		for (BundleDescription bundle : state.getState().getBundles()) {
+			assertTrue("Bundle should be resolved: " + bundle.getLocation(), bundle.isResolved());
+		}
+		assertPerformance();
+	}
+
+	/**
+	 * Writes every test bundle twice, into the "a" and the "b" directory
+	 *
+	 * @return the locations of the bundles
+	 * @throws IOException
+	 */
+	private URL[] createBundles() throws IOException {
+		IPath stateLocation = PDETestsPlugin.getDefault().getStateLocation();
+		File root = stateLocation.append("resolveStatePerfTestPlugins").toFile();
+		URL[] urls = new URL[BUNDLE_COUNT * 2];
+		String[] copies = new String[] {"a", "b"};
+		for (int c = 0; c < copies.length; c++) {
+			for (int i = 0; i < BUNDLE_COUNT; i++) {
+				File bundle = new File(new File(root, copies[c]), BUNDLE_NAME + i);
+				File manifest = new File(bundle, "META-INF/MANIFEST.MF");
+				if (!manifest.exists()) {
+					manifest.getParentFile().mkdirs();
+					try (Writer writer = new OutputStreamWriter(new FileOutputStream(manifest), StandardCharsets.UTF_8)) {
+						writer.write(getManifest(i));
+					}
+				}
+				urls[c * BUNDLE_COUNT + i] = bundle.toURI().toURL();
+			}
+		}
+		return urls;
+	}
+
+	private String getManifest(int index) {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("Manifest-Version: 1.0\n");
+		buffer.append("Bundle-ManifestVersion: 2\n");
+		buffer.append("Bundle-SymbolicName: ").append(BUNDLE_NAME).append(index).append('\n');
+		buffer.append("Bundle-Version: 1.0.0.v20170101\n");
+		buffer.append("Export-Package: resolve.bundle").append(index).append(";version=\"1.0.0\"\n");
+		int first = Math.max(0, index - IMPORT_COUNT);
+		if (first < index) {
+			buffer.append("Import-Package: ");
+			for (int i = first; i < index; i++) {
+				if (i > first) {
+					buffer.append(",\n ");
+				}
+				buffer.append("resolve.bundle").append(i);
+			}
+			buffer.append('\n');
+		}
+		buffer.append('\n');
+		return buffer.toString();
+	}
+}
@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.util.*;
+import junit.framework.*;
+import org.eclipse.osgi.service.resolver.*;
+import org.eclipse.pde.core.plugin.*;
+import org.eclipse.pde.core.target.NameVersionDescriptor;
+import org.eclipse.pde.internal.core.DependencyManager;
+import org.eclipse.pde.internal.core.TargetPlatformHelper;
+import org.eclipse.pde.internal.core.target.TargetPlatformService;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+
+/**
+ * Tests that the {@link DependencyManager} computes the same dependencies as
+ * a recursive search of the wires of the state.
+ */
+public class DependencyManagerTests extends TestCase {
+
+	private State fState;
+	private long fNextId;
+
+	public static Test suite() {
+		return new TestSuite(DependencyManagerTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fState = StateObjectFactory.defaultFactory.createState(true);
+		fNextId = 0;
+	}
+
+	private BundleDescription addBundle(String name, String version, String... headers) throws BundleException {
+		Dictionary<String, String> manifest = new Hashtable<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, name);
+		manifest.put(Constants.BUNDLE_VERSION, version);
+		for (int i = 0; i < headers.length; i += 2) {
+			manifest.put(headers[i], headers[i + 1]);
+		}
+		BundleDescription bundle = StateObjectFactory.defaultFactory.createBundleDescription(fState, manifest, name + '_' + version, fNextId++);
+		fState.addBundle(bundle);
+		return bundle;
+	}
+
+	/**
+	 * The recursive search used before the closures were memoized. It follows
+	 * a bundle only if no bundle of the same name was added yet, unless every
+	 * version is followed.
+	 */
+	private static void addBundleAndDependencies(BundleDescription desc, Set<String> set, Set<BundleDescription> visited, boolean everyVersion, boolean includeOptional, Set<String> excludeFragments) {
+		if (desc == null) {
+			return;
+		}
+		boolean added = set.add(desc.getSymbolicName());
+		if (everyVersion ? !visited.add(desc) : !added) {
+			return;
+		}
+		BundleSpecification[] required = desc.getRequiredBundles();
+		for (int i = 0; i < required.length; i++) {
+			if (includeOptional || !required[i].isOptional()) {
+				addBundleAndDependencies((BundleDescription) required[i].getSupplier(), set, visited, everyVersion, includeOptional, excludeFragments);
+			}
+		}
+		ImportPackageSpecification[] importedPkgs = desc.getImportPackages();
+		for (ImportPackageSpecification importedPkg : importedPkgs) {
+			ExportPackageDescription exporter = (ExportPackageDescription) importedPkg.getSupplier();
+			if (exporter == null || (!includeOptional && Constants.RESOLUTION_OPTIONAL.equals(importedPkg.getDirective(Constants.RESOLUTION_DIRECTIVE)))) {
+				continue;
+			}
+			addBundleAndDependencies(exporter.getExporter(), set, visited, everyVersion, includeOptional, excludeFragments);
+		}
+		BundleDescription[] fragments = desc.getFragments();
+		for (int i = 0; i < fragments.length; i++) {
+			if (fragments[i].isResolved() && !excludeFragments.contains(fragments[i].getSymbolicName())) {
+				addBundleAndDependencies(fragments[i], set, visited, everyVersion, includeOptional, excludeFragments);
+			}
+		}
+		HostSpecification host = desc.getHost();
+		if (host != null) {
+			addBundleAndDependencies((BundleDescription) host.getSupplier(), set, visited, everyVersion, includeOptional, excludeFragments);
+		}
+	}
+
+	/**
+	 * Computes the dependencies of the given bundles with the recursive search
+	 */
+	private static Set<String> getExpectedDependencies(IPluginModelBase[] models, String[] implicit, State state, boolean everyVersion, boolean removeSelf, Set<String> excludeFragments) {
+		Set<String> set = new TreeSet<>();
+		Set<BundleDescription> visited = new HashSet<>();
+		for (IPluginModelBase model : models) {
+			addBundleAndDependencies(model.getBundleDescription(), set, visited, everyVersion, true, excludeFragments);
+			for (IPluginExtension extension : model.getPluginBase().getExtensions()) {
+				String point = extension.getPoint();
+				if (point != null && point.lastIndexOf('.') != -1) {
+					addBundleAndDependencies(state.getBundle(point.substring(0, point.lastIndexOf('.')), null), set, visited, everyVersion, true, excludeFragments);
+				}
+			}
+		}
+		for (String element : implicit) {
+			addBundleAndDependencies(state.getBundle(element, null), set, visited, everyVersion, true, excludeFragments);
+		}
+		if (removeSelf) {
+			for (IPluginModelBase model : models) {
+				set.remove(model.getPluginBase().getId());
+			}
+		}
+		return set;
+	}
+
+	/**
+	 * Asserts that the dependencies of the given bundles are the ones of the
+	 * recursive search following every version, and include the ones of the
+	 * former search
+	 */
+	private void assertDependencies(String[] names, String[] excludeFragments) {
+		Set<String> excluded = new HashSet<>(Arrays.asList(excludeFragments));
+		Set<String> actual = DependencyManager.getDependencies(new Object[0], names, fState, excludeFragments);
+		assertEquals("Wrong dependencies of " + Arrays.toString(names), getExpectedDependencies(new IPluginModelBase[0], names, fState, true, false, excluded), actual);
+		Set<String> former = getExpectedDependencies(new IPluginModelBase[0], names, fState, false, false, excluded);
+		assertTrue("Missing dependencies of " + Arrays.toString(names), actual.containsAll(former));
+	}
+
+	/**
+	 * Tests the dependencies of bundles requiring different versions of a
+	 * bundle and of hosts with fragments
+	 */
+	public void testFragmentsAndVersions() throws Exception {
+		addBundle("a", "1.0.0", Constants.REQUIRE_BUNDLE, "b;bundle-version=\"[1.0.0,2.0.0)\",c", Constants.EXPORT_PACKAGE, "a.pkg");
+		addBundle("b", "1.0.0", Constants.REQUIRE_BUNDLE, "e");
+		addBundle("b", "2.0.0", Constants.REQUIRE_BUNDLE, "d");
+		addBundle("c", "1.0.0", Constants.REQUIRE_BUNDLE, "b;bundle-version=\"[2.0.0,3.0.0)\"");
+		addBundle("d", "1.0.0", Constants.EXPORT_PACKAGE, "d.pkg");
+		addBundle("e", "1.0.0");
+		addBundle("f", "1.0.0", Constants.EXPORT_PACKAGE, "f.pkg");
+		addBundle("g", "1.0.0", Constants.IMPORT_PACKAGE, "h.pkg;resolution:=optional");
+		addBundle("h", "1.0.0", Constants.EXPORT_PACKAGE, "h.pkg");
+		addBundle("a.frag", "1.0.0", Constants.FRAGMENT_HOST, "a", Constants.IMPORT_PACKAGE, "f.pkg");
+		addBundle("d.frag", "1.0.0", Constants.FRAGMENT_HOST, "d", Constants.REQUIRE_BUNDLE, "g");
+		addBundle("i", "1.0.0", Constants.IMPORT_PACKAGE, "a.pkg");
+		fState.resolve(false);
+		for (BundleDescription bundle : fState.getBundles()) {
+			assertTrue("Bundle should be resolved: " + bundle, bundle.isResolved());
+		}
+
+		String[][] excluded = new String[][] {new String[0], new String[] {"a.frag"}, new String[] {"d.frag"}};
+		for (String[] exclude : excluded) {
+			for (BundleDescription bundle : fState.getBundles()) {
+				assertDependencies(new String[] {bundle.getSymbolicName()}, exclude);
+			}
+			assertDependencies(new String[] {"i", "c"}, exclude);
+		}
+		// the dependencies of the second version of b are followed
+		assertEquals(new TreeSet<>(Arrays.asList("a", "a.frag", "b", "c", "d", "d.frag", "e", "f", "g", "h")), DependencyManager.getDependencies(new Object[0], new String[] {"a"}, fState, null));
+		assertEquals(new TreeSet<>(Arrays.asList("a", "a.frag", "b", "c", "e", "f")), getExpectedDependencies(new IPluginModelBase[0], new String[] {"a"}, fState, false, false, Collections.<String> emptySet()));
+	}
+
+	/**
+	 * Tests the dependencies of every bundle of a generated state holding
+	 * several versions of bundles and fragments
+	 */
+	public void testGeneratedState() throws Exception {
+		Random random = new Random(42);
+		int count = 200;
+		for (int i = 0; i < count; i++) {
+			List<String> headers = new ArrayList<>();
+			headers.add(Constants.EXPORT_PACKAGE);
+			headers.add("p" + i);
+			StringBuilder imports = new StringBuilder();
+			StringBuilder requires = new StringBuilder();
+			Set<Integer> used = new HashSet<>();
+			for (int j = 0; j < 3 && i > 0; j++) {
+				int dependency = random.nextInt(i);
+				if (!used.add(dependency)) {
+					continue;
+				}
+				if (random.nextBoolean()) {
+					imports.append(imports.length() == 0 ? "" : ",").append('p').append(dependency);
+					if (random.nextInt(4) == 0) {
+						imports.append(";resolution:=optional");
+					}
+				} else {
+					// either version of the bundle
+					requires.append(requires.length() == 0 ? "" : ",").append('b').append(dependency).append(";bundle-version=\"").append(random.nextBoolean() ? "[1.0.0,2.0.0)" : "[2.0.0,3.0.0)").append('"');
+				}
+			}
+			if (imports.length() > 0) {
+				headers.add(Constants.IMPORT_PACKAGE);
+				headers.add(imports.toString());
+			}
+			if (requires.length() > 0) {
+				headers.add(Constants.REQUIRE_BUNDLE);
+				headers.add(requires.toString());
+			}
+			String[] manifest = headers.toArray(new String[headers.size()]);
+			addBundle("b" + i, "1.0.0", manifest);
+			addBundle("b" + i, "2.0.0", manifest);
+			if (i % 10 == 5) {
+				addBundle("b" + i + ".frag", "1.0.0", Constants.FRAGMENT_HOST, "b" + i, Constants.REQUIRE_BUNDLE, "b" + random.nextInt(count));
+			}
+		}
+		fState.resolve(false);
+
+		for (String[] exclude : new String[][] {new String[0], new String[] {"b15.frag", "b105.frag"}}) {
+			for (int i = 0; i < count; i++) {
+				assertDependencies(new String[] {"b" + i}, exclude);
+			}
+			assertDependencies(new String[] {"b3", "b150", "b199"}, exclude);
+		}
+	}
+
+	/**
+	 * Tests the dependencies of the plug-ins of the target platform
+	 */
+	public void testTargetPlatform() throws Exception {
+		State state = TargetPlatformHelper.getState();
+		NameVersionDescriptor[] descriptors = TargetPlatformService.getDefault().getWorkspaceTargetDefinition().getImplicitDependencies();
+		List<String> implicit = new ArrayList<>();
+		if (descriptors != null) {
+			for (NameVersionDescriptor descriptor : descriptors) {
+				implicit.add(descriptor.getId());
+			}
+		}
+		String[] implicitIds = implicit.toArray(new String[implicit.size()]);
+		IPluginModelBase[] models = PluginRegistry.getActiveModels();
+		assertTrue(models.length > 0);
+		for (IPluginModelBase model : models) {
+			if (model.getBundleDescription() == null) {
+				continue;
+			}
+			IPluginModelBase[] selected = new IPluginModelBase[] {model};
+			Set<String> actual = DependencyManager.getSelfAndDependencies(model, null);
+			assertEquals("Wrong dependencies of " + model, getExpectedDependencies(selected, implicitIds, state, true, false, Collections.<String> emptySet()), actual);
+			assertTrue("Missing dependencies of " + model, actual.containsAll(getExpectedDependencies(selected, implicitIds, state, false, false, Collections.<String> emptySet())));
+			actual = DependencyManager.getDependencies(selected, implicitIds, state, null);
+			assertEquals("Wrong dependencies of " + model, getExpectedDependencies(selected, implicitIds, state, true, true, Collections.<String> emptySet()), actual);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import junit.framework.*;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.osgi.service.resolver.BundleDescription;
+import org.eclipse.pde.internal.core.PDEState;
+
+/**
+ * Tests that a {@link PDEState} reading the manifests of the target bundles
+ * concurrently assigns the same bundle ids on every run.
+ */
+public class PDEStateTests extends TestCase {
+
+	private static final String BUNDLE_NAME = "pde.state.test.bundle";
+	private static final int BUNDLE_COUNT = 200;
+
+	private File fDir;
+
+	public static Test suite() {
+		return new TestSuite(PDEStateTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fDir = File.createTempFile("pdeState", "");
+		assertTrue(fDir.delete());
+		assertTrue(fDir.mkdirs());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		delete(fDir);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	/**
+	 * Writes the test bundles, whose manifests have different sizes so that
+	 * they are not read in order
+	 *
+	 * @return the locations of the bundles
+	 */
+	private URL[] createBundles() throws IOException {
+		URL[] urls = new URL[BUNDLE_COUNT];
+		for (int i = 0; i < BUNDLE_COUNT; i++) {
+			File bundle = new File(fDir, BUNDLE_NAME + i);
+			File manifest = new File(bundle, "META-INF/MANIFEST.MF");
+			assertTrue(manifest.getParentFile().mkdirs());
+			StringBuilder buffer = new StringBuilder();
+			buffer.append("Manifest-Version: 1.0\n");
+			buffer.append("Bundle-ManifestVersion: 2\n");
+			buffer.append("Bundle-SymbolicName: ").append(BUNDLE_NAME).append(i).append('\n');
+			buffer.append("Bundle-Version: 1.0.0\n");
+			buffer.append("Export-Package: ");
+			for (int j = 0; j <= (i * 7) % 50; j++) {
+				buffer.append(j == 0 ? "" : ",\n ").append("pde.state.test").append(i).append(".p").append(j);
+			}
+			buffer.append("\n\n");
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(manifest), StandardCharsets.UTF_8)) {
+				writer.write(buffer.toString());
+			}
+			urls[i] = bundle.toURI().toURL();
+		}
+		return urls;
+	}
+
+	/**
+	 * @return the symbolic names of the bundles of the state in bundle id order
+	 */
+	private static List<String> getNamesById(PDEState state) {
+		TreeMap<Long, String> names = new TreeMap<>();
+		for (BundleDescription bundle : state.getState().getBundles()) {
+			assertNull("Duplicate bundle id " + bundle.getBundleId(), names.put(bundle.getBundleId(), bundle.getSymbolicName()));
+		}
+		return new ArrayList<>(names.values());
+	}
+
+	/**
+	 * Tests that the bundle ids follow the order of the locations on every run
+	 */
+	public void testDeterministicBundleIds() throws Exception {
+		URL[] urls = createBundles();
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < BUNDLE_COUNT; i++) {
+			expected.add(BUNDLE_NAME + i);
+		}
+		Map<String, Long> ids = null;
+		for (int run = 0; run < 5; run++) {
+			PDEState state = new PDEState(urls, false, false, new NullProgressMonitor());
+			assertEquals(expected, getNamesById(state));
+			Map<String, Long> runIds = new HashMap<>();
+			for (BundleDescription bundle : state.getState().getBundles()) {
+				runIds.put(bundle.getSymbolicName(), bundle.getBundleId());
+			}
+			if (ids != null) {
+				assertEquals("Bundle ids differ in run " + run, ids, runIds);
+			}
+			ids = runIds;
+		}
+	}
+
+	/**
+	 * Tests that creating a state with a canceled monitor stops reading the
+	 * manifests
+	 */
+	public void testCanceled() throws Exception {
+		URL[] urls = createBundles();
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		try {
+			new PDEState(urls, false, false, monitor);
+			fail("The creation of the state should be canceled");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		// the shared readers are still usable
+		assertEquals(BUNDLE_COUNT, new PDEState(urls, false, false, new NullProgressMonitor()).getState().getBundles().length);
+	}
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.util.*;
+import junit.framework.*;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.osgi.service.resolver.*;
+import org.eclipse.pde.internal.core.PDEClasspathContainer.Rule;
+import org.eclipse.pde.internal.core.PluginClasspathCache;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+
+/**
+ * Tests that the {@link PluginClasspathCache} only forgets the entries of the
+ * bundles affected by a change of the state.
+ */
+public class PluginClasspathCacheTests extends TestCase {
+
+	private State fState;
+
+	public static Test suite() {
+		return new TestSuite(PluginClasspathCacheTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fState = StateObjectFactory.defaultFactory.createState(true);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		PluginClasspathCache.invalidate(fState, null);
+	}
+
+	private BundleDescription createBundle(String name, long id, String... headers) throws BundleException {
+		Dictionary<String, String> manifest = new Hashtable<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, name);
+		manifest.put(Constants.BUNDLE_VERSION, "1.0.0");
+		for (int i = 0; i < headers.length; i += 2) {
+			manifest.put(headers[i], headers[i + 1]);
+		}
+		return StateObjectFactory.defaultFactory.createBundleDescription(fState, manifest, name, id);
+	}
+
+	private static Map<BundleDescription, Rule[]> createRules() {
+		return Collections.unmodifiableMap(new HashMap<BundleDescription, Rule[]>());
+	}
+
+	/**
+	 * Tests that the bundles that do not depend on a changed bundle keep their
+	 * entries
+	 */
+	public void testUnchangedBundlesKeepEntries() throws Exception {
+		BundleDescription a = createBundle("a", 0, Constants.EXPORT_PACKAGE, "a.pkg");
+		BundleDescription b = createBundle("b", 1, Constants.REQUIRE_BUNDLE, "a");
+		BundleDescription c = createBundle("c", 2, Constants.EXPORT_PACKAGE, "c.pkg");
+		BundleDescription d = createBundle("d", 3, Constants.IMPORT_PACKAGE, "c.pkg");
+		BundleDescription e = createBundle("e", 4, Constants.REQUIRE_BUNDLE, "d");
+		for (BundleDescription bundle : new BundleDescription[] {a, b, c, d, e}) {
+			fState.addBundle(bundle);
+		}
+		fState.resolve(false);
+
+		PluginClasspathCache cache = PluginClasspathCache.getCache(fState);
+		Map<BundleDescription, Map<BundleDescription, Rule[]>> rules = new HashMap<>();
+		for (BundleDescription bundle : fState.getBundles()) {
+			rules.put(bundle, createRules());
+			cache.putVisiblePackageRules(bundle, rules.get(bundle));
+		}
+		IPath[] aPaths = cache.getExportedPackagePaths(a);
+		IPath[] cPaths = cache.getExportedPackagePaths(c);
+		assertEquals(1, cPaths.length);
+
+		// c exports another package, which changes d and e depending on it
+		fState.updateBundle(createBundle("c", 2, Constants.EXPORT_PACKAGE, "c.pkg,c.other"));
+		StateDelta delta = fState.resolve(true);
+		PluginClasspathCache.invalidate(fState, delta);
+
+		assertSame("The cache should be kept", cache, PluginClasspathCache.getCache(fState));
+		assertSame(rules.get(a), cache.getVisiblePackageRules(a));
+		assertSame(rules.get(b), cache.getVisiblePackageRules(b));
+		assertSame(aPaths, cache.getExportedPackagePaths(a));
+		assertNull(cache.getVisiblePackageRules(c));
+		assertNull(cache.getVisiblePackageRules(fState.getBundle(2)));
+		assertNull(cache.getVisiblePackageRules(d));
+		assertNull(cache.getVisiblePackageRules(e));
+		assertEquals(2, cache.getExportedPackagePaths(fState.getBundle(2)).length);
+
+		// a new state replaces the cache
+		PluginClasspathCache.invalidate(fState, null);
+		PluginClasspathCache newCache = PluginClasspathCache.getCache(fState);
+		assertNotSame(cache, newCache);
+		assertNull(newCache.getVisiblePackageRules(a));
+	}
+
+	/**
+	 * Tests that a changed fragment forgets the entries of its host
+	 */
+	public void testChangedFragmentForgetsHost() throws Exception {
+		BundleDescription a = createBundle("a", 0, Constants.EXPORT_PACKAGE, "a.pkg");
+		BundleDescription b = createBundle("b", 1, Constants.EXPORT_PACKAGE, "b.pkg");
+		BundleDescription f = createBundle("f", 2, Constants.FRAGMENT_HOST, "a");
+		for (BundleDescription bundle : new BundleDescription[] {a, b, f}) {
+			fState.addBundle(bundle);
+		}
+		fState.resolve(false);
+		assertTrue(f.isResolved());
+
+		PluginClasspathCache cache = PluginClasspathCache.getCache(fState);
+		Map<BundleDescription, Rule[]> aRules = createRules();
+		Map<BundleDescription, Rule[]> bRules = createRules();
+		cache.putVisiblePackageRules(a, aRules);
+		cache.putVisiblePackageRules(b, bRules);
+
+		// the fragment imports a package of b now
+		fState.updateBundle(createBundle("f", 2, Constants.FRAGMENT_HOST, "a", Constants.IMPORT_PACKAGE, "b.pkg"));
+		PluginClasspathCache.invalidate(fState, fState.resolve(true));
+
+		assertSame(cache, PluginClasspathCache.getCache(fState));
+		assertSame(bRules, cache.getVisiblePackageRules(b));
+		assertNull(cache.getVisiblePackageRules(a));
+	}
+}
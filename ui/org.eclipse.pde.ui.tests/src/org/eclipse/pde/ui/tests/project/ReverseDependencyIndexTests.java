@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.util.*;
+import junit.framework.*;
+import org.eclipse.osgi.service.resolver.*;
+import org.eclipse.pde.internal.core.ReverseDependencyIndex;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+
+/**
+ * Tests that the {@link ReverseDependencyIndex} finds the same dependents as
+ * the resolver and follows the changes of the state.
+ */
+public class ReverseDependencyIndexTests extends TestCase {
+
+	private State fState;
+	private long fNextId;
+
+	public static Test suite() {
+		return new TestSuite(ReverseDependencyIndexTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fState = StateObjectFactory.defaultFactory.createState(true);
+		fNextId = 0;
+	}
+
+	private BundleDescription addBundle(String name, String... headers) throws BundleException {
+		Dictionary<String, String> manifest = new Hashtable<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, name);
+		manifest.put(Constants.BUNDLE_VERSION, "1.0.0");
+		for (int i = 0; i < headers.length; i += 2) {
+			manifest.put(headers[i], headers[i + 1]);
+		}
+		BundleDescription bundle = StateObjectFactory.defaultFactory.createBundleDescription(fState, manifest, name, fNextId++);
+		fState.addBundle(bundle);
+		return bundle;
+	}
+
+	private static Set<String> getNames(BundleDescription[] bundles) {
+		Set<String> names = new HashSet<>();
+		for (BundleDescription bundle : bundles) {
+			names.add(bundle.getSymbolicName());
+		}
+		return names;
+	}
+
+	private static Set<String> asSet(String... names) {
+		return new HashSet<>(Arrays.asList(names));
+	}
+
+	public void testDependentsOfResolvedBundle() throws Exception {
+		BundleDescription a = addBundle("a", Constants.EXPORT_PACKAGE, "a.pkg");
+		addBundle("b", Constants.REQUIRE_BUNDLE, "a");
+		addBundle("c", Constants.IMPORT_PACKAGE, "a.pkg");
+		addBundle("d", Constants.FRAGMENT_HOST, "a");
+		addBundle("e", Constants.REQUIRE_BUNDLE, "a;bundle-version=\"[2.0.0,3.0.0)\"");
+		fState.resolve(false);
+
+		ReverseDependencyIndex index = new ReverseDependencyIndex(fState);
+		assertEquals(getNames(a.getDependents()), getNames(index.getDependents(a)));
+		assertEquals(asSet("b", "c", "d"), getNames(index.getDependents(a)));
+		assertEquals(asSet("b", "e"), getNames(index.getRequiringBundles("a")));
+		assertEquals(asSet("c"), getNames(index.getImportingBundles("a.pkg")));
+		assertEquals(asSet("d"), getNames(index.getFragments("a")));
+	}
+
+	/**
+	 * Tests that the dependents of a resolved bundle include the bundles
+	 * wired to a package of its fragment and to one of its capabilities
+	 */
+	public void testDependentsThroughFragmentAndCapability() throws Exception {
+		BundleDescription a = addBundle("a", Constants.PROVIDE_CAPABILITY, "test.namespace;test.namespace=a");
+		addBundle("a.frag", Constants.FRAGMENT_HOST, "a", Constants.EXPORT_PACKAGE, "a.frag.pkg");
+		addBundle("b", Constants.IMPORT_PACKAGE, "a.frag.pkg");
+		addBundle("c", Constants.REQUIRE_CAPABILITY, "test.namespace;filter:=\"(test.namespace=a)\"");
+		fState.resolve(false);
+		for (BundleDescription bundle : fState.getBundles()) {
+			assertTrue("Bundle should be resolved: " + bundle, bundle.isResolved());
+		}
+
+		ReverseDependencyIndex index = new ReverseDependencyIndex(fState);
+		Set<String> dependents = getNames(index.getDependents(a));
+		assertEquals(getNames(a.getDependents()), dependents);
+		assertTrue("Missing importer of the fragment package", dependents.contains("b"));
+		assertTrue("Missing bundle requiring the capability", dependents.contains("c"));
+		assertTrue("Missing fragment", dependents.contains("a.frag"));
+	}
+
+	public void testDependentsOfUnresolvedBundle() throws Exception {
+		BundleDescription a = addBundle("a", Constants.EXPORT_PACKAGE, "a.pkg", Constants.REQUIRE_BUNDLE, "missing");
+		addBundle("b", Constants.REQUIRE_BUNDLE, "a");
+		addBundle("c", Constants.IMPORT_PACKAGE, "a.pkg");
+		fState.resolve(false);
+
+		assertFalse(a.isResolved());
+		ReverseDependencyIndex index = new ReverseDependencyIndex(fState);
+		assertEquals(asSet("b", "c"), getNames(index.getDependents(a)));
+	}
+
+	public void testUpdate() throws Exception {
+		BundleDescription a = addBundle("a");
+		BundleDescription b = addBundle("b", Constants.REQUIRE_BUNDLE, "a");
+		fState.resolve(false);
+		ReverseDependencyIndex index = new ReverseDependencyIndex(fState);
+
+		addBundle("c", Constants.REQUIRE_BUNDLE, "a");
+		fState.removeBundle(b);
+		index.update(fState.resolve(false));
+		assertEquals(asSet("c"), getNames(index.getRequiringBundles("a")));
+		assertEquals(asSet("c"), getNames(index.getDependents(a)));
+
+		Dictionary<String, String> manifest = new Hashtable<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "c");
+		manifest.put(Constants.BUNDLE_VERSION, "1.0.1");
+		BundleDescription c = fState.getBundle("c", null);
+		fState.updateBundle(StateObjectFactory.defaultFactory.createBundleDescription(fState, manifest, "c", c.getBundleId()));
+		index.update(fState.resolve(false));
+		assertEquals(0, index.getRequiringBundles("a").length);
+		assertEquals(0, index.getDependents(a).length);
+	}
+}
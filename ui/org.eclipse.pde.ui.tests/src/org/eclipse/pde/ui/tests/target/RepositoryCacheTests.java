@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.target;
+
+import java.io.File;
+import java.net.URI;
+import java.util.*;
+import junit.framework.*;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
+import org.eclipse.equinox.p2.repository.IRepository;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
+import org.eclipse.pde.internal.core.target.P2TargetUtils;
+import org.eclipse.pde.internal.genericeditor.target.extension.model.RepositoryCache;
+import org.eclipse.pde.internal.genericeditor.target.extension.model.UnitNode;
+
+/**
+ * Tests that the repository listings of the target editor are stored, read
+ * back after a restart and revalidated against the time stamp of a local
+ * repository.
+ */
+public class RepositoryCacheTests extends TestCase {
+
+	private File fDir;
+	private File fStorage;
+	private URI fRepositoryURI;
+	private String fRepository;
+	private IMetadataRepository fMetadataRepository;
+
+	public static Test suite() {
+		return new TestSuite(RepositoryCacheTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fDir = File.createTempFile("repositoryCache", "");
+		assertTrue(fDir.delete());
+		assertTrue(fDir.mkdirs());
+		fStorage = new File(fDir, "repositories.cache");
+		File repository = new File(fDir, "repository");
+		fRepositoryURI = repository.toURI();
+		fRepository = fRepositoryURI.toString();
+		fMetadataRepository = getManager().createRepository(fRepositoryURI, getName(), IMetadataRepositoryManager.TYPE_SIMPLE_REPOSITORY, new HashMap<String, String>());
+		fMetadataRepository.addInstallableUnits(Arrays.asList(createUnit("a.b", "1.0.0"), createUnit("a.b", "1.1.0"), createUnit("a.c", "2.0.0")));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		getManager().removeRepository(fRepositoryURI);
+		delete(fDir);
+	}
+
+	private static IMetadataRepositoryManager getManager() {
+		IMetadataRepositoryManager manager = P2TargetUtils.getRepoManager();
+		assertNotNull("Missing metadata repository manager", manager);
+		return manager;
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static IInstallableUnit createUnit(String id, String version) {
+		InstallableUnitDescription description = new InstallableUnitDescription();
+		description.setId(id);
+		description.setVersion(Version.create(version));
+		description.addProvidedCapabilities(Collections.singleton(MetadataFactory.createProvidedCapability(IInstallableUnit.NAMESPACE_IU_ID, id, Version.create(version))));
+		return MetadataFactory.createInstallableUnit(description);
+	}
+
+	/**
+	 * Adds a unit to the repository and makes sure that its time stamp changes
+	 */
+	private void addUnit(String id, String version) throws InterruptedException {
+		String timestamp = fMetadataRepository.getProperty(IRepository.PROP_TIMESTAMP);
+		Thread.sleep(10);
+		fMetadataRepository.addInstallableUnits(Collections.singleton(createUnit(id, version)));
+		fMetadataRepository.setProperty(IRepository.PROP_TIMESTAMP, Long.toString(System.currentTimeMillis()));
+		assertFalse("The time stamp of the repository should change", Objects.equals(timestamp, fMetadataRepository.getProperty(IRepository.PROP_TIMESTAMP)));
+	}
+
+	private static List<String> getIds(List<UnitNode> units) {
+		List<String> ids = new ArrayList<>();
+		for (UnitNode unit : units) {
+			ids.add(unit.getId());
+		}
+		return ids;
+	}
+
+	/**
+	 * Tests that fetched units are stored and offered by a new cache without
+	 * loading the repository
+	 */
+	public void testLoadStoredUnits() throws Exception {
+		RepositoryCache cache = new RepositoryCache(fStorage);
+		assertNotNull(cache.fetchP2UnitsFromRepo(fRepository, false));
+		assertFalse(cache.isStale(fRepository));
+		assertTrue("The units should be stored", fStorage.isFile());
+
+		// the repository cannot be loaded anymore, only the stored units are left
+		getManager().removeRepository(fRepositoryURI);
+		delete(new File(fRepositoryURI));
+
+		RepositoryCache restarted = new RepositoryCache(fStorage);
+		assertTrue(restarted.isUpToDate(fRepository));
+		assertTrue(restarted.isStale(fRepository));
+		assertEquals(Arrays.asList("a.b", "a.c"), getIds(restarted.getUnitsByPrefix(fRepository, "a.")));
+		UnitNode unit = restarted.getUnit(fRepository, "a.b");
+		assertNotNull(unit);
+		assertEquals("1.1.0", unit.getVersion());
+		assertEquals(new HashSet<>(Arrays.asList("1.0.0", "1.1.0")), new HashSet<>(unit.getAvailableVersions()));
+	}
+
+	/**
+	 * Tests that stored units are kept without fetching them again while the
+	 * time stamp of the repository does not change
+	 */
+	public void testRevalidateUnchangedRepository() throws Exception {
+		new RepositoryCache(fStorage).fetchP2UnitsFromRepo(fRepository, false);
+
+		RepositoryCache restarted = new RepositoryCache(fStorage);
+		assertTrue(restarted.isStale(fRepository));
+		List<UnitNode> stored = restarted.getUnitsByPrefix(fRepository, "");
+		List<UnitNode> units = restarted.fetchP2UnitsFromRepo(fRepository, true);
+		assertNotNull(units);
+		assertFalse(restarted.isStale(fRepository));
+		assertEquals(Arrays.asList("a.b", "a.c"), getIds(units));
+		assertSame("The stored units should be kept", stored.get(0), restarted.getUnit(fRepository, "a.b"));
+	}
+
+	/**
+	 * Tests that the units are fetched and stored again once the time stamp
+	 * of the repository changes
+	 */
+	public void testRevalidateChangedRepository() throws Exception {
+		new RepositoryCache(fStorage).fetchP2UnitsFromRepo(fRepository, false);
+		addUnit("a.d", "1.0.0");
+
+		RepositoryCache restarted = new RepositoryCache(fStorage);
+		assertTrue(restarted.isStale(fRepository));
+		assertEquals(Arrays.asList("a.b", "a.c"), getIds(restarted.getUnitsByPrefix(fRepository, "")));
+		assertNotNull(restarted.fetchP2UnitsFromRepo(fRepository, true));
+		assertFalse(restarted.isStale(fRepository));
+		assertEquals(Arrays.asList("a.b", "a.c", "a.d"), getIds(restarted.getUnitsByPrefix(fRepository, "")));
+
+		// the fetched units replaced the stored ones
+		RepositoryCache again = new RepositoryCache(fStorage);
+		assertEquals(Arrays.asList("a.b", "a.c", "a.d"), getIds(again.getUnitsByPrefix(fRepository, "")));
+	}
+
+	/**
+	 * Tests that a repository that cannot be reached keeps its stored units
+	 * and is not revalidated again
+	 */
+	public void testRevalidateUnreachableRepository() throws Exception {
+		new RepositoryCache(fStorage).fetchP2UnitsFromRepo(fRepository, false);
+		getManager().removeRepository(fRepositoryURI);
+		delete(new File(fRepositoryURI));
+
+		RepositoryCache restarted = new RepositoryCache(fStorage);
+		assertTrue(restarted.isStale(fRepository));
+		assertNull(restarted.fetchP2UnitsFromRepo(fRepository, true));
+		assertTrue(restarted.isUpToDate(fRepository));
+		assertFalse("A failed revalidation should not be retried", restarted.isStale(fRepository));
+		assertEquals(Arrays.asList("a.b", "a.c"), getIds(restarted.getUnitsByPrefix(fRepository, "")));
+	}
+
+	/**
+	 * Tests that flushing the cache deletes the stored units
+	 */
+	public void testFlush() throws Exception {
+		RepositoryCache cache = new RepositoryCache(fStorage);
+		cache.fetchP2UnitsFromRepo(fRepository, false);
+		assertTrue(fStorage.isFile());
+		cache.flush();
+		assertFalse(fStorage.exists());
+		assertFalse(cache.isUpToDate(fRepository));
+		assertFalse(new RepositoryCache(fStorage).isUpToDate(fRepository));
+	}
+}
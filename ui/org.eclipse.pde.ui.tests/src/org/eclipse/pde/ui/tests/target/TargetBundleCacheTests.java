@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.target;
+
+import java.io.File;
+import java.util.*;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.equinox.frameworkadmin.BundleInfo;
+import org.eclipse.pde.core.target.*;
+import org.eclipse.pde.internal.core.target.TargetBundleCache;
+
+/**
+ * Tests that target bundles remembered by the {@link TargetBundleCache} match
+ * the bundles read from the files.
+ */
+public class TargetBundleCacheTests extends AbstractTargetTest {
+
+	private File fDir;
+
+	public static Test suite() {
+		return new TestSuite(TargetBundleCacheTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fDir = File.createTempFile("targetBundleCache", "");
+		assertTrue(fDir.delete());
+		assertTrue(fDir.mkdirs());
+		TargetBundleCache.setDirectory(fDir);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		TargetBundleCache.setDirectory(null);
+		delete(fDir);
+		super.tearDown();
+	}
+
+	private File[] getPluginFiles() throws Exception {
+		IPath location = extractAbcdePlugins();
+		File[] files = location.append("plugins").toFile().listFiles();
+		assertNotNull(files);
+		assertEquals(10, files.length);
+		return files;
+	}
+
+	private TargetBundleCache getNewCache() {
+		return TargetBundleCache.getCache(getName() + ':' + System.nanoTime());
+	}
+
+	private void assertSameBundle(TargetBundle expected, TargetBundle actual) {
+		assertEquals(expected.getBundleInfo(), actual.getBundleInfo());
+		assertEquals(expected.getBundleInfo().getSymbolicName(), actual.getBundleInfo().getSymbolicName());
+		assertEquals(expected.getBundleInfo().getVersion(), actual.getBundleInfo().getVersion());
+		assertEquals(expected.isFragment(), actual.isFragment());
+		assertEquals(expected.isSourceBundle(), actual.isSourceBundle());
+		assertEquals(expected.getSourcePath(), actual.getSourcePath());
+		if (expected.isSourceBundle()) {
+			assertEquals(expected.getSourceTarget().getSymbolicName(), actual.getSourceTarget().getSymbolicName());
+			assertEquals(expected.getSourceTarget().getVersion(), actual.getSourceTarget().getVersion());
+		}
+	}
+
+	/**
+	 * Tests that cached bundles describe the same bundles as the files
+	 */
+	public void testCachedBundles() throws Exception {
+		File[] files = getPluginFiles();
+		TargetBundleCache cache = getNewCache();
+		cache.begin();
+		for (File file : files) {
+			TargetBundle bundle = cache.getBundle(file);
+			assertEquals("The bundle should have been read", TargetBundle.class, bundle.getClass());
+		}
+		cache.end(true);
+		assertEquals("The cache should be saved", 1, fDir.listFiles().length);
+		int sources = 0;
+		for (File file : files) {
+			TargetBundle bundle = cache.getBundle(file);
+			assertNotSame("The bundle should have been cached", TargetBundle.class, bundle.getClass());
+			assertSameBundle(new TargetBundle(file), bundle);
+			if (bundle.isSourceBundle()) {
+				sources++;
+			}
+		}
+		assertEquals(5, sources);
+	}
+
+	/**
+	 * Tests that a modified file is read again
+	 */
+	public void testModifiedFile() throws Exception {
+		File[] files = getPluginFiles();
+		TargetBundleCache cache = getNewCache();
+		cache.begin();
+		for (File file : files) {
+			cache.getBundle(file);
+		}
+		cache.end(true);
+		File modified = files[0];
+		assertTrue(modified.setLastModified(modified.lastModified() + 10000));
+		assertEquals("A modified bundle should be read again", TargetBundle.class, cache.getBundle(modified).getClass());
+		assertNotSame("An unmodified bundle should be cached", TargetBundle.class, cache.getBundle(files[1]).getClass());
+	}
+
+	/**
+	 * Tests that a resolution ending while another one of the same location is
+	 * running does not forget the files only used by the other one
+	 */
+	public void testConcurrentResolutions() throws Exception {
+		File[] files = getPluginFiles();
+		TargetBundleCache cache = getNewCache();
+		cache.begin();
+		cache.begin();
+		for (int i = 0; i < 5; i++) {
+			cache.getBundle(files[i]);
+		}
+		cache.end(true);
+		assertEquals("The cache should not be saved while a resolution runs", 0, fDir.listFiles().length);
+		for (int i = 5; i < files.length; i++) {
+			cache.getBundle(files[i]);
+		}
+		cache.end(true);
+		assertEquals("The cache should be saved", 1, fDir.listFiles().length);
+		for (File file : files) {
+			assertNotSame("The bundle should have been cached", TargetBundle.class, cache.getBundle(file).getClass());
+		}
+	}
+
+	/**
+	 * Tests that a canceled resolution does not forget the files it did not
+	 * reach
+	 */
+	public void testCanceledResolution() throws Exception {
+		File[] files = getPluginFiles();
+		TargetBundleCache cache = getNewCache();
+		cache.begin();
+		for (File file : files) {
+			cache.getBundle(file);
+		}
+		cache.end(true);
+		cache.begin();
+		cache.getBundle(files[0]);
+		cache.end(false);
+		for (File file : files) {
+			assertNotSame("The bundle should have been cached", TargetBundle.class, cache.getBundle(file).getClass());
+		}
+	}
+
+	/**
+	 * Tests that resolving a directory twice gives the same bundles
+	 */
+	public void testResolveDirectoryTwice() throws Exception {
+		IPath location = extractAbcdePlugins();
+		ITargetLocation container = getTargetService().newDirectoryLocation(location.toOSString());
+		List expected = getAllBundleInfos(getNewTarget(container));
+		List actual = getAllBundleInfos(getNewTarget(container));
+		assertEquals(10, expected.size());
+		assertEquals(new HashSet(expected), new HashSet(actual));
+		Set<String> names = new HashSet<>();
+		for (Object info : actual) {
+			names.add(((BundleInfo) info).getSymbolicName());
+		}
+		assertEquals(10, names.size());
+		assertEquals("The cache should be saved in the test directory", 1, fDir.listFiles().length);
+	}
+
+	private ITargetDefinition getNewTarget(ITargetLocation container) {
+		ITargetDefinition target = getNewTarget();
+		target.setTargetLocations(new ITargetLocation[] {container});
+		return target;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.eclipse.pde.ui.tests.target;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.util.Arrays;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.runtime.*;
@@ -186,6 +187,120 @@ public class TargetDefinitionResolutionTests extends MinimalTargetDefinitionReso
 		}
 
 	}
+
+	/**
+	 * Tests that resolving several locations, which happens concurrently,
+	 * resolves every location and reports the problems in location order.
+	 *
+	 * @throws Exception
+	 */
+	public void testIndependentLocationResolution() throws Exception {
+		IPath abcde = extractAbcdePlugins();
+		IPath multiVersion = extractMultiVersionPlugins();
+		File missing1 = abcde.append("missing1").toFile();
+		File missing2 = abcde.append("missing2").toFile();
+
+		ITargetDefinition definition = getNewTarget();
+		ITargetLocation container1 = getTargetService().newDirectoryLocation(abcde.toOSString());
+		ITargetLocation missingContainer1 = getTargetService().newDirectoryLocation(missing1.getAbsolutePath());
+		ITargetLocation container2 = getTargetService().newDirectoryLocation(multiVersion.toOSString());
+		ITargetLocation missingContainer2 = getTargetService().newDirectoryLocation(missing2.getAbsolutePath());
+		definition.setTargetLocations(new ITargetLocation[] {container1, missingContainer1, container2, missingContainer2});
+		definition.resolve(null);
+
+		assertTrue(container1.isResolved());
+		assertTrue(container2.isResolved());
+		assertEquals("Wrong number of bundles", 10, container1.getBundles().length);
+		assertTrue(container2.getBundles().length > 0);
+		assertEquals("Wrong number of bundles", container1.getBundles().length + container2.getBundles().length, definition.getAllBundles().length);
+
+		IStatus definitionStatus = definition.getStatus();
+		assertEquals("Wrong severity", IStatus.ERROR, definitionStatus.getSeverity());
+		IStatus[] children = definitionStatus.getChildren();
+		assertEquals("Wrong number of statuses", 2, children.length);
+		assertTrue(children[0].getMessage(), children[0].getMessage().indexOf(missing1.getName()) != -1);
+		assertTrue(children[1].getMessage(), children[1].getMessage().indexOf(missing2.getName()) != -1);
+	}
+
+	/**
+	 * Tests that a cancelled resolution of several locations only returns
+	 * once no location is resolved anymore, so that the target can be
+	 * resolved again right away.
+	 *
+	 * @throws Exception
+	 */
+	public void testCancelIndependentLocationResolution() throws Exception {
+		IPath abcde = extractAbcdePlugins();
+		IPath multiVersion = extractMultiVersionPlugins();
+		ITargetDefinition definition = getNewTarget();
+		ITargetLocation container1 = getTargetService().newDirectoryLocation(abcde.toOSString());
+		ITargetLocation container2 = getTargetService().newDirectoryLocation(multiVersion.toOSString());
+		definition.setTargetLocations(new ITargetLocation[] {container1, container2});
+
+		// cancelled while waiting for the first location, after the
+		// synchronizers of both locations were looked up
+		final int[] subTasks = new int[1];
+		IProgressMonitor monitor = new NullProgressMonitor() {
+			@Override
+			public void subTask(String name) {
+				if (++subTasks[0] == 3) {
+					setCanceled(true);
+				}
+			}
+		};
+		for (int i = 0; i < 10; i++) {
+			subTasks[0] = 0;
+			monitor.setCanceled(false);
+			IStatus status = definition.resolve(monitor);
+			assertEquals("Resolution should be cancelled", IStatus.CANCEL, status.getSeverity());
+			IStatus status2 = definition.resolve(null);
+			assertTrue(status2.toString(), status2.isOK());
+			assertEquals("Wrong number of bundles", 10, container1.getBundles().length);
+			assertEquals("Wrong number of bundles", container1.getBundles().length + container2.getBundles().length, definition.getAllBundles().length);
+		}
+	}
+
+	/**
+	 * Tests matching included bundles against several versions of a bundle,
+	 * and that the included bundles are only computed again when the
+	 * includes change.
+	 *
+	 * @throws Exception
+	 */
+	public void testIncludedBundleVersions() throws Exception {
+		IPath multiVersion = extractMultiVersionPlugins();
+		ITargetDefinition definition = getNewTarget();
+		definition.setTargetLocations(new ITargetLocation[] {getTargetService().newDirectoryLocation(multiVersion.toOSString())});
+		definition.resolve(null);
+		assertEquals("Wrong number of bundles", 2, definition.getAllBundles().length);
+		// callers get a copy of the cached bundles
+		TargetBundle[] allBundles = definition.getAllBundles();
+		assertNotSame(allBundles, definition.getAllBundles());
+		allBundles[0] = null;
+		assertNotNull("The cached bundles should not be modified", definition.getAllBundles()[0]);
+
+		// no version selects the newest
+		definition.setIncluded(new NameVersionDescriptor[] {new NameVersionDescriptor("a.typical.bundle", null)});
+		TargetBundle[] bundles = definition.getBundles();
+		assertEquals("Wrong number of bundles", 1, bundles.length);
+		assertEquals("1.1.0.200907071100", bundles[0].getBundleInfo().getVersion());
+		assertTrue(Arrays.equals(bundles, definition.getBundles()));
+
+		// exact and major.minor.micro matches
+		definition.setIncluded(new NameVersionDescriptor[] {new NameVersionDescriptor("a.typical.bundle", "1.0.0.200907071058"), new NameVersionDescriptor("a.typical.bundle", "1.1.0.qualifier")});
+		bundles = definition.getBundles();
+		assertEquals("Wrong number of bundles", 2, bundles.length);
+		assertEquals("1.0.0.200907071058", bundles[0].getBundleInfo().getVersion());
+		assertEquals("1.1.0.200907071100", bundles[1].getBundleInfo().getVersion());
+
+		// missing versions and bundles
+		definition.setIncluded(new NameVersionDescriptor[] {new NameVersionDescriptor("a.typical.bundle", "2.0.0"), new NameVersionDescriptor("bogus", null)});
+		bundles = definition.getBundles();
+		assertEquals("Wrong number of bundles", 2, bundles.length);
+		assertEquals(TargetBundle.STATUS_VERSION_DOES_NOT_EXIST, bundles[0].getStatus().getCode());
+		assertEquals(TargetBundle.STATUS_PLUGIN_DOES_NOT_EXIST, bundles[1].getStatus().getCode());
+	}
+
 	/**
 	 * Tests that when resolving a set of bundles that include source bundles, the source bundles
 	 * are able to determine the bundle their source is for.
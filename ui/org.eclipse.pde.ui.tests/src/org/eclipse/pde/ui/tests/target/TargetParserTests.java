@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.target;
+
+import java.util.List;
+import junit.framework.*;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.pde.internal.genericeditor.target.extension.model.*;
+import org.eclipse.pde.internal.genericeditor.target.extension.model.xml.Parser;
+
+/**
+ * Tests that the model of the target editor, updated by parsing only the
+ * changed location of a document, matches a full parse of the document.
+ */
+public class TargetParserTests extends TestCase {
+
+	private static final String LOCATION_START = "<location includeAllPlatforms=\"false\" includeConfigurePhase=\"true\" includeMode=\"planner\" includeSource=\"true\" type=\"InstallableUnit\">\n";
+
+	private static final String LOCATION_A = LOCATION_START //
+			+ "<unit id=\"a.b\" version=\"1.0.0\"/>\n" //
+			+ "<unit id=\"a.c\" version=\"2.0.0\"/>\n" //
+			+ "<repository location=\"http://a/\"/>\n" //
+			+ "</location>\n";
+
+	private static final String LOCATION_B = LOCATION_START //
+			+ "<unit id=\"b.b\" version=\"1.0.0\"/>\n" //
+			+ "<repository location=\"http://b/\"/>\n" //
+			+ "</location>\n";
+
+	private static final String LOCATION_C = LOCATION_START //
+			+ "<unit id=\"c.c\" version=\"3.0.0\"/>\n" //
+			+ "<repository location=\"http://c/\"/>\n" //
+			+ "</location>\n";
+
+	private static final String TARGET = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n" //
+			+ "<?pde version=\"3.8\"?>\n" //
+			+ "<target name=\"test\" sequenceNumber=\"1\">\n" //
+			+ "<locations>\n" //
+			+ LOCATION_A + LOCATION_B + LOCATION_C //
+			+ "</locations>\n" //
+			+ "</target>\n";
+
+	private IDocument fDocument;
+	private Parser fParser;
+
+	public static Test suite() {
+		return new TestSuite(TargetParserTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fDocument = new Document(TARGET);
+		fParser = Parser.getParser(fDocument);
+		fParser.parse(fDocument);
+		assertEquals(3, getLocations().size());
+	}
+
+	private List<LocationNode> getLocations() {
+		return fParser.getRootNode().getNodes();
+	}
+
+	/**
+	 * Parses the document again and checks that the model matches a full
+	 * parse of the document.
+	 */
+	private void assertModelMatchesDocument() throws Exception {
+		fParser.parse(fDocument);
+		Document copy = new Document(fDocument.get());
+		Parser full = new Parser();
+		full.parse(copy);
+		assertEquals(describe(full.getRootNode()), describe(fParser.getRootNode()));
+	}
+
+	private static String describe(TargetNode target) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("target [").append(target.getOffsetStart()).append(", ").append(target.getOffsetEnd()).append(")\n");
+		builder.append(target.getNodeText()).append('\n');
+		for (LocationNode location : target.getNodes()) {
+			builder.append("location [").append(location.getOffsetStart()).append(", ").append(location.getOffsetEnd()).append(") ").append(location.getRepositoryLocation()).append('\n');
+			for (UnitNode unit : location.getUnits()) {
+				assertSame(location, unit.getParent());
+				builder.append("unit [").append(unit.getOffsetStart()).append(", ").append(unit.getOffsetEnd()).append(") ").append(unit.getId()).append(' ').append(unit.getVersion()).append('\n');
+			}
+		}
+		return builder.toString();
+	}
+
+	private void replace(String text, String replacement) throws Exception {
+		int offset = fDocument.get().indexOf(text);
+		assertTrue("Missing text: " + text, offset >= 0);
+		fDocument.replace(offset, text.length(), replacement);
+	}
+
+	public void testEditInsideLocation() throws Exception {
+		LocationNode a = getLocations().get(0);
+		LocationNode b = getLocations().get(1);
+		LocationNode c = getLocations().get(2);
+
+		replace("<unit id=\"a.b\" version=\"1.0.0\"/>", "<unit id=\"a.b\" version=\"1.10.0\"/>");
+		assertModelMatchesDocument();
+
+		// only the changed location was parsed again
+		LocationNode parsed = getLocations().get(0);
+		assertNotSame(a, parsed);
+		assertSame(b, getLocations().get(1));
+		assertSame(c, getLocations().get(2));
+		assertEquals("1.10.0", parsed.getUnits().get(0).getVersion());
+
+		replace("<unit id=\"c.c\" version=\"3.0.0\"/>\n", "");
+		assertModelMatchesDocument();
+		assertSame(parsed, getLocations().get(0));
+		assertSame(b, getLocations().get(1));
+		assertNotSame(c, getLocations().get(2));
+		assertTrue(getLocations().get(2).getUnits().isEmpty());
+	}
+
+	public void testEditAcrossLocations() throws Exception {
+		replace("http://a/\"/>\n</location>\n<location includeAllPlatforms=\"false\"", "http://aa/\"/>\n</location>\n<location includeAllPlatforms=\"true\"");
+		assertModelMatchesDocument();
+		assertEquals("http://aa/", getLocations().get(0).getRepositoryLocation());
+	}
+
+	public void testEditAtLocationBoundary() throws Exception {
+		// at the end of the first location, which is the start of the second
+		int offset = getLocations().get(1).getOffsetStart();
+		assertEquals(getLocations().get(0).getOffsetEnd(), offset);
+		fDocument.replace(offset, 0, "<!-- b -->\n");
+		assertModelMatchesDocument();
+
+		// at the end of the last location
+		fDocument.replace(getLocations().get(2).getOffsetEnd(), 0, "<!-- c -->\n");
+		assertModelMatchesDocument();
+
+		// at the start of the first location
+		fDocument.replace(getLocations().get(0).getOffsetStart(), 0, "\n");
+		assertModelMatchesDocument();
+	}
+
+	public void testSeveralEditsBeforeParse() throws Exception {
+		LocationNode c = getLocations().get(2);
+		replace("<unit id=\"a.c\" version=\"2.0.0\"/>", "<unit id=\"a.c\" version=\"2.0.1\"/>");
+		replace("<unit id=\"a.b\" version=\"1.0.0\"/>\n", "");
+		replace("http://a/", "http://a.example.org/");
+		assertModelMatchesDocument();
+		assertSame(c, getLocations().get(2));
+		assertEquals(1, getLocations().get(0).getUnits().size());
+
+		replace("<unit id=\"b.b\" version=\"1.0.0\"/>", "<unit id=\"b.b\" version=\"1.0.1\"/>");
+		replace("http://c/", "http://c.example.org/");
+		assertModelMatchesDocument();
+		assertEquals("1.0.1", getLocations().get(1).getUnits().get(0).getVersion());
+		assertEquals("http://c.example.org/", getLocations().get(2).getRepositoryLocation());
+	}
+
+	public void testInsertLocation() throws Exception {
+		String inserted = LOCATION_START + "<unit id=\"d.d\" version=\"4.0.0\"/>\n<repository location=\"http://d/\"/>\n</location>\n";
+		fDocument.replace(getLocations().get(1).getOffsetStart(), 0, inserted);
+		assertModelMatchesDocument();
+		assertEquals(4, getLocations().size());
+		assertEquals("http://d/", getLocations().get(1).getRepositoryLocation());
+	}
+
+	public void testDeleteLocation() throws Exception {
+		LocationNode b = getLocations().get(1);
+		fDocument.replace(b.getOffsetStart(), b.getOffsetEnd() - b.getOffsetStart(), "");
+		assertModelMatchesDocument();
+		assertEquals(2, getLocations().size());
+		assertEquals("http://c/", getLocations().get(1).getRepositoryLocation());
+	}
+}
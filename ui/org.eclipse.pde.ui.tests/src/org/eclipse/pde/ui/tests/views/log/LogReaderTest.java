@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.views.log;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+import org.eclipse.ui.XMLMemento;
+import org.eclipse.ui.internal.views.log.*;
+
+/**
+ * Tests the parsing of the entries appended to a log file, see
+ * {@link LogReader#parseAppendedEntries(LogTail, List, org.eclipse.ui.IMemento)},
+ * and the reading on demand of the stacks and sub-entries of indexed logs.
+ */
+public class LogReaderTest extends TestCase {
+
+	private static final String SESSION = "!SESSION 2017-01-03 11:15:30.123 -----------------------------------------------\neclipse.buildId=unknown\n\n";
+
+	private File fFile;
+	private XMLMemento fMemento;
+
+	@Override
+	protected void setUp() throws Exception {
+		fFile = File.createTempFile("logreader", ".log");
+		fMemento = XMLMemento.createWriteRoot("logView");
+		fMemento.putString(LogView.P_USE_LIMIT, "false");
+		fMemento.putInteger(LogView.P_LOG_LIMIT, 50);
+		fMemento.putString(LogView.P_SHOW_ALL_SESSIONS, "true");
+		fMemento.putString(LogView.P_LOG_OK, "true");
+		fMemento.putString(LogView.P_LOG_INFO, "true");
+		fMemento.putString(LogView.P_LOG_WARNING, "true");
+		fMemento.putString(LogView.P_LOG_ERROR, "true");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fFile.delete();
+	}
+
+	private static String entry(String message) {
+		return "!ENTRY org.eclipse.pde.ui 4 0 2017-01-03 11:15:30.123\n!MESSAGE " + message + "\n!STACK 0\njava.lang.Exception: " + message + "\n\tat Test.test(Test.java:1)\n\n";
+	}
+
+	private static String entryWithChildren(String pluginId, int index) {
+		return "!ENTRY " + pluginId + " 4 0 2017-01-03 11:15:30.123\n!MESSAGE message " + index + "\n!STACK 0\njava.lang.Exception: " + index + "\n\tat Test.test(Test.java:1)\n" //
+				+ "!SUBENTRY 1 " + pluginId + " 4 0 2017-01-03 11:15:30.123\n!MESSAGE child " + index + "\n!STACK 0\njava.lang.Exception: child " + index + "\n\tat Test.test(Test.java:2)\n" //
+				+ "!SUBENTRY 2 " + pluginId + " 2 0 2017-01-03 11:15:30.123\n!MESSAGE grandchild " + index + "\n\n";
+	}
+
+	/**
+	 * Writes a log that is large enough to be indexed.
+	 */
+	private void writeIndexedLog(String pluginId) throws IOException {
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fFile), StandardCharsets.UTF_8))) {
+			writer.write(SESSION);
+			long length = SESSION.length();
+			for (int i = 0; length <= LogReader.INDEX_TAIL_SIZE; i++) {
+				String entry = entryWithChildren(pluginId, i);
+				writer.write(entry);
+				length += entry.length();
+			}
+		}
+	}
+
+	private void write(String content, boolean append) throws IOException {
+		try (OutputStream out = new FileOutputStream(fFile, append)) {
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private LogTail parse(List entries) {
+		LogTail tail = new LogTail(fFile);
+		LogReader.parseLogFile(fFile, 1, entries, fMemento, tail);
+		assertEquals(fFile.length(), tail.getOffset());
+		return tail;
+	}
+
+	public void testNewEntries() throws IOException {
+		write(SESSION + entry("first"), false);
+		List entries = new ArrayList();
+		LogTail tail = parse(entries);
+		assertEquals(1, entries.size());
+
+		write(entry("second") + entry("third"), true);
+		List appended = new ArrayList();
+		assertTrue(LogReader.parseAppendedEntries(tail, appended, fMemento));
+		assertEquals(2, appended.size());
+		LogEntry second = (LogEntry) appended.get(0);
+		assertEquals("second", second.getMessage());
+		assertTrue(second.getStack().startsWith("java.lang.Exception: second"));
+		assertSame(tail.getCurrentSession(), second.getSession());
+		assertEquals("third", ((LogEntry) appended.get(1)).getMessage());
+		assertEquals(fFile.length(), tail.getOffset());
+
+		// nothing appended since
+		appended.clear();
+		assertTrue(LogReader.parseAppendedEntries(tail, appended, fMemento));
+		assertTrue(appended.isEmpty());
+	}
+
+	public void testNewSession() throws IOException {
+		write(SESSION + entry("first"), false);
+		LogTail tail = parse(new ArrayList());
+		long offset = tail.getOffset();
+
+		write(SESSION + entry("second"), true);
+		List appended = new ArrayList();
+		assertFalse(LogReader.parseAppendedEntries(tail, appended, fMemento));
+		assertTrue(appended.isEmpty());
+		assertEquals(offset, tail.getOffset());
+	}
+
+	public void testPartialLastLine() throws IOException {
+		write(SESSION + entry("first"), false);
+		LogTail tail = parse(new ArrayList());
+		long offset = tail.getOffset();
+
+		String second = entry("second");
+		int split = second.indexOf(' ') + 5;
+		write(second.substring(0, split), true);
+		List appended = new ArrayList();
+		assertTrue(LogReader.parseAppendedEntries(tail, appended, fMemento));
+		assertTrue(appended.isEmpty());
+		assertEquals(offset, tail.getOffset());
+
+		write(second.substring(split), true);
+		assertTrue(LogReader.parseAppendedEntries(tail, appended, fMemento));
+		assertEquals(1, appended.size());
+		assertEquals("second", ((LogEntry) appended.get(0)).getMessage());
+		assertEquals(fFile.length(), tail.getOffset());
+	}
+
+	public void testTruncatedFile() throws IOException {
+		write(SESSION + entry("first") + entry("second"), false);
+		LogTail tail = parse(new ArrayList());
+
+		// the log was rotated and a shorter file written in its place
+		write(SESSION, false);
+		List appended = new ArrayList();
+		assertFalse(LogReader.parseAppendedEntries(tail, appended, fMemento));
+		assertTrue(appended.isEmpty());
+	}
+
+	public void testMoreThanTailSize() throws IOException {
+		write(SESSION + entry("first"), false);
+		LogTail tail = parse(new ArrayList());
+
+		StringBuffer buffer = new StringBuffer();
+		while (buffer.length() <= tail.getMaxSize()) {
+			buffer.append(entry("entry " + buffer.length()));
+		}
+		write(buffer.toString(), true);
+		List appended = new ArrayList();
+		assertFalse(LogReader.parseAppendedEntries(tail, appended, fMemento));
+		assertTrue(appended.isEmpty());
+
+		// the file parsed again shows the last entry
+		List entries = new ArrayList();
+		parse(entries);
+		assertFalse(entries.isEmpty());
+	}
+
+	public void testIndexedEntries() throws IOException {
+		writeIndexedLog("org.eclipse.pde.ui");
+		List entries = new ArrayList();
+		LogTail tail = new LogTail(fFile);
+		LogReader.parseLogFile(fFile, 16, entries, fMemento, tail);
+		assertTrue(tail.isIndexed());
+		assertTrue(entries.size() > 1);
+
+		for (int i : new int[] {0, entries.size() / 2, entries.size() - 1}) {
+			LogEntry entry = (LogEntry) entries.get(i);
+			assertEquals("message " + i, entry.getMessage());
+			assertTrue(entry.hasStack());
+			assertTrue(entry.hasChildren());
+
+			// read on demand
+			assertTrue(entry.getStack().startsWith("java.lang.Exception: " + i));
+			Object[] children = entry.getChildren(entry);
+			assertEquals(1, children.length);
+			LogEntry child = (LogEntry) children[0];
+			assertEquals("child " + i, child.getMessage());
+			assertTrue(child.getStack().startsWith("java.lang.Exception: child " + i));
+			assertSame(entry, child.getParent(child));
+			Object[] grandchildren = child.getChildren(child);
+			assertEquals(1, grandchildren.length);
+			assertEquals("grandchild " + i, ((LogEntry) grandchildren[0]).getMessage());
+			assertNull(((LogEntry) grandchildren[0]).getStack());
+
+			// read only once
+			assertEquals(1, entry.getChildren(entry).length);
+		}
+	}
+
+	public void testIndexedEntriesOfRewrittenFile() throws IOException {
+		writeIndexedLog("org.eclipse.pde.ui");
+		List entries = new ArrayList();
+		LogTail tail = new LogTail(fFile);
+		LogReader.parseLogFile(fFile, 16, entries, fMemento, tail);
+		assertTrue(tail.isIndexed());
+
+		// the same offsets now hold the entries of another plug-in
+		writeIndexedLog("org.eclipse.pde.xx");
+		LogEntry entry = (LogEntry) entries.get(entries.size() / 2);
+		assertNull(entry.getStack());
+		assertFalse(entry.hasStack());
+		assertEquals(0, entry.getChildren(entry).length);
+		assertFalse(entry.hasChildren());
+		assertEquals("message " + entries.size() / 2, entry.getMessage());
+
+		// and are gone after the file was truncated
+		write(SESSION, false);
+		entry = (LogEntry) entries.get(entries.size() - 1);
+		assertNull(entry.getStack());
+		assertEquals(0, entry.getChildren(entry).length);
+	}
+}
@@ -28,7 +28,6 @@ import org.eclipse.jface.viewers.*;
 import org.eclipse.jface.window.Window;
 import org.eclipse.jface.wizard.WizardDialog;
 import org.eclipse.osgi.service.resolver.BundleDescription;
-import org.eclipse.osgi.service.resolver.HostSpecification;
 import org.eclipse.pde.core.IModelChangedEvent;
 import org.eclipse.pde.core.plugin.*;
 import org.eclipse.pde.internal.core.*;
@@ -353,11 +352,11 @@ public class PluginSection extends TableSection implements IPluginModelListener
 		DependencyCalculator calculator = new DependencyCalculator(includeOptional);
 		calculator.findDependencies(list.toArray());
 
-		BundleDescription[] bundles = TargetPlatformHelper.getState().getBundles();
-		for (BundleDescription bundle : bundles) {
-			HostSpecification host = bundle.getHost();
-			if (host != null && calculator.containsPluginId(host.getName())) {
-				calculator.findDependency(bundle);
+		// add the fragments of the found plug-ins, in a single pass
+		ReverseDependencyIndex index = PDECore.getDefault().getModelManager().getDependencyIndex();
+		for (String id : calculator.getPluginIds()) {
+			for (BundleDescription fragment : index.getFragments(id)) {
+				calculator.findDependency(fragment);
 			}
 		}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2012 IBM Corporation and others.
+ *  Copyright (c) 2007, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -129,4 +129,11 @@ public class DependencyCalculator {
 		return fDependencies.containsKey(id);
 	}
 
+	/*
+	 * Returns a copy of the ids of the bundles found so far
+	 */
+	public Set<String> getPluginIds() {
+		return fDependencies == null ? new HashSet<String>() : new HashSet<>(fDependencies.keySet());
+	}
+
 }
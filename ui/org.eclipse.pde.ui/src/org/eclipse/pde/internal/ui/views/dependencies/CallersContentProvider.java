@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2012 IBM Corporation and others.
+ *  Copyright (c) 2000, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.eclipse.pde.internal.ui.views.dependencies;
 
 import java.util.*;
 import org.eclipse.osgi.service.resolver.BundleDescription;
+import org.eclipse.pde.internal.core.PDECore;
 
 public class CallersContentProvider extends DependenciesViewPageContentProvider {
 	public CallersContentProvider(DependenciesView view) {
@@ -22,7 +23,8 @@ public class CallersContentProvider extends DependenciesViewPageContentProvider
 		if (desc != null) {
 			// don't return any callers for fragments (since no one can depend on a fragment
 			if (desc.getHost() == null) {
-				BundleDescription[] dependents = desc.getDependents();
+				// the resolver wiring is exact, the index only guesses the callers of unresolved bundles
+				BundleDescription[] dependents = desc.isResolved() ? desc.getDependents() : PDECore.getDefault().getModelManager().getDependencyIndex().getDependents(desc);
 				return Arrays.asList(dependents);
 			}
 		}
@@ -14,6 +14,7 @@ package org.eclipse.ui.internal.views.log;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.core.runtime.PlatformObject;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.ui.model.IWorkbenchAdapter;
@@ -23,6 +24,17 @@ import org.eclipse.ui.model.IWorkbenchAdapter;
  */
 public abstract class AbstractEntry extends PlatformObject implements IWorkbenchAdapter {
 
+	/**
+	 * The sequence number of the next created entry
+	 */
+	private static final AtomicLong nextSequenceNumber = new AtomicLong();
+
+	/**
+	 * The order in which this entry was created, which is the order of the log
+	 * file for parsed entries
+	 */
+	private final long sequenceNumber = nextSequenceNumber.getAndIncrement();
+
 	/**
 	 * The collection of direct children of this entry
 	 */
@@ -50,6 +62,16 @@ public abstract class AbstractEntry extends PlatformObject implements IWorkbench
 		return children.toArray();
 	}
 
+	/**
+	 * Returns a number increasing with the creation of entries, used to keep
+	 * the order of entries that cannot be told apart by the sorted column.
+	 *
+	 * @return the sequence number of this entry
+	 */
+	public long getSequenceNumber() {
+		return sequenceNumber;
+	}
+
 	/**
 	 * @return true if this entry has children, false otherwise
 	 */
@@ -15,6 +15,7 @@ package org.eclipse.ui.internal.views.log;
 
 import com.ibm.icu.text.DateFormat;
 import com.ibm.icu.text.SimpleDateFormat;
+import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.text.ParseException;
@@ -40,6 +41,16 @@ public class LogEntry extends AbstractEntry {
 	private String stack;
 	private LogSession session;
 
+	/**
+	 * The file and offset from which the stack and the children of this entry
+	 * are read when they are first needed, see
+	 * {@link LogReader#readEntry(File, long)}
+	 */
+	private File contentFile;
+	private long contentOffset;
+	private boolean hasDeferredStack;
+	private boolean hasDeferredChildren;
+
 	/**
 	 * Constructor
 	 */
@@ -136,9 +147,48 @@ public class LogEntry extends AbstractEntry {
 	 * @return the stack trace or <code>null</code>
 	 */
 	public String getStack() {
+		loadDeferredContent();
 		return stack;
 	}
 
+	/**
+	 * Returns whether this entry has a stack trace, without reading a stack
+	 * trace that was not read yet.
+	 *
+	 * @return <code>true</code> if this entry has a stack trace
+	 */
+	public boolean hasStack() {
+		return hasDeferredStack || stack != null;
+	}
+
+	@Override
+	public Object[] getChildren(Object parent) {
+		loadDeferredContent();
+		return super.getChildren(parent);
+	}
+
+	@Override
+	public boolean hasChildren() {
+		return hasDeferredChildren || super.hasChildren();
+	}
+
+	/**
+	 * Returns whether this entry has children that were not read yet, see
+	 * {@link #getChildren(Object)}.
+	 *
+	 * @return <code>true</code> if the children of this entry are read on
+	 *         demand and were not read yet
+	 */
+	synchronized boolean hasDeferredChildren() {
+		return hasDeferredChildren;
+	}
+
+	@Override
+	public int size() {
+		loadDeferredContent();
+		return super.size();
+	}
+
 	/**
 	 * Returns a pretty-print formatting for the date for this entry
 	 * @return the formatted date for this entry
@@ -326,6 +376,57 @@ public class LogEntry extends AbstractEntry {
 		this.stack = stack;
 	}
 
+	/**
+	 * Remembers where the stack and the children of this entry can be read.
+	 *
+	 * @param file the log file
+	 * @param offset the offset of the !ENTRY line of this entry
+	 */
+	void setDeferredContent(File file, long offset) {
+		contentFile = file;
+		contentOffset = offset;
+	}
+
+	/**
+	 * Marks this entry as having a stack trace that is not read yet.
+	 */
+	void setDeferredStack() {
+		hasDeferredStack = contentFile != null;
+	}
+
+	/**
+	 * Marks this entry as having children that are not read yet.
+	 */
+	void setDeferredChildren() {
+		hasDeferredChildren = contentFile != null;
+	}
+
+	/**
+	 * Reads the stack and the children of this entry that were deferred when
+	 * the log file was indexed. Nothing is read if the file no longer contains
+	 * this entry at the remembered offset.
+	 */
+	private synchronized void loadDeferredContent() {
+		if (!hasDeferredStack && !hasDeferredChildren) {
+			return;
+		}
+		LogEntry entry = LogReader.readEntry(contentFile, contentOffset);
+		if (entry != null && Objects.equals(entry.pluginId, pluginId) && entry.severity == severity && Objects.equals(entry.fDate, fDate)) {
+			if (hasDeferredStack) {
+				stack = entry.stack;
+			}
+			if (hasDeferredChildren) {
+				// addChild inserts at the front
+				Object[] children = entry.getChildren(entry);
+				for (int i = children.length - 1; i >= 0; i--) {
+					addChild((AbstractEntry) children[i]);
+				}
+			}
+		}
+		hasDeferredStack = false;
+		hasDeferredChildren = false;
+	}
+
 	/**
 	 * Sets the message to the given message value.
 	 * No validation is performed on the new value
@@ -377,9 +478,10 @@ public class LogEntry extends AbstractEntry {
 		if (message != null) {
 			writer.println(getMessage());
 		}
-		if (stack != null) {
+		String entryStack = getStack();
+		if (entryStack != null) {
 			writer.println();
-			writer.println(stack);
+			writer.println(entryStack);
 		}
 	}
 }
@@ -33,134 +33,395 @@ class LogReader {
 	private static final int TEXT_STATE = 60;
 	private static final int UNKNOWN_STATE = 70;
 
-	public static LogSession parseLogFile(File file, long maxLogTailSizeInMegaByte, List entries, IMemento memento) {
-		if (!file.exists())
-			return null;
+	/**
+	 * Parse the whole input
+	 */
+	private static final int MODE_FULL = 0;
+	/**
+	 * Parse data appended to a parsed file, which must start with an entry of
+	 * the last session
+	 */
+	private static final int MODE_APPENDED = 1;
+	/**
+	 * Parse the whole input, but only read the header and message of each
+	 * entry and remember where its stack and sub-entries can be read
+	 */
+	private static final int MODE_INDEX = 2;
+	/**
+	 * Parse the first entry of the input only
+	 */
+	private static final int MODE_ENTRY = 3;
 
-		if (memento.getString(LogView.P_USE_LIMIT).equals("true") //$NON-NLS-1$
-				&& memento.getInteger(LogView.P_LOG_LIMIT).intValue() == 0)
-			return null;
+	/**
+	 * Tails larger than this are indexed rather than fully read, see
+	 * {@link #MODE_INDEX}
+	 */
+	public static final long INDEX_TAIL_SIZE = 8 * ONE_MEGA_BYTE_IN_BYTES;
+
+	/**
+	 * Reads the lines of UTF-8 encoded input, remembering the offset of each
+	 * line in the file
+	 */
+	private static class LineReader implements Closeable {
+		private final InputStream in;
+		private final byte[] buffer = new byte[8192];
+		private int position;
+		private int limit;
+		private long offset;
+		private long lineOffset;
+		private byte[] line = new byte[256];
+
+		LineReader(InputStream in, long offset) {
+			this.in = in;
+			this.offset = offset;
+		}
+
+		/**
+		 * @return the next line without its terminator, or <code>null</code>
+		 *         at the end of the input
+		 */
+		String readLine() throws IOException {
+			lineOffset = offset;
+			int length = 0;
+			boolean terminated = false;
+			while (!terminated) {
+				if (position == limit) {
+					limit = in.read(buffer, 0, buffer.length);
+					position = 0;
+					if (limit <= 0) {
+						limit = 0;
+						if (length == 0)
+							return null;
+						break;
+					}
+				}
+				byte b = buffer[position++];
+				offset++;
+				if (b == '\n') {
+					terminated = true;
+				} else {
+					if (length == line.length)
+						line = Arrays.copyOf(line, length * 2);
+					line[length++] = b;
+				}
+			}
+			if (length > 0 && line[length - 1] == '\r')
+				length--;
+			return new String(line, 0, length, StandardCharsets.UTF_8);
+		}
 
+		/**
+		 * @return the offset in the file of the line last returned by
+		 *         {@link #readLine()}
+		 */
+		long getLineOffset() {
+			return lineOffset;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * The state of the parser between two lines
+	 */
+	private static class ParseState {
+		File file;
 		ArrayList parents = new ArrayList();
 		LogEntry current = null;
 		LogSession session = null;
 		int writerState = UNKNOWN_STATE;
 		StringWriter swriter = null;
 		PrintWriter writer = null;
-		int state = UNKNOWN_STATE;
 		LogSession currentSession = null;
-		long maxTailSizeInBytes = maxLogTailSizeInMegaByte > 0 ? maxLogTailSizeInMegaByte * ONE_MEGA_BYTE_IN_BYTES
-				: ONE_MEGA_BYTE_IN_BYTES;
-		try (BufferedReader reader = new BufferedReader(
-				new InputStreamReader(new TailInputStream(file, maxTailSizeInBytes), StandardCharsets.UTF_8))) {
-			for (;;) {
-				String line0 = reader.readLine();
-				if (line0 == null)
-					break;
-				String line = line0.trim();
-
-				if (line.startsWith(LogSession.SESSION)) {
-					state = SESSION_STATE;
-				} else if (line.startsWith("!ENTRY")) { //$NON-NLS-1$
-					state = ENTRY_STATE;
-				} else if (line.startsWith("!SUBENTRY")) { //$NON-NLS-1$
-					state = SUBENTRY_STATE;
-				} else if (line.startsWith("!MESSAGE")) { //$NON-NLS-1$
-					state = MESSAGE_STATE;
-				} else if (line.startsWith("!STACK")) { //$NON-NLS-1$
-					state = STACK_STATE;
-				} else
-					state = TEXT_STATE;
-
-				if (state == TEXT_STATE) {
-					if (writer != null) {
-						if (swriter.getBuffer().length() > 0)
-							writer.println();
-						writer.print(line0);
-					}
-					continue;
-				}
+	}
 
-				if (writer != null) {
-					setData(current, session, writerState, swriter);
-					writerState = UNKNOWN_STATE;
-					swriter = null;
-					writer.close();
-					writer = null;
-				}
+	public static LogSession parseLogFile(File file, long maxLogTailSizeInMegaByte, List entries, IMemento memento) {
+		return parseLogFile(file, maxLogTailSizeInMegaByte, entries, memento, null);
+	}
 
-				if (state == STACK_STATE) {
-					swriter = new StringWriter();
-					writer = new PrintWriter(swriter, true);
-					writerState = STACK_STATE;
-				} else if (state == SESSION_STATE) {
-					session = new LogSession();
-					session.processLogLine(line);
-					swriter = new StringWriter();
-					writer = new PrintWriter(swriter, true);
-					writerState = SESSION_STATE;
-					currentSession = updateCurrentSession(currentSession, session);
-					// if current session is most recent and not showing all sessions
-					if (currentSession.equals(session) && !memento.getString(LogView.P_SHOW_ALL_SESSIONS).equals("true")) //$NON-NLS-1$
-						entries.clear();
-				} else if (state == ENTRY_STATE) {
-					if (currentSession == null) { // create fake session if there was no any
-						currentSession = new LogSession();
-					}
-					try {
-						LogEntry entry = new LogEntry();
-						entry.setSession(currentSession);
-						entry.processEntry(line);
-						setNewParent(parents, entry, 0);
-						current = entry;
-						addEntry(current, entries, memento);
-					} catch (ParseException pe) {
-						//do nothing, just toss the entry
-					}
-				} else if (state == SUBENTRY_STATE) {
-					if (parents.size() > 0) {
-						try {
-							LogEntry entry = new LogEntry();
-							entry.setSession(session);
-							int depth = entry.processSubEntry(line);
-							setNewParent(parents, entry, depth);
-							current = entry;
-							LogEntry parent = (LogEntry) parents.get(depth - 1);
-							parent.addChild(entry);
-						} catch (ParseException pe) {
-							//do nothing, just toss the bad entry
-						}
-					}
-				} else if (state == MESSAGE_STATE) {
-					swriter = new StringWriter();
-					writer = new PrintWriter(swriter, true);
-					String message = ""; //$NON-NLS-1$
-					if (line.length() > 8)
-						message = line.substring(9);
-					if (current != null)
-						current.setMessage(message);
-					writerState = MESSAGE_STATE;
-				}
+	/**
+	 * Parses the tail of the given file. If a {@link LogTail} is given, it
+	 * remembers where the parse ended so that the entries appended later can be
+	 * read with {@link #parseAppendedEntries(LogTail, List, IMemento)}.
+	 */
+	public static LogSession parseLogFile(File file, long maxLogTailSizeInMegaByte, List entries, IMemento memento, LogTail tail) {
+		if (!file.exists())
+			return null;
+
+		if (memento.getString(LogView.P_USE_LIMIT).equals("true") //$NON-NLS-1$
+				&& memento.getInteger(LogView.P_LOG_LIMIT).intValue() == 0)
+			return null;
+
+		ParseState state = new ParseState();
+		state.file = file;
+		long maxTailSizeInBytes = maxLogTailSizeInMegaByte > 0 ? maxLogTailSizeInMegaByte * ONE_MEGA_BYTE_IN_BYTES
+				: ONE_MEGA_BYTE_IN_BYTES;
+		// only keep the headers of the entries of large tails in memory
+		boolean index = Math.min(file.length(), maxTailSizeInBytes) > INDEX_TAIL_SIZE;
+		try (TailInputStream input = new TailInputStream(file, maxTailSizeInBytes);
+				LineReader reader = new LineReader(input, input.getFilePointer())) {
+			parse(reader, state, entries, memento, index ? MODE_INDEX : MODE_FULL);
+			if (tail != null) {
+				// the reader has consumed the input up to the end of the file
+				tail.update(input.getFilePointer(), state.session, state.currentSession, maxTailSizeInBytes);
+				tail.setIndexed(index);
 			}
 
-			if (swriter != null && current != null && writerState == STACK_STATE) {
-				writerState = UNKNOWN_STATE;
-				current.setStack(swriter.toString());
+			if (state.swriter != null && state.current != null && state.writerState == STACK_STATE) {
+				state.writerState = UNKNOWN_STATE;
+				state.current.setStack(state.swriter.toString());
 			}
 		} catch (IOException e) { // do nothing
 		} finally {
 			if (file.length() > maxLogTailSizeInMegaByte && entries.size() == 0) {
 				LogEntry entry = new LogEntry(new Status(IStatus.WARNING, Activator.PLUGIN_ID, NLS.bind(Messages.LogReader_warn_noEntryWithinMaxLogTailSize, new Long(maxLogTailSizeInMegaByte))));
-				entry.setSession(currentSession == null ? new LogSession() : currentSession);
+				entry.setSession(state.currentSession == null ? new LogSession() : state.currentSession);
 				entries.add(entry);
 			}
-			if (writer != null) {
-				setData(current, session, writerState, swriter);
-				writer.close();
+			if (state.writer != null) {
+				setData(state.current, state.session, state.writerState, state.swriter);
+				state.writer.close();
 			}
 		}
 
-		return currentSession;
+		return state.currentSession;
+	}
+
+	/**
+	 * Parses the entries appended to the file of the given tail since it was
+	 * last read, and moves the tail to the end of the parsed data. Only complete
+	 * lines are parsed, the rest is left for the next call.
+	 * <p>
+	 * The appended data can only be parsed on its own if it starts with a new
+	 * entry of the same session, so <code>false</code> is returned when it
+	 * starts a new session or continues the last entry, when the file was
+	 * truncated or replaced, or when more than the maximum tail size was
+	 * appended. The file must then be parsed again with
+	 * {@link #parseLogFile(File, long, List, IMemento, LogTail)}.
+	 * </p>
+	 *
+	 * @param tail the end of the last parse
+	 * @param entries list to add the new entries to
+	 * @param memento the view settings filtering the entries
+	 * @return whether the appended entries could be parsed
+	 */
+	public static boolean parseAppendedEntries(LogTail tail, List entries, IMemento memento) {
+		File file = tail.getFile();
+		byte[] bytes;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) { //$NON-NLS-1$
+			long length = raf.length();
+			long offset = tail.getOffset();
+			if (offset < 0 || length < offset || length - offset > tail.getMaxSize()) {
+				return false;
+			}
+			if (length == offset) {
+				return true;
+			}
+			bytes = new byte[(int) (length - offset)];
+			raf.seek(offset);
+			raf.readFully(bytes);
+		} catch (IOException e) {
+			return false;
+		}
+		int end = bytes.length;
+		while (end > 0 && bytes[end - 1] != '\n') {
+			end--;
+		}
+		if (end == 0) {
+			// no complete line yet
+			return true;
+		}
+
+		ParseState state = new ParseState();
+		state.file = file;
+		state.session = tail.getSession();
+		state.currentSession = tail.getCurrentSession();
+		List appended = new ArrayList();
+		try (LineReader reader = new LineReader(new ByteArrayInputStream(bytes, 0, end), tail.getOffset())) {
+			if (!parse(reader, state, appended, memento, MODE_APPENDED)) {
+				return false;
+			}
+		} catch (IOException e) {
+			return false;
+		}
+		if (state.writer != null) {
+			setData(state.current, state.session, state.writerState, state.swriter);
+			state.writer.close();
+		}
+		tail.update(tail.getOffset() + end, state.session, state.currentSession, tail.getMaxSize());
+		entries.addAll(appended);
+		return true;
+	}
+
+	/**
+	 * Reads the stack and the sub-entries of an entry that was indexed, see
+	 * {@link LogEntry#getStack()}.
+	 *
+	 * @param file the log file
+	 * @param offset the offset of the !ENTRY line of the entry
+	 * @return the entry read from the file or <code>null</code> if it cannot
+	 *         be read
+	 */
+	static LogEntry readEntry(File file, long offset) {
+		ParseState state = new ParseState();
+		state.file = file;
+		List entries = new ArrayList(1);
+		try (InputStream input = new FileInputStream(file)) {
+			long skipped = 0;
+			while (skipped < offset) {
+				long count = input.skip(offset - skipped);
+				if (count <= 0)
+					return null;
+				skipped += count;
+			}
+			try (LineReader reader = new LineReader(input, offset)) {
+				parse(reader, state, entries, null, MODE_ENTRY);
+			}
+		} catch (IOException e) {
+			return null;
+		}
+		if (state.writer != null) {
+			setData(state.current, state.session, state.writerState, state.swriter);
+			state.writer.close();
+		}
+		return entries.isEmpty() ? null : (LogEntry) entries.get(0);
+	}
+
+	/**
+	 * Parses the lines of the given reader.
+	 *
+	 * @param mode one of {@link #MODE_FULL}, {@link #MODE_APPENDED},
+	 *            {@link #MODE_INDEX} or {@link #MODE_ENTRY}
+	 * @return <code>false</code> if appended lines cannot be parsed on their
+	 *         own, <code>true</code> otherwise
+	 */
+	private static boolean parse(LineReader reader, ParseState state, List entries, IMemento memento, int mode) throws IOException {
+		int lineState = UNKNOWN_STATE;
+		boolean appended = mode == MODE_APPENDED;
+		boolean index = mode == MODE_INDEX;
+		boolean started = mode != MODE_APPENDED && mode != MODE_ENTRY;
+		for (;;) {
+			String line0 = reader.readLine();
+			if (line0 == null)
+				break;
+			String line = line0.trim();
+
+			if (line.startsWith(LogSession.SESSION)) {
+				lineState = SESSION_STATE;
+			} else if (line.startsWith("!ENTRY")) { //$NON-NLS-1$
+				lineState = ENTRY_STATE;
+			} else if (line.startsWith("!SUBENTRY")) { //$NON-NLS-1$
+				lineState = SUBENTRY_STATE;
+			} else if (line.startsWith("!MESSAGE")) { //$NON-NLS-1$
+				lineState = MESSAGE_STATE;
+			} else if (line.startsWith("!STACK")) { //$NON-NLS-1$
+				lineState = STACK_STATE;
+			} else
+				lineState = TEXT_STATE;
+
+			if (!started) {
+				// entries are separated by an empty line
+				if (lineState == TEXT_STATE && line.length() == 0)
+					continue;
+				if (lineState != ENTRY_STATE)
+					return false;
+				started = true;
+			} else if (mode == MODE_ENTRY && (lineState == ENTRY_STATE || lineState == SESSION_STATE)) {
+				// the entry ends where the next one starts
+				break;
+			}
+
+			if (lineState == TEXT_STATE) {
+				if (state.writer != null) {
+					if (state.swriter.getBuffer().length() > 0)
+						state.writer.println();
+					state.writer.print(line0);
+				}
+				continue;
+			}
+
+			if (state.writer != null) {
+				setData(state.current, state.session, state.writerState, state.swriter);
+				state.writerState = UNKNOWN_STATE;
+				state.swriter = null;
+				state.writer.close();
+				state.writer = null;
+			}
+
+			if (index && (lineState == STACK_STATE || lineState == SUBENTRY_STATE)) {
+				// read on demand, only remember that the entry has them
+				LogEntry entry = state.parents.isEmpty() ? null : (LogEntry) state.parents.get(0);
+				if (entry != null && lineState == SUBENTRY_STATE) {
+					entry.setDeferredChildren();
+				} else if (entry != null && entry == state.current) {
+					entry.setDeferredStack();
+				}
+				// ignore the message and stack of the sub-entry
+				state.current = null;
+			} else if (lineState == STACK_STATE) {
+				state.swriter = new StringWriter();
+				state.writer = new PrintWriter(state.swriter, true);
+				state.writerState = STACK_STATE;
+			} else if (lineState == SESSION_STATE) {
+				if (appended)
+					return false;
+				state.session = new LogSession();
+				state.session.processLogLine(line);
+				state.swriter = new StringWriter();
+				state.writer = new PrintWriter(state.swriter, true);
+				state.writerState = SESSION_STATE;
+				state.currentSession = updateCurrentSession(state.currentSession, state.session);
+				// if current session is most recent and not showing all sessions
+				if (state.currentSession.equals(state.session) && !memento.getString(LogView.P_SHOW_ALL_SESSIONS).equals("true")) //$NON-NLS-1$
+					entries.clear();
+			} else if (lineState == ENTRY_STATE) {
+				if (state.currentSession == null) { // create fake session if there was no any
+					state.currentSession = new LogSession();
+				}
+				try {
+					LogEntry entry = new LogEntry();
+					entry.setSession(state.currentSession);
+					entry.processEntry(line);
+					if (index)
+						entry.setDeferredContent(state.file, reader.getLineOffset());
+					setNewParent(state.parents, entry, 0);
+					state.current = entry;
+					if (mode == MODE_ENTRY)
+						entries.add(entry);
+					else
+						addEntry(state.current, entries, memento);
+				} catch (ParseException pe) {
+					//do nothing, just toss the entry
+				}
+			} else if (lineState == SUBENTRY_STATE) {
+				if (state.parents.size() > 0) {
+					try {
+						LogEntry entry = new LogEntry();
+						entry.setSession(state.session);
+						int depth = entry.processSubEntry(line);
+						setNewParent(state.parents, entry, depth);
+						state.current = entry;
+						LogEntry parent = (LogEntry) state.parents.get(depth - 1);
+						parent.addChild(entry);
+					} catch (ParseException pe) {
+						//do nothing, just toss the bad entry
+					}
+				}
+			} else if (lineState == MESSAGE_STATE && (state.current != null || !index)) {
+				state.swriter = new StringWriter();
+				state.writer = new PrintWriter(state.swriter, true);
+				String message = ""; //$NON-NLS-1$
+				if (line.length() > 8)
+					message = line.substring(9);
+				if (state.current != null)
+					state.current.setMessage(message);
+				state.writerState = MESSAGE_STATE;
+			}
+		}
+		return true;
 	}
 
 	public static LogSession parseLogFile(File file, List entries, IMemento memento) {
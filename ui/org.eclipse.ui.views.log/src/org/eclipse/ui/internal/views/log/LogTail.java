@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.views.log;
+
+import java.io.File;
+
+/**
+ * Remembers where the last parse of a log file ended and the sessions it
+ * found, so that the entries appended to the file can be parsed without
+ * reading the file again.
+ *
+ * @see LogReader#parseAppendedEntries(LogTail, java.util.List, org.eclipse.ui.IMemento)
+ */
+public class LogTail {
+
+	private final File fFile;
+	private long fOffset = -1;
+	private long fMaxSize;
+	private LogSession fSession;
+	private LogSession fCurrentSession;
+	private boolean fIndexed;
+
+	public LogTail(File file) {
+		fFile = file;
+	}
+
+	public File getFile() {
+		return fFile;
+	}
+
+	/**
+	 * @return the offset of the first byte that was not parsed or -1 if the
+	 *         file was not parsed
+	 */
+	public synchronized long getOffset() {
+		return fOffset;
+	}
+
+	/**
+	 * @return the maximum number of bytes parsed at once
+	 */
+	public synchronized long getMaxSize() {
+		return fMaxSize;
+	}
+
+	/**
+	 * @return the last session found in the file
+	 */
+	public synchronized LogSession getSession() {
+		return fSession;
+	}
+
+	/**
+	 * @return the most recent session found in the file
+	 */
+	public synchronized LogSession getCurrentSession() {
+		return fCurrentSession;
+	}
+
+	/**
+	 * @return whether the stacks and the sub-entries of the parsed entries are
+	 *         read on demand
+	 */
+	public synchronized boolean isIndexed() {
+		return fIndexed;
+	}
+
+	synchronized void setIndexed(boolean indexed) {
+		fIndexed = indexed;
+	}
+
+	synchronized void update(long offset, LogSession session, LogSession currentSession, long maxSize) {
+		fOffset = offset;
+		fSession = session;
+		fCurrentSession = currentSession;
+		fMaxSize = maxSize;
+	}
+}
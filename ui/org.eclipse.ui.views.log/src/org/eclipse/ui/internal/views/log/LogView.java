@@ -109,6 +109,14 @@ public class LogView extends ViewPart implements ILogListener {
 
 	private IMemento fMemento;
 	private File fInputFile;
+	private volatile LogTail fLogTail;
+	private Job fTailJob;
+
+	/**
+	 * Serializes the reads of the log file, so that a full read and the parse
+	 * of the appended entries never run at the same time
+	 */
+	private final Object fReadLock = new Object();
 	private String fDirectory;
 
 	private Comparator fComparator;
@@ -171,6 +179,15 @@ public class LogView extends ViewPart implements ILogListener {
 		groups = new HashMap<>();
 		batchedEntries = new ArrayList<>();
 		fInputFile = Platform.getLogFileLocation().toFile();
+		fTailJob = new Job(Messages.LogView_operation_reloading) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				readAppendedLogEntries();
+				asyncRefresh(true);
+				return Status.OK_STATUS;
+			}
+		};
+		fTailJob.setSystem(true);
 	}
 
 	@Override
@@ -532,9 +549,17 @@ public class LogView extends ViewPart implements ILogListener {
 				}
 				return false;
 			}
+
+			@Override
+			protected boolean isParentMatch(Viewer viewer, Object element) {
+				// matching sub-entries that were not read yet would read them all from the file
+				if (element instanceof LogEntry && ((LogEntry) element).hasDeferredChildren())
+					return false;
+				return super.isParentMatch(viewer, element);
+			}
 		};
 		filter.setIncludeLeadingWildcard(true);
-		fFilteredTree = new FilteredTree(parent, SWT.FULL_SELECTION, filter, true);
+		fFilteredTree = new FilteredTree(parent, SWT.FULL_SELECTION | SWT.VIRTUAL, filter, true);
 		// need to give filter Textbox some space from the border
 		if (fFilteredTree.getFilterControl() != null) {
 			Composite filterComposite = fFilteredTree.getFilterControl().getParent(); // FilteredTree new look lays filter Text on additional composite
@@ -645,6 +670,7 @@ public class LogView extends ViewPart implements ILogListener {
 	public void dispose() {
 		writeSettings();
 		Platform.removeLogListener(this);
+		fTailJob.cancel();
 		fClipboard.dispose();
 		if (fTextShell != null)
 			fTextShell.dispose();
@@ -827,24 +853,54 @@ public class LogView extends ViewPart implements ILogListener {
 	 * Reads the chosen backing log file
 	 */
 	void readLogFile() {
-		elements.clear();
-		groups.clear();
+		synchronized (fReadLock) {
+			List<LogEntry> result = new ArrayList<>();
+			LogTail tail = new LogTail(this.fInputFile);
+			LogSession lastLogSession = LogReader.parseLogFile(this.fInputFile, getLogMaxTailSize(), result, this.fMemento, tail);
+			synchronized (this) {
+				elements.clear();
+				groups.clear();
+				fLogTail = tail;
+				if (lastLogSession != null && (lastLogSession.getDate() == null || isEclipseStartTime(lastLogSession.getDate()))) {
+					currentSession = lastLogSession;
+				} else {
+					currentSession = null;
+				}
 
-		List<LogEntry> result = new ArrayList<>();
-		LogSession lastLogSession = LogReader.parseLogFile(this.fInputFile, getLogMaxTailSize(), result, this.fMemento);
-		if (lastLogSession != null && (lastLogSession.getDate() == null || isEclipseStartTime(lastLogSession.getDate()))) {
-			currentSession = lastLogSession;
-		} else {
-			currentSession = null;
+				group(result);
+				limitEntriesCount();
+			}
 		}
 
-		group(result);
-		limitEntriesCount();
-
 		getSite().getShell().getDisplay().asyncExec(() -> setContentDescription(getTitleSummary()));
 
 	}
 
+	/**
+	 * Reads the entries appended to the backing log file since it was last
+	 * read, reading the whole file again if the appended data cannot be parsed
+	 * on its own
+	 */
+	void readAppendedLogEntries() {
+		synchronized (fReadLock) {
+			LogTail tail = fLogTail;
+			List<LogEntry> result = new ArrayList<>();
+			if (tail == null || !tail.getFile().equals(fInputFile) || !LogReader.parseAppendedEntries(tail, result, fMemento)) {
+				readLogFile();
+				return;
+			}
+			if (!result.isEmpty()) {
+				synchronized (this) {
+					// only add the entries to the log they were parsed from
+					if (fLogTail == tail) {
+						group(result);
+						limitEntriesCount();
+					}
+				}
+			}
+		}
+	}
+
 	private boolean isEclipseStartTime(Date date) {
 		String ts = System.getProperty("eclipse.startTime"); //$NON-NLS-1$
 		try {
@@ -1011,8 +1067,8 @@ public class LogView extends ViewPart implements ILogListener {
 		}
 
 		if (fFirstEvent || (currentSession == null)) {
-			readLogFile();
-			asyncRefresh(true);
+			// parse the new entries of the log file in the background
+			fTailJob.schedule();
 			fFirstEvent = false;
 		} else {
 			LogEntry entry = createLogEntry(status);
@@ -1081,7 +1137,11 @@ public class LogView extends ViewPart implements ILogListener {
 				if (!fTree.isDisposed()) {
 					TreeViewer viewer = fFilteredTree.getViewer();
 					viewer.refresh();
-					viewer.expandToLevel(2);
+					LogTail tail = fLogTail;
+					// expanding ungrouped entries would read all deferred sub-entries
+					if (tail == null || !tail.isIndexed() || fMemento.getInteger(P_GROUP_BY).intValue() != GROUP_BY_NONE) {
+						viewer.expandToLevel(2);
+					}
 					fDeleteLogAction.setEnabled(
 							fInputFile.exists() && fInputFile.equals(Platform.getLogFileLocation().toFile()));
 					fOpenLogAction.setEnabled(fInputFile.exists());
@@ -1430,26 +1490,7 @@ public class LogView extends ViewPart implements ILogListener {
 
 	private void setComparator(byte sortType) {
 		if (sortType == DATE) {
-			fComparator = (e1, e2) -> {
-				long date1 = 0;
-				long date2 = 0;
-				if ((e1 instanceof LogEntry) && (e2 instanceof LogEntry)) {
-					date1 = ((LogEntry) e1).getDate().getTime();
-					date2 = ((LogEntry) e2).getDate().getTime();
-				} else if ((e1 instanceof LogSession) && (e2 instanceof LogSession)) {
-					date1 = ((LogSession) e1).getDate() == null ? 0 : ((LogSession) e1).getDate().getTime();
-					date2 = ((LogSession) e2).getDate() == null ? 0 : ((LogSession) e2).getDate().getTime();
-				}
-				if (date1 == date2) {
-					int result = elements.indexOf(e2) - elements.indexOf(e1);
-					if (DATE_ORDER == DESCENDING)
-						result *= DESCENDING;
-					return result;
-				}
-				if (DATE_ORDER == DESCENDING)
-					return date1 > date2 ? DESCENDING : ASCENDING;
-				return date1 < date2 ? DESCENDING : ASCENDING;
-			};
+			fComparator = (e1, e2) -> compareByDate(e1, e2, DATE_ORDER);
 		} else if (sortType == PLUGIN) {
 			fComparator = (e1, e2) -> {
 				if ((e1 instanceof LogEntry) && (e2 instanceof LogEntry)) {
@@ -1502,54 +1543,50 @@ public class LogView extends ViewPart implements ILogListener {
 			};
 		} else {
 			return new ViewerComparator() {
-				private int indexOf(Object[] array, Object o) {
-					if (o == null)
-						return -1;
-					for (int i = 0; i < array.length; ++i)
-						if (o.equals(array[i]))
-							return i;
-					return -1;
-				}
-
 				@Override
 				public int compare(Viewer viewer, Object e1, Object e2) {
-					long date1 = 0;
-					long date2 = 0;
-					if ((e1 instanceof LogEntry) && (e2 instanceof LogEntry)) {
-						date1 = ((LogEntry) e1).getDate().getTime();
-						date2 = ((LogEntry) e2).getDate().getTime();
-					} else if ((e1 instanceof LogSession) && (e2 instanceof LogSession)) {
-						date1 = ((LogSession) e1).getDate() == null ? 0 : ((LogSession) e1).getDate().getTime();
-						date2 = ((LogSession) e2).getDate() == null ? 0 : ((LogSession) e2).getDate().getTime();
-					}
-
-					if (date1 == date2) {
-						// Everything that appears in LogView should be an AbstractEntry.
-						AbstractEntry parent = (AbstractEntry) ((AbstractEntry) e1).getParent(null);
-						Object[] children = null;
-						if (parent != null)
-							children = parent.getChildren(parent);
-
-						int result = 0;
-						if (children != null) {
-							// The elements in children seem to be in reverse order,
-							// i.e. latest log message first, therefore index(e2)-index(e1)
-							result = indexOf(children, e2) - indexOf(children, e1);
-						} else {
-							result = elements.indexOf(e1) - elements.indexOf(e2);
-						}
-						if (DATE_ORDER == DESCENDING)
-							result *= DESCENDING;
-						return result;
-					}
-					if (DATE_ORDER == DESCENDING)
-						return date1 > date2 ? DESCENDING : ASCENDING;
-					return date1 < date2 ? DESCENDING : ASCENDING;
+					return compareByDate(e1, e2, DATE_ORDER);
 				}
 			};
 		}
 	}
 
+	/**
+	 * Compares two entries or sessions by date. Entries with the same date are
+	 * kept in the order they were read or logged, see
+	 * {@link AbstractEntry#getSequenceNumber()}.
+	 *
+	 * @param e1 the first element
+	 * @param e2 the second element
+	 * @param order {@link #ASCENDING} or {@link #DESCENDING}
+	 * @return a negative number, zero, or a positive number as the first element
+	 *         is sorted before, with or after the second one
+	 */
+	public static int compareByDate(Object e1, Object e2, int order) {
+		long date1 = 0;
+		long date2 = 0;
+		if ((e1 instanceof LogEntry) && (e2 instanceof LogEntry)) {
+			date1 = ((LogEntry) e1).getDate().getTime();
+			date2 = ((LogEntry) e2).getDate().getTime();
+		} else if ((e1 instanceof LogSession) && (e2 instanceof LogSession)) {
+			date1 = ((LogSession) e1).getDate() == null ? 0 : ((LogSession) e1).getDate().getTime();
+			date2 = ((LogSession) e2).getDate() == null ? 0 : ((LogSession) e2).getDate().getTime();
+		}
+
+		if (date1 == date2) {
+			int result = 0;
+			if ((e1 instanceof AbstractEntry) && (e2 instanceof AbstractEntry)) {
+				result = Long.compare(((AbstractEntry) e1).getSequenceNumber(), ((AbstractEntry) e2).getSequenceNumber());
+			}
+			if (order == DESCENDING)
+				result *= DESCENDING;
+			return result;
+		}
+		if (order == DESCENDING)
+			return date1 > date2 ? DESCENDING : ASCENDING;
+		return date1 < date2 ? DESCENDING : ASCENDING;
+	}
+
 	private void resetDialogButtons() {
 		((EventDetailsDialogAction) fPropertiesAction).resetDialogButtons();
 	}
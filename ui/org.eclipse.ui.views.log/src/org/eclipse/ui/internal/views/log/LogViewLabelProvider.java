@@ -69,7 +69,7 @@ public class LogViewLabelProvider extends LabelProvider implements ITableLabelPr
 				case IStatus.WARNING :
 					return warningImage;
 				default :
-					return (entry.getStack() == null ? errorImage : errorWithStackImage);
+					return (!entry.hasStack() ? errorImage : errorWithStackImage);
 			}
 		}
 		return null;
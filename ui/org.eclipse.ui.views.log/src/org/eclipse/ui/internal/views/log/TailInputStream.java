@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2005, 2014 IBM Corporation and others.
+ *  Copyright (c) 2005, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -57,6 +57,14 @@ public class TailInputStream extends InputStream {
 		return fRaf.read(b, off, len);
 	}
 
+	/**
+	 * @return the offset in the file of the next byte to read
+	 * @throws IOException
+	 */
+	public long getFilePointer() throws IOException {
+		return fRaf.getFilePointer();
+	}
+
 	@Override
 	public void close() throws IOException {
 		fRaf.close();